@@ -0,0 +1,700 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.net;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jolie.Interpreter;
+import jolie.net.http.Hpack.HeaderField;
+import jolie.net.http.Http2Connection;
+import jolie.net.http.Http2Exception;
+import jolie.net.http.HttpUtils;
+import jolie.net.protocols.ConcurrentCommProtocol;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.VariablePath;
+import jolie.util.ExceptionalCallable;
+
+/**
+ * HTTP/2 (RFC 7540), enabled with the <code>http2</code> parameter of the http and https protocols.
+ *
+ * Messages are encoded and decoded by {@link HttpProtocol} as HTTP/1.1 messages, which are
+ * translated to and from the streams of an {@link Http2Connection}: each stream carries a
+ * request-response exchange, so that concurrent requests share the same connection. Output ports
+ * speak HTTP/2 directly (with prior knowledge over cleartext, or negotiated with ALPN over TLS),
+ * while input ports also accept HTTP/1.1 connections, and their upgrade to HTTP/2 (h2c).
+ *
+ * Input ports use this protocol whatever their configuration, since connections may be accepted
+ * before the configuration is set: without the <code>http2</code> parameter, messages are just
+ * received and sent by {@link HttpProtocol}.
+ *
+ * Parameters (in <code>http2</code>):
+ * <ul>
+ * <li><code>maxConcurrentStreams</code>: how many requests may be in flight at the same time on a
+ * connection (default: 100).</li>
+ * </ul>
+ */
+public class Http2Protocol extends ConcurrentCommProtocol {
+	private static class Parameters {
+		private static final String HTTP2 = "http2";
+		private static final String MAX_CONCURRENT_STREAMS = "maxConcurrentStreams";
+	}
+
+	private static final int DEFAULT_MAX_CONCURRENT_STREAMS = 100;
+	private static final int MAX_POOLED_CODECS = 16;
+	private static final int MAX_HEAD_SIZE = 0x40000; // 256K, as in HttpParser
+	private static final int BUFFER_SIZE = 0x4000; // 16K, the default HTTP/2 frame size
+
+	private static final byte[] PREFACE_HEAD = "PRI * HTTP/2.0\r\n\r\n".getBytes( StandardCharsets.US_ASCII );
+	private static final byte[] SWITCHING_PROTOCOLS =
+		("HTTP/1.1 101 Switching Protocols" + HttpUtils.CRLF + "Connection: Upgrade" + HttpUtils.CRLF
+			+ "Upgrade: h2c" + HttpUtils.CRLF + HttpUtils.CRLF).getBytes( StandardCharsets.US_ASCII );
+
+	private static final OutputStream DISCARD = new OutputStream() {
+		@Override
+		public void write( int b ) {}
+
+		@Override
+		public void write( byte[] b, int off, int len ) {}
+	};
+
+	private enum Mode {
+		UNKNOWN, HTTP_1, HTTP_2
+	}
+
+	/**
+	 * A request-response exchange on a stream, with the codec that encodes and decodes its messages.
+	 */
+	private static class Exchange {
+		private final HttpProtocol codec;
+		private final long requestId;
+
+		private Exchange( HttpProtocol codec, long requestId ) {
+			this.codec = codec;
+			this.requestId = requestId;
+		}
+	}
+
+	private final URI location;
+	private final boolean inInputPort;
+	private final ExceptionalCallable< HttpProtocol, IOException > codecFactory;
+	private final Deque< HttpProtocol > codecs = new ArrayDeque<>();
+	private final Map< Integer, Exchange > exchanges = new ConcurrentHashMap<>();
+	private volatile Http2Connection connection;
+	private final Object streamOpeningLock = new Object();
+	private volatile Mode mode;
+	private HttpProtocol http1 = null;
+
+	public Http2Protocol(
+		VariablePath configurationPath,
+		URI location,
+		boolean inInputPort,
+		ExceptionalCallable< HttpProtocol, IOException > codecFactory ) {
+		super( configurationPath );
+		this.location = location;
+		this.inInputPort = inInputPort;
+		this.codecFactory = codecFactory;
+		this.connection = inInputPort ? null : new Http2Connection( true, maxConcurrentStreams() );
+		this.mode = inInputPort ? Mode.UNKNOWN : Mode.HTTP_2;
+	}
+
+	@Override
+	public String name() {
+		return "http";
+	}
+
+	private int maxConcurrentStreams() {
+		final Value http2 = getParameterFirstValue( Parameters.HTTP2 );
+		if( http2.hasChildren( Parameters.MAX_CONCURRENT_STREAMS ) ) {
+			return Math.max( 1, http2.getFirstChild( Parameters.MAX_CONCURRENT_STREAMS ).intValue() );
+		}
+		return DEFAULT_MAX_CONCURRENT_STREAMS;
+	}
+
+	@Override
+	public int maxInFlightRequests() {
+		return maxConcurrentStreams();
+	}
+
+	@Override
+	public boolean hasBufferedInput() {
+		final Http2Connection c = connection;
+		return c != null && c.hasReceivedMessages();
+	}
+
+	@Override
+	public String applicationProtocol() {
+		return checkBooleanParameter( Parameters.HTTP2 ) ? "h2" : null;
+	}
+
+	private HttpProtocol acquireCodec()
+		throws IOException {
+		HttpProtocol codec;
+		synchronized( codecs ) {
+			codec = codecs.poll();
+		}
+		if( codec == null ) {
+			codec = codecFactory.call();
+			codec.setChannel( channel() );
+			codec.setChunkedTransferCoding( false );
+		}
+		return codec;
+	}
+
+	private void releaseCodec( HttpProtocol codec ) {
+		synchronized( codecs ) {
+			if( codecs.size() < MAX_POOLED_CODECS ) {
+				codecs.push( codec );
+			}
+		}
+	}
+
+	@Override
+	public CommMessage recv( InputStream istream, OutputStream ostream )
+		throws IOException {
+		if( !inInputPort ) {
+			return recvResponse( istream, ostream );
+		}
+		if( mode == Mode.UNKNOWN ) {
+			final CommMessage message = recvFirst( istream, ostream );
+			if( mode != Mode.HTTP_2 || message != null ) {
+				return message;
+			}
+		}
+		return mode == Mode.HTTP_1 ? http1.recv( istream, ostream ) : recvRequest( istream, ostream );
+	}
+
+	/**
+	 * Receives the first message of a connection to an input port, which tells whether the client
+	 * speaks HTTP/2, with the connection preface, HTTP/1.1, or HTTP/1.1 upgrading to HTTP/2.
+	 */
+	private CommMessage recvFirst( InputStream istream, OutputStream ostream )
+		throws IOException {
+		http1 = codecFactory.call();
+		http1.setChannel( channel() );
+		if( !checkBooleanParameter( Parameters.HTTP2 ) ) {
+			mode = Mode.HTTP_1;
+			return http1.recv( istream, ostream );
+		}
+
+		final byte[] head = readHead( istream );
+		if( Arrays.equals( head, PREFACE_HEAD ) ) {
+			final byte[] rest = new byte[ Http2Connection.PREFACE.length - PREFACE_HEAD.length ];
+			int length = 0;
+			int r;
+			while( length < rest.length && (r = istream.read( rest, length, rest.length - length )) != -1 ) {
+				length += r;
+			}
+			if( length < rest.length || !Arrays.equals( rest, Arrays.copyOfRange( Http2Connection.PREFACE,
+				PREFACE_HEAD.length, Http2Connection.PREFACE.length ) ) ) {
+				throw new IOException( "Invalid HTTP/2 connection preface" );
+			}
+			startConnection( ostream );
+			return null;
+		}
+
+		final InputStream stream = new SequenceInputStream( new ByteArrayInputStream( head ), istream );
+		final String http2Settings = upgradeSettings( head );
+		if( http2Settings == null ) {
+			mode = Mode.HTTP_1;
+			return http1.recv( stream, ostream );
+		}
+
+		// The upgraded request becomes stream 1, whose response is sent with HTTP/2
+		ostream.write( SWITCHING_PROTOCOLS );
+		final HttpProtocol codec = http1;
+		codec.setChunkedTransferCoding( false );
+		http1 = null;
+		connection = new Http2Connection( false, maxConcurrentStreams() );
+		connection.upgrade( ostream, http2Settings );
+		mode = Mode.HTTP_2;
+		return recvRequest( 1, codec, stream, istream, ostream );
+	}
+
+	private void startConnection( OutputStream ostream )
+		throws IOException {
+		http1.setChunkedTransferCoding( false );
+		releaseCodec( http1 );
+		http1 = null;
+		connection = new Http2Connection( false, maxConcurrentStreams() );
+		connection.start( ostream );
+		mode = Mode.HTTP_2;
+	}
+
+	/**
+	 * Reads the head of an HTTP/1.x message, up to and including the empty line that ends it.
+	 */
+	private static byte[] readHead( InputStream istream )
+		throws IOException {
+		final ByteArrayOutputStream head = new ByteArrayOutputStream( 256 );
+		int lineLength = 0;
+		int b;
+		while( (b = istream.read()) != -1 ) {
+			if( head.size() == 0 && (b == '\r' || b == '\n') ) {
+				// Empty lines before the start line are ignored (RFC 7230, Section 3.5)
+				continue;
+			}
+			head.write( b );
+			if( b == '\n' ) {
+				if( lineLength == 0 ) {
+					break;
+				}
+				lineLength = 0;
+			} else if( b != '\r' ) {
+				lineLength++;
+			}
+			if( head.size() > MAX_HEAD_SIZE ) {
+				throw new IOException( "HTTP header exceeds the maximum allowed size (" + MAX_HEAD_SIZE + " bytes)" );
+			}
+		}
+		if( head.size() == 0 ) {
+			throw new ChannelClosingException( "[http] Remote host closed connection." );
+		}
+		return head.toByteArray();
+	}
+
+	/**
+	 * Returns the HTTP2-Settings header of a request upgrading to h2c (RFC 7540, Section 3.2), or null
+	 * if the request does not ask for the upgrade.
+	 */
+	private static String upgradeSettings( byte[] head ) {
+		boolean upgrade = false;
+		String settings = null;
+		final String[] lines = new String( head, StandardCharsets.ISO_8859_1 ).split( "\r?\n" );
+		for( int i = 1; i < lines.length; i++ ) {
+			final int colon = lines[ i ].indexOf( ':' );
+			if( colon > 0 ) {
+				final String name = lines[ i ].substring( 0, colon ).trim();
+				final String value = lines[ i ].substring( colon + 1 ).trim();
+				if( "upgrade".equalsIgnoreCase( name ) ) {
+					for( String token : value.split( "," ) ) {
+						upgrade |= "h2c".equalsIgnoreCase( token.trim() );
+					}
+				} else if( "http2-settings".equalsIgnoreCase( name ) ) {
+					settings = value;
+				}
+			}
+		}
+		return upgrade ? settings : null;
+	}
+
+	private CommMessage recvRequest( InputStream istream, OutputStream ostream )
+		throws IOException {
+		Http2Connection.ReceivedMessage received;
+		while( (received = connection.readMessage( istream, ostream, false )) != null ) {
+			final CommMessage message =
+				recvRequest( received.streamId(), acquireCodec(), toHttp1Request( received ), istream, ostream );
+			if( message != null ) {
+				return message;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Decodes a request received on a stream. If it can not be decoded, the error response is sent on
+	 * the stream and null is returned, without affecting the other streams.
+	 */
+	private CommMessage recvRequest( int streamId, HttpProtocol codec, InputStream request, InputStream istream,
+		OutputStream ostream )
+		throws IOException {
+		final StreamOutputStream out = new StreamOutputStream( istream, ostream, streamId, null );
+		final CommMessage message;
+		try {
+			message = codec.recv( request, out );
+		} catch( IOException e ) {
+			releaseCodec( codec );
+			out.close();
+			Interpreter.getInstance().logFine( e );
+			return null;
+		}
+		if( message == null ) {
+			releaseCodec( codec );
+			connection.resetStream( ostream, streamId, Http2Exception.INTERNAL_ERROR );
+			return null;
+		}
+		exchanges.put( streamId, new Exchange( codec, streamId ) );
+		return new CommMessage( streamId, message.operationName(), message.resourcePath(), message.value(),
+			message.fault() );
+	}
+
+	/**
+	 * Translates an HTTP/2 request to the HTTP/1.1 request decoded by {@link HttpProtocol}.
+	 */
+	private static InputStream toHttp1Request( Http2Connection.ReceivedMessage received ) {
+		final StringBuilder headers = new StringBuilder( 256 );
+		String method = null;
+		String path = null;
+		String authority = null;
+		StringBuilder cookie = null;
+		for( HeaderField field : received.headers() ) {
+			switch( field.name() ) {
+			case ":method":
+				method = field.value();
+				break;
+			case ":path":
+				path = field.value();
+				break;
+			case ":authority":
+				authority = field.value();
+				break;
+			case "host":
+				if( authority == null ) {
+					authority = field.value();
+				}
+				break;
+			case "cookie":
+				// Cookies may be split in multiple fields (RFC 7540, Section 8.1.2.5)
+				if( cookie == null ) {
+					cookie = new StringBuilder( field.value() );
+				} else {
+					cookie.append( "; " ).append( field.value() );
+				}
+				break;
+			case ":scheme":
+			case "content-length":
+				break;
+			default:
+				headers.append( field.name() ).append( ": " ).append( field.value() ).append( HttpUtils.CRLF );
+				break;
+			}
+		}
+		final StringBuilder head = new StringBuilder( headers.length() + 128 );
+		head.append( method ).append( ' ' ).append( path ).append( " HTTP/1.1" ).append( HttpUtils.CRLF );
+		if( authority != null ) {
+			head.append( "host: " ).append( authority ).append( HttpUtils.CRLF );
+		}
+		head.append( headers );
+		if( cookie != null ) {
+			head.append( "cookie: " ).append( cookie ).append( HttpUtils.CRLF );
+		}
+		head.append( "content-length: " ).append( received.content().length ).append( HttpUtils.CRLF )
+			.append( HttpUtils.CRLF );
+		return new SequenceInputStream(
+			new ByteArrayInputStream( head.toString().getBytes( StandardCharsets.ISO_8859_1 ) ),
+			new ByteArrayInputStream( received.content() ) );
+	}
+
+	@Override
+	public void send( OutputStream ostream, CommMessage message, InputStream istream )
+		throws IOException {
+		if( !inInputPort ) {
+			sendRequest( ostream, message, istream );
+		} else if( mode == Mode.HTTP_1 ) {
+			http1.send( ostream, message, istream );
+		} else {
+			sendResponse( ostream, message, istream );
+		}
+	}
+
+	private void sendResponse( OutputStream ostream, CommMessage message, InputStream istream )
+		throws IOException {
+		final int streamId = (int) message.id();
+		final Exchange exchange = exchanges.remove( streamId );
+		if( exchange == null ) {
+			throw new IOException( "No HTTP/2 stream for the response to message " + message.id() );
+		}
+		final StreamOutputStream out = new StreamOutputStream( istream, ostream, streamId, null );
+		try {
+			exchange.codec.send_internal( out, message, istream );
+			out.close();
+		} catch( IOException e ) {
+			if( out.committed() ) {
+				connection.resetStream( ostream, streamId, Http2Exception.INTERNAL_ERROR );
+			} else {
+				final StreamOutputStream errorOut = new StreamOutputStream( istream, ostream, streamId, null );
+				HttpUtils.errorGenerator( errorOut, e );
+				errorOut.close();
+			}
+			throw e;
+		} finally {
+			releaseCodec( exchange.codec );
+			// The connection stays open for the other streams, whatever the configuration of the codec
+			channel().setToBeClosed( false );
+		}
+	}
+
+	private void sendRequest( OutputStream ostream, CommMessage message, InputStream istream )
+		throws IOException {
+		connection.start( ostream );
+		final Exchange exchange = new Exchange( acquireCodec(), message.id() );
+		final StreamOutputStream out = new StreamOutputStream( istream, ostream, 0, exchange );
+		try {
+			exchange.codec.send_internal( out, message, istream );
+			out.close();
+		} catch( IOException e ) {
+			if( out.committed() ) {
+				exchanges.remove( out.streamId );
+				connection.resetStream( ostream, out.streamId, Http2Exception.CANCEL );
+			}
+			releaseCodec( exchange.codec );
+			throw e;
+		}
+	}
+
+	private CommMessage recvResponse( InputStream istream, OutputStream ostream )
+		throws IOException {
+		while( true ) {
+			final Http2Connection.ReceivedMessage received = connection.readMessage( istream, ostream, true );
+			final Exchange exchange = exchanges.remove( received.streamId() );
+			if( exchange == null ) {
+				// The request failed, and was cancelled
+				continue;
+			}
+			try {
+				if( received.error() != null ) {
+					return new CommMessage( exchange.requestId, "", "/", Value.create(),
+						new FaultException( "IOException", received.error() ) );
+				}
+				final CommMessage response = exchange.codec.recv( toHttp1Response( received ), DISCARD );
+				if( response == null ) {
+					return new CommMessage( exchange.requestId, "", "/", Value.create(),
+						new FaultException( "IOException", "Invalid HTTP/2 response" ) );
+				}
+				return new CommMessage( exchange.requestId, response.operationName(), response.resourcePath(),
+					response.value(), response.fault() );
+			} catch( IOException e ) {
+				return new CommMessage( exchange.requestId, "", "/", Value.create(),
+					new FaultException( "IOException", e ) );
+			} finally {
+				releaseCodec( exchange.codec );
+			}
+		}
+	}
+
+	/**
+	 * Translates an HTTP/2 response to the HTTP/1.1 response decoded by {@link HttpProtocol}.
+	 */
+	private static InputStream toHttp1Response( Http2Connection.ReceivedMessage received ) {
+		final StringBuilder head = new StringBuilder( 256 );
+		head.append( "HTTP/1.1 " ).append( received.headers().get( 0 ).value() ).append( HttpUtils.CRLF );
+		for( HeaderField field : received.headers() ) {
+			if( field.name().charAt( 0 ) != ':' && !field.name().equals( "content-length" ) ) {
+				head.append( field.name() ).append( ": " ).append( field.value() ).append( HttpUtils.CRLF );
+			}
+		}
+		head.append( "content-length: " ).append( received.content().length ).append( HttpUtils.CRLF )
+			.append( HttpUtils.CRLF );
+		return new SequenceInputStream(
+			new ByteArrayInputStream( head.toString().getBytes( StandardCharsets.ISO_8859_1 ) ),
+			new ByteArrayInputStream( received.content() ) );
+	}
+
+	/**
+	 * Translates an HTTP/1.1 message written by {@link HttpProtocol} to a message on a stream: the head
+	 * becomes the HEADERS frames, sent with the first content or when the stream is closed, and the
+	 * content becomes DATA frames.
+	 */
+	private class StreamOutputStream extends OutputStream {
+		private final InputStream istream;
+		private final OutputStream ostream;
+		private final Exchange exchange; // the request to send, if opening a stream
+		private final ByteArrayOutputStream head = new ByteArrayOutputStream( 256 );
+		private final byte[] buffer = new byte[ BUFFER_SIZE ];
+		private int count = 0;
+		private int lineLength = 0;
+		private boolean headComplete = false;
+		private boolean committed = false;
+		private boolean closed = false;
+		private int streamId;
+
+		private StreamOutputStream( InputStream istream, OutputStream ostream, int streamId, Exchange exchange ) {
+			this.istream = istream;
+			this.ostream = ostream;
+			this.streamId = streamId;
+			this.exchange = exchange;
+		}
+
+		/**
+		 * Returns true if the headers of the message have been sent.
+		 */
+		private boolean committed() {
+			return committed;
+		}
+
+		@Override
+		public void write( int b )
+			throws IOException {
+			write( new byte[] { (byte) b }, 0, 1 );
+		}
+
+		@Override
+		public void write( byte[] b, int off, int len )
+			throws IOException {
+			while( !headComplete && len > 0 ) {
+				final byte c = b[ off++ ];
+				len--;
+				head.write( c );
+				if( c == '\n' ) {
+					headComplete = lineLength == 0;
+					lineLength = 0;
+				} else if( c != '\r' ) {
+					lineLength++;
+				}
+			}
+			if( len == 0 ) {
+				return;
+			}
+			if( count + len > buffer.length ) {
+				writeBuffer( false );
+			}
+			if( len >= buffer.length ) {
+				commit( false );
+				connection.writeData( istream, ostream, streamId, b, off, len, false );
+			} else {
+				System.arraycopy( b, off, buffer, count, len );
+				count += len;
+			}
+		}
+
+		private void writeBuffer( boolean endStream )
+			throws IOException {
+			if( !committed && endStream && count == 0 ) {
+				commit( true );
+			} else {
+				commit( false );
+				if( count > 0 || endStream ) {
+					connection.writeData( istream, ostream, streamId, buffer, 0, count, endStream );
+				}
+			}
+			count = 0;
+		}
+
+		private void commit( boolean endStream )
+			throws IOException {
+			if( committed ) {
+				return;
+			}
+			if( !headComplete ) {
+				throw new IOException( "Incomplete HTTP message head" );
+			}
+			final List< HeaderField > headers = toHttp2Headers( head.toByteArray() );
+			committed = true;
+			if( exchange == null ) {
+				connection.writeHeaders( ostream, streamId, headers, endStream );
+			} else {
+				// Streams must be started in the order in which they are opened
+				synchronized( streamOpeningLock ) {
+					streamId = connection.openStream( istream, ostream );
+					exchanges.put( streamId, exchange );
+					connection.writeHeaders( ostream, streamId, headers, endStream );
+				}
+			}
+		}
+
+		@Override
+		public void close()
+			throws IOException {
+			if( !closed ) {
+				closed = true;
+				writeBuffer( true );
+			}
+		}
+	}
+
+	/**
+	 * Translates the head of an HTTP/1.1 message to HTTP/2 header fields, dropping the fields that are
+	 * specific to HTTP/1.1 connections (RFC 7540, Section 8.1.2.2).
+	 */
+	private List< HeaderField > toHttp2Headers( byte[] head )
+		throws IOException {
+		final String[] lines = new String( head, StandardCharsets.ISO_8859_1 ).split( "\r?\n" );
+		final List< HeaderField > headers = new ArrayList<>( lines.length + 3 );
+		String host = null;
+		for( int i = 1; i < lines.length; i++ ) {
+			final int colon = lines[ i ].indexOf( ':' );
+			if( colon > 0 ) {
+				final String name = lines[ i ].substring( 0, colon ).trim().toLowerCase( Locale.ROOT );
+				final String value = lines[ i ].substring( colon + 1 ).trim();
+				switch( name ) {
+				case "connection":
+				case "keep-alive":
+				case "proxy-connection":
+				case "transfer-encoding":
+				case "upgrade":
+					break;
+				case "host":
+					host = value;
+					break;
+				case "te":
+					if( value.equals( "trailers" ) ) {
+						headers.add( new HeaderField( name, value ) );
+					}
+					break;
+				default:
+					headers.add( new HeaderField( name, value ) );
+					break;
+				}
+			}
+		}
+
+		final String[] startLine = lines[ 0 ].split( " ", 3 );
+		if( startLine.length < 2 ) {
+			throw new IOException( "Invalid HTTP message: " + lines[ 0 ] );
+		}
+		final List< HeaderField > pseudoHeaders = new ArrayList<>( 4 );
+		if( inInputPort ) {
+			pseudoHeaders.add( new HeaderField( ":status", startLine[ 1 ] ) );
+		} else {
+			String path = startLine[ 1 ];
+			String authority = host;
+			if( !path.startsWith( "/" ) && !path.equals( "*" ) ) {
+				// The absolute form, used with proxies
+				try {
+					final URI target = new URI( path );
+					authority = target.getRawAuthority();
+					path = target.getRawPath().isEmpty() ? "/" : target.getRawPath();
+					if( target.getRawQuery() != null ) {
+						path += "?" + target.getRawQuery();
+					}
+				} catch( URISyntaxException e ) {
+					throw new IOException( e );
+				}
+			} else if( host != null && host.equals( location.getHost() ) && location.getPort() != -1 ) {
+				authority = host + ":" + location.getPort();
+			}
+			pseudoHeaders.add( new HeaderField( ":method", startLine[ 0 ] ) );
+			pseudoHeaders.add( new HeaderField( ":scheme",
+				"https".equals( configurationPath().getValue().strValue() ) ? "https" : "http" ) );
+			if( authority != null ) {
+				pseudoHeaders.add( new HeaderField( ":authority", authority ) );
+			}
+			pseudoHeaders.add( new HeaderField( ":path", path ) );
+		}
+		pseudoHeaders.addAll( headers );
+		return pseudoHeaders;
+	}
+}
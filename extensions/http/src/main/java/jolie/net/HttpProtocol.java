@@ -31,6 +31,10 @@ import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.HashMap;
@@ -42,6 +46,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.DeflaterOutputStream;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -65,6 +70,8 @@ import jolie.Interpreter;
 import jolie.js.JsUtils;
 import jolie.lang.Constants;
 import jolie.lang.NativeType;
+import jolie.net.http.ChunkedOutputStream;
+import jolie.net.http.HttpCompression;
 import jolie.net.http.HttpMessage;
 import jolie.net.http.HttpParser;
 import jolie.net.http.HttpUtils;
@@ -94,6 +101,9 @@ import jolie.xml.XmlUtils;
 public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol {
 	private static final int DEFAULT_STATUS_CODE = 200;
 	private static final int DEFAULT_REDIRECTION_STATUS_CODE = 303;
+	private static final int PARTIAL_CONTENT_STATUS_CODE = 206;
+	private static final int NOT_MODIFIED_STATUS_CODE = 304;
+	private static final int RANGE_NOT_SATISFIABLE_STATUS_CODE = 416;
 	private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream"; // default content type per RFC
 																					// 2616#7.2.1
 	private static final String DEFAULT_FORMAT = "xml";
@@ -190,6 +200,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private static final String DEFAULT_OPERATION = "default";
 		private static final String COMPRESSION = "compression";
 		private static final String COMPRESSION_TYPES = "compressionTypes";
+		private static final String COMPRESSION_LEVEL = "compressionLevel";
+		private static final String COMPRESSION_MIN_SIZE = "compressionMinSize";
 		private static final String REQUEST_COMPRESSION = "requestCompression";
 		private static final String FORMAT = "format";
 		private static final String RESPONSE_HEADER = "responseHeaders";
@@ -204,6 +216,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		private static final String DROP_URI_PATH = "dropURIPath";
 		private static final String CACHE_CONTROL = "cacheControl";
 		private static final String FORCE_CONTENT_DECODING = "forceContentDecoding";
+		private static final String RECEIVE_TO_FILE = "receiveToFile";
+		private static final String SPOOL_DIRECTORY = "spoolDirectory";
 
 		private static class MultiPartHeaders {
 			private static final String FILENAME = "filename";
@@ -257,6 +271,14 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		transformer.setOutputProperty( OutputKeys.INDENT, "no" );
 	}
 
+	/**
+	 * Sets whether contents of unknown size are sent with the chunked transfer coding (the default).
+	 * Protocols that frame the messages encoded by this one, like HTTP/2, turn it off.
+	 */
+	void setChunkedTransferCoding( boolean chunkedTransferCoding ) {
+		this.chunkedTransferCoding = chunkedTransferCoding;
+	}
+
 	public String getMultipartHeaderForPart( String operationName, String partName ) {
 		if( hasOperationSpecificParameter( operationName, Parameters.MULTIPART_HEADERS ) ) {
 			Value v = getOperationSpecificParameterFirstValue( operationName, Parameters.MULTIPART_HEADERS );
@@ -348,6 +370,11 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 	private String encoding = null;
 	private String responseFormat = null;
 	private boolean headRequest = false;
+	private boolean chunkedTransferCoding = true;
+	private String requestIfNoneMatch = null;
+	private String requestIfModifiedSince = null;
+	private String requestRange = null;
+	private String requestIfRange = null;
 
 	private static void send_appendQuerystring( Value value, StringBuilder headerBuilder )
 		throws IOException {
@@ -437,6 +464,14 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 	private static class EncodedContent {
 		private ByteArray content = null;
+		private Path file = null;
+		private long fileSize = 0;
+		private long fileLastModified = 0;
+		private int fileStatusCode = DEFAULT_STATUS_CODE;
+		private long fileOffset = 0;
+		private long fileLength = 0;
+		private String fileEncoding = null;
+		private String precompressedEncoding = null;
 		private String contentType = DEFAULT_CONTENT_TYPE;
 		private String contentDisposition = "";
 	}
@@ -594,6 +629,17 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			} else {
 				ret.content = new ByteArray( message.value().strValue().getBytes( charset ) );
 			}
+		} else if( "file".equals( format ) ) {
+			// The message is the path of a file, whose content is streamed by send_writeFile
+			if( message.isFault() ) {
+				ret.contentType = "text/plain";
+				ret.content = new ByteArray( message.fault().value().strValue().getBytes( charset ) );
+			} else {
+				ret.file = Paths.get( message.value().strValue() );
+				ret.fileSize = Files.size( ret.file );
+				ret.fileLastModified = Files.getLastModifiedTime( ret.file ).toMillis();
+				ret.fileLength = ret.fileSize;
+			}
 		}
 		return ret;
 	}
@@ -637,7 +683,83 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
-	private void send_appendResponseHeaders( CommMessage message, StringBuilder headerBuilder ) {
+	private static String fileEntityTag( EncodedContent encodedContent ) {
+		return "\"" + Long.toHexString( encodedContent.fileSize ) + '-'
+			+ Long.toHexString( encodedContent.fileLastModified ) + '"';
+	}
+
+	/**
+	 * Applies the conditional and range headers of the request being responded to, if any, to a file
+	 * content, and returns the status code of the response. Only single byte ranges are supported, as
+	 * the whole file may be sent in response to any range request.
+	 * 
+	 * Links: https://tools.ietf.org/html/rfc7232 and https://tools.ietf.org/html/rfc7233
+	 */
+	private int send_checkFileRequest( EncodedContent encodedContent ) {
+		final String entityTag = fileEntityTag( encodedContent );
+		final boolean notModified;
+		if( requestIfNoneMatch != null ) {
+			notModified = HttpUtils.matchesEntityTag( requestIfNoneMatch, entityTag );
+		} else if( requestIfModifiedSince != null ) {
+			final long since = HttpUtils.parseDate( requestIfModifiedSince );
+			notModified = since >= 0 && encodedContent.fileLastModified / 1000 <= since / 1000;
+		} else {
+			notModified = false;
+		}
+		if( notModified ) {
+			encodedContent.fileStatusCode = NOT_MODIFIED_STATUS_CODE;
+			encodedContent.fileLength = 0;
+			return encodedContent.fileStatusCode;
+		}
+
+		if( requestRange == null || !requestRange.startsWith( "bytes=" ) || requestRange.indexOf( ',' ) >= 0 ) {
+			return DEFAULT_STATUS_CODE;
+		}
+		if( requestIfRange != null && !requestIfRange.equals( entityTag )
+			&& HttpUtils.parseDate( requestIfRange ) / 1000 != encodedContent.fileLastModified / 1000 ) {
+			// The file has changed since the client got the first part of it
+			return DEFAULT_STATUS_CODE;
+		}
+		final String[] range = requestRange.substring( "bytes=".length() ).split( "-", 2 );
+		if( range.length < 2 ) {
+			return DEFAULT_STATUS_CODE;
+		}
+		final long first, last;
+		try {
+			if( range[ 0 ].trim().isEmpty() ) {
+				// The last bytes of the file
+				final long suffixLength = Long.parseLong( range[ 1 ].trim() );
+				first = suffixLength > 0 ? Math.max( encodedContent.fileSize - suffixLength, 0 )
+					: encodedContent.fileSize;
+				last = encodedContent.fileSize - 1;
+			} else {
+				first = Long.parseLong( range[ 0 ].trim() );
+				if( range[ 1 ].trim().isEmpty() ) {
+					last = encodedContent.fileSize - 1;
+				} else {
+					final long requestedLast = Long.parseLong( range[ 1 ].trim() );
+					if( requestedLast < first ) {
+						return DEFAULT_STATUS_CODE;
+					}
+					last = Math.min( requestedLast, encodedContent.fileSize - 1 );
+				}
+			}
+		} catch( NumberFormatException e ) {
+			return DEFAULT_STATUS_CODE;
+		}
+		if( first >= encodedContent.fileSize ) {
+			encodedContent.fileStatusCode = RANGE_NOT_SATISFIABLE_STATUS_CODE;
+			encodedContent.fileLength = 0;
+		} else {
+			encodedContent.fileStatusCode = PARTIAL_CONTENT_STATUS_CODE;
+			encodedContent.fileOffset = first;
+			encodedContent.fileLength = last - first + 1;
+		}
+		return encodedContent.fileStatusCode;
+	}
+
+	private void send_appendResponseHeaders( CommMessage message, EncodedContent encodedContent,
+		StringBuilder headerBuilder ) {
 		int statusCode = DEFAULT_STATUS_CODE;
 		String statusDescription = null;
 
@@ -662,6 +784,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			statusCode = DEFAULT_REDIRECTION_STATUS_CODE;
 		} else if( message.isFault() ) {
 			statusCode = 500;
+		} else if( encodedContent.file != null ) {
+			statusCode = send_checkFileRequest( encodedContent );
 		}
 
 		if( statusDescription == null ) {
@@ -856,7 +980,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 		headerBuilder.append( HttpUtils.CRLF );
 
-		if( encodedContent.content != null ) {
+		if( encodedContent.content != null || encodedContent.file != null ) {
 			String transferEncoding = getStringParameter( Parameters.CONTENT_TRANSFER_ENCODING );
 			if( transferEncoding.length() > 0 ) {
 				headerBuilder.append( "Content-Transfer-Encoding: " ).append( transferEncoding )
@@ -870,7 +994,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 					.append( HttpUtils.CRLF );
 			}
 
-			boolean compression = encoding != null && checkBooleanParameter( Parameters.COMPRESSION, true );
+			boolean compression = checkBooleanParameter( Parameters.COMPRESSION, true );
 			String compressionTypes = getStringParameter(
 				Parameters.COMPRESSION_TYPES,
 				"text/html text/css text/plain text/xml text/x-js application/json application/javascript application/x-www-form-urlencoded application/xhtml+xml application/xml x-font/otf x-font/ttf application/x-font-ttf" )
@@ -880,26 +1004,113 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 				compression = false;
 			}
 			if( compression ) {
-				Interpreter.getInstance().tracer().trace( () -> {
-					try {
-						final String traceMessage = encodedContent.content.toString( charset );
-						return new ProtocolTraceAction( ProtocolTraceAction.Type.HTTP, "HTTP COMPRESSING MESSAGE",
-							message.resourcePath(), traceMessage, null );
-					} catch( UnsupportedEncodingException e ) {
-						return new ProtocolTraceAction( ProtocolTraceAction.Type.HTTP, "HTTP COMPRESSING MESSAGE",
-							message.resourcePath(), e.getMessage(), null );
-					}
-
-				} );
-				encodedContent.content = HttpUtils.encode( encoding, encodedContent.content, headerBuilder );
+				final long size =
+					encodedContent.file != null ? encodedContent.fileSize : encodedContent.content.size();
+				compression = size >= (hasParameter( Parameters.COMPRESSION_MIN_SIZE )
+					? getIntParameter( Parameters.COMPRESSION_MIN_SIZE )
+					: HttpCompression.DEFAULT_MIN_SIZE);
+			}
+			if( compression && inInputPort ) {
+				// The response would be compressed for other values of Accept-Encoding
+				headerBuilder.append( "Vary: Accept-Encoding" ).append( HttpUtils.CRLF );
+			}
+			compression = compression && encoding != null && !HttpCompression.acceptedCodings( encoding ).isEmpty();
+			if( encodedContent.file != null ) {
+				send_appendFileHeaders( encodedContent, compression, headerBuilder );
 			}
+			if( compression && encodedContent.file != null
+				&& encodedContent.fileStatusCode == DEFAULT_STATUS_CODE
+				&& !send_usePrecompressedFile( encodedContent ) ) {
+				encodedContent.fileEncoding = HttpCompression.negotiate( encoding, true );
+			}
+			if( encodedContent.fileEncoding != null ) {
+				// The size of the compressed content is known only after sending it
+				headerBuilder.append( "Content-Encoding: " ).append( encodedContent.fileEncoding )
+					.append( HttpUtils.CRLF );
+				if( chunkedTransferCoding ) {
+					headerBuilder.append( "Transfer-Encoding: chunked" ).append( HttpUtils.CRLF );
+				}
+			} else if( encodedContent.file != null ) {
+				if( encodedContent.precompressedEncoding != null ) {
+					headerBuilder.append( "Content-Encoding: " ).append( encodedContent.precompressedEncoding )
+						.append( HttpUtils.CRLF );
+				}
+				if( encodedContent.fileStatusCode != NOT_MODIFIED_STATUS_CODE ) {
+					headerBuilder.append( "Content-Length: " ).append( encodedContent.fileLength )
+						.append( HttpUtils.CRLF );
+				}
+			} else {
+				if( compression ) {
+					Interpreter.getInstance().tracer().trace( () -> {
+						try {
+							final String traceMessage = encodedContent.content.toString( charset );
+							return new ProtocolTraceAction( ProtocolTraceAction.Type.HTTP, "HTTP COMPRESSING MESSAGE",
+								message.resourcePath(), traceMessage, null );
+						} catch( UnsupportedEncodingException e ) {
+							return new ProtocolTraceAction( ProtocolTraceAction.Type.HTTP, "HTTP COMPRESSING MESSAGE",
+								message.resourcePath(), e.getMessage(), null );
+						}
 
-			headerBuilder.append( "Content-Length: " ).append( encodedContent.content.size() ).append( HttpUtils.CRLF );
+					} );
+					encodedContent.content =
+						HttpUtils.encode( encoding, encodedContent.content, send_getCompressionLevel(), headerBuilder );
+				}
+				headerBuilder.append( "Content-Length: " ).append( encodedContent.content.size() )
+					.append( HttpUtils.CRLF );
+			}
 		} else {
 			headerBuilder.append( "Content-Length: 0" ).append( HttpUtils.CRLF );
 		}
 	}
 
+	private int send_getCompressionLevel() {
+		return hasParameter( Parameters.COMPRESSION_LEVEL ) ? getIntParameter( Parameters.COMPRESSION_LEVEL )
+			: HttpCompression.DEFAULT_LEVEL;
+	}
+
+	/**
+	 * Replaces the file to send with a precompressed sibling accepted by the peer, e.g., index.html.gz
+	 * for index.html, unless the sibling is older than the file. Returns true if the file was replaced.
+	 */
+	private boolean send_usePrecompressedFile( EncodedContent encodedContent )
+		throws IOException {
+		for( String coding : HttpCompression.acceptedCodings( encoding ) ) {
+			final String extension = HttpCompression.fileExtension( coding );
+			if( extension != null ) {
+				final Path sibling =
+					encodedContent.file.resolveSibling( encodedContent.file.getFileName().toString() + extension );
+				if( Files.isRegularFile( sibling )
+					&& Files.getLastModifiedTime( sibling ).toMillis() >= encodedContent.fileLastModified ) {
+					encodedContent.file = sibling;
+					encodedContent.fileLength = Files.size( sibling );
+					encodedContent.precompressedEncoding = coding;
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private void send_appendFileHeaders( EncodedContent encodedContent, boolean compression,
+		StringBuilder headerBuilder ) {
+		if( inInputPort ) {
+			// Compressed contents are different representations of the file, hence the weak tag
+			headerBuilder.append( "ETag: " ).append( compression ? "W/" : "" )
+				.append( fileEntityTag( encodedContent ) ).append( HttpUtils.CRLF );
+			headerBuilder.append( "Last-Modified: " ).append( HttpUtils.formatDate( encodedContent.fileLastModified ) )
+				.append( HttpUtils.CRLF );
+			headerBuilder.append( "Accept-Ranges: bytes" ).append( HttpUtils.CRLF );
+		}
+		if( encodedContent.fileStatusCode == PARTIAL_CONTENT_STATUS_CODE ) {
+			headerBuilder.append( "Content-Range: bytes " ).append( encodedContent.fileOffset ).append( '-' )
+				.append( encodedContent.fileOffset + encodedContent.fileLength - 1 ).append( '/' )
+				.append( encodedContent.fileSize ).append( HttpUtils.CRLF );
+		} else if( encodedContent.fileStatusCode == RANGE_NOT_SATISFIABLE_STATUS_CODE ) {
+			headerBuilder.append( "Content-Range: bytes */" ).append( encodedContent.fileSize )
+				.append( HttpUtils.CRLF );
+		}
+	}
+
 	private String prepareSendDebugString( CharSequence header, EncodedContent encodedContent, String charset,
 		boolean showContent )
 		throws UnsupportedEncodingException {
@@ -908,6 +1119,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			.append( header );
 		if( showContent && encodedContent != null && encodedContent.content != null ) {
 			debugSB.append( encodedContent.content.toString( charset ) );
+		} else if( showContent && encodedContent != null && encodedContent.file != null ) {
+			debugSB.append( "[content of file " ).append( encodedContent.file ).append( ']' );
 		}
 		return debugSB.toString();
 	}
@@ -917,7 +1130,7 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		if( checkBooleanParameter( Parameters.DEBUG ) ) {
 			boolean showContent = false;
 			if( getParameterVector( Parameters.DEBUG ).first().getFirstChild( "showContent" ).intValue() > 0
-				&& encodedContent.content != null ) {
+				&& (encodedContent.content != null || encodedContent.file != null) ) {
 				showContent = true;
 			}
 			Interpreter.getInstance().logInfo( prepareSendDebugString( header, encodedContent, charset, showContent ) );
@@ -933,9 +1146,11 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		String contentType = null;
 		StringBuilder headerBuilder = new StringBuilder();
 
+		EncodedContent encodedContent;
 		if( inInputPort ) {
 			// We're responding to a request
-			send_appendResponseHeaders( message, headerBuilder );
+			encodedContent = send_encodeContent( message, method, charset, format );
+			send_appendResponseHeaders( message, encodedContent, headerBuilder );
 			send_appendResponseUserHeader( message, headerBuilder );
 			send_appendHeader( headerBuilder );
 
@@ -951,8 +1166,8 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			}
 			send_appendRequestUserHeader( message, headerBuilder );
 			send_appendRequestHeaders( message, method, qsFormat, headerBuilder );
+			encodedContent = send_encodeContent( message, method, charset, format );
 		}
-		EncodedContent encodedContent = send_encodeContent( message, method, charset, format );
 		if( contentType != null ) {
 			encodedContent.contentType = contentType;
 		}
@@ -977,10 +1192,52 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		ostream.write( headerBuilder.toString().getBytes( HttpUtils.URL_DECODER_ENC ) );
 		if( encodedContent.content != null && !headRequest ) {
 			ostream.write( encodedContent.content.getBytes() );
+		} else if( encodedContent.file != null && !headRequest
+			&& (encodedContent.fileStatusCode == DEFAULT_STATUS_CODE
+				|| encodedContent.fileStatusCode == PARTIAL_CONTENT_STATUS_CODE) ) {
+			send_writeFile( ostream, encodedContent );
 		}
 		headRequest = false;
 	}
 
+	private static final int FILE_BUFFER_SIZE = 0x2000; // 8K
+
+	/**
+	 * Writes the content of a file without loading it in memory. Uncompressed contents are transferred
+	 * by the channel, possibly without copying them at all (see
+	 * {@link CommChannel#transferFile(OutputStream, FileChannel, long, long)}). Compressed contents are
+	 * sent with the chunked transfer coding, if enabled, since their size is not known in advance.
+	 */
+	private void send_writeFile( OutputStream ostream, EncodedContent encodedContent )
+		throws IOException {
+		if( encodedContent.fileEncoding == null ) {
+			try( FileChannel fileChannel = FileChannel.open( encodedContent.file ) ) {
+				channel().transferFile( ostream, fileChannel, encodedContent.fileOffset, encodedContent.fileLength );
+			}
+		} else {
+			try( InputStream fileStream = Files.newInputStream( encodedContent.file ) ) {
+				final byte[] buffer = new byte[ FILE_BUFFER_SIZE ];
+				final ChunkedOutputStream chunkedStream =
+					chunkedTransferCoding ? new ChunkedOutputStream( ostream, FILE_BUFFER_SIZE ) : null;
+				final DeflaterOutputStream encodedStream = HttpCompression.outputStream( encodedContent.fileEncoding,
+					chunkedStream != null ? chunkedStream : ostream, send_getCompressionLevel() );
+				try {
+					int r;
+					while( (r = fileStream.read( buffer )) != -1 ) {
+						encodedStream.write( buffer, 0, r );
+					}
+					encodedStream.finish();
+				} finally {
+					// Closing the stream would close the channel
+					HttpCompression.release( encodedStream );
+				}
+				if( chunkedStream != null ) {
+					chunkedStream.finish();
+				}
+			}
+		}
+	}
+
 	@Override
 	public void send( OutputStream ostream, CommMessage message, InputStream istream )
 		throws IOException {
@@ -1205,7 +1462,10 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 			debugSB.append( "\tcookie: " ).append( entry.getKey() ).append( '=' ).append( entry.getValue() )
 				.append( '\n' );
 		}
-		if( showContent ) {
+		if( showContent && message.contentFile() != null ) {
+			debugSB.append( "--> Message content\n" )
+				.append( "[stored in file " ).append( message.contentFile() ).append( ']' );
+		} else if( showContent ) {
 			debugSB.append( "--> Message content\n" )
 				.append( new String( message.content(), charset ) );
 		}
@@ -1357,10 +1617,47 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		}
 	}
 
+	/**
+	 * Tells, given the head of a message, whether the message is for an operation that receives its
+	 * contents in files (see {@link Parameters#RECEIVE_TO_FILE}).
+	 */
+	private boolean recv_receivesToFile( HttpMessage message ) {
+		final String operationName;
+		if( message.isResponse() ) {
+			operationName = inputId;
+		} else {
+			final DecodedMessage decodedMessage = new DecodedMessage();
+			recv_checkReceivingOperation( message, decodedMessage );
+			operationName = decodedMessage.operationName;
+		}
+		return operationName != null
+			&& getOperationSpecificBooleanParameter( operationName, Parameters.RECEIVE_TO_FILE );
+	}
+
+	private Path recv_getSpoolDirectory() {
+		final String directory = getStringParameter( Parameters.SPOOL_DIRECTORY );
+		return directory.isEmpty() ? null : Paths.get( directory );
+	}
+
 	@Override
 	public CommMessage recv_internal( InputStream istream, OutputStream ostream )
 		throws IOException {
-		HttpMessage message = new HttpParser( istream ).parse();
+		final HttpMessage message =
+			new HttpParser( istream, this::recv_receivesToFile, recv_getSpoolDirectory() ).parse();
+		CommMessage retVal = null;
+		try {
+			retVal = recv_decodeMessage( message );
+		} finally {
+			if( retVal == null ) {
+				// The file storing the content, if any, has not been handed over to the service
+				message.deleteContentFile();
+			}
+		}
+		return retVal;
+	}
+
+	private CommMessage recv_decodeMessage( HttpMessage message )
+		throws IOException {
 		String charset = HttpUtils.getCharset( null, message );
 		CommMessage retVal = null;
 		DecodedMessage decodedMessage = new DecodedMessage();
@@ -1394,6 +1691,12 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 
 		encoding = message.getProperty( "accept-encoding" );
 		headRequest = inInputPort && message.isHead();
+		// Used when responding with a file, see send_checkFileRequest
+		final boolean isConditional = inInputPort && (message.isGet() || message.isHead());
+		requestIfNoneMatch = isConditional ? message.getProperty( "if-none-match" ) : null;
+		requestIfModifiedSince = isConditional ? message.getProperty( "if-modified-since" ) : null;
+		requestRange = inInputPort && message.isGet() ? message.getProperty( "range" ) : null;
+		requestIfRange = inInputPort && message.isGet() ? message.getProperty( "if-range" ) : null;
 
 		String contentType = DEFAULT_CONTENT_TYPE;
 		if( message.getProperty( "content-type" ) != null ) {
@@ -1414,9 +1717,15 @@ public class HttpProtocol extends CommProtocol implements HttpUtils.HttpProtocol
 		/* https://tools.ietf.org/html/rfc7231#section-4.3 */
 		if( !message.isGet() && !message.isHead() ) {
 			// body parsing
-			if( message.size() > 0 ) {
+			if( message.contentFile() != null ) {
+				// The operation receives its contents as the path of the file storing them, which the
+				// service is then responsible for
+				decodedMessage.value.setValue( message.contentFile().toAbsolutePath().toString() );
+			} else if( message.size() > 0 ) {
 				recv_parseMessage( message, decodedMessage, contentType, charset );
 			}
+		} else {
+			message.deleteContentFile();
 		}
 
 		if( !message.isResponse() ) {
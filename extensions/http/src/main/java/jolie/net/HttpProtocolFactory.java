@@ -31,6 +31,7 @@ import javax.xml.transform.TransformerFactory;
 import jolie.net.ext.CommProtocolFactory;
 import jolie.net.protocols.CommProtocol;
 import jolie.runtime.AndJarDeps;
+import jolie.runtime.Value;
 import jolie.runtime.VariablePath;
 
 @AndJarDeps( { "jolie-xml.jar", "jolie-js.jar", "json_simple.jar" } )
@@ -48,14 +49,13 @@ public class HttpProtocolFactory extends CommProtocolFactory {
 		transformerFactory = TransformerFactory.newInstance();
 	}
 
-	@Override
-	public CommProtocol createInputProtocol( VariablePath configurationPath, URI location )
+	private HttpProtocol createHttpProtocol( VariablePath configurationPath, URI location, boolean inInputPort )
 		throws IOException {
 		try {
 			return new HttpProtocol(
 				configurationPath,
 				location,
-				true,
+				inInputPort,
 				transformerFactory,
 				docBuilderFactory,
 				docBuilder );
@@ -64,19 +64,22 @@ public class HttpProtocolFactory extends CommProtocolFactory {
 		}
 	}
 
+	@Override
+	public CommProtocol createInputProtocol( VariablePath configurationPath, URI location )
+		throws IOException {
+		// The protocol of input ports is chosen for each connection, see Http2Protocol
+		return new Http2Protocol( configurationPath, location, true,
+			() -> createHttpProtocol( configurationPath, location, true ) );
+	}
+
 	@Override
 	public CommProtocol createOutputProtocol( VariablePath configurationPath, URI location )
 		throws IOException {
-		try {
-			return new HttpProtocol(
-				configurationPath,
-				location,
-				false,
-				transformerFactory,
-				docBuilderFactory,
-				docBuilder );
-		} catch( TransformerConfigurationException e ) {
-			throw new IOException( e );
+		final Value configuration = configurationPath.getValue();
+		if( configuration.hasChildren( "http2" ) && configuration.getFirstChild( "http2" ).boolValue() ) {
+			return new Http2Protocol( configurationPath, location, false,
+				() -> createHttpProtocol( configurationPath, location, false ) );
 		}
+		return createHttpProtocol( configurationPath, location, false );
 	}
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.net.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a message content with the chunked transfer coding, for contents whose size is not known
+ * in advance. Writes are buffered and sent as chunks of at most the given size; {@link #finish()}
+ * sends the last chunk, without closing the underlying stream.
+ *
+ * Link: https://tools.ietf.org/html/rfc7230#section-4.1
+ */
+public class ChunkedOutputStream extends OutputStream {
+	private static final byte[] CRLF = HttpUtils.CRLF.getBytes( StandardCharsets.US_ASCII );
+	private static final byte[] LAST_CHUNK =
+		("0" + HttpUtils.CRLF + HttpUtils.CRLF).getBytes( StandardCharsets.US_ASCII );
+
+	private final OutputStream stream;
+	private final byte[] buffer;
+	private int count = 0;
+	private boolean finished = false;
+
+	public ChunkedOutputStream( OutputStream stream, int chunkSize ) {
+		this.stream = stream;
+		this.buffer = new byte[ chunkSize ];
+	}
+
+	private void writeChunk( byte[] b, int off, int len )
+		throws IOException {
+		if( len > 0 ) {
+			stream.write( Integer.toHexString( len ).getBytes( StandardCharsets.US_ASCII ) );
+			stream.write( CRLF );
+			stream.write( b, off, len );
+			stream.write( CRLF );
+		}
+	}
+
+	private void writeBuffer()
+		throws IOException {
+		writeChunk( buffer, 0, count );
+		count = 0;
+	}
+
+	private void checkNotFinished()
+		throws IOException {
+		if( finished ) {
+			throw new IOException( "The chunked content has already been finished" );
+		}
+	}
+
+	@Override
+	public void write( int b )
+		throws IOException {
+		checkNotFinished();
+		if( count == buffer.length ) {
+			writeBuffer();
+		}
+		buffer[ count++ ] = (byte) b;
+	}
+
+	@Override
+	public void write( byte[] b, int off, int len )
+		throws IOException {
+		checkNotFinished();
+		if( len >= buffer.length ) {
+			// Large writes become chunks of their own
+			writeBuffer();
+			writeChunk( b, off, len );
+		} else {
+			if( len > buffer.length - count ) {
+				writeBuffer();
+			}
+			System.arraycopy( b, off, buffer, count, len );
+			count += len;
+		}
+	}
+
+	/**
+	 * Sends the buffered data as a chunk, without finishing the content.
+	 */
+	@Override
+	public void flush()
+		throws IOException {
+		writeBuffer();
+		stream.flush();
+	}
+
+	/**
+	 * Sends the buffered data and the last chunk. The underlying stream is not closed.
+	 */
+	public void finish()
+		throws IOException {
+		if( !finished ) {
+			writeBuffer();
+			stream.write( LAST_CHUNK );
+			finished = true;
+		}
+	}
+
+	/**
+	 * Same as {@link #finish()}.
+	 */
+	@Override
+	public void close()
+		throws IOException {
+		finish();
+	}
+}
@@ -0,0 +1,673 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.net.http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HPACK, the compression format for the headers of HTTP/2 (RFC 7541).
+ *
+ * An {@link Encoder} and a {@link Decoder} keep the dynamic tables of the two directions of a
+ * connection, so they must encode and decode the header blocks of that connection in the order in
+ * which these are sent and received. Header names and values are strings of octets, which are
+ * represented with the ISO-8859-1 charset, like in {@link HttpParser}.
+ */
+public final class Hpack {
+	/**
+	 * The size of the dynamic tables at the start of a connection.
+	 */
+	public static final int DEFAULT_TABLE_SIZE = 4096;
+
+	// The size of an entry is the length of its name and value, plus this overhead (RFC 7541, 4.1)
+	private static final int ENTRY_OVERHEAD = 32;
+
+	// The maximum number of headers in a header list, as for HTTP/1.x messages (see HttpParser)
+	private static final int MAX_HEADER_COUNT = 512;
+
+	// RFC 7541, Appendix A
+	private static final String[][] STATIC_TABLE = {
+		{ ":authority", "" },
+		{ ":method", "GET" },
+		{ ":method", "POST" },
+		{ ":path", "/" },
+		{ ":path", "/index.html" },
+		{ ":scheme", "http" },
+		{ ":scheme", "https" },
+		{ ":status", "200" },
+		{ ":status", "204" },
+		{ ":status", "206" },
+		{ ":status", "304" },
+		{ ":status", "400" },
+		{ ":status", "404" },
+		{ ":status", "500" },
+		{ "accept-charset", "" },
+		{ "accept-encoding", "gzip, deflate" },
+		{ "accept-language", "" },
+		{ "accept-ranges", "" },
+		{ "accept", "" },
+		{ "access-control-allow-origin", "" },
+		{ "age", "" },
+		{ "allow", "" },
+		{ "authorization", "" },
+		{ "cache-control", "" },
+		{ "content-disposition", "" },
+		{ "content-encoding", "" },
+		{ "content-language", "" },
+		{ "content-length", "" },
+		{ "content-location", "" },
+		{ "content-range", "" },
+		{ "content-type", "" },
+		{ "cookie", "" },
+		{ "date", "" },
+		{ "etag", "" },
+		{ "expect", "" },
+		{ "expires", "" },
+		{ "from", "" },
+		{ "host", "" },
+		{ "if-match", "" },
+		{ "if-modified-since", "" },
+		{ "if-none-match", "" },
+		{ "if-range", "" },
+		{ "if-unmodified-since", "" },
+		{ "last-modified", "" },
+		{ "link", "" },
+		{ "location", "" },
+		{ "max-forwards", "" },
+		{ "proxy-authenticate", "" },
+		{ "proxy-authorization", "" },
+		{ "range", "" },
+		{ "referer", "" },
+		{ "refresh", "" },
+		{ "retry-after", "" },
+		{ "server", "" },
+		{ "set-cookie", "" },
+		{ "strict-transport-security", "" },
+		{ "transfer-encoding", "" },
+		{ "user-agent", "" },
+		{ "vary", "" },
+		{ "via", "" },
+		{ "www-authenticate", "" }
+	};
+
+	// RFC 7541, Appendix B, without the end-of-string symbol
+	private static final int[] HUFFMAN_CODES = {
+		0x1ff8, 0x7fffd8, 0xfffffe2, 0xfffffe3, 0xfffffe4, 0xfffffe5, 0xfffffe6, 0xfffffe7,
+		0xfffffe8, 0xffffea, 0x3ffffffc, 0xfffffe9, 0xfffffea, 0x3ffffffd, 0xfffffeb, 0xfffffec,
+		0xfffffed, 0xfffffee, 0xfffffef, 0xffffff0, 0xffffff1, 0xffffff2, 0x3ffffffe, 0xffffff3,
+		0xffffff4, 0xffffff5, 0xffffff6, 0xffffff7, 0xffffff8, 0xffffff9, 0xffffffa, 0xffffffb,
+		0x14, 0x3f8, 0x3f9, 0xffa, 0x1ff9, 0x15, 0xf8, 0x7fa,
+		0x3fa, 0x3fb, 0xf9, 0x7fb, 0xfa, 0x16, 0x17, 0x18,
+		0x0, 0x1, 0x2, 0x19, 0x1a, 0x1b, 0x1c, 0x1d,
+		0x1e, 0x1f, 0x5c, 0xfb, 0x7ffc, 0x20, 0xffb, 0x3fc,
+		0x1ffa, 0x21, 0x5d, 0x5e, 0x5f, 0x60, 0x61, 0x62,
+		0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69, 0x6a,
+		0x6b, 0x6c, 0x6d, 0x6e, 0x6f, 0x70, 0x71, 0x72,
+		0xfc, 0x73, 0xfd, 0x1ffb, 0x7fff0, 0x1ffc, 0x3ffc, 0x22,
+		0x7ffd, 0x3, 0x23, 0x4, 0x24, 0x5, 0x25, 0x26,
+		0x27, 0x6, 0x74, 0x75, 0x28, 0x29, 0x2a, 0x7,
+		0x2b, 0x76, 0x2c, 0x8, 0x9, 0x2d, 0x77, 0x78,
+		0x79, 0x7a, 0x7b, 0x7ffe, 0x7fc, 0x3ffd, 0x1ffd, 0xffffffc,
+		0xfffe6, 0x3fffd2, 0xfffe7, 0xfffe8, 0x3fffd3, 0x3fffd4, 0x3fffd5, 0x7fffd9,
+		0x3fffd6, 0x7fffda, 0x7fffdb, 0x7fffdc, 0x7fffdd, 0x7fffde, 0xffffeb, 0x7fffdf,
+		0xffffec, 0xffffed, 0x3fffd7, 0x7fffe0, 0xffffee, 0x7fffe1, 0x7fffe2, 0x7fffe3,
+		0x7fffe4, 0x1fffdc, 0x3fffd8, 0x7fffe5, 0x3fffd9, 0x7fffe6, 0x7fffe7, 0xffffef,
+		0x3fffda, 0x1fffdd, 0xfffe9, 0x3fffdb, 0x3fffdc, 0x7fffe8, 0x7fffe9, 0x1fffde,
+		0x7fffea, 0x3fffdd, 0x3fffde, 0xfffff0, 0x1fffdf, 0x3fffdf, 0x7fffeb, 0x7fffec,
+		0x1fffe0, 0x1fffe1, 0x3fffe0, 0x1fffe2, 0x7fffed, 0x3fffe1, 0x7fffee, 0x7fffef,
+		0xfffea, 0x3fffe2, 0x3fffe3, 0x3fffe4, 0x7ffff0, 0x3fffe5, 0x3fffe6, 0x7ffff1,
+		0x3ffffe0, 0x3ffffe1, 0xfffeb, 0x7fff1, 0x3fffe7, 0x7ffff2, 0x3fffe8, 0x1ffffec,
+		0x3ffffe2, 0x3ffffe3, 0x3ffffe4, 0x7ffffde, 0x7ffffdf, 0x3ffffe5, 0xfffff1, 0x1ffffed,
+		0x7fff2, 0x1fffe3, 0x3ffffe6, 0x7ffffe0, 0x7ffffe1, 0x3ffffe7, 0x7ffffe2, 0xfffff2,
+		0x1fffe4, 0x1fffe5, 0x3ffffe8, 0x3ffffe9, 0xffffffd, 0x7ffffe3, 0x7ffffe4, 0x7ffffe5,
+		0xfffec, 0xfffff3, 0xfffed, 0x1fffe6, 0x3fffe9, 0x1fffe7, 0x1fffe8, 0x7ffff3,
+		0x3fffea, 0x3fffeb, 0x1ffffee, 0x1ffffef, 0xfffff4, 0xfffff5, 0x3ffffea, 0x7ffff4,
+		0x3ffffeb, 0x7ffffe6, 0x3ffffec, 0x3ffffed, 0x7ffffe7, 0x7ffffe8, 0x7ffffe9, 0x7ffffea,
+		0x7ffffeb, 0xffffffe, 0x7ffffec, 0x7ffffed, 0x7ffffee, 0x7ffffef, 0x7fffff0, 0x3ffffee
+	};
+
+	private static final byte[] HUFFMAN_LENGTHS = {
+		13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+		28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+		6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+		5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+		13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+		7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+		15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+		6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+		20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+		24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+		22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+		21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+		26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+		19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+		20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+		26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26
+	};
+
+	/*
+	 * The Huffman codes as a binary tree. The children of node n are at 2n (bit 0) and 2n + 1 (bit 1):
+	 * a positive child is another node, a negative child c is the leaf of symbol ~c, and 0 is a path
+	 * that no code takes (the root, which is node 0, is nobody's child).
+	 */
+	private static final int[] HUFFMAN_TREE = new int[ 2 * 256 ];
+
+	private static final Map< HeaderField, Integer > STATIC_FIELDS = new HashMap<>();
+	private static final Map< String, Integer > STATIC_NAMES = new HashMap<>();
+
+	static {
+		int nodes = 1;
+		for( int symbol = 0; symbol < HUFFMAN_CODES.length; symbol++ ) {
+			final int code = HUFFMAN_CODES[ symbol ];
+			int node = 0;
+			for( int bit = HUFFMAN_LENGTHS[ symbol ] - 1; bit > 0; bit-- ) {
+				final int slot = 2 * node + ((code >>> bit) & 1);
+				if( HUFFMAN_TREE[ slot ] == 0 ) {
+					HUFFMAN_TREE[ slot ] = nodes++;
+				}
+				node = HUFFMAN_TREE[ slot ];
+			}
+			HUFFMAN_TREE[ 2 * node + (code & 1) ] = ~symbol;
+		}
+
+		for( int i = STATIC_TABLE.length - 1; i >= 0; i-- ) {
+			// Iterating backwards, the lowest index of a name is the one that remains
+			STATIC_FIELDS.put( new HeaderField( STATIC_TABLE[ i ][ 0 ], STATIC_TABLE[ i ][ 1 ] ), i + 1 );
+			STATIC_NAMES.put( STATIC_TABLE[ i ][ 0 ], i + 1 );
+		}
+	}
+
+	private Hpack() {}
+
+	/**
+	 * A header field, i.e., a name and a value.
+	 */
+	public static final class HeaderField {
+		private final String name;
+		private final String value;
+
+		public HeaderField( String name, String value ) {
+			this.name = name;
+			this.value = value;
+		}
+
+		public String name() {
+			return name;
+		}
+
+		public String value() {
+			return value;
+		}
+
+		private int size() {
+			return name.length() + value.length() + ENTRY_OVERHEAD;
+		}
+
+		@Override
+		public boolean equals( Object other ) {
+			if( !(other instanceof HeaderField) ) {
+				return false;
+			}
+			final HeaderField field = (HeaderField) other;
+			return name.equals( field.name ) && value.equals( field.value );
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * name.hashCode() + value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return name + ": " + value;
+		}
+	}
+
+	/**
+	 * A dynamic table (RFC 7541, Section 2.3.2), as a circular array of its entries. The encoder also
+	 * indexes the entries by field and name, remembering for each the insertion number of its newest
+	 * entry: the index of an entry is then given by how many entries were inserted after it.
+	 */
+	private static final class DynamicTable {
+		private HeaderField[] entries = new HeaderField[ 16 ];
+		private int next = 0; // where the next entry goes
+		private int length = 0;
+		private int size = 0;
+		private int capacity;
+		private long insertions = 0;
+		private final Map< HeaderField, Long > fieldInsertions;
+		private final Map< String, Long > nameInsertions;
+
+		private DynamicTable( int capacity, boolean indexed ) {
+			this.capacity = capacity;
+			this.fieldInsertions = indexed ? new HashMap<>() : null;
+			this.nameInsertions = indexed ? new HashMap<>() : null;
+		}
+
+		/**
+		 * Returns the entry at the given index, where 1 is the newest entry.
+		 */
+		private HeaderField get( int index ) {
+			return entries[ (next - index + entries.length) % entries.length ];
+		}
+
+		private void evictOldest() {
+			final int oldest = (next - length + entries.length) % entries.length;
+			final HeaderField field = entries[ oldest ];
+			entries[ oldest ] = null;
+			length--;
+			size -= field.size();
+			if( fieldInsertions != null ) {
+				final Long insertion = insertions - length - 1;
+				fieldInsertions.remove( field, insertion );
+				nameInsertions.remove( field.name, insertion );
+			}
+		}
+
+		private void setCapacity( int capacity ) {
+			this.capacity = capacity;
+			while( size > capacity ) {
+				evictOldest();
+			}
+		}
+
+		private void add( HeaderField field ) {
+			while( length > 0 && size + field.size() > capacity ) {
+				evictOldest();
+			}
+			if( field.size() > capacity ) {
+				// The table is now empty, and the field does not enter it (RFC 7541, Section 4.4)
+				return;
+			}
+			if( length == entries.length ) {
+				final HeaderField[] grown = new HeaderField[ entries.length * 2 ];
+				for( int i = 0; i < length; i++ ) {
+					grown[ i ] = get( length - i );
+				}
+				entries = grown;
+				next = length;
+			}
+			entries[ next ] = field;
+			next = (next + 1) % entries.length;
+			length++;
+			size += field.size();
+			if( fieldInsertions != null ) {
+				fieldInsertions.put( field, insertions );
+				nameInsertions.put( field.name, insertions );
+			}
+			insertions++;
+		}
+
+		/**
+		 * Returns the index in the whole address space (static table first) of the newest entry with the
+		 * given insertion number, or 0 if there is none.
+		 */
+		private int index( Long insertion ) {
+			return insertion == null ? 0 : STATIC_TABLE.length + (int) (insertions - insertion);
+		}
+	}
+
+	/**
+	 * Encodes header lists into header blocks.
+	 */
+	public static final class Encoder {
+		private final DynamicTable table = new DynamicTable( DEFAULT_TABLE_SIZE, true );
+		private int pendingMinCapacity = Integer.MAX_VALUE;
+		private boolean capacityChanged = false;
+
+		/**
+		 * Sets the maximum size of the dynamic table allowed by the decoder of the peer, i.e., its
+		 * SETTINGS_HEADER_TABLE_SIZE. The encoder uses at most {@link Hpack#DEFAULT_TABLE_SIZE} anyway, and
+		 * signals the change at the start of the next header block.
+		 *
+		 * @param maxSize the maximum size allowed by the peer
+		 */
+		public void setMaxTableSize( long maxSize ) {
+			final int capacity = (int) Math.min( maxSize, DEFAULT_TABLE_SIZE );
+			if( capacity != table.capacity || capacityChanged ) {
+				pendingMinCapacity = Math.min( pendingMinCapacity, capacity );
+				capacityChanged = true;
+				table.setCapacity( capacity );
+			}
+		}
+
+		/**
+		 * Encodes a header list. Header names must be in lower case.
+		 *
+		 * @param fields the header list
+		 * @param out the stream to write the header block to
+		 */
+		public void encode( List< HeaderField > fields, ByteArrayOutputStream out ) {
+			if( capacityChanged ) {
+				// RFC 7541, Section 4.2
+				if( pendingMinCapacity < table.capacity ) {
+					writeInteger( out, 5, 0x20, pendingMinCapacity );
+				}
+				writeInteger( out, 5, 0x20, table.capacity );
+				pendingMinCapacity = Integer.MAX_VALUE;
+				capacityChanged = false;
+			}
+			for( HeaderField field : fields ) {
+				encode( field, out );
+			}
+		}
+
+		private void encode( HeaderField field, ByteArrayOutputStream out ) {
+			final boolean sensitive = isSensitive( field.name );
+			if( !sensitive ) {
+				Integer index = STATIC_FIELDS.get( field );
+				if( index == null ) {
+					index = table.index( table.fieldInsertions.get( field ) );
+				}
+				if( index > 0 ) {
+					writeInteger( out, 7, 0x80, index );
+					return;
+				}
+			}
+
+			Integer nameIndex = STATIC_NAMES.get( field.name );
+			if( nameIndex == null ) {
+				nameIndex = table.index( table.nameInsertions.get( field.name ) );
+			}
+			if( sensitive ) {
+				writeInteger( out, 4, 0x10, nameIndex );
+			} else if( isVolatile( field.name ) || field.size() > table.capacity / 4 ) {
+				// Large fields would evict many others, for little gain
+				writeInteger( out, 4, 0x00, nameIndex );
+			} else {
+				writeInteger( out, 6, 0x40, nameIndex );
+				table.add( field );
+			}
+			if( nameIndex == 0 ) {
+				writeString( out, field.name );
+			}
+			writeString( out, field.value );
+		}
+
+		/**
+		 * Fields that should never be compressed with the help of the dynamic table, which may be used to
+		 * guess them (RFC 7541, Section 7.1).
+		 */
+		private static boolean isSensitive( String name ) {
+			return name.equals( "authorization" ) || name.equals( "proxy-authorization" );
+		}
+
+		/**
+		 * Fields whose values change with most messages, so that indexing them is a waste of the table.
+		 */
+		private static boolean isVolatile( String name ) {
+			switch( name ) {
+			case ":path":
+			case "content-length":
+			case "content-range":
+			case "cookie":
+			case "date":
+			case "etag":
+			case "if-modified-since":
+			case "if-none-match":
+			case "last-modified":
+			case "location":
+			case "set-cookie":
+			case "x-jolie-messageid":
+				return true;
+			default:
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Decodes header blocks into header lists.
+	 */
+	public static final class Decoder {
+		private final DynamicTable table = new DynamicTable( DEFAULT_TABLE_SIZE, false );
+		private final int maxTableSize;
+		private final int maxHeaderListSize;
+		private byte[] block;
+		private int position;
+		private int end;
+
+		/**
+		 * Creates a decoder.
+		 *
+		 * @param maxTableSize the maximum size of the dynamic table, which the peer can not exceed with
+		 *        table size updates (the SETTINGS_HEADER_TABLE_SIZE sent to the peer)
+		 * @param maxHeaderListSize the maximum size of a decoded header list, computed as for the
+		 *        SETTINGS_MAX_HEADER_LIST_SIZE setting
+		 */
+		public Decoder( int maxTableSize, int maxHeaderListSize ) {
+			this.maxTableSize = maxTableSize;
+			this.maxHeaderListSize = maxHeaderListSize;
+			table.setCapacity( maxTableSize );
+		}
+
+		/**
+		 * Decodes a header block. A header list that exceeds the limits on its size or on its number of
+		 * fields is decoded anyway, to keep the dynamic table in sync with the encoder of the peer, but is
+		 * not returned.
+		 *
+		 * @param block the buffer containing the header block
+		 * @param length the length of the header block
+		 * @return the header list, or null if it exceeds the limits
+		 * @throws Http2Exception with COMPRESSION_ERROR if the header block is not valid
+		 */
+		public List< HeaderField > decode( byte[] block, int length )
+			throws Http2Exception {
+			this.block = block;
+			this.position = 0;
+			this.end = length;
+			final List< HeaderField > fields = new ArrayList<>();
+			long listSize = 0;
+			int count = 0;
+			boolean atStart = true;
+			try {
+				while( position < end ) {
+					final int b = block[ position ] & 0xFF;
+					final HeaderField field;
+					if( (b & 0x80) != 0 ) {
+						// Indexed field
+						field = get( readInteger( 7 ) );
+					} else if( (b & 0x40) != 0 ) {
+						// Literal field with incremental indexing
+						field = readLiteral( 6 );
+						table.add( field );
+					} else if( (b & 0x20) != 0 ) {
+						// Dynamic table size update
+						if( !atStart ) {
+							throw error( "dynamic table size update after a header field" );
+						}
+						final int capacity = readInteger( 5 );
+						if( capacity > maxTableSize ) {
+							throw error( "dynamic table size update beyond the maximum size" );
+						}
+						table.setCapacity( capacity );
+						continue;
+					} else {
+						// Literal field without indexing (0000) or never indexed (0001)
+						field = readLiteral( 4 );
+					}
+					atStart = false;
+					listSize += field.size();
+					if( listSize <= maxHeaderListSize && ++count <= MAX_HEADER_COUNT ) {
+						fields.add( field );
+					}
+				}
+			} finally {
+				this.block = null;
+			}
+			return listSize > maxHeaderListSize || count > MAX_HEADER_COUNT ? null : fields;
+		}
+
+		private static Http2Exception error( String what ) {
+			return new Http2Exception( Http2Exception.COMPRESSION_ERROR, "Invalid HPACK header block: " + what );
+		}
+
+		private HeaderField get( int index )
+			throws Http2Exception {
+			if( index <= 0 ) {
+				throw error( "index 0" );
+			} else if( index <= STATIC_TABLE.length ) {
+				final String[] entry = STATIC_TABLE[ index - 1 ];
+				return new HeaderField( entry[ 0 ], entry[ 1 ] );
+			} else if( index - STATIC_TABLE.length <= table.length ) {
+				return table.get( index - STATIC_TABLE.length );
+			}
+			throw error( "index " + index + " out of the tables" );
+		}
+
+		private HeaderField readLiteral( int prefixBits )
+			throws Http2Exception {
+			final int nameIndex = readInteger( prefixBits );
+			final String name = nameIndex == 0 ? readString() : get( nameIndex ).name;
+			return new HeaderField( name, readString() );
+		}
+
+		private int readInteger( int prefixBits )
+			throws Http2Exception {
+			final int mask = (1 << prefixBits) - 1;
+			int value = block[ position++ ] & mask;
+			if( value < mask ) {
+				return value;
+			}
+			int shift = 0;
+			int b;
+			do {
+				if( position == end ) {
+					throw error( "truncated integer" );
+				}
+				if( shift > 21 ) {
+					throw error( "integer too large" );
+				}
+				b = block[ position++ ] & 0xFF;
+				value += (b & 0x7F) << shift;
+				shift += 7;
+			} while( (b & 0x80) != 0 );
+			return value;
+		}
+
+		private String readString()
+			throws Http2Exception {
+			if( position == end ) {
+				throw error( "missing string" );
+			}
+			final boolean huffman = (block[ position ] & 0x80) != 0;
+			final int length = readInteger( 7 );
+			if( length > end - position ) {
+				throw error( "truncated string" );
+			}
+			final String string = huffman ? huffmanDecode( block, position, length )
+				: new String( block, position, length, StandardCharsets.ISO_8859_1 );
+			position += length;
+			return string;
+		}
+	}
+
+	private static void writeInteger( ByteArrayOutputStream out, int prefixBits, int flags, int value ) {
+		final int mask = (1 << prefixBits) - 1;
+		if( value < mask ) {
+			out.write( flags | value );
+			return;
+		}
+		out.write( flags | mask );
+		value -= mask;
+		while( value >= 0x80 ) {
+			out.write( (value & 0x7F) | 0x80 );
+			value >>>= 7;
+		}
+		out.write( value );
+	}
+
+	/**
+	 * Writes a string literal, with the Huffman code if that makes it shorter.
+	 */
+	private static void writeString( ByteArrayOutputStream out, String string ) {
+		long bits = 0;
+		for( int i = 0; i < string.length(); i++ ) {
+			bits += HUFFMAN_LENGTHS[ string.charAt( i ) & 0xFF ];
+		}
+		final int huffmanLength = (int) ((bits + 7) >>> 3);
+		if( huffmanLength < string.length() ) {
+			writeInteger( out, 7, 0x80, huffmanLength );
+			huffmanEncode( out, string );
+		} else {
+			writeInteger( out, 7, 0x00, string.length() );
+			final byte[] bytes = string.getBytes( StandardCharsets.ISO_8859_1 );
+			out.write( bytes, 0, bytes.length );
+		}
+	}
+
+	private static void huffmanEncode( ByteArrayOutputStream out, String string ) {
+		// Only the lowest bits of the accumulator are pending, the others have been written already
+		long accumulator = 0;
+		int pending = 0;
+		for( int i = 0; i < string.length(); i++ ) {
+			final int symbol = string.charAt( i ) & 0xFF;
+			accumulator = (accumulator << HUFFMAN_LENGTHS[ symbol ]) | HUFFMAN_CODES[ symbol ];
+			pending += HUFFMAN_LENGTHS[ symbol ];
+			while( pending >= 8 ) {
+				pending -= 8;
+				out.write( (int) (accumulator >>> pending) );
+			}
+		}
+		if( pending > 0 ) {
+			// Padding with the most significant bits of the end-of-string code, which are all 1s
+			out.write( (int) ((accumulator << (8 - pending)) | (0xFF >>> pending)) );
+		}
+	}
+
+	private static String huffmanDecode( byte[] data, int offset, int length )
+		throws Http2Exception {
+		// The shortest codes are 5 bits long
+		final char[] chars = new char[ length * 8 / 5 ];
+		int count = 0;
+		int node = 0;
+		int bitsSinceSymbol = 0;
+		boolean onlyOnes = true;
+		for( int i = offset; i < offset + length; i++ ) {
+			final int b = data[ i ];
+			for( int shift = 7; shift >= 0; shift-- ) {
+				final int bit = (b >>> shift) & 1;
+				final int child = HUFFMAN_TREE[ 2 * node + bit ];
+				if( child < 0 ) {
+					chars[ count++ ] = (char) ~child;
+					node = 0;
+					bitsSinceSymbol = 0;
+					onlyOnes = true;
+				} else if( child == 0 ) {
+					// This includes the end-of-string code, which must not appear in strings
+					throw Decoder.error( "invalid Huffman code" );
+				} else {
+					node = child;
+					bitsSinceSymbol++;
+					onlyOnes &= bit == 1;
+				}
+			}
+		}
+		// The padding must be shorter than 8 bits and made of 1s (RFC 7541, Section 5.2)
+		if( bitsSinceSymbol > 7 || !onlyOnes ) {
+			throw Decoder.error( "invalid Huffman padding" );
+		}
+		return new String( chars, 0, count );
+	}
+}
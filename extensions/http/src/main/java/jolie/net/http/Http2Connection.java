@@ -0,0 +1,1143 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.net.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jolie.net.ChannelClosingException;
+import jolie.net.http.Hpack.HeaderField;
+import jolie.util.ExceptionalCallable;
+
+/**
+ * The framing layer of an HTTP/2 connection (RFC 7540). It reads and writes frames, keeps the state
+ * of the streams, compresses headers with HPACK and enforces flow control in both directions, while
+ * the messages exchanged on the streams are left to its user.
+ *
+ * Reading and writing are independent: one thread at a time reads frames, with
+ * {@link #readMessage(InputStream, OutputStream, boolean) readMessage}, while other threads write
+ * the frames of different streams, which are interleaved frame by frame. A writer that waits for
+ * the peer, e.g., for a WINDOW_UPDATE frame, reads frames itself if no other thread is reading
+ * them; the messages it receives in the meantime are kept for the next call of readMessage (see
+ * {@link #hasReceivedMessages()}).
+ *
+ * Received contents are kept in memory, and acknowledged to the peer as they arrive.
+ */
+public class Http2Connection {
+	/**
+	 * The connection preface sent by clients (RFC 7540, Section 3.5).
+	 */
+	public static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes( StandardCharsets.US_ASCII );
+
+	private static final int FRAME_HEADER_LENGTH = 9;
+
+	private static final int DATA = 0x0;
+	private static final int HEADERS = 0x1;
+	private static final int PRIORITY = 0x2;
+	private static final int RST_STREAM = 0x3;
+	private static final int SETTINGS = 0x4;
+	private static final int PUSH_PROMISE = 0x5;
+	private static final int PING = 0x6;
+	private static final int GOAWAY = 0x7;
+	private static final int WINDOW_UPDATE = 0x8;
+	private static final int CONTINUATION = 0x9;
+
+	private static final int FLAG_END_STREAM = 0x1;
+	private static final int FLAG_ACK = 0x1;
+	private static final int FLAG_END_HEADERS = 0x4;
+	private static final int FLAG_PADDED = 0x8;
+	private static final int FLAG_PRIORITY = 0x20;
+
+	private static final int SETTINGS_HEADER_TABLE_SIZE = 0x1;
+	private static final int SETTINGS_ENABLE_PUSH = 0x2;
+	private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+	private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+	private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+	private static final int SETTINGS_MAX_HEADER_LIST_SIZE = 0x6;
+
+	private static final int DEFAULT_WINDOW_SIZE = 65535;
+	private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE;
+	private static final int DEFAULT_MAX_FRAME_SIZE = 0x4000; // 16K, which is also the size we accept
+	private static final int MAX_MAX_FRAME_SIZE = 0xFFFFFF;
+
+	// The receive windows we announce for each stream and for the whole connection
+	private static final int STREAM_WINDOW_SIZE = 0x100000; // 1M
+	private static final int CONNECTION_WINDOW_SIZE = 0x1000000; // 16M
+
+	// The same limit as for the head of HTTP/1.x messages, see HttpParser
+	private static final int MAX_HEADER_LIST_SIZE = 0x40000; // 256K
+
+	private static final long WAIT_TIMEOUT = 100; // ms
+
+	private static final byte[] NO_CONTENT = new byte[ 0 ];
+
+	/**
+	 * A message received on a stream, or the error that closed a stream opened by this endpoint before
+	 * its response was received.
+	 */
+	public static final class ReceivedMessage {
+		private final int streamId;
+		private final List< HeaderField > headers;
+		private final byte[] content;
+		private final Http2Exception error;
+
+		private ReceivedMessage( int streamId, List< HeaderField > headers, byte[] content, Http2Exception error ) {
+			this.streamId = streamId;
+			this.headers = headers;
+			this.content = content;
+			this.error = error;
+		}
+
+		public int streamId() {
+			return streamId;
+		}
+
+		/**
+		 * Returns the header fields of the message, starting with the pseudo-header fields, and including
+		 * those of the trailer, if any.
+		 */
+		public List< HeaderField > headers() {
+			return headers;
+		}
+
+		public byte[] content() {
+			return content;
+		}
+
+		/**
+		 * Returns the error that closed the stream, or null if a message was received.
+		 */
+		public Http2Exception error() {
+			return error;
+		}
+	}
+
+	// The windows are updated by the connection, which PMD does not see
+	@SuppressWarnings( "PMD.ImmutableField" )
+	private static final class Stream {
+		private final int id;
+		private long sendWindow; // guarded by flowLock
+		private int receiveWindow = STREAM_WINDOW_SIZE;
+		private int unacknowledged = 0;
+		private List< HeaderField > headers = null;
+		private ByteArrayOutputStream content = null;
+		private boolean localClosed = false; // guarded by the stream
+		private boolean remoteClosed = false; // guarded by the stream
+		private volatile boolean reset = false;
+
+		private Stream( int id, long sendWindow ) {
+			this.id = id;
+			this.sendWindow = sendWindow;
+		}
+	}
+
+	private final boolean client;
+	private final int maxConcurrentStreams;
+	private final Map< Integer, Stream > streams = new ConcurrentHashMap<>();
+	private final Queue< ReceivedMessage > received = new ConcurrentLinkedQueue<>();
+
+	private final ReentrantLock writeLock = new ReentrantLock();
+	private final Hpack.Encoder encoder = new Hpack.Encoder();
+	private final byte[] writeHeader = new byte[ FRAME_HEADER_LENGTH ];
+	private boolean started = false;
+	private volatile int peerMaxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+	private final ReentrantLock readLock = new ReentrantLock();
+	private final Hpack.Decoder decoder = new Hpack.Decoder( Hpack.DEFAULT_TABLE_SIZE, MAX_HEADER_LIST_SIZE );
+	private final byte[] readHeader = new byte[ FRAME_HEADER_LENGTH ];
+	private final byte[] payload = new byte[ DEFAULT_MAX_FRAME_SIZE ];
+	private byte[] headerBlock = new byte[ DEFAULT_MAX_FRAME_SIZE ];
+	private int headerBlockLength = 0;
+	private int headerBlockFlags = 0;
+	private int continuationStreamId = 0; // the stream of the header block being received, if any
+	private int receiveWindow = CONNECTION_WINDOW_SIZE;
+	private int unacknowledged = 0;
+	private boolean expectingPreface = false;
+	private volatile int lastPeerStreamId = 0;
+
+	private final Object flowLock = new Object();
+	private long sendWindow = DEFAULT_WINDOW_SIZE;
+	private long peerInitialWindowSize = DEFAULT_WINDOW_SIZE;
+	private long peerMaxConcurrentStreams = Long.MAX_VALUE;
+	private int localStreams = 0;
+	private int nextStreamId = 1;
+	private boolean goAwayReceived = false;
+
+	/**
+	 * Creates a connection.
+	 *
+	 * @param client true for the client side of the connection, false for the server side
+	 * @param maxConcurrentStreams the maximum number of streams that the peer may open at the same time
+	 */
+	public Http2Connection( boolean client, int maxConcurrentStreams ) {
+		this.client = client;
+		this.maxConcurrentStreams = maxConcurrentStreams;
+	}
+
+	/**
+	 * Starts the connection, sending the connection preface of this endpoint: the preface string
+	 * ({@link #PREFACE}, clients only) and the settings. Calls after the first one do nothing.
+	 */
+	public void start( OutputStream out )
+		throws IOException {
+		writeLock.lock();
+		try {
+			if( started ) {
+				return;
+			}
+			started = true;
+			if( client ) {
+				out.write( PREFACE );
+			}
+			final ByteArrayOutputStream settings = new ByteArrayOutputStream( 18 );
+			if( client ) {
+				writeSetting( settings, SETTINGS_ENABLE_PUSH, 0 );
+			} else {
+				writeSetting( settings, SETTINGS_MAX_CONCURRENT_STREAMS, maxConcurrentStreams );
+			}
+			writeSetting( settings, SETTINGS_INITIAL_WINDOW_SIZE, STREAM_WINDOW_SIZE );
+			writeSetting( settings, SETTINGS_MAX_HEADER_LIST_SIZE, MAX_HEADER_LIST_SIZE );
+			writeFrame( out, SETTINGS, 0, 0, settings.toByteArray(), 0, settings.size() );
+			writeWindowUpdate( out, 0, CONNECTION_WINDOW_SIZE - DEFAULT_WINDOW_SIZE );
+			out.flush();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Starts the server side of a connection upgraded from HTTP/1.1 (RFC 7540, Section 3.2), after the
+	 * 101 response has been sent. The upgraded request becomes stream 1, whose response is sent on the
+	 * connection, and the preface of the client is expected before its first frame.
+	 *
+	 * @param http2Settings the value of the HTTP2-Settings header of the upgraded request
+	 */
+	public void upgrade( OutputStream out, String http2Settings )
+		throws IOException {
+		final byte[] settings;
+		try {
+			settings = Base64.getUrlDecoder().decode( http2Settings.trim() );
+		} catch( IllegalArgumentException e ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid HTTP2-Settings header" );
+		}
+		if( settings.length % 6 != 0 ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid HTTP2-Settings header" );
+		}
+		readLock.lock();
+		try {
+			applySettings( settings, settings.length );
+			expectingPreface = true;
+			lastPeerStreamId = 1;
+			synchronized( flowLock ) {
+				final Stream stream = new Stream( 1, peerInitialWindowSize );
+				stream.remoteClosed = true;
+				streams.put( 1, stream );
+			}
+		} finally {
+			readLock.unlock();
+		}
+		start( out );
+	}
+
+	/**
+	 * Returns true if messages have been received that were not returned by
+	 * {@link #readMessage(InputStream, OutputStream, boolean) readMessage} yet.
+	 */
+	public boolean hasReceivedMessages() {
+		return !received.isEmpty();
+	}
+
+	/**
+	 * Returns the next received message, reading frames until one is complete.
+	 *
+	 * @param in the stream to read frames from
+	 * @param out the stream to write frames to, e.g., acknowledgements
+	 * @param block if false, stop reading when no more input is available, after reading at least a
+	 *        frame, and return null if no message is complete
+	 * @return the next received message, or null
+	 * @throws Http2Exception if a connection error occurred, after sending GOAWAY to the peer
+	 */
+	public ReceivedMessage readMessage( InputStream in, OutputStream out, boolean block )
+		throws IOException {
+		readLock.lock();
+		try {
+			boolean read = false;
+			ReceivedMessage message;
+			while( (message = received.poll()) == null ) {
+				if( !block && read && in.available() <= 0 ) {
+					return null;
+				}
+				readFrame( in, out );
+				read = true;
+			}
+			return message;
+		} finally {
+			readLock.unlock();
+		}
+	}
+
+	/**
+	 * Opens a stream for a request, waiting if the peer does not allow more concurrent streams. Streams
+	 * must be started, by writing their headers, in the order in which they are opened.
+	 *
+	 * @return the identifier of the new stream
+	 */
+	public int openStream( InputStream in, OutputStream out )
+		throws IOException {
+		final int[] streamId = new int[ 1 ];
+		await( in, out, () -> {
+			if( goAwayReceived ) {
+				throw new IOException( "The HTTP/2 connection is being closed by the peer" );
+			} else if( nextStreamId < 0 ) {
+				throw new IOException( "The HTTP/2 connection ran out of stream identifiers" );
+			} else if( localStreams >= peerMaxConcurrentStreams ) {
+				return false;
+			}
+			streamId[ 0 ] = nextStreamId;
+			nextStreamId += 2;
+			localStreams++;
+			streams.put( streamId[ 0 ], new Stream( streamId[ 0 ], peerInitialWindowSize ) );
+			return true;
+		} );
+		return streamId[ 0 ];
+	}
+
+	/**
+	 * Writes the headers of a message on a stream. Nothing is written if the stream has been reset.
+	 *
+	 * @param endStream true if the message has no content
+	 */
+	public void writeHeaders( OutputStream out, int streamId, List< HeaderField > headers, boolean endStream )
+		throws IOException {
+		writeLock.lock();
+		try {
+			final Stream stream = streams.get( streamId );
+			if( stream == null || stream.reset ) {
+				return;
+			}
+			final ByteArrayOutputStream block = new ByteArrayOutputStream( 256 );
+			encoder.encode( headers, block );
+			final byte[] bytes = block.toByteArray();
+			final int maxFrameSize = peerMaxFrameSize;
+			int length = Math.min( bytes.length, maxFrameSize );
+			writeFrame( out, HEADERS, (endStream ? FLAG_END_STREAM : 0)
+				| (length == bytes.length ? FLAG_END_HEADERS : 0), streamId, bytes, 0, length );
+			for( int offset = length; offset < bytes.length; offset += length ) {
+				length = Math.min( bytes.length - offset, maxFrameSize );
+				writeFrame( out, CONTINUATION, offset + length == bytes.length ? FLAG_END_HEADERS : 0, streamId,
+					bytes, offset, length );
+			}
+			out.flush();
+			if( endStream ) {
+				closeLocal( stream );
+			}
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Writes content on a stream, waiting for the flow-control windows to allow it. Nothing is written
+	 * if the stream has been reset.
+	 *
+	 * @param endStream true if this is the end of the content
+	 */
+	public void writeData( InputStream in, OutputStream out, int streamId, byte[] bytes, int offset, int length,
+		boolean endStream )
+		throws IOException {
+		final Stream stream = streams.get( streamId );
+		if( stream == null ) {
+			return;
+		}
+		do {
+			final int n = reserve( in, out, stream, length );
+			writeLock.lock();
+			try {
+				if( n < 0 || stream.reset ) {
+					return;
+				}
+				final boolean last = endStream && n == length;
+				writeFrame( out, DATA, last ? FLAG_END_STREAM : 0, streamId, bytes, offset, n );
+				if( n == length ) {
+					out.flush();
+				}
+				if( last ) {
+					closeLocal( stream );
+				}
+			} finally {
+				writeLock.unlock();
+			}
+			offset += n;
+			length -= n;
+		} while( length > 0 );
+	}
+
+	/**
+	 * Closes a stream with RST_STREAM.
+	 */
+	public void resetStream( OutputStream out, int streamId, int errorCode )
+		throws IOException {
+		final Stream stream = streams.get( streamId );
+		if( stream != null ) {
+			markReset( stream, null );
+			writeReset( out, streamId, errorCode );
+		}
+	}
+
+	/**
+	 * Reserves up to the given amount of the send windows, waiting until some is available.
+	 *
+	 * @return the reserved amount, or -1 if the stream has been reset
+	 */
+	private int reserve( InputStream in, OutputStream out, Stream stream, int length )
+		throws IOException {
+		if( length == 0 ) {
+			return 0;
+		}
+		final int[] reserved = new int[ 1 ];
+		await( in, out, () -> {
+			if( stream.reset ) {
+				reserved[ 0 ] = -1;
+				return true;
+			}
+			final long available = Math.min( sendWindow, stream.sendWindow );
+			if( available <= 0 ) {
+				return false;
+			}
+			reserved[ 0 ] = (int) Math.min( Math.min( available, length ), peerMaxFrameSize );
+			sendWindow -= reserved[ 0 ];
+			stream.sendWindow -= reserved[ 0 ];
+			return true;
+		} );
+		return reserved[ 0 ];
+	}
+
+	/**
+	 * Waits until a condition on the state shared with the peer holds. The condition is evaluated
+	 * holding the flow lock. If no other thread is reading frames, the waiting thread reads them
+	 * itself, since they may be what it is waiting for.
+	 */
+	private void await( InputStream in, OutputStream out, ExceptionalCallable< Boolean, IOException > condition )
+		throws IOException {
+		while( true ) {
+			synchronized( flowLock ) {
+				if( condition.call() ) {
+					return;
+				}
+			}
+			if( readLock.tryLock() ) {
+				try {
+					final boolean holds;
+					synchronized( flowLock ) {
+						// What we wait for may have been read while we were acquiring the lock
+						holds = condition.call();
+					}
+					if( holds ) {
+						return;
+					}
+					readFrame( in, out );
+				} finally {
+					readLock.unlock();
+				}
+			} else {
+				synchronized( flowLock ) {
+					if( condition.call() ) {
+						return;
+					}
+					try {
+						flowLock.wait( WAIT_TIMEOUT );
+					} catch( InterruptedException e ) {
+						throw new InterruptedIOException();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads a frame and handles it. Stream errors are handled by resetting their streams; connection
+	 * errors are sent to the peer with GOAWAY, and then thrown.
+	 */
+	private void readFrame( InputStream in, OutputStream out )
+		throws IOException {
+		try {
+			if( expectingPreface ) {
+				final byte[] preface = new byte[ PREFACE.length ];
+				readFully( in, preface, 0, preface.length );
+				if( !Arrays.equals( preface, PREFACE ) ) {
+					throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid HTTP/2 connection preface" );
+				}
+				expectingPreface = false;
+			}
+			final int first = in.read();
+			if( first == -1 ) {
+				throw new ChannelClosingException( "[http2] Remote host closed connection." );
+			}
+			readHeader[ 0 ] = (byte) first;
+			readFully( in, readHeader, 1, FRAME_HEADER_LENGTH - 1 );
+			final int length = ((readHeader[ 0 ] & 0xFF) << 16) | ((readHeader[ 1 ] & 0xFF) << 8)
+				| (readHeader[ 2 ] & 0xFF);
+			final int type = readHeader[ 3 ] & 0xFF;
+			final int flags = readHeader[ 4 ] & 0xFF;
+			final int streamId = readInt( readHeader, 5 ) & 0x7FFFFFFF;
+			if( length > payload.length ) {
+				throw new Http2Exception( Http2Exception.FRAME_SIZE_ERROR, "HTTP/2 frame too large: " + length );
+			}
+			readFully( in, payload, 0, length );
+			if( continuationStreamId != 0 && (type != CONTINUATION || streamId != continuationStreamId) ) {
+				throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Expected a CONTINUATION frame" );
+			}
+			try {
+				handleFrame( out, type, flags, streamId, length );
+			} catch( Http2Exception e ) {
+				if( e.isConnectionError() ) {
+					throw e;
+				}
+				final Stream stream = streams.get( e.streamId() );
+				if( stream != null ) {
+					markReset( stream, e );
+				}
+				writeReset( out, e.streamId(), e.errorCode() );
+			}
+		} catch( Http2Exception e ) {
+			try {
+				writeGoAway( out, e.errorCode(), e.getMessage() );
+			} catch( IOException ignored ) {
+				// The connection is being closed anyway
+			}
+			throw e;
+		}
+	}
+
+	private void handleFrame( OutputStream out, int type, int flags, int streamId, int length )
+		throws IOException {
+		switch( type ) {
+		case DATA:
+			onData( out, flags, streamId, length );
+			break;
+		case HEADERS:
+			onHeaders( flags, streamId, length );
+			break;
+		case PRIORITY:
+			if( streamId == 0 ) {
+				throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "PRIORITY frame on stream 0" );
+			} else if( length != 5 ) {
+				throw new Http2Exception( streamId, Http2Exception.FRAME_SIZE_ERROR, "Invalid PRIORITY frame" );
+			}
+			break;
+		case RST_STREAM:
+			onReset( streamId, length );
+			break;
+		case SETTINGS:
+			onSettings( out, flags, streamId, length );
+			break;
+		case PUSH_PROMISE:
+			// Clients disable server push, and servers do not receive it
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Unexpected PUSH_PROMISE frame" );
+		case PING:
+			if( streamId != 0 ) {
+				throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "PING frame on a stream" );
+			} else if( length != 8 ) {
+				throw new Http2Exception( Http2Exception.FRAME_SIZE_ERROR, "Invalid PING frame" );
+			}
+			if( (flags & FLAG_ACK) == 0 ) {
+				writeLock.lock();
+				try {
+					writeFrame( out, PING, FLAG_ACK, 0, payload, 0, 8 );
+					out.flush();
+				} finally {
+					writeLock.unlock();
+				}
+			}
+			break;
+		case GOAWAY:
+			onGoAway( streamId, length );
+			break;
+		case WINDOW_UPDATE:
+			onWindowUpdate( streamId, length );
+			break;
+		case CONTINUATION:
+			if( continuationStreamId == 0 ) {
+				throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Unexpected CONTINUATION frame" );
+			}
+			appendHeaderBlock( 0, length );
+			if( (flags & FLAG_END_HEADERS) != 0 ) {
+				continuationStreamId = 0;
+				onHeaderBlock( streamId );
+			}
+			break;
+		default:
+			// Frames of unknown types are ignored (RFC 7540, Section 4.1)
+			break;
+		}
+	}
+
+	/**
+	 * Returns true if the stream is unknown because it was never opened, as opposed to closed.
+	 */
+	private boolean isIdle( int streamId ) {
+		if( isLocal( streamId ) ) {
+			synchronized( flowLock ) {
+				return streamId >= nextStreamId;
+			}
+		}
+		return streamId > lastPeerStreamId;
+	}
+
+	private boolean isLocal( int streamId ) {
+		return client == ((streamId & 1) == 1);
+	}
+
+	private void onData( OutputStream out, int flags, int streamId, int length )
+		throws IOException {
+		if( streamId == 0 ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "DATA frame on stream 0" );
+		}
+		// Flow control counts the whole payload, padding included
+		receiveWindow -= length;
+		if( receiveWindow < 0 ) {
+			throw new Http2Exception( Http2Exception.FLOW_CONTROL_ERROR, "Connection flow-control window exceeded" );
+		}
+		unacknowledged += length;
+		if( unacknowledged >= CONNECTION_WINDOW_SIZE / 2 ) {
+			writeWindowUpdate( out, 0, unacknowledged );
+			receiveWindow += unacknowledged;
+			unacknowledged = 0;
+		}
+
+		int offset = 0;
+		int dataLength = length;
+		if( (flags & FLAG_PADDED) != 0 ) {
+			if( length == 0 ) {
+				throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid padding in DATA frame" );
+			}
+			offset = 1;
+			dataLength = length - 1 - (payload[ 0 ] & 0xFF);
+			if( dataLength < 0 ) {
+				throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid padding in DATA frame" );
+			}
+		}
+
+		final Stream stream = streams.get( streamId );
+		if( stream == null ) {
+			if( isIdle( streamId ) ) {
+				throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "DATA frame on idle stream " + streamId );
+			}
+			// A stream we closed, the frame was in flight
+			return;
+		} else if( stream.headers == null || isRemoteClosed( stream ) ) {
+			throw new Http2Exception( streamId, Http2Exception.STREAM_CLOSED, "Unexpected DATA frame" );
+		}
+		stream.receiveWindow -= length;
+		if( stream.receiveWindow < 0 ) {
+			throw new Http2Exception( streamId, Http2Exception.FLOW_CONTROL_ERROR,
+				"Stream flow-control window exceeded" );
+		}
+		if( stream.content == null ) {
+			stream.content = new ByteArrayOutputStream( Math.max( 32, dataLength ) );
+		}
+		stream.content.write( payload, offset, dataLength );
+		if( (flags & FLAG_END_STREAM) != 0 ) {
+			complete( stream );
+		} else {
+			stream.unacknowledged += length;
+			if( stream.unacknowledged >= STREAM_WINDOW_SIZE / 2 ) {
+				writeWindowUpdate( out, streamId, stream.unacknowledged );
+				stream.receiveWindow += stream.unacknowledged;
+				stream.unacknowledged = 0;
+			}
+		}
+	}
+
+	private void onHeaders( int flags, int streamId, int length )
+		throws IOException {
+		if( streamId == 0 ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "HEADERS frame on stream 0" );
+		}
+		int offset = 0;
+		int end = length;
+		if( (flags & FLAG_PADDED) != 0 ) {
+			if( length == 0 ) {
+				throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid padding in HEADERS frame" );
+			}
+			offset = 1;
+			end -= payload[ 0 ] & 0xFF;
+		}
+		if( (flags & FLAG_PRIORITY) != 0 ) {
+			offset += 5;
+		}
+		if( offset > end ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid HEADERS frame" );
+		}
+		headerBlockLength = 0;
+		headerBlockFlags = flags;
+		appendHeaderBlock( offset, end - offset );
+		if( (flags & FLAG_END_HEADERS) == 0 ) {
+			continuationStreamId = streamId;
+		} else {
+			onHeaderBlock( streamId );
+		}
+	}
+
+	private void appendHeaderBlock( int offset, int length )
+		throws Http2Exception {
+		if( headerBlockLength + length > MAX_HEADER_LIST_SIZE ) {
+			// We can not skip the block, since it may change the HPACK dynamic table
+			throw new Http2Exception( Http2Exception.ENHANCE_YOUR_CALM, "HTTP/2 header block too large" );
+		}
+		if( headerBlockLength + length > headerBlock.length ) {
+			headerBlock = Arrays.copyOf( headerBlock,
+				Math.min( Math.max( headerBlock.length * 2, headerBlockLength + length ), MAX_HEADER_LIST_SIZE ) );
+		}
+		System.arraycopy( payload, offset, headerBlock, headerBlockLength, length );
+		headerBlockLength += length;
+	}
+
+	private void onHeaderBlock( int streamId )
+		throws IOException {
+		// The block must be decoded in any case, to keep the dynamic table in sync with the peer
+		final List< HeaderField > headers = decoder.decode( headerBlock, headerBlockLength );
+		final boolean endStream = (headerBlockFlags & FLAG_END_STREAM) != 0;
+
+		Stream stream = streams.get( streamId );
+		if( stream == null ) {
+			if( client || (streamId & 1) == 0 ) {
+				if( isIdle( streamId ) ) {
+					throw new Http2Exception( Http2Exception.PROTOCOL_ERROR,
+						"HEADERS frame on idle stream " + streamId );
+				}
+				throw new Http2Exception( streamId, Http2Exception.STREAM_CLOSED, "HEADERS frame on closed stream" );
+			} else if( streamId <= lastPeerStreamId ) {
+				throw new Http2Exception( streamId, Http2Exception.STREAM_CLOSED, "HEADERS frame on closed stream" );
+			}
+			lastPeerStreamId = streamId;
+			if( streams.size() >= maxConcurrentStreams ) {
+				throw new Http2Exception( streamId, Http2Exception.REFUSED_STREAM, "Too many concurrent streams" );
+			}
+			synchronized( flowLock ) {
+				stream = new Stream( streamId, peerInitialWindowSize );
+				streams.put( streamId, stream );
+			}
+		} else if( isRemoteClosed( stream ) ) {
+			throw new Http2Exception( streamId, Http2Exception.STREAM_CLOSED, "HEADERS frame on closed stream" );
+		}
+
+		if( headers == null ) {
+			throw new Http2Exception( streamId, Http2Exception.PROTOCOL_ERROR, "HTTP/2 header list too large" );
+		}
+		if( stream.headers == null ) {
+			validateHeaders( streamId, headers, false );
+			if( client && headers.get( 0 ).value().startsWith( "1" ) ) {
+				// An informational response, which precedes the final one
+				if( endStream ) {
+					throw new Http2Exception( streamId, Http2Exception.PROTOCOL_ERROR,
+						"Informational response ends the stream" );
+				}
+				return;
+			}
+			stream.headers = headers;
+		} else {
+			// The trailer
+			if( !endStream ) {
+				throw new Http2Exception( streamId, Http2Exception.PROTOCOL_ERROR, "Trailer does not end the stream" );
+			}
+			validateHeaders( streamId, headers, true );
+			stream.headers.addAll( headers );
+		}
+		if( endStream ) {
+			complete( stream );
+		}
+	}
+
+	/**
+	 * Checks that a header list is well-formed (RFC 7540, Section 8.1.2).
+	 */
+	private void validateHeaders( int streamId, List< HeaderField > headers, boolean trailer )
+		throws Http2Exception {
+		final String[] pseudoHeaders = client ? new String[] { ":status" }
+			: new String[] { ":method", ":scheme", ":path", ":authority" };
+		final boolean[] found = new boolean[ pseudoHeaders.length ];
+		boolean regular = false;
+		for( HeaderField field : headers ) {
+			final String name = field.name();
+			if( name.isEmpty() ) {
+				throw malformed( streamId, "empty header name" );
+			}
+			for( int i = 0; i < name.length(); i++ ) {
+				if( name.charAt( i ) >= 'A' && name.charAt( i ) <= 'Z' ) {
+					throw malformed( streamId, "upper-case header name " + name );
+				}
+			}
+			final String value = field.value();
+			for( int i = 0; i < value.length(); i++ ) {
+				final char c = value.charAt( i );
+				if( c == '\r' || c == '\n' || c == 0 ) {
+					throw malformed( streamId, "illegal character in the value of " + name );
+				}
+			}
+			if( name.charAt( 0 ) == ':' ) {
+				if( regular || trailer ) {
+					throw malformed( streamId, "misplaced pseudo-header field " + name );
+				}
+				final int index = Arrays.asList( pseudoHeaders ).indexOf( name );
+				if( index < 0 || found[ index ] ) {
+					throw malformed( streamId, "unexpected pseudo-header field " + name );
+				}
+				found[ index ] = true;
+				if( name.equals( ":path" ) && (value.isEmpty() || value.indexOf( ' ' ) >= 0) ) {
+					throw malformed( streamId, "invalid :path " + value );
+				}
+			} else {
+				regular = true;
+				switch( name ) {
+				case "connection":
+				case "keep-alive":
+				case "proxy-connection":
+				case "transfer-encoding":
+				case "upgrade":
+					throw malformed( streamId, "connection-specific header field " + name );
+				case "te":
+					if( !value.equals( "trailers" ) ) {
+						throw malformed( streamId, "te header field other than trailers" );
+					}
+					break;
+				default:
+					break;
+				}
+			}
+		}
+		if( !trailer ) {
+			// All pseudo-header fields are mandatory, except for :authority
+			for( int i = 0; i < pseudoHeaders.length; i++ ) {
+				if( !found[ i ] && !pseudoHeaders[ i ].equals( ":authority" ) ) {
+					throw malformed( streamId, "missing pseudo-header field " + pseudoHeaders[ i ] );
+				}
+			}
+		}
+	}
+
+	private static Http2Exception malformed( int streamId, String what ) {
+		return new Http2Exception( streamId, Http2Exception.PROTOCOL_ERROR, "Malformed HTTP/2 message: " + what );
+	}
+
+	private void complete( Stream stream ) {
+		final byte[] content = stream.content == null ? NO_CONTENT : stream.content.toByteArray();
+		stream.content = null;
+		received.add( new ReceivedMessage( stream.id, stream.headers, content, null ) );
+		final boolean closed;
+		synchronized( stream ) {
+			stream.remoteClosed = true;
+			closed = stream.localClosed;
+		}
+		if( closed ) {
+			removeStream( stream );
+		}
+	}
+
+	private void closeLocal( Stream stream ) {
+		final boolean closed;
+		synchronized( stream ) {
+			stream.localClosed = true;
+			closed = stream.remoteClosed;
+		}
+		if( closed ) {
+			removeStream( stream );
+		}
+	}
+
+	private static boolean isRemoteClosed( Stream stream ) {
+		synchronized( stream ) {
+			return stream.remoteClosed;
+		}
+	}
+
+	private void removeStream( Stream stream ) {
+		if( streams.remove( stream.id, stream ) && isLocal( stream.id ) ) {
+			synchronized( flowLock ) {
+				localStreams--;
+				flowLock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Closes a stream that has been reset. If it was opened by this endpoint and its response has not
+	 * been received, the error is returned by readMessage in place of the response.
+	 */
+	private void markReset( Stream stream, Http2Exception error ) {
+		stream.reset = true;
+		removeStream( stream );
+		synchronized( flowLock ) {
+			flowLock.notifyAll();
+		}
+		if( error != null && isLocal( stream.id ) && !isRemoteClosed( stream ) ) {
+			received.add( new ReceivedMessage( stream.id, null, null, error ) );
+		}
+	}
+
+	private void onReset( int streamId, int length )
+		throws Http2Exception {
+		if( streamId == 0 ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "RST_STREAM frame on stream 0" );
+		} else if( length != 4 ) {
+			throw new Http2Exception( Http2Exception.FRAME_SIZE_ERROR, "Invalid RST_STREAM frame" );
+		}
+		final Stream stream = streams.get( streamId );
+		if( stream != null ) {
+			final int errorCode = readInt( payload, 0 );
+			markReset( stream, new Http2Exception( streamId, errorCode,
+				"HTTP/2 stream reset by the peer (error code " + errorCode + ")" ) );
+		} else if( isIdle( streamId ) ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "RST_STREAM frame on idle stream " + streamId );
+		}
+	}
+
+	private void onSettings( OutputStream out, int flags, int streamId, int length )
+		throws IOException {
+		if( streamId != 0 ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "SETTINGS frame on a stream" );
+		}
+		if( (flags & FLAG_ACK) != 0 ) {
+			if( length != 0 ) {
+				throw new Http2Exception( Http2Exception.FRAME_SIZE_ERROR, "Invalid SETTINGS acknowledgement" );
+			}
+			return;
+		} else if( length % 6 != 0 ) {
+			throw new Http2Exception( Http2Exception.FRAME_SIZE_ERROR, "Invalid SETTINGS frame" );
+		}
+		applySettings( payload, length );
+		writeLock.lock();
+		try {
+			writeFrame( out, SETTINGS, FLAG_ACK, 0, payload, 0, 0 );
+			out.flush();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private void applySettings( byte[] settings, int length )
+		throws Http2Exception {
+		for( int i = 0; i < length; i += 6 ) {
+			final int id = ((settings[ i ] & 0xFF) << 8) | (settings[ i + 1 ] & 0xFF);
+			final long value = readInt( settings, i + 2 ) & 0xFFFFFFFFL;
+			switch( id ) {
+			case SETTINGS_HEADER_TABLE_SIZE:
+				writeLock.lock();
+				try {
+					encoder.setMaxTableSize( value );
+				} finally {
+					writeLock.unlock();
+				}
+				break;
+			case SETTINGS_ENABLE_PUSH:
+				if( value > 1 ) {
+					throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid SETTINGS_ENABLE_PUSH" );
+				}
+				break;
+			case SETTINGS_MAX_CONCURRENT_STREAMS:
+				synchronized( flowLock ) {
+					peerMaxConcurrentStreams = value;
+					flowLock.notifyAll();
+				}
+				break;
+			case SETTINGS_INITIAL_WINDOW_SIZE:
+				if( value > MAX_WINDOW_SIZE ) {
+					throw new Http2Exception( Http2Exception.FLOW_CONTROL_ERROR,
+						"Invalid SETTINGS_INITIAL_WINDOW_SIZE" );
+				}
+				synchronized( flowLock ) {
+					// The change applies to the windows of all streams (RFC 7540, Section 6.9.2)
+					final long delta = value - peerInitialWindowSize;
+					peerInitialWindowSize = value;
+					for( Stream stream : streams.values() ) {
+						stream.sendWindow += delta;
+						if( stream.sendWindow > MAX_WINDOW_SIZE ) {
+							throw new Http2Exception( Http2Exception.FLOW_CONTROL_ERROR,
+								"Flow-control window overflow" );
+						}
+					}
+					flowLock.notifyAll();
+				}
+				break;
+			case SETTINGS_MAX_FRAME_SIZE:
+				if( value < DEFAULT_MAX_FRAME_SIZE || value > MAX_MAX_FRAME_SIZE ) {
+					throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "Invalid SETTINGS_MAX_FRAME_SIZE" );
+				}
+				peerMaxFrameSize = (int) value;
+				break;
+			default:
+				// SETTINGS_MAX_HEADER_LIST_SIZE is advisory, and unknown settings are ignored
+				break;
+			}
+		}
+	}
+
+	private void onGoAway( int streamId, int length )
+		throws Http2Exception {
+		if( streamId != 0 ) {
+			throw new Http2Exception( Http2Exception.PROTOCOL_ERROR, "GOAWAY frame on a stream" );
+		} else if( length < 8 ) {
+			throw new Http2Exception( Http2Exception.FRAME_SIZE_ERROR, "Invalid GOAWAY frame" );
+		}
+		final int lastStreamId = readInt( payload, 0 ) & 0x7FFFFFFF;
+		synchronized( flowLock ) {
+			goAwayReceived = true;
+			flowLock.notifyAll();
+		}
+		// The streams after the last one will not be processed by the peer, and can be retried
+		for( Stream stream : streams.values() ) {
+			if( isLocal( stream.id ) && stream.id > lastStreamId ) {
+				markReset( stream, new Http2Exception( stream.id, Http2Exception.REFUSED_STREAM,
+					"HTTP/2 stream refused, the connection is being closed by the peer" ) );
+			}
+		}
+	}
+
+	private void onWindowUpdate( int streamId, int length )
+		throws Http2Exception {
+		if( length != 4 ) {
+			throw new Http2Exception( Http2Exception.FRAME_SIZE_ERROR, "Invalid WINDOW_UPDATE frame" );
+		}
+		final int increment = readInt( payload, 0 ) & 0x7FFFFFFF;
+		if( increment == 0 ) {
+			throw new Http2Exception( streamId, Http2Exception.PROTOCOL_ERROR, "WINDOW_UPDATE with no increment" );
+		}
+		synchronized( flowLock ) {
+			if( streamId == 0 ) {
+				sendWindow += increment;
+				if( sendWindow > MAX_WINDOW_SIZE ) {
+					throw new Http2Exception( Http2Exception.FLOW_CONTROL_ERROR, "Flow-control window overflow" );
+				}
+			} else {
+				final Stream stream = streams.get( streamId );
+				if( stream != null ) {
+					stream.sendWindow += increment;
+					if( stream.sendWindow > MAX_WINDOW_SIZE ) {
+						throw new Http2Exception( streamId, Http2Exception.FLOW_CONTROL_ERROR,
+							"Flow-control window overflow" );
+					}
+				}
+			}
+			flowLock.notifyAll();
+		}
+	}
+
+	private void writeFrame( OutputStream out, int type, int flags, int streamId, byte[] bytes, int offset,
+		int length )
+		throws IOException {
+		writeHeader[ 0 ] = (byte) (length >>> 16);
+		writeHeader[ 1 ] = (byte) (length >>> 8);
+		writeHeader[ 2 ] = (byte) length;
+		writeHeader[ 3 ] = (byte) type;
+		writeHeader[ 4 ] = (byte) flags;
+		writeInt( writeHeader, 5, streamId );
+		out.write( writeHeader, 0, FRAME_HEADER_LENGTH );
+		if( length > 0 ) {
+			out.write( bytes, offset, length );
+		}
+	}
+
+	private void writeWindowUpdate( OutputStream out, int streamId, int increment )
+		throws IOException {
+		final byte[] bytes = new byte[ 4 ];
+		writeInt( bytes, 0, increment );
+		writeLock.lock();
+		try {
+			writeFrame( out, WINDOW_UPDATE, 0, streamId, bytes, 0, 4 );
+			out.flush();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private void writeReset( OutputStream out, int streamId, int errorCode )
+		throws IOException {
+		final byte[] bytes = new byte[ 4 ];
+		writeInt( bytes, 0, errorCode );
+		writeLock.lock();
+		try {
+			writeFrame( out, RST_STREAM, 0, streamId, bytes, 0, 4 );
+			out.flush();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private void writeGoAway( OutputStream out, int errorCode, String debugData )
+		throws IOException {
+		final byte[] debugBytes = debugData == null ? NO_CONTENT : debugData.getBytes( StandardCharsets.UTF_8 );
+		final byte[] bytes = new byte[ 8 + Math.min( debugBytes.length, 256 ) ];
+		writeInt( bytes, 0, lastPeerStreamId );
+		writeInt( bytes, 4, errorCode );
+		System.arraycopy( debugBytes, 0, bytes, 8, bytes.length - 8 );
+		writeLock.lock();
+		try {
+			writeFrame( out, GOAWAY, 0, 0, bytes, 0, bytes.length );
+			out.flush();
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	private static void writeSetting( ByteArrayOutputStream out, int id, int value ) {
+		out.write( id >>> 8 );
+		out.write( id );
+		final byte[] bytes = new byte[ 4 ];
+		writeInt( bytes, 0, value );
+		out.write( bytes, 0, 4 );
+	}
+
+	private static int readInt( byte[] bytes, int offset ) {
+		return ((bytes[ offset ] & 0xFF) << 24) | ((bytes[ offset + 1 ] & 0xFF) << 16)
+			| ((bytes[ offset + 2 ] & 0xFF) << 8) | (bytes[ offset + 3 ] & 0xFF);
+	}
+
+	private static void writeInt( byte[] bytes, int offset, int value ) {
+		bytes[ offset ] = (byte) (value >>> 24);
+		bytes[ offset + 1 ] = (byte) (value >>> 16);
+		bytes[ offset + 2 ] = (byte) (value >>> 8);
+		bytes[ offset + 3 ] = (byte) value;
+	}
+
+	private static void readFully( InputStream in, byte[] bytes, int offset, int length )
+		throws IOException {
+		while( length > 0 ) {
+			final int r = in.read( bytes, offset, length );
+			if( r == -1 ) {
+				throw new EOFException( "Unexpected end of stream in HTTP/2 frame" );
+			}
+			offset += r;
+			length -= r;
+		}
+	}
+}
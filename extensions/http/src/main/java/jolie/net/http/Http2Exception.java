@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.net.http;
+
+import java.io.IOException;
+import jolie.lang.Constants;
+
+/**
+ * An error of the HTTP/2 protocol, which closes either a single stream or the whole connection (RFC
+ * 7540, Section 5.4).
+ */
+public class Http2Exception extends IOException {
+	private static final long serialVersionUID = Constants.serialVersionUID();
+
+	public static final int NO_ERROR = 0x0;
+	public static final int PROTOCOL_ERROR = 0x1;
+	public static final int INTERNAL_ERROR = 0x2;
+	public static final int FLOW_CONTROL_ERROR = 0x3;
+	public static final int SETTINGS_TIMEOUT = 0x4;
+	public static final int STREAM_CLOSED = 0x5;
+	public static final int FRAME_SIZE_ERROR = 0x6;
+	public static final int REFUSED_STREAM = 0x7;
+	public static final int CANCEL = 0x8;
+	public static final int COMPRESSION_ERROR = 0x9;
+	public static final int CONNECT_ERROR = 0xa;
+	public static final int ENHANCE_YOUR_CALM = 0xb;
+	public static final int INADEQUATE_SECURITY = 0xc;
+	public static final int HTTP_1_1_REQUIRED = 0xd;
+
+	private final int errorCode;
+	private final int streamId;
+
+	/**
+	 * Creates an error of the whole connection.
+	 *
+	 * @param errorCode the error code to send to the peer
+	 * @param message the detail message
+	 */
+	public Http2Exception( int errorCode, String message ) {
+		this( 0, errorCode, message );
+	}
+
+	/**
+	 * Creates an error of a single stream, or of the whole connection if the stream identifier is 0.
+	 *
+	 * @param streamId the identifier of the stream
+	 * @param errorCode the error code to send to the peer
+	 * @param message the detail message
+	 */
+	public Http2Exception( int streamId, int errorCode, String message ) {
+		super( message );
+		this.streamId = streamId;
+		this.errorCode = errorCode;
+	}
+
+	public int errorCode() {
+		return errorCode;
+	}
+
+	public int streamId() {
+		return streamId;
+	}
+
+	/**
+	 * Returns true if this error closes the whole connection, false if it closes only its stream.
+	 */
+	public boolean isConnectionError() {
+		return streamId == 0;
+	}
+}
@@ -0,0 +1,472 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.net.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Compression of the contents of HTTP messages.
+ *
+ * The gzip and deflate codings are always available, and use pooled {@link Deflater}s. The br and
+ * zstd codings are available if Brotli4j and zstd-jni, respectively, are in the classpath. Contents
+ * compressed as a whole are kept in a cache bounded in size, keyed by the hash of the uncompressed
+ * content, so that contents sent repeatedly are compressed only once.
+ */
+public class HttpCompression {
+	public static final String BROTLI = "br";
+	public static final String ZSTD = "zstd";
+	public static final String GZIP = "gzip";
+	public static final String DEFLATE = "deflate";
+
+	/** The default compression level, which each coding maps to its own default. */
+	public static final int DEFAULT_LEVEL = Deflater.DEFAULT_COMPRESSION;
+	/** The default size in bytes below which contents are not compressed. */
+	public static final int DEFAULT_MIN_SIZE = 256;
+
+	private static final int BUFFER_SIZE = 0x2000; // 8K
+	private static final int MAX_POOLED_DEFLATERS = 32;
+	private static final int MAX_CACHE_SIZE = 0x1000000; // 16M
+	private static final int MAX_CACHED_CONTENT_SIZE = 0x100000; // 1M
+
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private interface Compressor {
+		byte[] compress( byte[] content, int level ) throws IOException;
+	}
+
+	private static final Deque< Deflater > GZIP_DEFLATERS = new ArrayDeque<>();
+	private static final Deque< Deflater > DEFLATE_DEFLATERS = new ArrayDeque<>();
+	private static final ContentCache CACHE = new ContentCache();
+
+	// Ordered by preference, used when the peer accepts more than one coding with the same quality
+	private static final String[] CODINGS = { BROTLI, ZSTD, GZIP, DEFLATE };
+	private static final List< String > CODING_LIST = Arrays.asList( CODINGS );
+	private static final Map< String, Compressor > COMPRESSORS = new LinkedHashMap<>();
+
+	static {
+		Compressor brotli = loadBrotli();
+		if( brotli != null ) {
+			COMPRESSORS.put( BROTLI, brotli );
+		}
+		Compressor zstd = loadZstd();
+		if( zstd != null ) {
+			COMPRESSORS.put( ZSTD, zstd );
+		}
+		COMPRESSORS.put( GZIP, ( content, level ) -> deflate( GZIP, content, level ) );
+		COMPRESSORS.put( DEFLATE, ( content, level ) -> deflate( DEFLATE, content, level ) );
+	}
+
+	private static final ThreadLocal< MessageDigest > DIGEST = ThreadLocal.withInitial( () -> {
+		try {
+			return MessageDigest.getInstance( "SHA-256" );
+		} catch( NoSuchAlgorithmException e ) {
+			throw new IllegalStateException( e );
+		}
+	} );
+
+	private HttpCompression() {}
+
+	/**
+	 * Returns true if contents can be compressed with the given coding.
+	 */
+	public static boolean isAvailable( String coding ) {
+		return COMPRESSORS.containsKey( coding );
+	}
+
+	/**
+	 * Returns the codings accepted by the peer that sent an Accept-Encoding header, from the most to
+	 * the least preferred, whether they are available or not. The preference of the peer, as given by
+	 * the quality values, comes first. Link: https://tools.ietf.org/html/rfc7231#section-5.3.4
+	 */
+	public static List< String > acceptedCodings( String acceptEncoding ) {
+		final double[] qualities = new double[ CODINGS.length ];
+		final boolean[] listed = new boolean[ CODINGS.length ];
+		double anyQuality = 0;
+		for( String element : acceptEncoding.split( "," ) ) {
+			final String[] parameters = element.split( ";" );
+			final String coding = parameters[ 0 ].trim().toLowerCase( Locale.ENGLISH );
+			double quality = 1;
+			for( int i = 1; i < parameters.length; i++ ) {
+				final String parameter = parameters[ i ].trim().toLowerCase( Locale.ENGLISH );
+				if( parameter.startsWith( "q=" ) ) {
+					try {
+						quality = Double.parseDouble( parameter.substring( 2 ).trim() );
+					} catch( NumberFormatException e ) {
+						quality = 0;
+					}
+				}
+			}
+			if( coding.equals( "*" ) ) {
+				anyQuality = quality;
+			} else {
+				// x-gzip is an alias of gzip, see RFC 7230 section 4.2.3
+				final int index = CODING_LIST.indexOf( coding.equals( "x-gzip" ) ? GZIP : coding );
+				if( index >= 0 ) {
+					qualities[ index ] = Math.max( qualities[ index ], quality );
+					listed[ index ] = true;
+				}
+			}
+		}
+
+		final List< String > accepted = new ArrayList<>( CODINGS.length );
+		for( int i = 0; i < CODINGS.length; i++ ) {
+			if( !listed[ i ] ) {
+				qualities[ i ] = anyQuality;
+			}
+			if( qualities[ i ] > 0 ) {
+				accepted.add( CODINGS[ i ] );
+			}
+		}
+		// The sort is stable, so codings with the same quality keep our order of preference
+		accepted.sort( ( a, b ) -> Double.compare( qualities[ CODING_LIST.indexOf( b ) ],
+			qualities[ CODING_LIST.indexOf( a ) ] ) );
+		return accepted;
+	}
+
+	/**
+	 * Returns the available coding to use for a content given the Accept-Encoding header of the peer,
+	 * or null if the content should not be compressed.
+	 *
+	 * @param acceptEncoding the Accept-Encoding header of the peer
+	 * @param streaming if true, only the codings that can be applied while writing the content, see
+	 *        {@link #outputStream(String, OutputStream, int)}, are considered
+	 */
+	public static String negotiate( String acceptEncoding, boolean streaming ) {
+		for( String coding : acceptedCodings( acceptEncoding ) ) {
+			if( streaming ? isStreamable( coding ) : isAvailable( coding ) ) {
+				return coding;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns true if the coding can be applied while writing a content of unknown size.
+	 */
+	public static boolean isStreamable( String coding ) {
+		return GZIP.equals( coding ) || DEFLATE.equals( coding );
+	}
+
+	/**
+	 * Returns the extension of the files compressed with the given coding, or null if there is none.
+	 */
+	public static String fileExtension( String coding ) {
+		switch( coding ) {
+		case BROTLI:
+			return ".br";
+		case ZSTD:
+			return ".zst";
+		case GZIP:
+			return ".gz";
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the content compressed with an available coding. The result of compressing contents up to
+	 * 1 MB is cached, hence it must not be modified.
+	 *
+	 * @param coding the coding, as returned by {@link #negotiate(String, boolean)}
+	 * @param content the content to compress
+	 * @param level the compression level, or {@link #DEFAULT_LEVEL}
+	 */
+	public static byte[] compress( String coding, byte[] content, int level )
+		throws IOException {
+		final Compressor compressor = COMPRESSORS.get( coding );
+		if( compressor == null ) {
+			throw new IOException( "Unsupported content coding: " + coding );
+		}
+		if( content.length > MAX_CACHED_CONTENT_SIZE ) {
+			return compressor.compress( content, level );
+		}
+
+		final ContentKey key = new ContentKey( coding, level, DIGEST.get().digest( content ) );
+		byte[] compressed = CACHE.get( key );
+		if( compressed == null ) {
+			compressed = compressor.compress( content, level );
+			CACHE.put( key, compressed );
+		}
+		return compressed;
+	}
+
+	/**
+	 * Returns a stream compressing what is written to it with the gzip or deflate coding. The
+	 * compression is completed by {@link DeflaterOutputStream#finish()}, which also returns the
+	 * {@link Deflater} of the stream to the pool. Streams that are not finished must be closed, or
+	 * passed to {@link #release(DeflaterOutputStream)} if the underlying stream must stay open.
+	 */
+	public static DeflaterOutputStream outputStream( String coding, OutputStream stream, int level )
+		throws IOException {
+		if( GZIP.equals( coding ) ) {
+			return new PooledDeflaterOutputStream( stream, GZIP_DEFLATERS, borrowDeflater( GZIP_DEFLATERS, level ),
+				new CRC32() );
+		} else if( DEFLATE.equals( coding ) ) {
+			return new PooledDeflaterOutputStream( stream, DEFLATE_DEFLATERS,
+				borrowDeflater( DEFLATE_DEFLATERS, level ), null );
+		}
+		throw new IOException( "Unsupported content coding for streaming: " + coding );
+	}
+
+	/**
+	 * Returns the {@link Deflater} of a stream returned by
+	 * {@link #outputStream(String, OutputStream, int)} to the pool, without closing the underlying
+	 * stream. Calling this method after the stream has been finished or closed has no effect.
+	 */
+	public static void release( DeflaterOutputStream stream ) {
+		if( stream instanceof PooledDeflaterOutputStream ) {
+			((PooledDeflaterOutputStream) stream).release();
+		}
+	}
+
+	private static byte[] deflate( String coding, byte[] content, int level )
+		throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream( Math.max( 64, content.length / 4 ) );
+		try( DeflaterOutputStream stream = outputStream( coding, bytes, level ) ) {
+			stream.write( content );
+			stream.finish();
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Deflater borrowDeflater( Deque< Deflater > pool, int level ) {
+		Deflater deflater;
+		synchronized( pool ) {
+			deflater = pool.pollFirst();
+		}
+		if( deflater == null ) {
+			// gzip frames raw deflate data with its own header and trailer
+			deflater = new Deflater( deflaterLevel( level ), pool == GZIP_DEFLATERS );
+		} else {
+			deflater.setLevel( deflaterLevel( level ) );
+		}
+		return deflater;
+	}
+
+	private static int deflaterLevel( int level ) {
+		return level == DEFAULT_LEVEL ? level
+			: Math.max( Deflater.NO_COMPRESSION, Math.min( level, Deflater.BEST_COMPRESSION ) );
+	}
+
+	private static void releaseDeflater( Deque< Deflater > pool, Deflater deflater ) {
+		deflater.reset();
+		synchronized( pool ) {
+			if( pool.size() < MAX_POOLED_DEFLATERS ) {
+				pool.addFirst( deflater );
+				return;
+			}
+		}
+		deflater.end();
+	}
+
+	private static class PooledDeflaterOutputStream extends DeflaterOutputStream {
+		private final Deque< Deflater > pool;
+		private final CRC32 crc; // null for the deflate coding
+		private boolean finished = false;
+		private boolean released = false;
+
+		private PooledDeflaterOutputStream( OutputStream out, Deque< Deflater > pool, Deflater deflater, CRC32 crc )
+			throws IOException {
+			super( out, deflater, BUFFER_SIZE );
+			this.pool = pool;
+			this.crc = crc;
+			if( crc != null ) {
+				out.write( GZIP_HEADER );
+			}
+		}
+
+		@Override
+		public void write( byte[] b, int off, int len )
+			throws IOException {
+			if( finished ) {
+				throw new IOException( "write beyond end of stream" );
+			}
+			super.write( b, off, len );
+			if( crc != null ) {
+				crc.update( b, off, len );
+			}
+		}
+
+		@Override
+		public void finish()
+			throws IOException {
+			if( finished ) {
+				return;
+			}
+			try {
+				super.finish();
+				finished = true;
+				if( crc != null ) {
+					writeInt( (int) crc.getValue() );
+					writeInt( (int) def.getBytesRead() );
+				}
+			} finally {
+				release();
+			}
+		}
+
+		@Override
+		public void close()
+			throws IOException {
+			try {
+				super.close();
+			} finally {
+				release();
+			}
+		}
+
+		private void release() {
+			if( !released ) {
+				released = true;
+				finished = true;
+				releaseDeflater( pool, def );
+			}
+		}
+
+		private void writeInt( int i )
+			throws IOException {
+			out.write( i & 0xff );
+			out.write( (i >> 8) & 0xff );
+			out.write( (i >> 16) & 0xff );
+			out.write( (i >> 24) & 0xff );
+		}
+	}
+
+	private static class ContentKey {
+		private final String coding;
+		private final int level;
+		private final byte[] digest;
+		private final int hashCode;
+
+		private ContentKey( String coding, int level, byte[] digest ) {
+			this.coding = coding;
+			this.level = level;
+			this.digest = digest;
+			this.hashCode = (Arrays.hashCode( digest ) * 31 + coding.hashCode()) * 31 + level;
+		}
+
+		@Override
+		public int hashCode() {
+			return hashCode;
+		}
+
+		@Override
+		public boolean equals( Object obj ) {
+			if( !(obj instanceof ContentKey) ) {
+				return false;
+			}
+			final ContentKey other = (ContentKey) obj;
+			return level == other.level && coding.equals( other.coding ) && Arrays.equals( digest, other.digest );
+		}
+	}
+
+	/**
+	 * A least recently used cache of compressed contents, bounded by the sum of their sizes.
+	 */
+	private static class ContentCache {
+		private final LinkedHashMap< ContentKey, byte[] > entries = new LinkedHashMap<>( 64, 0.75f, true );
+		private long size = 0;
+
+		private synchronized byte[] get( ContentKey key ) {
+			return entries.get( key );
+		}
+
+		private synchronized void put( ContentKey key, byte[] compressed ) {
+			final byte[] previous = entries.put( key, compressed );
+			if( previous != null ) {
+				size -= previous.length;
+			}
+			size += compressed.length;
+			final Iterator< byte[] > it = entries.values().iterator();
+			while( size > MAX_CACHE_SIZE && it.hasNext() ) {
+				size -= it.next().length;
+				it.remove();
+			}
+		}
+	}
+
+	private static Compressor loadBrotli() {
+		try {
+			Class.forName( "com.aayushatharva.brotli4j.Brotli4jLoader" ).getMethod( "ensureAvailability" )
+				.invoke( null );
+			final Class< ? > parametersClass =
+				Class.forName( "com.aayushatharva.brotli4j.encoder.Encoder$Parameters" );
+			final Method setQuality = parametersClass.getMethod( "setQuality", int.class );
+			final Method compress = Class.forName( "com.aayushatharva.brotli4j.encoder.Encoder" )
+				.getMethod( "compress", byte[].class, parametersClass );
+			final Compressor compressor = ( content, level ) -> {
+				try {
+					// Quality 11, the default of the library, is too slow for dynamic contents
+					final Object parameters = parametersClass.getConstructor().newInstance();
+					setQuality.invoke( parameters, level == DEFAULT_LEVEL ? 5 : Math.min( level, 11 ) );
+					return (byte[]) compress.invoke( null, content, parameters );
+				} catch( InvocationTargetException e ) {
+					throw new IOException( e.getCause() );
+				} catch( ReflectiveOperationException e ) {
+					throw new IOException( e );
+				}
+			};
+			compressor.compress( new byte[ 1 ], DEFAULT_LEVEL );
+			return compressor;
+		} catch( ReflectiveOperationException | IOException | LinkageError e ) {
+			// The library, or its native part for this platform, is missing
+			return null;
+		}
+	}
+
+	private static Compressor loadZstd() {
+		try {
+			final Method compress =
+				Class.forName( "com.github.luben.zstd.Zstd" ).getMethod( "compress", byte[].class, int.class );
+			final Compressor compressor = ( content, level ) -> {
+				try {
+					return (byte[]) compress.invoke( null, content, level == DEFAULT_LEVEL ? 3 : Math.max( level, 1 ) );
+				} catch( InvocationTargetException e ) {
+					throw new IOException( e.getCause() );
+				} catch( ReflectiveOperationException e ) {
+					throw new IOException( e );
+				}
+			};
+			compressor.compress( new byte[ 1 ], DEFAULT_LEVEL );
+			return compressor;
+		} catch( ReflectiveOperationException | IOException | LinkageError e ) {
+			// The library, or its native part for this platform, is missing
+			return null;
+		}
+	}
+}
@@ -21,6 +21,9 @@
 
 package jolie.net.http;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -94,11 +97,17 @@ public class HttpMessage {
 	private Version version;
 	private final Type type;
 	private byte[] content = null;
+	private Path contentFile = null;
+	private long contentFileSize = 0;
 	final private Map< String, String > propMap = new HashMap<>();
 	final private List< Cookie > setCookies = new ArrayList<>();
 
 	final private Map< String, String > cookies = new HashMap<>();
 
+	// Values of the Cookie and Set-Cookie headers, parsed only if the cookies are requested
+	private String cookieHeader = null;
+	private List< String > setCookieHeaders = null;
+
 	private int statusCode;
 	private String requestPath;
 	private String reason;
@@ -125,18 +134,111 @@ public class HttpMessage {
 	}
 
 	public Map< String, String > cookies() {
+		if( cookieHeader != null ) {
+			parseCookies( cookieHeader, cookies );
+			cookieHeader = null;
+		}
 		return cookies;
 	}
 
+	/**
+	 * Adds the value of a Cookie header, which is parsed when the cookies of this message are
+	 * requested.
+	 *
+	 * @param value the value of the header
+	 */
+	public void addCookieHeader( String value ) {
+		cookieHeader = cookieHeader == null ? value : cookieHeader + ';' + value;
+	}
+
 	public void addSetCookie( Cookie cookie ) {
 		setCookies.add( cookie );
 	}
 
+	/**
+	 * Adds the value of a Set-Cookie header, which is parsed when the cookies set by this message are
+	 * requested.
+	 *
+	 * @param value the value of the header
+	 */
+	public void addSetCookieHeader( String value ) {
+		if( setCookieHeaders == null ) {
+			setCookieHeaders = new ArrayList<>( 2 );
+		}
+		setCookieHeaders.add( value );
+	}
+
 	@SuppressWarnings( "PMD" )
 	public List< Cookie > setCookies() {
+		if( setCookieHeaders != null ) {
+			for( String value : setCookieHeaders ) {
+				final Cookie cookie = parseSetCookie( value );
+				if( cookie != null ) {
+					setCookies.add( cookie );
+				}
+			}
+			setCookieHeaders = null;
+		}
 		return setCookies;
 	}
 
+	private static void parseCookies( String header, Map< String, String > cookies ) {
+		int start = 0;
+		while( start < header.length() ) {
+			int end = header.indexOf( ';', start );
+			if( end < 0 ) {
+				end = header.length();
+			}
+			final int equals = header.indexOf( '=', start );
+			if( equals >= 0 && equals < end ) {
+				cookies.put( header.substring( start, equals ).trim(), header.substring( equals + 1, end ).trim() );
+			}
+			start = end + 1;
+		}
+	}
+
+	private static Cookie parseSetCookie( String header ) {
+		int end = header.indexOf( ';' );
+		if( end < 0 ) {
+			end = header.length();
+		}
+		final int equals = header.indexOf( '=' );
+		if( equals < 0 || equals > end ) {
+			return null;
+		}
+		final String name = header.substring( 0, equals ).trim();
+		final String value = header.substring( equals + 1, end ).trim();
+		boolean secure = false;
+		String domain = "";
+		String path = "";
+		String expires = "";
+		while( end < header.length() ) {
+			final int start = end + 1;
+			end = header.indexOf( ';', start );
+			if( end < 0 ) {
+				end = header.length();
+			}
+			final String attribute = header.substring( start, end ).trim();
+			final int attributeEquals = attribute.indexOf( '=' );
+			if( attributeEquals < 0 ) {
+				if( "secure".equalsIgnoreCase( attribute ) ) {
+					secure = true;
+				}
+			} else {
+				final String attributeName = attribute.substring( 0, attributeEquals ).trim();
+				final String attributeValue = attribute.substring( attributeEquals + 1 ).trim();
+				if( "expires".equalsIgnoreCase( attributeName ) ) {
+					expires = attributeValue;
+				} else if( "path".equalsIgnoreCase( attributeName ) ) {
+					path = attributeValue;
+				} else if( "domain".equalsIgnoreCase( attributeName ) ) {
+					domain = attributeValue;
+				}
+			}
+		}
+		return name.isEmpty() ? null : new Cookie( name, value, domain, path, expires, secure );
+	}
+
 	public HttpMessage( Type type ) {
 		this.type = type;
 	}
@@ -151,6 +253,41 @@ public class HttpMessage {
 
 	public void setContent( byte[] content ) {
 		this.content = content;
+		this.contentFile = null;
+	}
+
+	/**
+	 * Sets the content of this message to be the one stored in a file, for contents that are too large
+	 * to be kept in memory.
+	 *
+	 * @param file the file storing the content
+	 * @param size the size of the content in bytes
+	 */
+	public void setContentFile( Path file, long size ) {
+		this.content = null;
+		this.contentFile = file;
+		this.contentFileSize = size;
+	}
+
+	/**
+	 * Returns the file storing the content of this message, or null if the content is in memory.
+	 *
+	 * @return the file storing the content of this message, or null
+	 */
+	public Path contentFile() {
+		return contentFile;
+	}
+
+	/**
+	 * Deletes the file storing the content of this message, if any, discarding the content.
+	 */
+	public void deleteContentFile()
+		throws IOException {
+		if( contentFile != null ) {
+			final Path file = contentFile;
+			contentFile = null;
+			Files.deleteIfExists( file );
+		}
 	}
 
 	public Collection< Entry< String, String > > properties() {
@@ -187,6 +324,8 @@ public class HttpMessage {
 	}
 
 	public int size() {
+		if( contentFile != null )
+			return (int) Math.min( contentFileSize, Integer.MAX_VALUE );
 		if( content == null )
 			return 0;
 		return content.length;
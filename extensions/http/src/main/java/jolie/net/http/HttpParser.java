@@ -22,88 +22,280 @@
 
 package jolie.net.http;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.nio.ByteBuffer;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Predicate;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.InflaterInputStream;
 
-import jolie.lang.parse.Scanner;
 import jolie.net.ChannelClosingException;
 
+/**
+ * Parses HTTP/1.x messages from a stream.
+ *
+ * The parser works on the bytes of the message head, which it reads one line at a time into a
+ * reusable buffer. It never reads beyond the message, so the stream can carry other messages after
+ * it. Header names are looked up in a pre-hashed table of common names, so that no string is
+ * created for them; the cookies and the request path are decoded only when they need to be. The
+ * message head is subject to the size limits below.
+ */
 public class HttpParser {
-	private static final String HTTP = "HTTP";
-	private static final String GET = "GET";
-	private static final String POST = "POST";
-	private static final String PUT = "PUT";
-	private static final String HEAD = "HEAD";
-	private static final String DELETE = "DELETE";
-	// private static final String TRACE = "TRACE";
-	// private static final String CONNECT = "CONNECT";
-	private static final String OPTIONS = "OPTIONS";
-	private static final String PATCH = "PATCH";
-
-	private static final Pattern COOKIES_SPLIT_PATTERN = Pattern.compile( ";" );
-	private static final Pattern COOKIE_NAME_VALUE_SPLIT_PATTERN = Pattern.compile( "=" );
-
-	private final HttpScanner scanner;
-	private Scanner.Token token;
-
-	private void nextToken()
-		throws IOException {
-		token = scanner.getToken();
+	private static final int MAX_LINE_LENGTH = 0x10000; // 64K
+	private static final int MAX_HEAD_SIZE = 0x40000; // 256K
+	private static final int MAX_HEADER_COUNT = 512;
+	private static final int INITIAL_LINE_BUFFER_SIZE = 256;
+
+	private static final byte[] HTTP = { 'h', 't', 't', 'p', '/' };
+
+	private static final String[] METHOD_NAMES = { "GET", "POST", "HEAD", "DELETE", "PUT", "PATCH", "OPTIONS" };
+	private static final HttpMessage.Type[] METHOD_TYPES = {
+		HttpMessage.Type.GET, HttpMessage.Type.POST, HttpMessage.Type.HEAD, HttpMessage.Type.DELETE,
+		HttpMessage.Type.PUT, HttpMessage.Type.PATCH, HttpMessage.Type.OPTIONS
+	};
+	private static final byte[][] METHODS = new byte[ METHOD_NAMES.length ][];
+
+	// Header names that are looked up without creating a string, hashed by hashHeaderName
+	private static final String[] HEADER_NAMES = {
+		"accept", "accept-charset", "accept-encoding", "accept-language", "accept-ranges", "authorization",
+		"cache-control", "connection", "content-disposition", "content-encoding", "content-language",
+		"content-length", "content-range", "content-type", "cookie", "date", "dnt", "etag", "expect",
+		"expires", "forwarded", "host", "if-match", "if-modified-since", "if-none-match", "if-range",
+		"if-unmodified-since", "keep-alive", "last-modified", "location", "origin", "pragma",
+		"proxy-authorization", "range", "referer", "sec-fetch-dest", "sec-fetch-mode", "sec-fetch-site",
+		"sec-fetch-user", "server", "set-cookie", "soapaction", "te", "trailer", "transfer-encoding",
+		"upgrade", "upgrade-insecure-requests", "user-agent", "vary", "via", "www-authenticate",
+		"x-forwarded-for", "x-forwarded-host", "x-forwarded-proto", "x-jolie-messageid",
+		"x-jolie-servicepath", "x-requested-with"
+	};
+	private static final int HEADER_TABLE_MASK = 0xFF;
+	private static final byte[][] HEADER_TABLE_NAMES = new byte[ HEADER_TABLE_MASK + 1 ][];
+	private static final String[] HEADER_TABLE_STRINGS = new String[ HEADER_TABLE_MASK + 1 ];
+
+	// The characters allowed in header names (tchar in RFC 7230)
+	private static final boolean[] TOKEN_CHARS = new boolean[ 128 ];
+
+	static {
+		for( int i = 0; i < METHOD_NAMES.length; i++ ) {
+			METHODS[ i ] = METHOD_NAMES[ i ].getBytes( StandardCharsets.US_ASCII );
+		}
+		for( String name : HEADER_NAMES ) {
+			final byte[] bytes = name.getBytes( StandardCharsets.US_ASCII );
+			int i = hashHeaderName( bytes, bytes.length ) & HEADER_TABLE_MASK;
+			while( HEADER_TABLE_NAMES[ i ] != null ) {
+				i = (i + 1) & HEADER_TABLE_MASK;
+			}
+			HEADER_TABLE_NAMES[ i ] = bytes;
+			HEADER_TABLE_STRINGS[ i ] = name;
+		}
+		for( char c = '0'; c <= '9'; c++ ) {
+			TOKEN_CHARS[ c ] = true;
+		}
+		for( char c = 'a'; c <= 'z'; c++ ) {
+			TOKEN_CHARS[ c ] = true;
+			TOKEN_CHARS[ Character.toUpperCase( c ) ] = true;
+		}
+		for( char c : "!#$%&'*+-.^_`|~".toCharArray() ) {
+			TOKEN_CHARS[ c ] = true;
+		}
 	}
 
+	private final InputStream stream;
+	private final Predicate< HttpMessage > spoolsContent;
+	private final Path spoolDirectory;
+	private boolean spools = false;
+	private byte[] line = new byte[ INITIAL_LINE_BUFFER_SIZE ];
+	private int lineLength = 0;
+	private int headSize = 0;
+	private int headerCount = 0;
+
 	public HttpParser( InputStream istream )
 		throws IOException {
-		scanner = new HttpScanner( istream );
-		// , URI.create( "urn:network" ) );
+		this( istream, message -> false, null );
 	}
 
-	private void tokenAssert( Scanner.TokenType type )
+	/**
+	 * Creates a parser that stores the contents of some messages in temporary files, instead of memory
+	 * (see {@link HttpMessage#contentFile()}). Every message for which the given predicate holds has
+	 * its content in a file, even if it is empty. Deleting the files is up to the user of the parsed
+	 * messages.
+	 *
+	 * @param istream the stream to parse
+	 * @param spoolsContent tells, given the head of a message, whether its content must be stored in a
+	 *        temporary file
+	 * @param spoolDirectory the directory for the temporary files, or null for the default one
+	 */
+	public HttpParser( InputStream istream, Predicate< HttpMessage > spoolsContent, Path spoolDirectory )
 		throws IOException {
-		if( token.isNot( type ) )
-			throwException();
+		this.stream = istream;
+		this.spoolsContent = spoolsContent;
+		this.spoolDirectory = spoolDirectory;
+	}
+
+	private static IOException malformed( String what ) {
+		return new IOException( "Malformed HTTP header: " + what );
+	}
+
+	/**
+	 * Reads a line into the line buffer, without its terminator (CR-LF, or a single LF).
+	 *
+	 * @return false if the stream ended before the line started
+	 */
+	private boolean readLine()
+		throws IOException {
+		lineLength = 0;
+		int b;
+		while( (b = stream.read()) != '\n' ) {
+			if( b == -1 ) {
+				if( lineLength == 0 ) {
+					return false;
+				}
+				throw new EOFException( "Unexpected end of stream in HTTP header" );
+			}
+			if( lineLength == line.length ) {
+				if( lineLength >= MAX_LINE_LENGTH ) {
+					throw new IOException(
+						"HTTP header line exceeds the maximum allowed length (" + MAX_LINE_LENGTH + " bytes)" );
+				}
+				line = Arrays.copyOf( line, Math.min( line.length * 2, MAX_LINE_LENGTH ) );
+			}
+			line[ lineLength++ ] = (byte) b;
+		}
+		if( lineLength > 0 && line[ lineLength - 1 ] == '\r' ) {
+			lineLength--;
+		}
+		return true;
 	}
 
-	private void throwException()
+	/**
+	 * Reads a line of the message head, which is subject to the limit on its size.
+	 *
+	 * @return false if the stream ended before the line started
+	 */
+	private boolean readHeadLine()
 		throws IOException {
-		throw new IOException( "Malformed HTTP header" );
+		if( !readLine() ) {
+			return false;
+		}
+		headSize += lineLength + 2;
+		if( headSize > MAX_HEAD_SIZE ) {
+			throw new IOException( "HTTP header exceeds the maximum allowed size (" + MAX_HEAD_SIZE + " bytes)" );
+		}
+		return true;
+	}
+
+	private boolean lineRegionEquals( int offset, byte[] bytes ) {
+		if( offset + bytes.length > lineLength ) {
+			return false;
+		}
+		for( int i = 0; i < bytes.length; i++ ) {
+			if( line[ offset + i ] != bytes[ i ] ) {
+				return false;
+			}
+		}
+		return true;
 	}
 
+	private String lineString( int start, int end ) {
+		return new String( line, start, end - start, StandardCharsets.ISO_8859_1 );
+	}
+
+	private static boolean isWhitespace( byte b ) {
+		return b == ' ' || b == '\t';
+	}
+
+	private static byte toLowerCase( byte b ) {
+		return b >= 'A' && b <= 'Z' ? (byte) (b + ('a' - 'A')) : b;
+	}
+
+	private static int hashHeaderName( byte[] name, int length ) {
+		int hash = 0;
+		for( int i = 0; i < length; i++ ) {
+			hash = 31 * hash + name[ i ];
+		}
+		return hash ^ (hash >>> 8);
+	}
+
+	/**
+	 * Returns the name of the header in the line buffer, which is lower-cased in place.
+	 *
+	 * @param length the length of the name
+	 */
+	private String headerName( int length )
+		throws IOException {
+		if( length == 0 ) {
+			throw malformed( "empty header name" );
+		}
+		for( int i = 0; i < length; i++ ) {
+			if( line[ i ] < 0 || !TOKEN_CHARS[ line[ i ] ] ) {
+				throw malformed( "illegal character in header name " + lineString( 0, length ) );
+			}
+		}
+		for( int i = 0; i < length; i++ ) {
+			line[ i ] = toLowerCase( line[ i ] );
+		}
+		int i = hashHeaderName( line, length ) & HEADER_TABLE_MASK;
+		byte[] candidate;
+		while( (candidate = HEADER_TABLE_NAMES[ i ]) != null ) {
+			if( candidate.length == length && lineRegionEquals( 0, candidate ) ) {
+				return HEADER_TABLE_STRINGS[ i ];
+			}
+			i = (i + 1) & HEADER_TABLE_MASK;
+		}
+		return lineString( 0, length );
+	}
+
+	/**
+	 * Parses header fields until the empty line that ends them.
+	 */
 	private void parseHeaderProperties( HttpMessage message )
 		throws IOException {
-		String name, value;
-		nextToken();
-		HttpMessage.Cookie cookie;
-		while( token.is( Scanner.TokenType.ID ) ) {
-			name = token.content().toLowerCase();
-			nextToken();
-			tokenAssert( Scanner.TokenType.COLON );
-			value = scanner.readLine();
+		while( true ) {
+			if( !readHeadLine() ) {
+				throw new EOFException( "Unexpected end of stream in HTTP header" );
+			}
+			if( lineLength == 0 ) {
+				return;
+			}
+			if( ++headerCount > MAX_HEADER_COUNT ) {
+				throw new IOException( "HTTP message exceeds the maximum allowed number of headers ("
+					+ MAX_HEADER_COUNT + ")" );
+			}
+			if( isWhitespace( line[ 0 ] ) ) {
+				// Obsolete line folding (RFC 7230, Section 3.2.4)
+				throw malformed( "folded header line" );
+			}
+			int colon = 0;
+			while( colon < lineLength && line[ colon ] != ':' ) {
+				colon++;
+			}
+			if( colon == lineLength ) {
+				throw malformed( "missing colon in header " + lineString( 0, lineLength ) );
+			}
+			final String name = headerName( colon );
+			int start = colon + 1;
+			int end = lineLength;
+			while( start < end && isWhitespace( line[ start ] ) ) {
+				start++;
+			}
+			while( end > start && isWhitespace( line[ end - 1 ] ) ) {
+				end--;
+			}
+			final String value = lineString( start, end );
 			switch( name ) {
 			case "set-cookie":
-				// cookie = parseSetCookie( value );
-				if( (cookie = parseSetCookie( value )) != null ) {
-					message.addSetCookie( cookie );
-				}
+				message.addSetCookieHeader( value );
 				break;
 			case "cookie":
-				String[] ss = value.split( ";" );
-				for( String s : ss ) {
-					String[] nv = s.trim().split( "=", 2 );
-					if( nv.length > 1 ) {
-						message.addCookie( nv[ 0 ], nv[ 1 ] );
-					}
-				}
+				message.addCookieHeader( value );
 				break;
 			case "user-agent":
 				message.setUserAgent( value );
@@ -113,119 +305,137 @@ public class HttpParser {
 				message.setProperty( name, value );
 				break;
 			}
-			nextToken();
 		}
 	}
 
-	private HttpMessage.Cookie parseSetCookie( String cookieString ) {
-		String[] ss = COOKIES_SPLIT_PATTERN.split( cookieString );
-		if( cookieString.isEmpty() == false && ss.length > 0 ) {
-			boolean secure = false;
-			String domain = "";
-			String path = "";
-			String expires = "";
-			String[] nameValue = COOKIE_NAME_VALUE_SPLIT_PATTERN.split( ss[ 0 ], 2 );
-			if( ss.length > 1 ) {
-				String[] kv;
-				for( int i = 1; i < ss.length; i++ ) {
-					if( "secure".equals( ss[ i ] ) ) {
-						secure = true;
-					} else {
-						kv = COOKIE_NAME_VALUE_SPLIT_PATTERN.split( ss[ i ], 2 );
-						if( kv.length > 1 ) {
-							kv[ 0 ] = kv[ 0 ].trim();
-							if( "expires".equalsIgnoreCase( kv[ 0 ] ) ) {
-								expires = kv[ 1 ];
-							} else if( "path".equalsIgnoreCase( kv[ 0 ] ) ) {
-								path = kv[ 1 ];
-							} else if( "domain".equalsIgnoreCase( kv[ 0 ] ) ) {
-								domain = kv[ 1 ];
-							}
-						}
-					}
-				}
+	private int indexOf( byte b, int from ) {
+		for( int i = from; i < lineLength; i++ ) {
+			if( line[ i ] == b ) {
+				return i;
 			}
-			return new HttpMessage.Cookie(
-				nameValue[ 0 ],
-				nameValue[ 1 ],
-				domain,
-				path,
-				expires,
-				secure );
+		}
+		return -1;
+	}
+
+	/**
+	 * Parses the HTTP version at the given position of the line buffer.
+	 *
+	 * @return the version, or null if it is not supported
+	 */
+	private HttpMessage.Version parseVersion( int start, int end ) {
+		if( end - start != HTTP.length + 3 ) {
+			return null;
+		}
+		for( int i = 0; i < HTTP.length; i++ ) {
+			if( toLowerCase( line[ start + i ] ) != HTTP[ i ] ) {
+				return null;
+			}
+		}
+		start += HTTP.length;
+		if( line[ start ] != '1' || line[ start + 1 ] != '.' ) {
+			return null;
+		} else if( line[ start + 2 ] == '1' ) {
+			return HttpMessage.Version.HTTP_1_1;
+		} else if( line[ start + 2 ] == '0' ) {
+			return HttpMessage.Version.HTTP_1_0;
 		}
 		return null;
 	}
 
-	private HttpMessage parseRequest()
+	private HttpMessage parseRequest( int methodEnd )
 		throws IOException {
 		HttpMessage message = null;
-		if( token.isKeyword( GET ) ) {
-			message = new HttpMessage( HttpMessage.Type.GET );
-		} else if( token.isKeyword( POST ) ) {
-			message = new HttpMessage( HttpMessage.Type.POST );
-		} else if( token.isKeyword( HEAD ) ) {
-			message = new HttpMessage( HttpMessage.Type.HEAD );
-		} else if( token.isKeyword( DELETE ) ) {
-			message = new HttpMessage( HttpMessage.Type.DELETE );
-		} else if( token.isKeyword( PUT ) ) {
-			message = new HttpMessage( HttpMessage.Type.PUT );
-		} else if( token.isKeyword( PATCH ) ) {
-			message = new HttpMessage( HttpMessage.Type.PATCH );
-		} else if( token.isKeyword( OPTIONS ) ) {
-			message = new HttpMessage( HttpMessage.Type.OPTIONS );
-		} else if( token.is( Scanner.TokenType.EOF ) ) {
-			// It's not a real message, the client is just closing a connection.
-			throw new ChannelClosingException( "[http] Remote host closed connection." );
-		} else {
+		for( int i = 0; i < METHODS.length && message == null; i++ ) {
+			if( METHODS[ i ].length == methodEnd && lineRegionEquals( 0, METHODS[ i ] ) ) {
+				message = new HttpMessage( METHOD_TYPES[ i ] );
+			}
+		}
+		if( message == null ) {
 			throw new UnsupportedMethodException( "Unknown/Unsupported HTTP request type: "
-				+ token.content() + "(" + token.type() + ")" );
+				+ lineString( 0, methodEnd ) );
 		}
 
-		message.setRequestPath( URLDecoder.decode( scanner.readWord(), HttpUtils.URL_DECODER_ENC ) );
-
-		nextToken();
-		if( !token.isKeywordIgnoreCase( HTTP ) )
+		final int pathStart = methodEnd + 1;
+		final int pathEnd = indexOf( (byte) ' ', pathStart );
+		if( pathEnd <= pathStart ) {
 			throw new UnsupportedHttpVersionException( "Invalid HTTP header: expected HTTP version" );
+		}
+		message.setRequestPath( decodeRequestPath( pathStart, pathEnd ) );
 
-		if( scanner.currentCharacter() != '/' )
-			throw new UnsupportedHttpVersionException( "Expected HTTP version" );
-
-		String version = scanner.readWord();
-		if( "1.0".equals( version ) )
-			message.setVersion( HttpMessage.Version.HTTP_1_0 );
-		else if( "1.1".equals( version ) )
-			message.setVersion( HttpMessage.Version.HTTP_1_1 );
-		else
-			throw new UnsupportedHttpVersionException( "Unsupported HTTP version specified: " + version );
-
+		final HttpMessage.Version version = parseVersion( pathEnd + 1, lineLength );
+		if( version == null ) {
+			throw new UnsupportedHttpVersionException( "Unsupported HTTP version specified: "
+				+ lineString( pathEnd + 1, lineLength ) );
+		}
+		message.setVersion( version );
 		return message;
 	}
 
-	private HttpMessage parseMessageType()
+	/**
+	 * Decodes the request path in the line buffer, using {@link URLDecoder} only if it contains escaped
+	 * characters.
+	 */
+	private String decodeRequestPath( int start, int end )
 		throws IOException {
-		if( token.isKeywordIgnoreCase( HTTP ) ) {
-			return parseResponse();
-		} else {
-			return parseRequest();
+		final String path = lineString( start, end );
+		for( int i = start; i < end; i++ ) {
+			if( line[ i ] == '%' || line[ i ] == '+' ) {
+				try {
+					return URLDecoder.decode( path, HttpUtils.URL_DECODER_ENC );
+				} catch( IllegalArgumentException e ) {
+					throw malformed( "illegal escape sequence in request path " + path );
+				}
+			}
 		}
+		return path;
 	}
 
-	private HttpMessage parseResponse()
+	private HttpMessage parseResponse( int versionEnd )
 		throws IOException {
+		if( parseVersion( 0, versionEnd ) == null ) {
+			throw new IOException( "Unsupported HTTP version specified: " + lineString( 0, versionEnd ) );
+		}
+		final int codeStart = versionEnd + 1;
+		int codeEnd = indexOf( (byte) ' ', codeStart );
+		if( codeEnd < 0 ) {
+			codeEnd = lineLength;
+		}
+		if( codeEnd - codeStart != 3 ) {
+			throw malformed( "invalid status code" );
+		}
+		int statusCode = 0;
+		for( int i = codeStart; i < codeEnd; i++ ) {
+			if( line[ i ] < '0' || line[ i ] > '9' ) {
+				throw malformed( "invalid status code" );
+			}
+			statusCode = statusCode * 10 + (line[ i ] - '0');
+		}
 		HttpMessage message = new HttpMessage( HttpMessage.Type.RESPONSE );
-		if( scanner.currentCharacter() != '/' )
-			throw new IOException( "Expected HTTP version" );
-
-		String version = scanner.readWord();
-		if( !("1.1".equals( version ) || "1.0".equals( version )) )
-			throw new IOException( "Unsupported HTTP version specified: " + version );
+		message.setStatusCode( statusCode );
+		message.setReason( codeEnd < lineLength ? lineString( codeEnd + 1, lineLength ) : "" );
+		return message;
+	}
 
-		nextToken();
-		tokenAssert( Scanner.TokenType.INT );
-		message.setStatusCode( Integer.parseInt( token.content() ) );
-		message.setReason( scanner.readLine() );
+	private HttpMessage parseMessageType()
+		throws IOException {
+		// Empty lines before the start line are ignored (RFC 7230, Section 3.5)
+		do {
+			if( !readHeadLine() ) {
+				// It's not a real message, the client is just closing a connection.
+				throw new ChannelClosingException( "[http] Remote host closed connection." );
+			}
+		} while( lineLength == 0 );
 
-		return message;
+		final int firstSpace = indexOf( (byte) ' ', 0 );
+		if( firstSpace <= 0 ) {
+			throw new UnsupportedMethodException( "Unknown/Unsupported HTTP request type: "
+				+ lineString( 0, lineLength ) );
+		}
+		if( firstSpace > HTTP.length && toLowerCase( line[ 0 ] ) == 'h' && line[ HTTP.length - 1 ] == '/' ) {
+			return parseResponse( firstSpace );
+		} else {
+			return parseRequest( firstSpace );
+		}
 	}
 
 	private static void blockingRead( InputStream stream, byte[] buffer, int offset, int length )
@@ -240,18 +450,147 @@ public class HttpParser {
 		} while( s < length );
 	}
 
-	private static final int BLOCK_SIZE = 0x1000; // 4K
+	private static final int BLOCK_SIZE = 0x2000; // 8K
+
+	/**
+	 * Parses the size of a chunk from its header in the line buffer, ignoring chunk extensions.
+	 */
+	private int parseChunkSize()
+		throws IOException {
+		int size = 0;
+		int i = 0;
+		for( ; i < lineLength && line[ i ] != ';' && !isWhitespace( line[ i ] ); i++ ) {
+			final int digit = Character.digit( line[ i ], 16 );
+			if( digit < 0 || size > (Integer.MAX_VALUE >> 4) ) {
+				throw new IOException( "Illegal chunk size " + lineString( 0, lineLength ) );
+			}
+			size = (size << 4) | digit;
+		}
+		if( i == 0 ) {
+			throw new IOException( "Illegal chunk size " + lineString( 0, lineLength ) );
+		}
+		return size;
+	}
 
-	private static byte[] readAll( InputStream stream )
+	private Path createSpoolFile()
 		throws IOException {
+		return spoolDirectory == null ? Files.createTempFile( "jolie-http-", ".content" )
+			: Files.createTempFile( spoolDirectory, "jolie-http-", ".content" );
+	}
+
+	/**
+	 * Decodes the chunked transfer coding of a message content, reading one chunk at a time. Link:
+	 * http://tools.ietf.org/html/rfc2616#section-3.6.1
+	 */
+	private class ChunkedInputStream extends InputStream {
+		private int remaining = 0;
+		private boolean afterChunk = false;
+		private boolean finished = false;
+
+		private boolean nextChunk()
+			throws IOException {
+			if( finished ) {
+				return false;
+			}
+			if( afterChunk && (!readLine() || lineLength != 0) ) {
+				throw new IOException( "Missing CR-LF after HTTP chunk" );
+			}
+			// the chunk header contains the size in hex format
+			// and could contain additional parameters which we ignore atm
+			if( !readLine() ) {
+				throw new EOFException( "Unexpected end of stream in HTTP chunk" );
+			}
+			remaining = parseChunkSize();
+			afterChunk = true;
+			finished = remaining == 0;
+			return !finished;
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len )
+			throws IOException {
+			if( remaining == 0 && !nextChunk() ) {
+				return -1;
+			}
+			int r = stream.read( b, off, Math.min( len, remaining ) );
+			if( r == -1 ) {
+				throw new EOFException();
+			}
+			remaining -= r;
+			return r;
+		}
+
+		@Override
+		public int read()
+			throws IOException {
+			byte[] b = new byte[ 1 ];
+			return read( b, 0, 1 ) == -1 ? -1 : (b[ 0 ] & 0xFF);
+		}
+	}
+
+	/**
+	 * Reads a message content of known length.
+	 */
+	private static class BoundedInputStream extends InputStream {
+		private final InputStream stream;
+		private long remaining;
+
+		private BoundedInputStream( InputStream stream, long length ) {
+			this.stream = stream;
+			this.remaining = length;
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len )
+			throws IOException {
+			if( remaining == 0 ) {
+				return -1;
+			}
+			int r = stream.read( b, off, (int) Math.min( len, remaining ) );
+			if( r == -1 ) {
+				throw new EOFException();
+			}
+			remaining -= r;
+			return r;
+		}
+
+		@Override
+		public int read()
+			throws IOException {
+			byte[] b = new byte[ 1 ];
+			return read( b, 0, 1 ) == -1 ? -1 : (b[ 0 ] & 0xFF);
+		}
+	}
+
+	/**
+	 * Reads a decoded message content, in memory or in a temporary file if the message spools its
+	 * content.
+	 */
+	private void readContent( HttpMessage message, InputStream stream, int expectedSize )
+		throws IOException {
+		final byte[] buffer = new byte[ BLOCK_SIZE ];
 		int r;
-		ByteArrayOutputStream c = new ByteArrayOutputStream();
-		byte[] tmp = new byte[ BLOCK_SIZE ];
-		while( (r = stream.read( tmp, 0, BLOCK_SIZE )) != -1 ) {
-			c.write( tmp, 0, r );
-			tmp = new byte[ BLOCK_SIZE ];
+		if( !spools ) {
+			final ByteArrayOutputStream memory = new ByteArrayOutputStream( Math.max( 32, expectedSize ) );
+			while( (r = stream.read( buffer, 0, BLOCK_SIZE )) != -1 ) {
+				memory.write( buffer, 0, r );
+			}
+			message.setContent( memory.toByteArray() );
+			return;
+		}
+
+		final Path file = createSpoolFile();
+		long size = 0;
+		try( OutputStream fileStream = Files.newOutputStream( file ) ) {
+			while( (r = stream.read( buffer, 0, BLOCK_SIZE )) != -1 ) {
+				size += r;
+				fileStream.write( buffer, 0, r );
+			}
+		} catch( IOException e ) {
+			Files.deleteIfExists( file );
+			throw e;
 		}
-		return c.toByteArray();
+		message.setContentFile( file, size );
 	}
 
 	private void readContent( HttpMessage message )
@@ -279,41 +618,18 @@ public class HttpParser {
 			}
 		}
 
-		byte[] buffer = null;
-		InputStream stream = scanner.inputStream();
+		final String contentEncoding = message.getProperty( "content-encoding" );
+		final InputStream content;
 		if( chunked ) {
-			// Link: http://tools.ietf.org/html/rfc2616#section-3.6.1
-			List< byte[] > chunks = new ArrayList<>();
-			int l = -1, totalLen = 0;
-			scanner.readChar();
-			do {
-				// the chunk header contains the size in hex format
-				// and could contain additional parameters which we ignore atm
-				String chunkHeader = scanner.readLine( false );
-				String chunkSize = chunkHeader.split( ";", 2 )[ 0 ];
-				try {
-					l = Integer.parseInt( chunkSize, 16 );
-				} catch( NumberFormatException e ) {
-					throw new IOException( "Illegal chunk size " + chunkSize );
-				}
-				// parses the real chunk with the specified size, follwed by CR-LF
-				if( l > 0 ) {
-					totalLen += l;
-					byte[] chunk = new byte[ l ];
-					blockingRead( stream, chunk, 0, l );
-					chunks.add( chunk );
-					scanner.readChar();
-					scanner.eatSeparators();
-				}
-			} while( l > 0 );
-			// parse optional trailer (additional HTTP headers)
-			parseHeaderProperties( message );
-			ByteBuffer b = ByteBuffer.allocate( totalLen );
-			chunks.forEach( b::put );
-			buffer = b.array();
+			content = new ChunkedInputStream();
 		} else if( contentLength > 0 ) {
-			buffer = new byte[ contentLength ];
-			blockingRead( stream, buffer, 0, contentLength );
+			if( contentEncoding == null && !spools ) {
+				byte[] buffer = new byte[ contentLength ];
+				blockingRead( stream, buffer, 0, contentLength );
+				message.setContent( buffer );
+				return;
+			}
+			content = new BoundedInputStream( stream, contentLength );
 		} else if( message.isResponse() ) {
 			// Per https://tools.ietf.org/html/rfc7230#section-3.3.3 payload may only be sent on *responses*
 			// (including the HTTP version header) when there is NO transfer encoding and NO content length
@@ -331,33 +647,59 @@ public class HttpParser {
 				(version.equals( HttpMessage.Version.HTTP_1_0 )
 					&&
 					!message.getPropertyOrEmptyString( "connection" ).equalsIgnoreCase( "keep-alive" )) ) {
-				buffer = readAll( scanner.inputStream() );
+				content = stream;
+			} else {
+				return;
 			}
+		} else {
+			return;
 		}
 
-		if( buffer != null ) {
-			p = message.getProperty( "content-encoding" );
-			if( p != null ) {
-				if( p.contains( "deflate" ) ) {
-					buffer = readAll( new InflaterInputStream( new ByteArrayInputStream( buffer ) ) );
-				} else if( p.contains( "gzip" ) ) {
-					buffer = readAll( new GZIPInputStream( new ByteArrayInputStream( buffer ) ) );
-				} else if( !p.equals( "identity" ) ) {
-					throw new UnsupportedEncodingException( "Unrecognized Content-Encoding: " + p );
-				}
+		InputStream decodedContent = content;
+		if( contentEncoding != null ) {
+			if( contentEncoding.contains( "deflate" ) ) {
+				decodedContent = new InflaterInputStream( content );
+			} else if( contentEncoding.contains( "gzip" ) ) {
+				decodedContent = new GZIPInputStream( content );
+			} else if( !contentEncoding.equals( "identity" ) ) {
+				throw new UnsupportedEncodingException( "Unrecognized Content-Encoding: " + contentEncoding );
 			}
+		}
+		readContent( message, decodedContent, Math.max( contentLength, 0 ) );
 
-			message.setContent( buffer );
+		// Skip what the decoder did not need, like the last chunk
+		if( decodedContent != content ) {
+			byte[] buffer = new byte[ BLOCK_SIZE ];
+			int read;
+			do {
+				read = content.read( buffer, 0, BLOCK_SIZE );
+			} while( read != -1 );
+		}
+		if( chunked ) {
+			// parse optional trailer (additional HTTP headers)
+			parseHeaderProperties( message );
 		}
 	}
 
 	public HttpMessage parse()
 		throws IOException {
-		nextToken();
+		// The limits apply to each message read from the stream
+		headSize = 0;
+		headerCount = 0;
 		HttpMessage message = parseMessageType();
 		parseHeaderProperties( message );
-		readContent( message );
-		scanner.eatSeparatorsUntilEOF();
+		spools = spoolsContent.test( message );
+		try {
+			readContent( message );
+			if( spools && message.contentFile() == null ) {
+				// Messages without a content get an empty file
+				message.setContentFile( createSpoolFile(), 0 );
+			}
+		} catch( IOException e ) {
+			// E.g., the trailer of a chunked content is malformed
+			message.deleteContentFile();
+			throw e;
+		}
 		return message;
 	}
 }
@@ -26,11 +26,15 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.ByteArrayOutputStream;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
 import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
 
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
@@ -87,7 +91,10 @@ public class HttpUtils {
 		return null;
 	}
 
-	private static void errorGenerator( OutputStream ostream, IOException e ) throws IOException {
+	/**
+	 * Writes the HTTP/1.1 error response for a failure in receiving or sending a message.
+	 */
+	public static void errorGenerator( OutputStream ostream, IOException e ) throws IOException {
 		StringBuilder httpMessage = new StringBuilder();
 		if( e instanceof UnsupportedEncodingException ) {
 			httpMessage.append( "HTTP/1.1 415 Unsupported Media Type" ).append( CRLF );
@@ -169,23 +176,91 @@ public class HttpUtils {
 		return "iso-8859-1"; // this follows RFC 2616 3.4.1 Missing Charset
 	}
 
+	private static final DateTimeFormatter DATE_FORMATTER =
+		DateTimeFormatter.ofPattern( "EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US ).withZone( ZoneOffset.UTC );
+
+	/**
+	 * Formats a time as an HTTP date, e.g., for the Last-Modified header.
+	 *
+	 * @param millis the time in milliseconds since the epoch
+	 */
+	public static String formatDate( long millis ) {
+		return DATE_FORMATTER.format( Instant.ofEpochMilli( millis ) );
+	}
+
+	/**
+	 * Parses an HTTP date, returning the time in milliseconds since the epoch, or -1 if the date is not
+	 * valid.
+	 */
+	public static long parseDate( String date ) {
+		try {
+			return ZonedDateTime.parse( date.trim(), DateTimeFormatter.RFC_1123_DATE_TIME ).toInstant().toEpochMilli();
+		} catch( DateTimeParseException e ) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns true if an If-None-Match header matches an entity tag, using the weak comparison. Link:
+	 * https://tools.ietf.org/html/rfc7232#section-3.2
+	 */
+	public static boolean matchesEntityTag( String ifNoneMatch, String entityTag ) {
+		for( String tag : ifNoneMatch.split( "," ) ) {
+			tag = tag.trim();
+			if( tag.startsWith( "W/" ) ) {
+				tag = tag.substring( 2 );
+			}
+			if( tag.equals( "*" ) || tag.equals( entityTag ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the content coding to use for a message given the Accept-Encoding header of the peer, or
+	 * null if the message should not be compressed. Only the codings that can be applied while writing
+	 * the message are considered, see {@link #encodingOutputStream(String, OutputStream)}.
+	 */
+	public static String contentEncoding( String encoding ) {
+		return HttpCompression.negotiate( encoding, true );
+	}
+
+	/**
+	 * Returns a stream compressing what is written to it with the given content coding, as returned by
+	 * {@link #contentEncoding(String)}. The compression is completed by
+	 * {@link DeflaterOutputStream#finish()}.
+	 */
+	public static DeflaterOutputStream encodingOutputStream( String contentEncoding, OutputStream stream )
+		throws IOException {
+		return HttpCompression.outputStream( contentEncoding, stream, HttpCompression.DEFAULT_LEVEL );
+	}
+
+	/**
+	 * Compresses a content of at least {@link HttpCompression#DEFAULT_MIN_SIZE} bytes with the coding
+	 * negotiated with the peer, if any, appending the Content-Encoding header.
+	 */
 	public static ByteArray encode( String encoding, ByteArray content, StringBuilder headerBuilder )
 		throws IOException {
-		// RFC 7231 section-5.3.4 introduced the "*" (any) option, we opt for gzip as a sane default
-		if( encoding.contains( "gzip" ) || encoding.contains( "*" ) ) {
-			ByteArrayOutputStream baOutStream = new ByteArrayOutputStream();
-			GZIPOutputStream outStream = new GZIPOutputStream( baOutStream );
-			outStream.write( content.getBytes() );
-			outStream.close();
-			content = new ByteArray( baOutStream.toByteArray() );
-			headerBuilder.append( "Content-Encoding: gzip" ).append( HttpUtils.CRLF );
-		} else if( encoding.contains( "deflate" ) ) {
-			ByteArrayOutputStream baOutStream = new ByteArrayOutputStream();
-			DeflaterOutputStream outStream = new DeflaterOutputStream( baOutStream );
-			outStream.write( content.getBytes() );
-			outStream.close();
-			content = new ByteArray( baOutStream.toByteArray() );
-			headerBuilder.append( "Content-Encoding: deflate" ).append( HttpUtils.CRLF );
+		if( content.size() < HttpCompression.DEFAULT_MIN_SIZE ) {
+			return content;
+		}
+		return encode( encoding, content, HttpCompression.DEFAULT_LEVEL, headerBuilder );
+	}
+
+	/**
+	 * Compresses a content with the coding negotiated with the peer, if any, appending the
+	 * Content-Encoding header.
+	 *
+	 * @param encoding the Accept-Encoding header of the peer
+	 * @param level the compression level, or {@link HttpCompression#DEFAULT_LEVEL}
+	 */
+	public static ByteArray encode( String encoding, ByteArray content, int level, StringBuilder headerBuilder )
+		throws IOException {
+		String contentEncoding = HttpCompression.negotiate( encoding, false );
+		if( contentEncoding != null ) {
+			content = new ByteArray( HttpCompression.compress( contentEncoding, content.getBytes(), level ) );
+			headerBuilder.append( "Content-Encoding: " ).append( contentEncoding ).append( HttpUtils.CRLF );
 		}
 		return content;
 	}
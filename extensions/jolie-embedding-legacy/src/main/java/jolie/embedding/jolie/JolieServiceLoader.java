@@ -60,14 +60,15 @@ public class JolieServiceLoader extends EmbeddedServiceLoader {
 
 		Interpreter.Configuration config = commandLineParser.getInterpreterConfiguration();
 		Interpreter.Configuration.create(
-			config.connectionsLimit(), config.cellId(), config.correlationAlgorithm(), config.includePaths(),
+			config.connectionsLimit(), config.connectionsCache(), config.virtualThreads(), config.admission(),
+			config.cellId(), config.correlationAlgorithm(), config.includePaths(),
 			config.optionArgs(),
 			config.libUrls(), config.inputStream(), config.charset(), config.programFilepath(), config.arguments(),
 			config.constants(),
 			config.jolieClassLoader(), config.isProgramCompiled(), config.typeCheck(), config.tracer(),
 			config.tracerLevel(),
 			config.tracerMode(), config.check(), config.printStackTraces(), config.responseTimeout(), config.logLevel(),
-			config.programDirectory(), config.packagePaths(),
+			config.programDirectory(), config.packagePaths(), config.moduleCacheDirectory(),
 			// difference:
 			serviceName.orElse( config.executionTarget() ),
 			Optional.empty() );
@@ -0,0 +1,491 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+
+/**
+ * Encoder and decoder for the SODEP wire format.
+ *
+ * Messages are encoded in a single pass into pooled buffers, which are then written to the output
+ * stream. Buffers are never grown by copying: when one is full, encoding continues in a new one.
+ * Large byte arrays and strings are not copied into the buffers at all, but written to the stream
+ * on their own between them. Child names and operation names are short and repeat across messages,
+ * so their encoded and decoded forms are cached. Decoding reads directly from the input stream into
+ * the resulting {@link Value} tree, without reading past the end of the message.
+ */
+final class SodepCodec {
+	private static class DataTypeHeaderId {
+		private static final int NULL = 0;
+		private static final int STRING = 1;
+		private static final int INT = 2;
+		private static final int DOUBLE = 3;
+		private static final int BYTE_ARRAY = 4;
+		private static final int BOOL = 5;
+		private static final int LONG = 6;
+	}
+
+	private static final int INITIAL_BUFFER_SIZE = 4096;
+	private static final int MAX_POOLED_BUFFER_SIZE = 64 * 1024;
+	private static final BlockingQueue< ByteBuffer > BUFFER_POOL = new ArrayBlockingQueue<>( 64 );
+	// Byte arrays (and encoded strings) at least this long are written to the stream without copying
+	private static final int MIN_UNBUFFERED_SIZE = 8 * 1024;
+
+	// Strings up to this length (in bytes or chars) are candidates for caching.
+	private static final int MAX_CACHED_STRING_LENGTH = 64;
+	private static final int ENCODED_STRINGS_CACHE_SIZE = 4096;
+	private static final Map< String, byte[] > ENCODED_STRINGS = new ConcurrentHashMap<>();
+	private static final int DECODED_STRINGS_CACHE_SIZE = 4096; // Must be a power of two
+	private static final DecodedString[] DECODED_STRINGS = new DecodedString[ DECODED_STRINGS_CACHE_SIZE ];
+
+	private static final int MAX_SCRATCH_SIZE = 64 * 1024;
+
+	private static final SodepCodec UTF_8 = new SodepCodec( StandardCharsets.UTF_8 );
+
+	private static class DecodedString {
+		private final byte[] bytes;
+		private final String string;
+
+		private DecodedString( byte[] bytes, String string ) {
+			this.bytes = bytes;
+			this.string = string;
+		}
+	}
+
+	private final Charset charset;
+	private final boolean isUtf8;
+
+	private SodepCodec( Charset charset ) {
+		this.charset = charset;
+		this.isUtf8 = StandardCharsets.UTF_8.equals( charset );
+	}
+
+	/**
+	 * Returns a codec encoding strings with the given charset.
+	 */
+	public static SodepCodec forCharset( Charset charset ) {
+		return StandardCharsets.UTF_8.equals( charset ) ? UTF_8 : new SodepCodec( charset );
+	}
+
+	public void writeMessage( OutputStream ostream, CommMessage message )
+		throws IOException {
+		final Encoder encoder = new Encoder();
+		try {
+			encoder.writeMessage( message );
+			if( encoder.segments != null ) {
+				for( Object segment : encoder.segments ) {
+					if( segment instanceof ByteBuffer ) {
+						final ByteBuffer buffer = (ByteBuffer) segment;
+						ostream.write( buffer.array(), buffer.arrayOffset(), buffer.position() );
+					} else {
+						ostream.write( (byte[]) segment );
+					}
+				}
+			}
+			ostream.write( encoder.buffer.array(), encoder.buffer.arrayOffset(), encoder.buffer.position() );
+		} finally {
+			encoder.releaseBuffers();
+		}
+	}
+
+	public CommMessage readMessage( InputStream istream )
+		throws IOException {
+		return new Decoder( istream ).readMessage();
+	}
+
+	private static ByteBuffer acquireBuffer( int minCapacity ) {
+		if( minCapacity <= MAX_POOLED_BUFFER_SIZE ) {
+			final ByteBuffer buffer = BUFFER_POOL.poll();
+			if( buffer != null ) {
+				if( buffer.capacity() >= minCapacity ) {
+					return buffer;
+				}
+				releaseBuffer( buffer );
+			}
+		}
+		return ByteBuffer.allocate( Math.max( INITIAL_BUFFER_SIZE, minCapacity ) );
+	}
+
+	private static void releaseBuffer( ByteBuffer buffer ) {
+		if( buffer.capacity() <= MAX_POOLED_BUFFER_SIZE ) {
+			buffer.clear();
+			BUFFER_POOL.offer( buffer );
+		}
+	}
+
+	private class Encoder {
+		// What precedes the current buffer in the message, in order: full buffers (ByteBuffer) and
+		// large byte arrays (byte[]) that are written as they are. Full buffers are kept, rather than
+		// written right away, because counts are written into them after their content (see writeValue).
+		// Most messages fit in one buffer, so the list is created only when needed.
+		private List< Object > segments = null;
+		private ByteBuffer buffer = acquireBuffer( INITIAL_BUFFER_SIZE );
+
+		private void addSegment( Object segment ) {
+			if( segments == null ) {
+				segments = new ArrayList<>();
+			}
+			segments.add( segment );
+		}
+
+		private void ensureCapacity( int n ) {
+			if( buffer.remaining() < n ) {
+				addSegment( buffer );
+				buffer = acquireBuffer( Math.max( n, Math.min( buffer.capacity() * 2, MAX_POOLED_BUFFER_SIZE ) ) );
+			}
+		}
+
+		private void releaseBuffers() {
+			if( segments != null ) {
+				for( Object segment : segments ) {
+					if( segment instanceof ByteBuffer ) {
+						releaseBuffer( (ByteBuffer) segment );
+					}
+				}
+			}
+			releaseBuffer( buffer );
+		}
+
+		private void writeByte( int b ) {
+			ensureCapacity( 1 );
+			buffer.put( (byte) b );
+		}
+
+		private void writeInt( int i ) {
+			ensureCapacity( 4 );
+			buffer.putInt( i );
+		}
+
+		private void writeBytes( byte[] bytes ) {
+			if( bytes.length >= MIN_UNBUFFERED_SIZE ) {
+				addSegment( buffer );
+				addSegment( bytes );
+				buffer = acquireBuffer( INITIAL_BUFFER_SIZE );
+			} else {
+				ensureCapacity( bytes.length );
+				buffer.put( bytes );
+			}
+		}
+
+		/**
+		 * Writes a string. Cacheable strings are names (of children, operations, etc.), which are likely to
+		 * be repeated across messages.
+		 */
+		private void writeString( String str, boolean cacheable ) {
+			if( str.isEmpty() ) {
+				writeInt( 0 );
+			} else if( !isUtf8 || str.length() >= MIN_UNBUFFERED_SIZE ) {
+				final byte[] bytes = str.getBytes( charset );
+				writeInt( bytes.length );
+				writeBytes( bytes );
+			} else if( cacheable && str.length() <= MAX_CACHED_STRING_LENGTH ) {
+				byte[] bytes = ENCODED_STRINGS.get( str );
+				if( bytes == null ) {
+					bytes = str.getBytes( StandardCharsets.UTF_8 );
+					if( ENCODED_STRINGS.size() < ENCODED_STRINGS_CACHE_SIZE ) {
+						ENCODED_STRINGS.put( str, bytes );
+					}
+				}
+				writeInt( bytes.length );
+				writeBytes( bytes );
+			} else {
+				writeUtf8( str );
+			}
+		}
+
+		// Encodes directly into the buffer, replacing malformed surrogates with '?' like String.getBytes.
+		private void writeUtf8( String str ) {
+			final int length = str.length();
+			ensureCapacity( 4 + length * 3 );
+			final int lengthPosition = buffer.position();
+			buffer.putInt( 0 );
+			final int start = buffer.position();
+			for( int i = 0; i < length; i++ ) {
+				final char c = str.charAt( i );
+				if( c < 0x80 ) {
+					buffer.put( (byte) c );
+				} else if( c < 0x800 ) {
+					buffer.put( (byte) (0xC0 | (c >> 6)) );
+					buffer.put( (byte) (0x80 | (c & 0x3F)) );
+				} else if( Character.isSurrogate( c ) ) {
+					if( Character.isHighSurrogate( c ) && i + 1 < length
+						&& Character.isLowSurrogate( str.charAt( i + 1 ) ) ) {
+						final int cp = Character.toCodePoint( c, str.charAt( ++i ) );
+						buffer.put( (byte) (0xF0 | (cp >> 18)) );
+						buffer.put( (byte) (0x80 | ((cp >> 12) & 0x3F)) );
+						buffer.put( (byte) (0x80 | ((cp >> 6) & 0x3F)) );
+						buffer.put( (byte) (0x80 | (cp & 0x3F)) );
+					} else {
+						buffer.put( (byte) '?' );
+					}
+				} else {
+					buffer.put( (byte) (0xE0 | (c >> 12)) );
+					buffer.put( (byte) (0x80 | ((c >> 6) & 0x3F)) );
+					buffer.put( (byte) (0x80 | (c & 0x3F)) );
+				}
+			}
+			buffer.putInt( lengthPosition, buffer.position() - start );
+		}
+
+		private void writeValue( Value value ) {
+			final Object valueObject = value.valueObject();
+			if( valueObject == null ) {
+				writeByte( DataTypeHeaderId.NULL );
+			} else if( valueObject instanceof String ) {
+				writeByte( DataTypeHeaderId.STRING );
+				writeString( (String) valueObject, false );
+			} else if( valueObject instanceof Integer ) {
+				ensureCapacity( 5 );
+				buffer.put( (byte) DataTypeHeaderId.INT );
+				buffer.putInt( (Integer) valueObject );
+			} else if( valueObject instanceof Double ) {
+				ensureCapacity( 9 );
+				buffer.put( (byte) DataTypeHeaderId.DOUBLE );
+				buffer.putDouble( (Double) valueObject );
+			} else if( valueObject instanceof ByteArray ) {
+				final ByteArray byteArray = (ByteArray) valueObject;
+				writeByte( DataTypeHeaderId.BYTE_ARRAY );
+				writeInt( byteArray.size() );
+				writeBytes( byteArray.getBytes() );
+			} else if( valueObject instanceof Boolean ) {
+				ensureCapacity( 2 );
+				buffer.put( (byte) DataTypeHeaderId.BOOL );
+				buffer.put( (byte) ((Boolean) valueObject ? 1 : 0) );
+			} else if( valueObject instanceof Long ) {
+				ensureCapacity( 9 );
+				buffer.put( (byte) DataTypeHeaderId.LONG );
+				buffer.putLong( (Long) valueObject );
+			} else {
+				writeByte( DataTypeHeaderId.NULL );
+			}
+
+			if( !value.hasChildren() ) {
+				writeInt( 0 );
+				return;
+			}
+
+			// Counts are written after the iteration, as the tree may be modified concurrently.
+			// By then, encoding may have moved on to another buffer.
+			writeInt( 0 );
+			final ByteBuffer childrenCountBuffer = buffer;
+			final int childrenCountPosition = buffer.position() - 4;
+			int childrenCount = 0;
+			for( Entry< String, ValueVector > entry : value.children().entrySet() ) {
+				writeString( entry.getKey(), true );
+				writeInt( 0 );
+				final ByteBuffer sizeBuffer = buffer;
+				final int sizePosition = buffer.position() - 4;
+				int size = 0;
+				for( Value v : entry.getValue() ) {
+					writeValue( v );
+					size++;
+				}
+				sizeBuffer.putInt( sizePosition, size );
+				childrenCount++;
+			}
+			childrenCountBuffer.putInt( childrenCountPosition, childrenCount );
+		}
+
+		private void writeMessage( CommMessage message ) {
+			ensureCapacity( 8 );
+			buffer.putLong( message.id() );
+			writeString( message.resourcePath(), true );
+			writeString( message.operationName(), true );
+			final FaultException fault = message.fault();
+			if( fault == null ) {
+				writeByte( 0 );
+			} else {
+				writeByte( 1 );
+				writeString( fault.faultName(), true );
+				writeValue( fault.value() );
+			}
+			writeValue( message.value() );
+		}
+	}
+
+	private class Decoder {
+		private final InputStream istream;
+		private byte[] scratch = new byte[ 256 ];
+
+		private Decoder( InputStream istream ) {
+			this.istream = istream;
+		}
+
+		private void readFully( byte[] b, int len )
+			throws IOException {
+			int off = 0;
+			while( off < len ) {
+				final int r = istream.read( b, off, len - off );
+				if( r < 0 ) {
+					throw new EOFException();
+				}
+				off += r;
+			}
+		}
+
+		private byte readByte()
+			throws IOException {
+			final int b = istream.read();
+			if( b < 0 ) {
+				throw new EOFException();
+			}
+			return (byte) b;
+		}
+
+		private int readInt()
+			throws IOException {
+			readFully( scratch, 4 );
+			return ((scratch[ 0 ] & 0xFF) << 24)
+				| ((scratch[ 1 ] & 0xFF) << 16)
+				| ((scratch[ 2 ] & 0xFF) << 8)
+				| (scratch[ 3 ] & 0xFF);
+		}
+
+		private long readLong()
+			throws IOException {
+			readFully( scratch, 8 );
+			long l = 0;
+			for( int i = 0; i < 8; i++ ) {
+				l = (l << 8) | (scratch[ i ] & 0xFF);
+			}
+			return l;
+		}
+
+		private String readString( boolean cacheable )
+			throws IOException {
+			final int len = readInt();
+			if( len <= 0 ) {
+				return "";
+			}
+			if( len > MAX_SCRATCH_SIZE ) {
+				final byte[] bytes = new byte[ len ];
+				readFully( bytes, len );
+				return new String( bytes, charset );
+			}
+			if( scratch.length < len ) {
+				scratch = new byte[ Math.max( len, scratch.length * 2 ) ];
+			}
+			readFully( scratch, len );
+			if( cacheable && isUtf8 && len <= MAX_CACHED_STRING_LENGTH ) {
+				return decodeCached( len );
+			}
+			return new String( scratch, 0, len, charset );
+		}
+
+		private String decodeCached( int len ) {
+			int hash = 1;
+			for( int i = 0; i < len; i++ ) {
+				hash = 31 * hash + scratch[ i ];
+			}
+			final int slot = (hash ^ (hash >>> 16)) & (DECODED_STRINGS_CACHE_SIZE - 1);
+			final DecodedString cached = DECODED_STRINGS[ slot ];
+			if( cached != null && cached.bytes.length == len && startsWith( scratch, cached.bytes ) ) {
+				return cached.string;
+			}
+			final String str = new String( scratch, 0, len, StandardCharsets.UTF_8 );
+			DECODED_STRINGS[ slot ] = new DecodedString( Arrays.copyOf( scratch, len ), str );
+			return str;
+		}
+
+		private boolean startsWith( byte[] bytes, byte[] prefix ) {
+			for( int i = 0; i < prefix.length; i++ ) {
+				if( bytes[ i ] != prefix[ i ] ) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private Value readValue()
+			throws IOException {
+			final Value value;
+			switch( readByte() ) {
+			case DataTypeHeaderId.STRING:
+				value = Value.create( readString( false ) );
+				break;
+			case DataTypeHeaderId.INT:
+				value = Value.create( readInt() );
+				break;
+			case DataTypeHeaderId.LONG:
+				value = Value.create( readLong() );
+				break;
+			case DataTypeHeaderId.DOUBLE:
+				value = Value.create( Double.longBitsToDouble( readLong() ) );
+				break;
+			case DataTypeHeaderId.BYTE_ARRAY:
+				final int size = readInt();
+				final byte[] bytes = new byte[ Math.max( size, 0 ) ];
+				readFully( bytes, bytes.length );
+				value = Value.create( new ByteArray( bytes ) );
+				break;
+			case DataTypeHeaderId.BOOL:
+				value = Value.create( readByte() != 0 );
+				break;
+			case DataTypeHeaderId.NULL:
+			default:
+				value = Value.create();
+				break;
+			}
+
+			final int n = readInt(); // How many children?
+			for( int i = 0; i < n; i++ ) {
+				final ValueVector vec = value.getChildren( readString( true ) );
+				final int size = readInt();
+				for( int k = 0; k < size; k++ ) {
+					vec.add( readValue() );
+				}
+			}
+			return value;
+		}
+
+		private CommMessage readMessage()
+			throws IOException {
+			final long id = readLong();
+			final String resourcePath = readString( true );
+			final String operationName = readString( true );
+			FaultException fault = null;
+			if( readByte() != 0 ) {
+				final String faultName = readString( true );
+				fault = new FaultException( faultName, readValue() );
+			}
+			final Value value = readValue();
+			return new CommMessage( id, operationName, resourcePath, value, fault );
+		}
+	}
+}
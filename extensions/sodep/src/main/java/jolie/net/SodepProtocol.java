@@ -21,231 +21,47 @@
 
 package jolie.net;
 
-import java.io.ByteArrayOutputStream;
-import java.io.DataInput;
-import java.io.DataInputStream;
-import java.io.DataOutput;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 import jolie.net.protocols.ConcurrentCommProtocol;
-import jolie.runtime.ByteArray;
-import jolie.runtime.FaultException;
-import jolie.runtime.Value;
-import jolie.runtime.ValueVector;
 import jolie.runtime.VariablePath;
 
 public class SodepProtocol extends ConcurrentCommProtocol {
-	private static class DataTypeHeaderId {
-		private static final int NULL = 0;
-		private static final int STRING = 1;
-		private static final int INT = 2;
-		private static final int DOUBLE = 3;
-		private static final int BYTE_ARRAY = 4;
-		private static final int BOOL = 5;
-		private static final int LONG = 6;
-	}
-
 	public String name() {
 		return "sodep";
 	}
 
-	private Charset stringCharset = StandardCharsets.UTF_8;
-
-	private String readString( DataInput in )
-		throws IOException {
-		int len = in.readInt();
-		if( len > 0 ) {
-			byte[] bb = new byte[ len ];
-			in.readFully( bb );
-			return new String( bb, stringCharset );
-		}
-		return "";
-	}
-
-	private void writeString( DataOutput out, String str )
-		throws IOException {
-		if( str.isEmpty() ) {
-			out.writeInt( 0 );
-		} else {
-			ByteArrayOutputStream bos = new ByteArrayOutputStream();
-			Writer writer = new OutputStreamWriter( bos, stringCharset );
-			writer.write( str );
-			writer.close();
-			byte[] bb = bos.toByteArray();
-			out.writeInt( bb.length );
-			out.write( bb );
-		}
-	}
-
-	private ByteArray readByteArray( DataInput in )
-		throws IOException {
-		int size = in.readInt();
-		ByteArray ret;
-		if( size > 0 ) {
-			byte[] bytes = new byte[ size ];
-			in.readFully( bytes, 0, size );
-			ret = new ByteArray( bytes );
-		} else {
-			ret = new ByteArray( new byte[ 0 ] );
-		}
-		return ret;
-	}
-
-	private void writeByteArray( DataOutput out, ByteArray byteArray )
-		throws IOException {
-		int size = byteArray.size();
-		out.writeInt( size );
-		if( size > 0 ) {
-			out.write( byteArray.getBytes() );
-		}
-	}
-
-	private void writeFault( DataOutput out, FaultException fault )
-		throws IOException {
-		writeString( out, fault.faultName() );
-		writeValue( out, fault.value() );
-	}
+	private static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 64;
 
-	private void writeValue( DataOutput out, Value value )
-		throws IOException {
-		Object valueObject = value.valueObject();
-		if( valueObject == null ) {
-			out.writeByte( DataTypeHeaderId.NULL );
-		} else if( valueObject instanceof String ) {
-			out.writeByte( DataTypeHeaderId.STRING );
-			writeString( out, (String) valueObject );
-		} else if( valueObject instanceof Integer ) {
-			out.writeByte( DataTypeHeaderId.INT );
-			out.writeInt( (Integer) valueObject );
-		} else if( valueObject instanceof Double ) {
-			out.writeByte( DataTypeHeaderId.DOUBLE );
-			out.writeDouble( (Double) valueObject );
-		} else if( valueObject instanceof ByteArray ) {
-			out.writeByte( DataTypeHeaderId.BYTE_ARRAY );
-			writeByteArray( out, (ByteArray) valueObject );
-		} else if( valueObject instanceof Boolean ) {
-			out.writeByte( DataTypeHeaderId.BOOL );
-			out.writeBoolean( (Boolean) valueObject );
-		} else if( valueObject instanceof Long ) {
-			out.writeByte( DataTypeHeaderId.LONG );
-			out.writeLong( (Long) valueObject );
-		} else {
-			out.writeByte( DataTypeHeaderId.NULL );
-		}
-
-		Map< String, ValueVector > children = value.children();
-		List< Entry< String, ValueVector > > entries =
-			new LinkedList<>();
-		// if ( !entry.getKey().startsWith( "@" ) ) {
-		// }
-		entries.addAll( children.entrySet() );
-
-		out.writeInt( entries.size() );
-		for( Entry< String, ValueVector > entry : entries ) {
-			writeString( out, entry.getKey() );
-			out.writeInt( entry.getValue().size() );
-			for( Value v : entry.getValue() ) {
-				writeValue( out, v );
-			}
-		}
-	}
-
-	private void writeMessage( DataOutput out, CommMessage message )
-		throws IOException {
-		out.writeLong( message.id() );
-		writeString( out, message.resourcePath() );
-		writeString( out, message.operationName() );
-		FaultException fault = message.fault();
-		if( fault == null ) {
-			out.writeBoolean( false );
-		} else {
-			out.writeBoolean( true );
-			writeFault( out, fault );
-		}
-		writeValue( out, message.value() );
-	}
-
-	private Value readValue( DataInput in )
-		throws IOException {
-		Value value = Value.create();
-		Object valueObject = null;
-		byte b = in.readByte();
-		switch( b ) {
-		case DataTypeHeaderId.STRING:
-			valueObject = readString( in );
-			break;
-		case DataTypeHeaderId.INT:
-			valueObject = in.readInt();
-			break;
-		case DataTypeHeaderId.LONG:
-			valueObject = in.readLong();
-			break;
-		case DataTypeHeaderId.DOUBLE:
-			valueObject = in.readDouble();
-			break;
-		case DataTypeHeaderId.BYTE_ARRAY:
-			valueObject = readByteArray( in );
-			break;
-		case DataTypeHeaderId.BOOL:
-			valueObject = in.readBoolean();
-			break;
-		case DataTypeHeaderId.NULL:
-		default:
-			break;
-		}
-
-		value.setValue( valueObject );
-
-		Map< String, ValueVector > children = value.children();
-		String s;
-		int n, i, size, k;
-		n = in.readInt(); // How many children?
-		ValueVector vec;
-
-		for( i = 0; i < n; i++ ) {
-			s = readString( in );
-			vec = ValueVector.create();
-			size = in.readInt();
-			for( k = 0; k < size; k++ ) {
-				vec.add( readValue( in ) );
-			}
-			children.put( s, vec );
-		}
-		return value;
-	}
+	private Charset stringCharset = StandardCharsets.UTF_8;
 
-	private FaultException readFault( DataInput in )
-		throws IOException {
-		String faultName = readString( in );
-		Value value = readValue( in );
-		return new FaultException( faultName, value );
+	public SodepProtocol( VariablePath configurationPath ) {
+		super( configurationPath );
 	}
 
-	private CommMessage readMessage( DataInput in )
-		throws IOException {
-		long id = in.readLong();
-		String resourcePath = readString( in );
-		String operationName = readString( in );
-		FaultException fault = null;
-		if( in.readBoolean() == true ) {
-			fault = readFault( in );
+	/**
+	 * SODEP responses carry the id of their request, so a persistent output connection can be shared by
+	 * concurrent requests when the <code>multiplex</code> parameter is set. The
+	 * <code>maxInFlight</code> parameter limits how many requests may share a connection.
+	 */
+	@Override
+	public int maxInFlightRequests() {
+		if( checkBooleanParameter( "keepAlive", true ) && checkBooleanParameter( "multiplex", false ) ) {
+			return hasParameter( "maxInFlight" ) ? Math.max( 1, getIntParameter( "maxInFlight" ) )
+				: DEFAULT_MAX_IN_FLIGHT_REQUESTS;
 		}
-		Value value = readValue( in );
-		return new CommMessage( id, operationName, resourcePath, value, fault );
+		return 1;
 	}
 
-	public SodepProtocol( VariablePath configurationPath ) {
-		super( configurationPath );
+	/**
+	 * SODEP only encodes the messages it sends, so they do not need to be copied.
+	 */
+	@Override
+	public boolean requiresValueCopy() {
+		return false;
 	}
 
 	public void send( OutputStream ostream, CommMessage message, InputStream istream )
@@ -257,8 +73,7 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 			stringCharset = Charset.forName( charset );
 		}
 
-		final DataOutputStream oos = new DataOutputStream( ostream );
-		writeMessage( oos, message );
+		SodepCodec.forCharset( stringCharset ).writeMessage( ostream, message );
 	}
 
 	public CommMessage recv( InputStream istream, OutputStream ostream )
@@ -270,7 +85,6 @@ public class SodepProtocol extends ConcurrentCommProtocol {
 			stringCharset = Charset.forName( charset );
 		}
 
-		final DataInputStream ios = new DataInputStream( istream );
-		return readMessage( ios );
+		return SodepCodec.forCharset( stringCharset ).readMessage( istream );
 	}
 }
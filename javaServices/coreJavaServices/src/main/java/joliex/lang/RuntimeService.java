@@ -25,7 +25,9 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
 import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
 import java.util.Optional;
 import java.util.function.Function;
 
@@ -304,10 +306,39 @@ public class RuntimeService extends JavaService {
 	public Value stats() {
 		final Value stats = Value.create();
 		stats_files( stats.getFirstChild( "files" ) );
+		stats_memory( stats.getFirstChild( "memory" ) );
 		stats_os( stats.getFirstChild( "os" ) );
+		stats_admission( stats.getFirstChild( "admission" ) );
 		return stats;
 	}
 
+	private void stats_admission( Value stats ) {
+		interpreter().commCore().receiveAdmission().metrics( stats.getFirstChild( "receive" ) );
+		interpreter().sessionAdmission().metrics( stats.getFirstChild( "sessions" ) );
+	}
+
+	private void stats_memory( Value stats ) {
+		MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+		stats.setFirstChild( "heapUsed", heap.getUsed() );
+		stats.setFirstChild( "heapCommitted", heap.getCommitted() );
+		if( heap.getMax() >= 0 ) {
+			stats.setFirstChild( "heapMax", heap.getMax() );
+		}
+		ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if( threadBean instanceof com.sun.management.ThreadMXBean ) {
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadBean;
+			if( sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled() ) {
+				long allocated = 0;
+				for( long bytes : sunBean.getThreadAllocatedBytes( sunBean.getAllThreadIds() ) ) {
+					if( bytes > 0 ) {
+						allocated += bytes;
+					}
+				}
+				stats.setFirstChild( "allocated", allocated );
+			}
+		}
+	}
+
 	private void stats_os( Value stats ) {
 		OperatingSystemMXBean osBean = ManagementFactory.getOperatingSystemMXBean();
 		stats.setFirstChild( "arch", osBean.getArch() );
@@ -52,6 +52,7 @@ import java.util.jar.Manifest;
 import java.util.logging.Level;
 import java.util.stream.Collectors;
 
+import jolie.AdmissionController;
 import jolie.Interpreter;
 import jolie.JolieClassLoader;
 import jolie.jap.JapURLConnection;
@@ -69,9 +70,13 @@ public class CommandLineParser implements Closeable {
 	private final static String OPTION_SEPARATOR = " ";
 
 	private final int connectionsLimit;
+	private final int connectionsCache;
+	private final boolean virtualThreads;
+	private final AdmissionController.Settings admission;
 	private final CorrelationEngine.Type correlationAlgorithmType;
 	private final String[] includePaths;
 	private final String[] packagePaths;
+	private final Optional< Path > moduleCacheDirectory;
 	private final String[] optionArgs;
 	private final URL[] libURLs;
 	private final InputStream programStream;
@@ -134,9 +139,26 @@ public class CommandLineParser implements Closeable {
 					+ "(under Windows use quotes or double-quotes, e.g., -C \"ConstantIdentifier=ConstantValue\" )" ) )
 			.append(
 				getOptionString( "--connlimit [number]", "Set the maximum number of active connection threads" ) )
+			.append(
+				getOptionString( "--connqueue [number]",
+					"Set the maximum number of incoming messages (or sessions) waiting when --connlimit (or --sessionlimit) is reached (default: "
+						+ AdmissionController.Settings.DEFAULT_QUEUE_SIZE + ")" ) )
+			.append(
+				getOptionString( "--sessionlimit [number]",
+					"Set the maximum number of concurrently running sessions" ) )
+			.append(
+				getOptionString( "--queueTimeout [number]",
+					"Set the maximum time an incoming message or session can wait to be handled (in milliseconds)" ) )
+			.append(
+				getOptionString( "--overloadFault [name]",
+					"Set the fault sent to callers whose messages are rejected because of the limits above (default: "
+						+ AdmissionController.Settings.DEFAULT_OVERLOAD_FAULT + ")" ) )
 			.append(
 				getOptionString( "--conncache [number]",
-					"Set the maximum number of cached persistent output connections" ) )
+					"Set the maximum number of idle persistent output connections cached for each location (default: 8)" ) )
+			.append(
+				getOptionString( "--virtualThreads",
+					"Run sessions and connection handlers on virtual threads, if supported by the JVM (default: false)" ) )
 			.append(
 				getOptionString( "--responseTimeout [number]",
 					"Set the timeout for request-response invocations (in milliseconds)" ) )
@@ -164,6 +186,9 @@ public class CommandLineParser implements Closeable {
 			.append(
 				getOptionString( "-p PATH",
 					"Add PATH to the set of paths where modules are looked up" ) )
+			.append(
+				getOptionString( "--moduleCache DIR",
+					"Cache parsed modules in DIR, to load them faster in the next executions" ) )
 			.append(
 				getOptionString( "-s [service name], --service [service name]",
 					"Specify a service in the module to execute (not necessary if the module contains only one service definition)" ) )
@@ -268,6 +293,7 @@ public class CommandLineParser implements Closeable {
 		Deque< String > optionsList = new LinkedList<>();
 		boolean bTracer = false;
 		boolean bStackTraces = false;
+		boolean bVirtualThreads = false;
 		boolean bCheck = false;
 		boolean bTypeCheck = false; // Default for typecheck
 		Level lLogLevel = Level.INFO;
@@ -278,10 +304,16 @@ public class CommandLineParser implements Closeable {
 		List< String > libList = new ArrayList<>();
 		List< String > packagesList = new ArrayList<>();
 		int cLimit = -1;
+		int cCache = 8;
+		int cQueue = AdmissionController.Settings.DEFAULT_QUEUE_SIZE;
+		int sLimit = -1;
+		long qTimeout = 0;
+		String overloadFault = AdmissionController.Settings.DEFAULT_OVERLOAD_FAULT;
 		long rTimeout = 36000 * 1000; // 10 minutes
 		String pwd = UriUtils.normalizeWindowsPath( new File( "" ).getCanonicalPath() );
 		String tService = null;
 		Path tParams = null;
+		Path moduleCache = null;
 		includeList.add( pwd );
 		includeList.add( "include" );
 		libList.add( pwd );
@@ -331,11 +363,41 @@ public class CommandLineParser implements Closeable {
 				i++;
 				Collections.addAll( packagesList, argsList.get( i ).split( jolie.lang.Constants.PATH_SEPARATOR ) );
 				optionsList.add( argsList.get( i ) );
+			} else if( "--moduleCache".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				moduleCache = Paths.get( argsList.get( i ) ).toAbsolutePath();
+				optionsList.add( argsList.get( i ) );
 			} else if( "--connlimit".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				i++;
 				cLimit = Integer.parseInt( argsList.get( i ) );
 				optionsList.add( argsList.get( i ) );
+			} else if( "--conncache".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				cCache = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if( "--connqueue".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				cQueue = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if( "--sessionlimit".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				sLimit = Integer.parseInt( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if( "--queueTimeout".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				qTimeout = Long.parseLong( argsList.get( i ) );
+				optionsList.add( argsList.get( i ) );
+			} else if( "--overloadFault".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				i++;
+				overloadFault = argsList.get( i );
+				optionsList.add( argsList.get( i ) );
 			} else if( "--responseTimeout".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				i++;
@@ -359,6 +421,9 @@ public class CommandLineParser implements Closeable {
 			} else if( "--stackTraces".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				bStackTraces = true;
+			} else if( "--virtualThreads".equals( argsList.get( i ) ) ) {
+				optionsList.add( argsList.get( i ) );
+				bVirtualThreads = true;
 			} else if( "--check".equals( argsList.get( i ) ) ) {
 				optionsList.add( argsList.get( i ) );
 				bCheck = true;
@@ -504,6 +569,7 @@ public class CommandLineParser implements Closeable {
 		printStackTraces = bStackTraces;
 		executionTarget = tService;
 		parametersFilepath = Optional.ofNullable( tParams );
+		moduleCacheDirectory = Optional.ofNullable( moduleCache );
 
 		correlationAlgorithmType = CorrelationEngine.Type.fromString( csetAlgorithmName );
 		if( correlationAlgorithmType == null ) {
@@ -517,6 +583,9 @@ public class CommandLineParser implements Closeable {
 		}
 
 		connectionsLimit = cLimit;
+		connectionsCache = cCache;
+		virtualThreads = bVirtualThreads;
+		admission = new AdmissionController.Settings( cQueue, qTimeout, sLimit, overloadFault );
 		responseTimeout = rTimeout;
 
 		List< URL > urls = new ArrayList<>();
@@ -782,6 +851,9 @@ public class CommandLineParser implements Closeable {
 	public Interpreter.Configuration getInterpreterConfiguration() throws CommandLineException, IOException {
 		return Interpreter.Configuration.create(
 			connectionsLimit,
+			connectionsCache,
+			virtualThreads,
+			admission,
 			cellId,
 			correlationAlgorithmType,
 			includePaths,
@@ -804,6 +876,7 @@ public class CommandLineParser implements Closeable {
 			logLevel,
 			programDirectory,
 			packagePaths,
+			moduleCacheDirectory,
 			executionTarget,
 			parametersFilepath );
 
@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jolie.runtime.TimerWheel;
+import jolie.runtime.Value;
+
+/**
+ * Bounds the number of concurrent units of work of some kind (e.g., incoming messages being
+ * handled, or running sessions).
+ *
+ * Work that can not start immediately waits in a bounded queue, in arrival order, and starts when
+ * some running work is released. Work is rejected when the queue is full, or when it has been
+ * waiting for longer than the queue timeout.
+ */
+public class AdmissionController {
+	/**
+	 * The admission control settings of an interpreter, set from the command line.
+	 */
+	public static class Settings {
+		public static final int DEFAULT_QUEUE_SIZE = 1024;
+		public static final String DEFAULT_OVERLOAD_FAULT = "OverloadFault";
+
+		private final int queueSize;
+		private final long queueTimeout;
+		private final int sessionsLimit;
+		private final String overloadFault;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param queueSize the maximum number of units of work waiting to start, for each limit
+		 * @param queueTimeout the maximum time a unit of work can wait to start, in milliseconds (0 for no
+		 *        timeout)
+		 * @param sessionsLimit the maximum number of concurrent sessions (0 or less for no limit)
+		 * @param overloadFault the name of the fault sent to callers whose messages are rejected
+		 */
+		public Settings( int queueSize, long queueTimeout, int sessionsLimit, String overloadFault ) {
+			this.queueSize = queueSize;
+			this.queueTimeout = queueTimeout;
+			this.sessionsLimit = sessionsLimit;
+			this.overloadFault = overloadFault;
+		}
+
+		public static Settings defaults() {
+			return new Settings( DEFAULT_QUEUE_SIZE, 0, 0, DEFAULT_OVERLOAD_FAULT );
+		}
+
+		public int queueSize() {
+			return queueSize;
+		}
+
+		public long queueTimeout() {
+			return queueTimeout;
+		}
+
+		public int sessionsLimit() {
+			return sessionsLimit;
+		}
+
+		public String overloadFault() {
+			return overloadFault;
+		}
+	}
+
+	private static class Entry {
+		private final Runnable start;
+		private final Runnable onExpiration;
+		private volatile TimerWheel.Timeout timeout = null;
+
+		private Entry( Runnable start, Runnable onExpiration ) {
+			this.start = start;
+			this.onExpiration = onExpiration;
+		}
+	}
+
+	private final int maxConcurrency;
+	private final int maxQueueSize;
+	private final long queueTimeout;
+	private final TimerWheel timerWheel;
+	private final Executor rejectionExecutor;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Deque< Entry > queue = new ArrayDeque<>();
+	private int running = 0;
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder rejected = new LongAdder();
+	private final LongAdder expired = new LongAdder();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param maxConcurrency the maximum number of units of work running at the same time (0 or less for
+	 *        no limit)
+	 * @param settings the settings for queueing work
+	 * @param timerWheel the timer wheel used for queue timeouts
+	 * @param rejectionExecutor runs the expiration actions of work that waited for too long
+	 */
+	public AdmissionController( int maxConcurrency, Settings settings, TimerWheel timerWheel,
+		Executor rejectionExecutor ) {
+		this.maxConcurrency = maxConcurrency;
+		this.maxQueueSize = settings.queueSize();
+		this.queueTimeout = settings.queueTimeout();
+		this.timerWheel = timerWheel;
+		this.rejectionExecutor = rejectionExecutor;
+	}
+
+	/**
+	 * Returns true if this controller limits the number of concurrent units of work.
+	 */
+	public boolean isBounded() {
+		return maxConcurrency > 0;
+	}
+
+	/**
+	 * Admits a unit of work. If there is room for it, <code>start</code> is run immediately by the
+	 * calling thread; otherwise the work is queued, and <code>start</code> is run later by the thread
+	 * calling {@link #release()}. In both cases, the work must call {@link #release()} when it
+	 * terminates. The start action should only hand the work over to another thread, and return.
+	 *
+	 * @param start starts the work
+	 * @param onExpiration called if the work expires while waiting in the queue
+	 * @return false if the work was rejected because the queue is full (in which case nothing is run)
+	 */
+	public boolean admit( Runnable start, Runnable onExpiration ) {
+		if( maxConcurrency <= 0 ) {
+			admitted.increment();
+			start.run();
+			return true;
+		}
+
+		final Entry entry;
+		lock.lock();
+		try {
+			if( running < maxConcurrency ) {
+				running++;
+				entry = null;
+			} else if( queue.size() < maxQueueSize ) {
+				entry = new Entry( start, onExpiration );
+				queue.addLast( entry );
+			} else {
+				rejected.increment();
+				return false;
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		if( entry == null ) {
+			admitted.increment();
+			start.run();
+		} else if( queueTimeout > 0 ) {
+			entry.timeout = timerWheel.schedule( () -> expire( entry ), queueTimeout );
+		}
+		return true;
+	}
+
+	/**
+	 * Signals that a unit of work admitted by this controller has terminated, starting the next queued
+	 * one if there is any.
+	 */
+	public void release() {
+		if( maxConcurrency <= 0 ) {
+			return;
+		}
+
+		final Entry next;
+		lock.lock();
+		try {
+			next = queue.pollFirst();
+			if( next == null ) {
+				running--;
+				return;
+			}
+		} finally {
+			lock.unlock();
+		}
+
+		final TimerWheel.Timeout timeout = next.timeout;
+		if( timeout != null ) {
+			timeout.cancel();
+		}
+		admitted.increment();
+		next.start.run();
+	}
+
+	private void expire( Entry entry ) {
+		final boolean removed;
+		lock.lock();
+		try {
+			removed = queue.remove( entry );
+		} finally {
+			lock.unlock();
+		}
+		if( removed ) {
+			expired.increment();
+			rejectionExecutor.execute( entry.onExpiration );
+		}
+	}
+
+	/**
+	 * Returns the number of units of work currently running.
+	 */
+	public int running() {
+		lock.lock();
+		try {
+			return running;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of units of work currently waiting to start.
+	 */
+	public int queueDepth() {
+		lock.lock();
+		try {
+			return queue.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stores the metrics of this controller in the given value: the number of running and queued units
+	 * of work, and the total numbers of admitted, rejected (queue full) and expired (queue timeout)
+	 * units of work.
+	 *
+	 * @param metrics the value where to store the metrics
+	 */
+	public void metrics( Value metrics ) {
+		metrics.setFirstChild( "limit", maxConcurrency );
+		metrics.setFirstChild( "running", running() );
+		metrics.setFirstChild( "queued", queueDepth() );
+		metrics.setFirstChild( "admitted", admitted.sum() );
+		metrics.setFirstChild( "rejected", rejected.sum() );
+		metrics.setFirstChild( "expired", expired.sum() );
+	}
+}
@@ -30,6 +30,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import jolie.Interpreter.StarterThread;
 import jolie.lang.Constants;
@@ -173,9 +174,11 @@ public abstract class ExecutionThread extends JolieThread {
 	}
 
 	/**
-	 * Sets if this thread can be interrupted by a fault signal or not.
+	 * Sets if this thread can be interrupted by a fault signal or not. Callers that are about to block
+	 * should check {@link #isKilled()} after enabling interruptions, since a fault signalled before
+	 * does not interrupt them.
 	 */
-	public void setCanBeInterrupted( boolean b ) {
+	public synchronized void setCanBeInterrupted( boolean b ) {
 		canBeInterrupted = b;
 	}
 
@@ -414,7 +417,7 @@ public abstract class ExecutionThread extends JolieThread {
 	 * @return the ExecutionThread the current thread should refer to.
 	 */
 	public static ExecutionThread currentThread() {
-		Thread currThread = Thread.currentThread();
+		Thread currThread = VirtualThreads.currentThread();
 		if( currThread instanceof JolieExecutorThread ) {
 			return ((JolieExecutorThread) currThread).executionThread();
 		} else if( currThread instanceof CommChannelHandler ) {
@@ -425,7 +428,7 @@ public abstract class ExecutionThread extends JolieThread {
 	}
 
 	public static State getState() {
-		Thread t = Thread.currentThread();
+		Thread t = VirtualThreads.currentThread();
 		if( t instanceof StarterThread ) {
 			return ((StarterThread) t).initState();
 		} else if( t instanceof JolieExecutorThread ) {
@@ -475,7 +478,7 @@ public abstract class ExecutionThread extends JolieThread {
 	public final void run() {
 		JolieExecutorThread t = JolieExecutorThread.currentThread();
 		t.setExecutionThread( this );
-		t.setContextClassLoader( interpreter().getClassLoader() );
+		Thread.currentThread().setContextClassLoader( interpreter().getClassLoader() );
 		runProcess();
 	}
 
@@ -483,6 +486,47 @@ public abstract class ExecutionThread extends JolieThread {
 		setTaskFuture( interpreter().runJolieThread( this ) );
 	}
 
+	/**
+	 * Runs a task of this thread on the current thread instead of starting this thread on the executor
+	 * of the interpreter. The current thread refers to this ExecutionThread while running the task, and
+	 * killing this thread interrupts the current thread as it would interrupt a started thread.
+	 * Unchecked exceptions and errors thrown by the task are propagated to the caller.
+	 *
+	 * @param task the task to run
+	 */
+	public void runInline( Runnable task ) {
+		final JolieExecutorThread executorThread = JolieExecutorThread.currentThread();
+		final ExecutionThread caller = executorThread.executionThread();
+		final FutureTask< Void > future = new FutureTask<>( task, null );
+		synchronized( this ) {
+			setTaskFuture( future );
+		}
+		executorThread.setExecutionThread( this );
+		try {
+			future.run();
+		} finally {
+			executorThread.setExecutionThread( caller );
+			if( future.isCancelled() ) {
+				// Do not leak the interruption used to kill this thread to the caller
+				Thread.interrupted();
+			}
+		}
+		if( !future.isCancelled() ) {
+			try {
+				future.get();
+			} catch( InterruptedException e ) {
+				Thread.currentThread().interrupt();
+			} catch( ExecutionException e ) {
+				// FutureTask captures what the task throws, rethrow it as a direct call would
+				if( e.getCause() instanceof RuntimeException ) {
+					throw (RuntimeException) e.getCause();
+				} else if( e.getCause() instanceof Error ) {
+					throw (Error) e.getCause();
+				}
+			}
+		}
+	}
+
 	public void join()
 		throws InterruptedException {
 		try {
@@ -19,6 +19,7 @@
 
 package jolie;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
@@ -27,7 +28,6 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.PrintStream;
 import java.io.StringWriter;
-import java.lang.ref.WeakReference;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -39,6 +39,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -57,10 +58,12 @@ import jolie.lang.parse.Scanner;
 import jolie.lang.parse.SemanticVerifier;
 import jolie.lang.parse.TypeChecker;
 import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.ast.ServiceNode;
 import jolie.lang.parse.module.ModuleException;
 import jolie.lang.parse.module.ModuleParsingConfiguration;
 import jolie.lang.parse.module.Modules;
 import jolie.lang.parse.module.SymbolTable;
+import jolie.lang.parse.util.CompiledProgram;
 import jolie.monitoring.MonitoringEvent;
 import jolie.monitoring.events.MonitorAttachedEvent;
 import jolie.monitoring.events.OperationStartedEvent;
@@ -94,6 +97,8 @@ import jolie.tracer.TracerUtils;
  */
 public class Interpreter {
 	private final class InitSessionThread extends SessionThread {
+		private volatile boolean terminated = false;
+
 		public InitSessionThread( Interpreter interpreter, jolie.process.Process process, jolie.State state ) {
 			super( interpreter, process, state );
 			addSessionListener( new SessionListener() {
@@ -110,8 +115,9 @@ public class Interpreter {
 		}
 
 		private void onSuccessfulInitExecution() {
+			terminated = true;
 			if( executionMode == Constants.ExecutionMode.SINGLE ) {
-				synchronized( correlationEngine ) {
+				correlationEngine.runExclusively( () -> {
 					try {
 						mainSession = new SessionThread( getDefinition( "main" ), initExecutionThread );
 						correlationEngine.onSingleExecutionSessionStart( mainSession );
@@ -120,7 +126,7 @@ public class Interpreter {
 					} catch( InvalidIdException e ) {
 						assert false;
 					}
-				}
+				} );
 			} else {
 				correlationEngine.onSessionExecuted( this );
 			}
@@ -135,6 +141,13 @@ public class Interpreter {
 					for( SessionMessage message : queue ) {
 						try {
 							correlationEngine.onMessageReceive( message.message(), message.channel() );
+						} catch( FaultException e ) {
+							try {
+								message.channel()
+									.send( CommMessage.createFaultResponse( message.message(), e ) );
+							} catch( IOException ioe ) {
+								logSevere( ioe );
+							}
 						} catch( CorrelationError e ) {
 							logWarning( e );
 							try {
@@ -164,6 +177,17 @@ public class Interpreter {
 			return true;
 		}
 
+		/*
+		 * The state of init does not change anymore once init has terminated, so new threads can copy it
+		 * lazily.
+		 */
+		@Override
+		public SessionThread getNewSessionThread() {
+			return terminated
+				? new SessionThread( interpreter(), process, state().lazyClone() )
+				: super.getNewSessionThread();
+		}
+
 	}
 
 	private static class JolieExecutionThreadFactory implements ThreadFactory {
@@ -183,6 +207,30 @@ public class Interpreter {
 		}
 	}
 
+	/**
+	 * Measures the time taken by the phases of the start-up of an interpreter, which are reported in
+	 * the log with level fine.
+	 */
+	private static class StartupTimings {
+		private final StringBuilder phases = new StringBuilder();
+		private long phaseStart = System.nanoTime();
+
+		private void phaseCompleted( String phase ) {
+			final long now = System.nanoTime();
+			if( phases.length() > 0 ) {
+				phases.append( ", " );
+			}
+			phases.append( phase ).append( ' ' ).append( TimeUnit.NANOSECONDS.toMillis( now - phaseStart ) )
+				.append( " ms" );
+			phaseStart = now;
+		}
+
+		@Override
+		public String toString() {
+			return "Start-up phases: " + phases;
+		}
+	}
+
 	private static class NativeJolieThreadFactory implements ThreadFactory {
 		private final Interpreter interpreter;
 
@@ -229,6 +277,8 @@ public class Interpreter {
 	private Program internalServiceProgram = null;
 	private final Value receivingEmbeddedValue;
 	private Interpreter parentInterpreter = null;
+	// The program read by this interpreter or its parent, if it has been compiled by joliec
+	private CompiledProgram compiledProgram = null;
 
 	private Map< String, SessionStarter > sessionStarters = new HashMap<>();
 	private volatile boolean exiting = false;
@@ -265,10 +315,6 @@ public class Interpreter {
 	// private long persistentConnectionTimeout = 2 * 60 * 1000; // 4 minutes
 	// private long persistentConnectionTimeout = 1;
 
-	// 11 is the default initial capacity for PriorityQueue
-	private final Queue< WeakReference< TimeoutHandler > > timeoutHandlerQueue =
-		new PriorityQueue<>( 11, new TimeoutHandler.Comparator() );
-
 	private final ExecutorService timeoutHandlerExecutor =
 		Executors.newSingleThreadExecutor( new NativeJolieThreadFactory( this ) );
 
@@ -347,47 +393,27 @@ public class Interpreter {
 		}
 	}
 
+	/**
+	 * Schedules a timeout handler in the timer wheel of this interpreter. Expired handlers are run by a
+	 * dedicated thread. When the interpreter exits, all pending handlers are run.
+	 *
+	 * @param handler the handler to schedule
+	 */
 	public void addTimeoutHandler( TimeoutHandler handler ) {
-		synchronized( timeoutHandlerQueue ) {
-			timeoutHandlerQueue.add( new WeakReference<>( handler ) );
-			if( timeoutHandlerQueue.size() == 1 ) {
-				schedule( new TimerTask() {
-					@Override
-					public void run() {
-						synchronized( timeoutHandlerQueue ) {
-							checkForExpiredTimeoutHandlers();
-						}
-					}
-				}, handler.time() - System.currentTimeMillis() + 1 );
-			} else {
-				checkForExpiredTimeoutHandlers();
-			}
+		if( exiting ) {
+			runTimeoutHandler( handler );
+		} else {
+			handler.setTimeout( commCore.timerWheel().schedule(
+				() -> runTimeoutHandler( handler ),
+				handler.time() - System.currentTimeMillis() ) );
 		}
 	}
 
-	/*
-	 * public void removeTimeoutHandler( TimeoutHandler handler ) { synchronized( timeoutHandlerQueue )
-	 * { timeoutHandlerQueue.remove( handler ); checkForExpiredTimeoutHandlers(); } }
-	 */
-
-	private void checkForExpiredTimeoutHandlers() {
-		long currentTime = System.currentTimeMillis();
-		WeakReference< TimeoutHandler > whandler = timeoutHandlerQueue.peek();
-		boolean keepRun = true;
-		TimeoutHandler handler;
-		while( whandler != null && keepRun ) {
-			handler = whandler.get();
-			if( handler == null ) {
-				timeoutHandlerQueue.remove();
-				whandler = timeoutHandlerQueue.peek();
-			} else if( handler.time() < currentTime || exiting ) {
-				// final TimeoutHandler h = handler;
-				timeoutHandlerExecutor.execute( handler );
-				timeoutHandlerQueue.poll();
-				whandler = timeoutHandlerQueue.peek();
-			} else {
-				keepRun = false;
-			}
+	private void runTimeoutHandler( TimeoutHandler handler ) {
+		try {
+			timeoutHandlerExecutor.execute( handler );
+		} catch( RejectedExecutionException e ) {
+			// The interpreter has already terminated
 		}
 	}
 
@@ -616,7 +642,7 @@ public class Interpreter {
 		if( timer != null ) {
 			timer.cancel();
 		}
-		checkForExpiredTimeoutHandlers();
+		commCore.timerWheel().stop( true );
 		processExecutorService.shutdown();
 		nativeExecutorService.shutdown();
 		timeoutHandlerExecutor.shutdown();
@@ -801,7 +827,7 @@ public class Interpreter {
 	 * @return the Interpreter the current thread is referring to
 	 */
 	public static Interpreter getInstance() {
-		Thread t = Thread.currentThread();
+		Thread t = VirtualThreads.currentThread();
 		if( t instanceof InterpreterThread ) {
 			return ((InterpreterThread) t).interpreter();
 		}
@@ -839,6 +865,15 @@ public class Interpreter {
 		TracerUtils.TracerLevels tracerLevel = TracerUtils.TracerLevels.ALL;
 		this.configuration = configuration;
 
+		this.virtualThreads = configuration.virtualThreads() && VirtualThreads.isSupported();
+		if( virtualThreads ) {
+			nativeExecutorService = VirtualThreads.newExecutor( new NativeJolieThreadFactory( this ) );
+			processExecutorService = VirtualThreads.newExecutor( new JolieExecutionThreadFactory( this ) );
+		} else {
+			nativeExecutorService = new JolieThreadPoolExecutor( new NativeJolieThreadFactory( this ) );
+			processExecutorService = new JolieThreadPoolExecutor( new JolieExecutionThreadFactory( this ) );
+		}
+
 		this.symbolTables = new HashMap<>();
 
 		switch( configuration.tracerLevel() ) {
@@ -852,7 +887,9 @@ public class Interpreter {
 
 		this.correlationEngine = configuration.correlationAlgorithm().createInstance( this );
 
-		commCore = new CommCore( this, configuration.connectionsLimit() /* , cmdParser.connectionsCache() */ );
+		commCore = new CommCore( this, configuration.connectionsLimit(), configuration.connectionsCache() );
+		sessionAdmission = new AdmissionController( configuration.admission().sessionsLimit(),
+			configuration.admission(), commCore.timerWheel(), nativeExecutorService );
 		includePaths = configuration.includePaths();
 
 		logPrefix = '[' +
@@ -870,6 +907,10 @@ public class Interpreter {
 		}
 
 		LOGGER.setLevel( configuration.logLevel() );
+		if( configuration.virtualThreads() && !virtualThreads ) {
+			logWarning( "Virtual threads are not supported by this JVM (Java 21 or later is required), "
+				+ "using platform threads" );
+		}
 
 		exitingLock = new ReentrantLock();
 		exitingCondition = exitingLock.newCondition();
@@ -1113,10 +1154,20 @@ public class Interpreter {
 		runCode();
 	}
 
-	private final ExecutorService nativeExecutorService =
-		new JolieThreadPoolExecutor( new NativeJolieThreadFactory( this ) );
-	private final ExecutorService processExecutorService =
-		new JolieThreadPoolExecutor( new JolieExecutionThreadFactory( this ) );
+	private final boolean virtualThreads;
+	private final ExecutorService nativeExecutorService;
+	private final AdmissionController sessionAdmission;
+	private final ExecutorService processExecutorService;
+
+	/**
+	 * Returns true if this Interpreter runs its sessions and communication handlers on virtual threads.
+	 * 
+	 * @return true if this Interpreter uses virtual threads
+	 * @see VirtualThreads
+	 */
+	public boolean usesVirtualThreads() {
+		return virtualThreads;
+	}
 
 	/**
 	 * Runs an asynchronous task in this Interpreter internal thread pool.
@@ -1193,12 +1244,57 @@ public class Interpreter {
 		return commCore;
 	}
 
+	private boolean buildOOIT( Program program, CompiledProgram.Verification verification, boolean typeChecked,
+		Value initValue, StartupTimings timings )
+		throws InterpreterException {
+		if( configuration.typeCheck() && !typeChecked ) {
+			final boolean valid =
+				new TypeChecker( program, verification.executionMode(), verification.correlationFunctionInfo() )
+					.check();
+			timings.phaseCompleted( "type checking" );
+			if( !valid ) {
+				throw new InterpreterException( "Exiting" );
+			}
+		}
+		final boolean built = new OOITBuilder(
+			this,
+			program,
+			verification.constantFlags(),
+			verification.correlationFunctionInfo(),
+			initValue )
+				.build();
+		timings.phaseCompleted( "building" );
+		logFine( timings.toString() );
+		return built;
+	}
+
 	private boolean buildOOIT( Value initValue )
 		throws InterpreterException {
+		final StartupTimings timings = new StartupTimings();
 		try {
 			Program program;
-			if( configuration.isProgramCompiled() ) {
-				try( final ObjectInputStream istream = new ObjectInputStream( configuration.inputStream() ) ) {
+			if( this.internalServiceProgram != null ) {
+				program = this.internalServiceProgram;
+				program = OLParseTreeOptimizer.optimize( program );
+				compiledProgram = parentInterpreter.compiledProgram;
+				final CompiledProgram.Verification verification = compiledProgram == null ? null
+					: compiledProgram.verification( (ServiceNode) internalServiceProgram.children().get( 0 ) );
+				if( verification != null ) {
+					// The service has already been verified by the compiler
+					return buildOOIT( program, verification, compiledProgram.typeChecked(), initValue, timings );
+				}
+				symbolTables.putAll( this.parentInterpreter.symbolTables );
+			} else if( configuration.isProgramCompiled() ) {
+				final InputStream stream = new BufferedInputStream( configuration.inputStream() );
+				if( CompiledProgram.isCompiledProgram( stream ) ) {
+					// The program has already been verified by the compiler
+					compiledProgram = CompiledProgram.read( stream );
+					stream.close();
+					timings.phaseCompleted( "loading" );
+					return buildOOIT( compiledProgram.program(), compiledProgram.verification(),
+						compiledProgram.typeChecked(), initValue, timings );
+				}
+				try( final ObjectInputStream istream = new ObjectInputStream( stream ) ) {
 					final Object o = istream.readObject();
 					if( o instanceof Program ) {
 						program = (Program) o;
@@ -1207,25 +1303,21 @@ public class Interpreter {
 					}
 				}
 			} else {
-				if( this.internalServiceProgram != null ) {
-					program = this.internalServiceProgram;
-					program = OLParseTreeOptimizer.optimize( program );
-					symbolTables.putAll( this.parentInterpreter.symbolTables );
-				} else {
-					ModuleParsingConfiguration configuration = new ModuleParsingConfiguration(
-						configuration().charset(),
-						configuration().includePaths(),
-						configuration().packagePaths(),
-						configuration().jolieClassLoader(),
-						configuration().constants(),
-						false );
-					Modules.ModuleParsedResult parsedResult =
-						Modules.parseModule( configuration, configuration().inputStream(),
-							configuration().programFilepath().toURI() );
-					symbolTables.putAll( parsedResult.symbolTables() );
-					program = parsedResult.mainProgram();
-				}
+				ModuleParsingConfiguration configuration = new ModuleParsingConfiguration(
+					configuration().charset(),
+					configuration().includePaths(),
+					configuration().packagePaths(),
+					configuration().jolieClassLoader(),
+					configuration().constants(),
+					false,
+					configuration().moduleCacheDirectory() );
+				Modules.ModuleParsedResult parsedResult =
+					Modules.parseModule( configuration, configuration().inputStream(),
+						configuration().programFilepath().toURI() );
+				symbolTables.putAll( parsedResult.symbolTables() );
+				program = parsedResult.mainProgram();
 			}
+			timings.phaseCompleted( "parsing" );
 
 			configuration.inputStream().close();
 
@@ -1247,6 +1339,7 @@ public class Interpreter {
 				LOGGER.severe( e.getMessage() );
 				throw new InterpreterException( "Exiting" );
 			}
+			timings.phaseCompleted( "semantic verification" );
 
 			if( configuration.typeCheck() ) {
 				TypeChecker typeChecker = new TypeChecker(
@@ -1256,18 +1349,22 @@ public class Interpreter {
 				if( !typeChecker.check() ) {
 					throw new InterpreterException( "Exiting" );
 				}
+				timings.phaseCompleted( "type checking" );
 			}
 
 			if( check ) {
 				return false;
 			} else {
-				return (new OOITBuilder(
+				final boolean built = (new OOITBuilder(
 					this,
 					program,
 					semanticVerifier.constantFlags(),
 					semanticVerifier.correlationFunctionInfo(),
 					initValue ))
 						.build();
+				timings.phaseCompleted( "building" );
+				logFine( timings.toString() );
+				return built;
 			}
 
 		} catch( IOException | ParserException | ClassNotFoundException | ModuleException e ) {
@@ -1275,14 +1372,29 @@ public class Interpreter {
 		}
 	}
 
+	/**
+	 * Returns the admission controller bounding the number of sessions running concurrently.
+	 *
+	 * @return the admission controller for sessions
+	 */
+	public AdmissionController sessionAdmission() {
+		return sessionAdmission;
+	}
+
+	private FaultException overloadFault() {
+		return new FaultException( configuration.admission().overloadFault(), "The service is overloaded" );
+	}
+
 	/**
 	 * Starts a service session.
 	 * 
 	 * @param message the message triggering the session start
 	 * @param channel the channel of the message triggering the session start
 	 * @return {@code true} if the service session is started, {@code false} otherwise
+	 * @throws FaultException if the session can not be started because too many sessions are running
 	 */
-	public boolean startServiceSession( final CommMessage message, CommChannel channel ) {
+	public boolean startServiceSession( final CommMessage message, CommChannel channel )
+		throws FaultException {
 		if( executionMode == Constants.ExecutionMode.SINGLE ) {
 			return false;
 		}
@@ -1301,7 +1413,7 @@ public class Interpreter {
 		final SessionThread spawnedSession;
 
 		if( executionMode == Constants.ExecutionMode.CONCURRENT ) {
-			State state = initExecutionThread.state().clone();
+			State state = initExecutionThread.state().lazyClone();
 			jolie.process.Process sequence = new SequentialProcess( new jolie.process.Process[] {
 				starter.guard.receiveMessage( new SessionMessage( message, channel ), state ),
 				starter.body
@@ -1321,12 +1433,32 @@ public class Interpreter {
 					logSessionEnd( message.operationName(), session.getSessionId() );
 				}
 			} );
-			spawnedSession.start();
+			final SessionListener releaser = new SessionListener() {
+				public void onSessionExecuted( SessionThread session ) {
+					sessionAdmission.release();
+				}
+
+				public void onSessionError( SessionThread session, FaultException fault ) {
+					sessionAdmission.release();
+				}
+			};
+			if( !sessionAdmission.admit(
+				() -> {
+					spawnedSession.addSessionListener( releaser );
+					spawnedSession.start();
+				},
+				() -> expireSession( spawnedSession, starter, message, channel ) ) ) {
+				final FaultException fault = overloadFault();
+				logWarning( "Rejected a session for operation " + message.operationName()
+					+ ": too many sessions are running" );
+				spawnedSession.reject( fault );
+				throw fault;
+			}
 		} else if( executionMode == Constants.ExecutionMode.SEQUENTIAL ) {
 			/*
 			 * We use sessionThreads to handle sequential execution of spawn requests
 			 */
-			State state = initExecutionThread.state().clone();
+			State state = initExecutionThread.state().lazyClone();
 			jolie.process.Process sequence = new SequentialProcess( new jolie.process.Process[] {
 				starter.guard.receiveMessage( new SessionMessage( message, channel ), state ),
 				starter.body
@@ -1372,6 +1504,31 @@ public class Interpreter {
 		return true;
 	}
 
+	/**
+	 * Discards a session that waited for too long to be started, replying to the message that should
+	 * have started it with the overload fault.
+	 */
+	private void expireSession( SessionThread session, SessionStarter starter, CommMessage message,
+		CommChannel channel ) {
+		final FaultException fault = overloadFault();
+		logWarning( "Rejected a session for operation " + message.operationName()
+			+ ": it waited for too long to be started" );
+		session.reject( fault );
+		if( starter.guard.inputOperation() instanceof RequestResponseOperation ) {
+			try {
+				channel.send( CommMessage.createFaultResponse( message, fault ) );
+			} catch( IOException e ) {
+				logSevere( e );
+			} finally {
+				try {
+					channel.release();
+				} catch( IOException e ) {
+					logSevere( e );
+				}
+			}
+		}
+	}
+
 	private void logSessionStart( String operationName, String sessionId, long messageId, Value message ) {
 		if( isMonitoring() ) {
 			fireMonitorEvent( new SessionStartedEvent( operationName, sessionId ) );
@@ -1402,6 +1559,9 @@ public class Interpreter {
 
 	public static class Configuration {
 		private final Integer connectionsLimit;
+		private final int connectionsCache;
+		private final boolean virtualThreads;
+		private final AdmissionController.Settings admission;
 		private final int cellId;
 		private final CorrelationEngine.Type correlationAlgorithm;
 		private final String[] includePaths;
@@ -1424,10 +1584,14 @@ public class Interpreter {
 		private final Level logLevel;
 		private final File programDirectory;
 		private final String[] packagePaths;
+		private final Optional< Path > moduleCacheDirectory;
 		private final String executionTarget;
 		private final Optional< Path > parametersFilePath;
 
 		private Configuration( int connectionsLimit,
+			int connectionsCache,
+			boolean virtualThreads,
+			AdmissionController.Settings admission,
 			int cellId,
 			CorrelationEngine.Type correlationAlgorithm,
 			String[] includeList,
@@ -1450,9 +1614,13 @@ public class Interpreter {
 			Level logLevel,
 			File programDirectory,
 			String[] packagePaths,
+			Optional< Path > moduleCacheDirectory,
 			String executionTarget,
 			Optional< Path > parametersFilePath ) {
 			this.connectionsLimit = connectionsLimit;
+			this.connectionsCache = connectionsCache;
+			this.virtualThreads = virtualThreads;
+			this.admission = admission;
 			this.cellId = cellId;
 			this.correlationAlgorithm = correlationAlgorithm;
 			this.includePaths = includeList;
@@ -1475,11 +1643,15 @@ public class Interpreter {
 			this.logLevel = logLevel;
 			this.programDirectory = programDirectory;
 			this.packagePaths = packagePaths;
+			this.moduleCacheDirectory = moduleCacheDirectory;
 			this.executionTarget = executionTarget;
 			this.parametersFilePath = parametersFilePath;
 		}
 
 		public static Configuration create( int connectionsLimit,
+			int connectionsCache,
+			boolean virtualThreads,
+			AdmissionController.Settings admission,
 			int cellId,
 			CorrelationEngine.Type correlationAlgorithm,
 			String[] includeList,
@@ -1502,35 +1674,41 @@ public class Interpreter {
 			Level logLevel,
 			File programDirectory,
 			String[] packagePaths,
+			Optional< Path > moduleCacheDirectory,
 			String executionTarget,
 			Optional< Path > parametersFilePath ) {
-			return new Configuration( connectionsLimit, cellId, correlationAlgorithm, includeList, optionArgs, libUrls,
+			return new Configuration( connectionsLimit, connectionsCache, virtualThreads, admission, cellId,
+				correlationAlgorithm, includeList, optionArgs, libUrls,
 				inputStream, charset, programFilepath, arguments, constants, jolieClassLoader, programCompiled,
 				typeCheck, tracer, tracerLevel, tracerMode, check, printStackTraces, responseTimeout, logLevel,
-				programDirectory, packagePaths, executionTarget, parametersFilePath );
+				programDirectory, packagePaths, moduleCacheDirectory, executionTarget, parametersFilePath );
 		}
 
 		public static Configuration create( Configuration config,
 			File programFilepath,
 			InputStream inputStream ) {
-			return create( config.connectionsLimit, config.cellId, config.correlationAlgorithm, config.includePaths,
+			return create( config.connectionsLimit, config.connectionsCache, config.virtualThreads, config.admission,
+				config.cellId, config.correlationAlgorithm, config.includePaths,
 				config.optionArgs,
 				config.libURLs, inputStream, config.charset, programFilepath, config.arguments, config.constants,
 				config.jolieClassLoader, config.isProgramCompiled, config.typeCheck, config.tracer, config.tracerLevel,
 				config.tracerMode, config.check, config.printStackTraces, config.responseTimeout, config.logLevel,
-				config.programDirectory, config.packagePaths, config.executionTarget, config.parametersFilePath );
+				config.programDirectory, config.packagePaths, config.moduleCacheDirectory, config.executionTarget,
+				config.parametersFilePath );
 		}
 
 		public static Configuration create( Configuration config,
 			File programFilepath,
 			InputStream inputStream,
 			String executionTarget ) {
-			return create( config.connectionsLimit, config.cellId, config.correlationAlgorithm, config.includePaths,
+			return create( config.connectionsLimit, config.connectionsCache, config.virtualThreads, config.admission,
+				config.cellId, config.correlationAlgorithm, config.includePaths,
 				config.optionArgs,
 				config.libURLs, inputStream, config.charset, programFilepath, config.arguments, config.constants,
 				config.jolieClassLoader, config.isProgramCompiled, config.typeCheck, config.tracer, config.tracerLevel,
 				config.tracerMode, config.check, config.printStackTraces, config.responseTimeout, config.logLevel,
-				config.programDirectory, config.packagePaths, executionTarget, config.parametersFilePath );
+				config.programDirectory, config.packagePaths, config.moduleCacheDirectory, executionTarget,
+				config.parametersFilePath );
 		}
 
 		/**
@@ -1542,6 +1720,34 @@ public class Interpreter {
 			return this.connectionsLimit;
 		}
 
+		/**
+		 * Returns the connection cache parameter passed by command line with the --conncache option.
+		 *
+		 * @return the connection cache parameter passed by command line
+		 */
+		public int connectionsCache() {
+			return this.connectionsCache;
+		}
+
+		/**
+		 * Returns true if the --virtualThreads option was passed by command line.
+		 *
+		 * @return true if sessions and communication handlers should run on virtual threads
+		 */
+		public boolean virtualThreads() {
+			return this.virtualThreads;
+		}
+
+		/**
+		 * Returns the admission control settings passed by command line with the --connqueue,
+		 * --sessionlimit, --queueTimeout and --overloadFault options.
+		 *
+		 * @return the admission control settings
+		 */
+		public AdmissionController.Settings admission() {
+			return this.admission;
+		}
+
 		/**
 		 * Returns the cellId parameter passed by command line with the --cellId option.
 		 *
@@ -1737,6 +1943,16 @@ public class Interpreter {
 			return packagePaths;
 		}
 
+		/**
+		 * Returns the directory of the persistent cache of parsed modules passed by command line with the
+		 * --moduleCache option, if any.
+		 *
+		 * @return the directory of the module cache
+		 */
+		public Optional< Path > moduleCacheDirectory() {
+			return moduleCacheDirectory;
+		}
+
 		/**
 		 * Returns the directory in which the main program is located.
 		 *
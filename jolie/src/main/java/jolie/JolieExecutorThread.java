@@ -60,7 +60,7 @@ public class JolieExecutorThread extends Thread implements InterpreterThread {
 	}
 
 	public static JolieExecutorThread currentThread() {
-		final Thread t = Thread.currentThread();
+		final Thread t = VirtualThreads.currentThread();
 		return (t instanceof JolieExecutorThread) ? (JolieExecutorThread) t : null;
 	}
 }
@@ -1138,6 +1138,17 @@ public class OOITBuilder implements UnitOLVisitor {
 	}
 
 	public void visit( SumExpressionNode n ) {
+		if( isConcatenation( n ) ) {
+			Expression[] operands = new Expression[ n.operands().size() - 1 ];
+			for( int i = 0; i < operands.length; i++ ) {
+				n.operands().get( i + 1 ).value().accept( this );
+				operands[ i ] = currExpression;
+			}
+			currExpression = new ConcatExpression(
+				((ConstantStringExpression) n.operands().get( 0 ).value()).value(), operands );
+			return;
+		}
+
 		Operand[] operands = new Operand[ n.operands().size() ];
 		int i = 0;
 		for( Pair< OperandType, OLSyntaxNode > pair : n.operands() ) {
@@ -1148,6 +1159,22 @@ public class OOITBuilder implements UnitOLVisitor {
 		currExpression = new SumExpression( operands );
 	}
 
+	/**
+	 * Returns true if the given sum is a string concatenation: its first operand is a string constant,
+	 * and all the other operands are added.
+	 */
+	private static boolean isConcatenation( SumExpressionNode n ) {
+		if( !(n.operands().get( 0 ).value() instanceof ConstantStringExpression) ) {
+			return false;
+		}
+		for( int i = 1; i < n.operands().size(); i++ ) {
+			if( n.operands().get( i ).key() != OperandType.ADD ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public void visit( VariableExpressionNode n ) {
 		currExpression = buildVariablePath( n.variablePath() );
 	}
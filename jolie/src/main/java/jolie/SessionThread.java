@@ -21,9 +21,10 @@ package jolie;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
@@ -57,7 +58,7 @@ public class SessionThread extends ExecutionThread {
 		private final Lock lock;
 		private final Condition condition;
 		private SessionMessage sessionMessage = null;
-		private boolean isDone = false;
+		private volatile boolean isDone = false;
 		private boolean isCancelled = false;
 
 		public SessionMessageFuture() {
@@ -122,39 +123,100 @@ public class SessionThread extends ExecutionThread {
 			return isDone;
 		}
 
-		protected void setResult( SessionMessage sessionMessage ) {
+		/**
+		 * Completes this future with the given message, unless it is already done.
+		 *
+		 * @return {@code true} if this future has been completed with the given message
+		 */
+		protected boolean tryComplete( SessionMessage sessionMessage ) {
 			lock.lock();
 			try {
-				if( !isDone ) {
-					this.sessionMessage = sessionMessage;
-					isDone = true;
-					condition.signalAll();
+				if( isDone ) {
+					return false;
 				}
+				this.sessionMessage = sessionMessage;
+				isDone = true;
+				condition.signalAll();
+				return true;
 			} finally {
 				lock.unlock();
 			}
 		}
 	}
 
-	private class SessionMessageNDFuture extends SessionMessageFuture {
-		private final String[] operationNames;
+	/**
+	 * The queue of the messages for the operations of a correlation set (or for uncorrelated
+	 * operations), together with the receives waiting for them.
+	 *
+	 * Each mailbox is guarded by its own monitor, so messages for different correlation sets are
+	 * handled concurrently. Messages in a mailbox are consumed in the order of arrival: a message can
+	 * be received only when all the messages that arrived before it in the same mailbox have been.
+	 *
+	 * A receive waiting on many operations (an input choice) registers the same future in all the
+	 * mailboxes of its operations. The first mailbox that completes the future wins, and the other
+	 * mailboxes discard the future when they meet it.
+	 */
+	private static class Mailbox {
+		private final Deque< SessionMessage > queue;
+		private final Map< String, Deque< SessionMessageFuture > > waiters = new HashMap<>();
 
-		public SessionMessageNDFuture( String[] operationNames ) {
-			super();
-			this.operationNames = operationNames;
+		private Mailbox( Deque< SessionMessage > queue ) {
+			this.queue = queue;
 		}
 
-		@Override
-		protected void setResult( SessionMessage sessionMessage ) {
-			for( String operationName : operationNames ) {
-				if( operationName.equals( sessionMessage.message().operationName() ) == false ) {
-					Deque< SessionMessageFuture > waitersList = messageWaiters.get( operationName );
-					if( waitersList != null ) {
-						waitersList.remove( this );
-					}
-				}
+		private void addWaiter( String operationName, SessionMessageFuture future ) {
+			final Deque< SessionMessageFuture > waitersList =
+				waiters.computeIfAbsent( operationName, k -> new ArrayDeque<>() );
+			// Discard the futures completed by other mailboxes, or cancelled
+			waitersList.removeIf( SessionMessageFuture::isDone );
+			waitersList.addLast( future );
+		}
+
+		/*
+		 * Gives the message to the first receive waiting for its operation, if any.
+		 */
+		private boolean deliverToWaiter( SessionMessage message ) {
+			final String operationName = message.message().operationName();
+			final Deque< SessionMessageFuture > waitersList = waiters.get( operationName );
+			if( waitersList == null ) {
+				return false;
+			}
+			boolean delivered = false;
+			while( !delivered && !waitersList.isEmpty() ) {
+				delivered = waitersList.removeFirst().tryComplete( message );
+			}
+			if( waitersList.isEmpty() ) {
+				waiters.remove( operationName );
+			}
+			return delivered;
+		}
+
+		/*
+		 * Delivers the messages at the head of the queue to the receives waiting for them, stopping at the
+		 * first message that nobody is waiting for.
+		 */
+		private void deliverQueued() {
+			while( !queue.isEmpty() && deliverToWaiter( queue.peekFirst() ) ) {
+				queue.removeFirst();
+			}
+		}
+
+		private boolean receive( Map< String, ? > operations, SessionMessageFuture future ) {
+			final SessionMessage message = queue.peekFirst();
+			if( message != null && operations.containsKey( message.message().operationName() )
+				&& future.tryComplete( message ) ) {
+				queue.removeFirst();
+				// Check if we unlocked other receives
+				deliverQueued();
+				return true;
+			}
+			return false;
+		}
+
+		private void push( SessionMessage message ) {
+			if( !queue.isEmpty() || !deliverToWaiter( message ) ) {
+				queue.addLast( message );
 			}
-			super.setResult( sessionMessage );
 		}
 	}
 
@@ -165,7 +227,8 @@ public class SessionThread extends ExecutionThread {
 	private final List< SessionListener > listeners = new ArrayList<>();
 	protected final Map< CorrelationSet, Deque< SessionMessage > > messageQueues = new HashMap<>();
 	protected final Deque< SessionMessage > uncorrelatedMessageQueue = new ArrayDeque<>();
-	private final Map< String, Deque< SessionMessageFuture > > messageWaiters = new HashMap<>();
+	private final Map< CorrelationSet, Mailbox > mailboxes = new HashMap<>();
+	private final Mailbox uncorrelatedMailbox = new Mailbox( uncorrelatedMessageQueue );
 
 	private final static VariablePath TYPE_MISMATCH_PATH;
 	private final static VariablePath IO_EXCEPTION_PATH;
@@ -252,6 +315,16 @@ public class SessionThread extends ExecutionThread {
 		listeners.add( listener );
 	}
 
+	/**
+	 * Discards this session without running it, notifying its listeners that it terminated with the
+	 * given fault. Must only be called on sessions that have not been started.
+	 *
+	 * @param fault the reason for discarding this session
+	 */
+	public void reject( FaultException fault ) {
+		listeners.forEach( listener -> listener.onSessionError( this, fault ) );
+	}
+
 	/**
 	 * Constructs a SessionThread with a fresh State.
 	 * 
@@ -266,7 +339,9 @@ public class SessionThread extends ExecutionThread {
 
 	private void initMessageQueues() {
 		for( CorrelationSet cset : interpreter().correlationSets() ) {
-			messageQueues.put( cset, new ArrayDeque<>() );
+			final Deque< SessionMessage > queue = new ArrayDeque<>();
+			messageQueues.put( cset, queue );
+			mailboxes.put( cset, new Mailbox( queue ) );
 		}
 	}
 
@@ -306,53 +381,28 @@ public class SessionThread extends ExecutionThread {
 		return state;
 	}
 
+	private Mailbox mailbox( String operationName ) {
+		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( operationName );
+		return cset == null ? uncorrelatedMailbox : mailboxes.get( cset );
+	}
+
 	@Override
 	public Future< SessionMessage > requestMessage( Map< String, InputOperation > operations,
 		ExecutionThread ethread ) {
-		final SessionMessageFuture future =
-			new SessionMessageNDFuture( operations.keySet().toArray( new String[ 0 ] ) );
+		final SessionMessageFuture future = new SessionMessageFuture();
 		ethread.cancelIfKilled( future );
-		synchronized( messageQueues ) {
-			Deque< SessionMessage > queue = null;
-			SessionMessage message = null;
-			InputOperation operation = null;
-
-			Iterator< Deque< SessionMessage > > it = messageQueues.values().iterator();
-			while( operation == null && it.hasNext() ) {
-				queue = it.next();
-				message = queue.peekFirst();
-				if( message != null ) {
-					operation = operations.get( message.message().operationName() );
-				}
-			}
-			if( message == null ) {
-				queue = uncorrelatedMessageQueue;
-				message = queue.peekFirst();
-				if( message != null ) {
-					operation = operations.get( message.message().operationName() );
-				}
-			}
-
-			if( message == null || operation == null ) {
-				operations.entrySet().forEach(
-					entry -> addMessageWaiter( entry.getValue(), future ) );
-			} else {
-				future.setResult( message );
-				queue.removeFirst();
-
-				// Check if we unlocked other receives
-				boolean keepRun = true;
-				SessionMessageFuture f;
-				while( keepRun && !queue.isEmpty() ) {
-					message = queue.peekFirst();
-					f = getMessageWaiter( message.message().operationName() );
-					if( f != null ) { // We found a waiter for the unlocked message
-						f.setResult( message );
-						queue.removeFirst();
-					} else {
-						keepRun = false;
-					}
+		final Map< Mailbox, List< String > > operationsByMailbox = new LinkedHashMap<>();
+		for( String operationName : operations.keySet() ) {
+			operationsByMailbox.computeIfAbsent( mailbox( operationName ), k -> new ArrayList<>() )
+				.add( operationName );
+		}
+		for( Map.Entry< Mailbox, List< String > > entry : operationsByMailbox.entrySet() ) {
+			final Mailbox mailbox = entry.getKey();
+			synchronized( mailbox ) {
+				if( future.isDone() || mailbox.receive( operations, future ) ) {
+					break;
 				}
+				entry.getValue().forEach( operationName -> mailbox.addWaiter( operationName, future ) );
 			}
 		}
 		return future;
@@ -362,73 +412,19 @@ public class SessionThread extends ExecutionThread {
 	public Future< SessionMessage > requestMessage( InputOperation operation, ExecutionThread ethread ) {
 		final SessionMessageFuture future = new SessionMessageFuture();
 		ethread.cancelIfKilled( future );
-		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( operation.id() );
-		final Deque< SessionMessage > queue =
-			cset == null ? uncorrelatedMessageQueue
-				: messageQueues.get( cset );
-		synchronized( messageQueues ) {
-			final SessionMessage message = queue.peekFirst();
-			if( message == null
-				|| message.message().operationName().equals( operation.id() ) == false ) {
-				addMessageWaiter( operation, future );
-			} else {
-				future.setResult( message );
-				queue.removeFirst();
-
-				// Check if we unlocked other receives
-				boolean keepRun = true;
-				while( keepRun && !queue.isEmpty() ) {
-					final SessionMessage otherMessage = queue.peekFirst();
-					final SessionMessageFuture currFuture = getMessageWaiter( otherMessage.message().operationName() );
-					if( currFuture != null ) { // We found a waiter for the unlocked message
-						currFuture.setResult( otherMessage );
-						queue.removeFirst();
-					} else {
-						keepRun = false;
-					}
-				}
+		final Mailbox mailbox = mailbox( operation.id() );
+		synchronized( mailbox ) {
+			if( !mailbox.receive( Collections.singletonMap( operation.id(), operation ), future ) ) {
+				mailbox.addWaiter( operation.id(), future );
 			}
 		}
 		return future;
 	}
 
-	private void addMessageWaiter( InputOperation operation, SessionMessageFuture future ) {
-		Deque< SessionMessageFuture > waitersList = messageWaiters.get( operation.id() );
-		if( waitersList == null ) {
-			waitersList = new ArrayDeque<>();
-			messageWaiters.put( operation.id(), waitersList );
-		}
-		waitersList.addLast( future );
-	}
-
-	private SessionMessageFuture getMessageWaiter( String operationName ) {
-		Deque< SessionMessageFuture > waitersList = messageWaiters.get( operationName );
-		if( waitersList == null || waitersList.isEmpty() ) {
-			return null;
-		}
-
-		if( waitersList.size() == 1 ) {
-			messageWaiters.remove( operationName );
-		}
-
-		return waitersList.removeFirst();
-	}
-
 	public void pushMessage( SessionMessage message ) {
-		synchronized( messageQueues ) {
-			Deque< SessionMessage > queue;
-			CorrelationSet cset = interpreter().getCorrelationSetForOperation( message.message().operationName() );
-			if( cset != null ) {
-				queue = messageQueues.get( cset );
-			} else {
-				queue = uncorrelatedMessageQueue;
-			}
-			SessionMessageFuture future = getMessageWaiter( message.message().operationName() );
-			if( future != null && queue.isEmpty() ) {
-				future.setResult( message );
-			} else {
-				queue.addLast( message );
-			}
+		final Mailbox mailbox = mailbox( message.message().operationName() );
+		synchronized( mailbox ) {
+			mailbox.push( message );
 		}
 	}
 
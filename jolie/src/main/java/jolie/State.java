@@ -69,6 +69,17 @@ public final class State implements Cloneable {
 		return new State( Value.createClone( root ) );
 	}
 
+	/**
+	 * Returns a copy of this State whose variables are copied only when they are accessed. This State
+	 * must not be modified afterwards, as is the case for the state of init once it has terminated.
+	 *
+	 * @return the copy of this State
+	 * @see Value#createLazyClone(Value)
+	 */
+	public State lazyClone() {
+		return new State( Value.createLazyClone( root ) );
+	}
+
 	/**
 	 * Returns the root Value of this State.
 	 * 
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Support for running the threads of an {@link Interpreter} on virtual threads (Java 21 or later).
+ *
+ * The interpreter finds the execution context of the running code by looking at the current thread,
+ * which is expected to be one of its thread classes (e.g., {@link JolieExecutorThread}). Virtual
+ * threads can not be instances of these classes, so each virtual thread is paired with an instance
+ * that is never started, and that stands in for the virtual thread in {@link #currentThread()}.
+ *
+ * The virtual thread API is looked up reflectively, so that the runtime keeps working on older Java
+ * versions, where this mode is not available.
+ */
+public final class VirtualThreads {
+	private static final ThreadLocal< Thread > STAND_INS = new ThreadLocal<>();
+	private static final ThreadFactory FACTORY = createFactory();
+
+	private VirtualThreads() {}
+
+	private static ThreadFactory createFactory() {
+		try {
+			final Object builder = Thread.class.getMethod( "ofVirtual" ).invoke( null );
+			return (ThreadFactory) Class.forName( "java.lang.Thread$Builder" ).getMethod( "factory" )
+				.invoke( builder );
+		} catch( ReflectiveOperationException | RuntimeException e ) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns true if the running JVM supports virtual threads.
+	 */
+	public static boolean isSupported() {
+		return FACTORY != null;
+	}
+
+	/**
+	 * Returns the current thread as seen by the interpreter: the thread standing in for the current
+	 * thread if it is a virtual thread started by an executor of this class, the current thread
+	 * otherwise.
+	 *
+	 * @return the current thread as seen by the interpreter
+	 */
+	public static Thread currentThread() {
+		final Thread thread = Thread.currentThread();
+		if( thread instanceof InterpreterThread ) {
+			return thread;
+		}
+		final Thread standIn = STAND_INS.get();
+		return standIn == null ? thread : standIn;
+	}
+
+	/**
+	 * Returns an executor that runs each task on a new virtual thread. The thread created for the task
+	 * by the given factory is not started, and stands in for the virtual thread while it runs.
+	 *
+	 * @param standInFactory creates the threads standing in for the virtual threads
+	 * @return an executor running each task on a new virtual thread
+	 * @throws UnsupportedOperationException if the JVM does not support virtual threads
+	 */
+	public static ExecutorService newExecutor( ThreadFactory standInFactory ) {
+		if( FACTORY == null ) {
+			throw new UnsupportedOperationException( "Virtual threads are not supported by this JVM" );
+		}
+		final ThreadFactory factory = task -> {
+			final Thread standIn = standInFactory.newThread( task );
+			final Thread thread = FACTORY.newThread( () -> {
+				STAND_INS.set( standIn );
+				try {
+					task.run();
+				} finally {
+					STAND_INS.remove();
+				}
+			} );
+			thread.setName( standIn.getName() );
+			return thread;
+		};
+		try {
+			return (ExecutorService) Executors.class.getMethod( "newThreadPerTaskExecutor", ThreadFactory.class )
+				.invoke( null, factory );
+		} catch( ReflectiveOperationException e ) {
+			throw new UnsupportedOperationException( e );
+		}
+	}
+}
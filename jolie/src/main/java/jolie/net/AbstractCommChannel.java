@@ -29,74 +29,73 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
 
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.lang.Constants;
 import jolie.runtime.FaultException;
 import jolie.runtime.TimeoutHandler;
+import jolie.runtime.TimerWheel;
 import jolie.runtime.Value;
 
+/**
+ * A channel that receives responses for the requests sent on it in a dedicated
+ * {@link ResponseReceiver}.
+ *
+ * Waiting for a response does not occupy any thread: each pending request is a future, which is
+ * completed by the receiver when the response arrives, or failed with a {@link TimeoutException} by
+ * the timer wheel of the {@link CommCore} when the response timeout expires.
+ */
 public abstract class AbstractCommChannel extends CommChannel {
 	private static final long RECEIVER_KEEP_ALIVE = 20000; // msecs
 
 	private final Map< Long, CommMessage > pendingResponses = new HashMap<>();
-	private final Map< Long, ResponseContainer > waiters = new HashMap<>();
+	private final Map< Long, CompletableFuture< CommMessage > > waiters = new HashMap<>();
 	private final List< CommMessage > pendingGenericResponses = new LinkedList<>();
 	private ResponseReceiver responseReceiver = null;
 	private final Object responseRecvMutex = new Object();
 
-	private static class ResponseContainer {
-		private ResponseContainer() {}
-
-		private CommMessage response = null;
-	}
-
 	@Override
 	public Future< CommMessage > recvResponseFor( CommMessage request )
 		throws IOException {
 		final ExecutionThread ethread = ExecutionThread.currentThread();
-		return CompletableFuture.supplyAsync( () -> {
-			CommMessage response;
-			ResponseContainer monitor = null;
-			synchronized( responseRecvMutex ) {
-				response = pendingResponses.remove( request.id() );
-				if( response == null ) {
-					if( pendingGenericResponses.isEmpty() ) {
-						assert (waiters.containsKey( request.id() ) == false);
-						monitor = new ResponseContainer();
-						waiters.put( request.id(), monitor );
-						// responseRecvMutex.notify();
-					} else {
-						response = pendingGenericResponses.remove( 0 );
-					}
-				}
+		final CompletableFuture< CommMessage > future;
+		synchronized( responseRecvMutex ) {
+			CommMessage response = pendingResponses.remove( request.id() );
+			if( response == null && !pendingGenericResponses.isEmpty() ) {
+				response = pendingGenericResponses.remove( 0 );
+			}
+			if( response != null ) {
+				return CompletableFuture.completedFuture( response );
 			}
-			if( response == null ) {
-				synchronized( responseRecvMutex ) {
-					if( responseReceiver == null ) {
-						responseReceiver = new ResponseReceiver( this, ethread );
-						ethread.interpreter().commCore().startCommChannelHandler( responseReceiver );
-					} else {
-						responseReceiver.wakeUp();
-					}
-				}
 
-				if( monitor != null ) {
-					synchronized( monitor ) {
-						if( monitor.response == null ) {
-							try {
-								monitor.wait();
-							} catch( InterruptedException e ) {
-								ethread.interpreter().logSevere( e );
-							}
-						}
-						response = monitor.response;
-					}
-				}
+			assert (waiters.containsKey( request.id() ) == false);
+			future = new CompletableFuture<>();
+			waiters.put( request.id(), future );
+			if( responseReceiver == null ) {
+				responseReceiver = new ResponseReceiver( this, ethread );
+				ethread.interpreter().commCore().startCommChannelHandler( responseReceiver );
+			} else {
+				responseReceiver.wakeUp();
 			}
-			return response;
-		}, Interpreter.getInstance().commCore().executor() );
+		}
+
+		final Interpreter interpreter = ethread.interpreter();
+		final TimerWheel.Timeout timeout = interpreter.commCore().timerWheel().schedule(
+			() -> expireWaiter( request.id(), future ),
+			interpreter.responseTimeout() );
+		future.whenComplete( ( response, exception ) -> timeout.cancel() );
+		return future;
+	}
+
+	private void expireWaiter( long requestId, CompletableFuture< CommMessage > future ) {
+		synchronized( responseRecvMutex ) {
+			if( !waiters.remove( requestId, future ) ) {
+				return;
+			}
+		}
+		future.completeExceptionally( new TimeoutException() );
 	}
 
 	private static class ResponseReceiver implements Runnable {
@@ -153,57 +152,52 @@ public abstract class AbstractCommChannel extends CommChannel {
 		}
 
 		private void handleGenericMessage( CommMessage response ) {
-			ResponseContainer monitor;
 			if( parent.waiters.isEmpty() ) {
 				parent.pendingGenericResponses.add( response );
 			} else {
-				Entry< Long, ResponseContainer > entry =
+				Entry< Long, CompletableFuture< CommMessage > > entry =
 					parent.waiters.entrySet().iterator().next();
-				monitor = entry.getValue();
 				parent.waiters.remove( entry.getKey() );
-				synchronized( monitor ) {
-					monitor.response = new CommMessage(
-						entry.getKey(),
-						response.operationName(),
-						response.resourcePath(),
-						response.value(),
-						response.fault() );
-					monitor.notify();
-				}
+				entry.getValue().complete( new CommMessage(
+					entry.getKey(),
+					response.operationName(),
+					response.resourcePath(),
+					response.value(),
+					response.fault() ) );
 			}
 		}
 
 		private void handleMessage( CommMessage response ) {
-			ResponseContainer monitor;
-			if( (monitor = parent.waiters.remove( response.id() )) == null ) {
+			CompletableFuture< CommMessage > future;
+			if( (future = parent.waiters.remove( response.id() )) == null ) {
 				parent.pendingResponses.put( response.id(), response );
 			} else {
-				synchronized( monitor ) {
-					monitor.response = response;
-					monitor.notify();
-				}
+				future.complete( response );
 			}
 		}
 
 		private void throwIOExceptionFault( IOException e ) {
 			if( parent.waiters.isEmpty() == false ) {
-				ResponseContainer monitor;
-				for( Entry< Long, ResponseContainer > entry : parent.waiters.entrySet() ) {
-					monitor = entry.getValue();
-					synchronized( monitor ) {
-						monitor.response = new CommMessage(
-							entry.getKey(),
-							"",
-							Constants.ROOT_RESOURCE_PATH,
-							Value.create(),
-							new FaultException( "IOException", e ) );
-						monitor.notify();
-					}
+				for( Entry< Long, CompletableFuture< CommMessage > > entry : parent.waiters.entrySet() ) {
+					entry.getValue().complete( new CommMessage(
+						entry.getKey(),
+						"",
+						Constants.ROOT_RESOURCE_PATH,
+						Value.create(),
+						new FaultException( "IOException", e ) ) );
 				}
 				parent.waiters.clear();
 			}
 		}
 
+		private void closeParent() {
+			try {
+				parent.close();
+			} catch( IOException e ) {
+				ethread.interpreter().logWarning( e );
+			}
+		}
+
 		@Override
 		public void run() {
 			/*
@@ -214,24 +208,32 @@ public abstract class AbstractCommChannel extends CommChannel {
 
 			CommMessage response;
 			while( keepRun ) {
-				synchronized( parent.responseRecvMutex ) {
-					try {
-						response = parent.recv();
-						if( response != null ) {
-							if( response.hasGenericId() ) {
-								handleGenericMessage( response );
-							} else {
-								handleMessage( response );
-							}
-						}
-						if( parent.waiters.isEmpty() ) {
-							sleep();
-						}
-					} catch( IOException e ) {
+				try {
+					// Read outside of the mutex, so that new requests can register while we wait.
+					response = parent.recv();
+				} catch( IOException e ) {
+					synchronized( parent.responseRecvMutex ) {
 						throwIOExceptionFault( e );
 						keepRun = false;
 						parent.responseReceiver = null;
 					}
+					if( parent.isMultiplexed() ) {
+						closeParent();
+					}
+					return;
+				}
+				synchronized( parent.responseRecvMutex ) {
+					if( response != null ) {
+						if( response.hasGenericId() ) {
+							handleGenericMessage( response );
+						} else {
+							handleMessage( response );
+						}
+					}
+					// Multiplexed channels keep reading, to detect dropped connections as soon as possible.
+					if( parent.waiters.isEmpty() && !parent.isMultiplexed() ) {
+						sleep();
+					}
 				}
 			}
 		}
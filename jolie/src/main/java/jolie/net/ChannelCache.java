@@ -21,114 +21,243 @@ package jolie.net;
 
 import jolie.Interpreter;
 import jolie.runtime.TimeoutHandler;
+import jolie.util.ExceptionalCallable;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * The persistent channels of an output port, organised by location and protocol.
+ *
+ * Channels that can be shared by concurrent requests (see {@link CommChannel#isMultiplexed()}) are
+ * handed out until they reach their maximum number of requests in flight. All other channels are
+ * handed out to one request at a time by a {@link ConnectionPool}.
+ */
 public class ChannelCache {
-	// Location URI -> Protocol name -> Persistent CommChannel object
-	private final Map< URI, Map< String, CommChannel > > persistentChannels = new HashMap<>();
+	// Location URI -> Protocol name -> Pool of persistent channels
+	private final Map< URI, Map< String, ConnectionPool > > connectionPools = new HashMap<>();
+	// Location URI -> Protocol name -> Channels shared by concurrent requests
+	private final Map< URI, Map< String, List< MultiplexedChannel > > > multiplexedChannels = new HashMap<>();
+	// Location URI -> Protocol name -> Whether channels can be shared, once a channel has been opened
+	private final Map< URI, Map< String, Boolean > > shareableChannels = new HashMap<>();
+	// Location URI -> Protocol name -> Lock held while opening a channel that may be shared
+	private final Map< URI, Map< String, Object > > openingLocks = new HashMap<>();
+
+	private static class MultiplexedChannel {
+		private final CommChannel channel;
+		private final int maxInFlightRequests;
+		private int inFlightRequests = 1;
+
+		private MultiplexedChannel( CommChannel channel, int maxInFlightRequests ) {
+			this.channel = channel;
+			this.maxInFlightRequests = maxInFlightRequests;
+		}
+	}
 
-	private void removePersistentChannel( URI location, String protocol, Map< String, CommChannel > protocolChannels ) {
-		protocolChannels.remove( protocol );
-		if( protocolChannels.isEmpty() ) {
-			persistentChannels.remove( location );
+	private ConnectionPool connectionPool( URI location, String protocol, ConnectionPool.Settings settings ) {
+		synchronized( connectionPools ) {
+			return connectionPools
+				.computeIfAbsent( location, k -> new HashMap<>() )
+				.computeIfAbsent( protocol, k -> new ConnectionPool( location, settings ) );
 		}
 	}
 
-	private void removePersistentChannel( URI location, String protocol, CommChannel channel ) {
-		if( persistentChannels.containsKey( location ) ) {
-			if( persistentChannels.get( location ).get( protocol ) == channel ) {
-				removePersistentChannel( location, protocol, persistentChannels.get( location ) );
+	/**
+	 * Returns a channel towards the given location, reusing a persistent channel if possible and
+	 * opening a new one with the given opener otherwise. The returned channel must be released (or
+	 * closed) after use.
+	 *
+	 * @param location the location of the channel
+	 * @param protocol the protocol name of the channel
+	 * @param settings the settings of the connection pool for the location
+	 * @param opener opens a new channel
+	 * @return a channel towards the given location
+	 * @throws IOException if a new channel could not be opened, or the connection pool is exhausted
+	 */
+	public CommChannel getChannel( URI location, String protocol, ConnectionPool.Settings settings,
+		ExceptionalCallable< CommChannel, IOException > opener )
+		throws IOException {
+		synchronized( multiplexedChannels ) {
+			final CommChannel ret = getMultiplexedChannel( location, protocol );
+			if( ret != null ) {
+				return ret;
 			}
 		}
+		return connectionPool( location, protocol, settings )
+			.acquire( settings, () -> openChannel( location, protocol, opener ) );
 	}
 
-	public CommChannel getPersistentChannel( URI location, String protocol ) {
+	/**
+	 * Returns a multiplexed channel with room for another request in flight, or <code>null</code> if
+	 * there is none. Closed channels are dropped from the cache.
+	 */
+	private CommChannel getMultiplexedChannel( URI location, String protocol ) {
+		final Map< String, List< MultiplexedChannel > > protocolChannels = multiplexedChannels.get( location );
+		if( protocolChannels == null ) {
+			return null;
+		}
+		final List< MultiplexedChannel > channels = protocolChannels.get( protocol );
+		if( channels == null ) {
+			return null;
+		}
 		CommChannel ret = null;
-		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels = persistentChannels.get( location );
-			if( protocolChannels != null ) {
-				ret = protocolChannels.get( protocol );
-				if( ret != null ) {
-					if( ret.lock.tryLock() ) {
-						if( ret.isOpen() ) {
-							/*
-							 * We are going to return this channel, but first check if it supports concurrent use. If
-							 * not, then others should not access this until the caller is finished using it.
-							 */
-							// if ( ret.isThreadSafe() == false ) {
-							removePersistentChannel( location, protocol, protocolChannels );
-							// } else {
-							// If we return a channel, make sure it will not timeout!
-							ret.setTimeoutHandler( null );
-							// if ( ret.timeoutHandler() != null ) {
-							// interpreter.removeTimeoutHandler( ret.timeoutHandler() );
-							// ret.setTimeoutHandler( null );
-							// }
-							// }
-							ret.lock.unlock();
-						} else { // Channel is closed
-							removePersistentChannel( location, protocol, protocolChannels );
-							ret.lock.unlock();
-							ret = null;
-						}
-					} else { // Channel is busy
-						removePersistentChannel( location, protocol, protocolChannels );
-						ret = null;
-					}
-				}
+		final Iterator< MultiplexedChannel > it = channels.iterator();
+		while( ret == null && it.hasNext() ) {
+			final MultiplexedChannel entry = it.next();
+			if( !entry.channel.isOpen() ) {
+				it.remove();
+			} else if( entry.inFlightRequests < entry.maxInFlightRequests ) {
+				entry.inFlightRequests++;
+				// Make sure the channel will not time out while in use
+				entry.channel.setTimeoutHandler( null );
+				ret = entry.channel;
 			}
 		}
-
+		removeMultiplexedChannelsIfEmpty( location, protocol, protocolChannels );
 		return ret;
 	}
 
-	public void putPersistentChannel( URI location, String protocol, final CommChannel channel,
-		Interpreter interpreter ) {
-		synchronized( persistentChannels ) {
-			Map< String, CommChannel > protocolChannels =
-				persistentChannels.computeIfAbsent( location, k -> new HashMap<>() );
-			// Set the timeout
-			setTimeoutHandler( channel, location, protocol, interpreter );
-			// Put the protocol in the cache (may overwrite another one)
-			protocolChannels.put( protocol, channel );
-			/*
-			 * if ( protocolChannels.size() <= connectionCacheSize && protocolChannels.containsKey( protocol )
-			 * == false ) { // Set the timeout setTimeoutHandler( channel ); // Put the protocol in the cache
-			 * protocolChannels.put( protocol, channel ); } else { try { if ( protocolChannels.get( protocol )
-			 * != channel ) { channel.close(); } else { setTimeoutHandler( channel ); } } catch( IOException e )
-			 * { interpreter.logWarning( e ); } }
-			 */
+	private void removeMultiplexedChannelsIfEmpty( URI location, String protocol,
+		Map< String, List< MultiplexedChannel > > protocolChannels ) {
+		if( protocolChannels.get( protocol ).isEmpty() ) {
+			protocolChannels.remove( protocol );
+			if( protocolChannels.isEmpty() ) {
+				multiplexedChannels.remove( location );
+			}
 		}
 	}
 
-	private void setTimeoutHandler( final CommChannel channel, final URI location, final String protocol,
+	/**
+	 * Opens a new channel and makes it available to concurrent requests, if it supports multiplexing.
+	 * The caller counts as the first request in flight on a shared channel, and must release it when
+	 * done.
+	 *
+	 * Channels that may be shared are opened one at a time, so that concurrent requests wait for the
+	 * channel being opened instead of each opening their own.
+	 *
+	 * @param location the location of the channel
+	 * @param protocol the protocol name of the channel
+	 * @param opener opens the new channel
+	 * @return the opened channel, or a shared channel opened in the meantime
+	 * @throws IOException if the channel could not be opened
+	 */
+	private CommChannel openChannel( URI location, String protocol,
+		ExceptionalCallable< CommChannel, IOException > opener )
+		throws IOException {
+		final Object openingLock;
+		synchronized( multiplexedChannels ) {
+			final Boolean shareable =
+				shareableChannels.getOrDefault( location, Collections.emptyMap() ).get( protocol );
+			openingLock = Boolean.FALSE.equals( shareable ) ? null
+				: openingLocks.computeIfAbsent( location, k -> new HashMap<>() )
+					.computeIfAbsent( protocol, k -> new Object() );
+		}
+		if( openingLock == null ) {
+			return opener.call();
+		}
+
+		synchronized( openingLock ) {
+			CommChannel ret;
+			synchronized( multiplexedChannels ) {
+				ret = getMultiplexedChannel( location, protocol );
+			}
+			if( ret == null ) {
+				ret = opener.call();
+				shareChannel( location, protocol, ret );
+			}
+			return ret;
+		}
+	}
+
+	private void shareChannel( URI location, String protocol, CommChannel channel ) {
+		final int maxInFlightRequests = channel.maxInFlightRequests();
+		if( maxInFlightRequests > 1 ) {
+			channel.setMultiplexed();
+		}
+		synchronized( multiplexedChannels ) {
+			shareableChannels.computeIfAbsent( location, k -> new HashMap<>() )
+				.put( protocol, maxInFlightRequests > 1 );
+			if( maxInFlightRequests > 1 ) {
+				multiplexedChannels
+					.computeIfAbsent( location, k -> new HashMap<>() )
+					.computeIfAbsent( protocol, k -> new ArrayList<>() )
+					.add( new MultiplexedChannel( channel, maxInFlightRequests ) );
+			}
+		}
+	}
+
+	/**
+	 * Signals that a request using a multiplexed channel has completed. Channels without requests in
+	 * flight are closed after the persistent connection timeout.
+	 */
+	public void releaseMultiplexedChannel( URI location, String protocol, final CommChannel channel,
 		Interpreter interpreter ) {
-		/*
-		 * if ( channel.timeoutHandler() != null ) { interpreter.removeTimeoutHandler(
-		 * channel.timeoutHandler() ); }
-		 */
-
-		final TimeoutHandler handler = new TimeoutHandler( interpreter.persistentConnectionTimeout() ) {
-			@Override
-			public void onTimeout() {
-				try {
-					synchronized( persistentChannels ) {
-						if( channel.timeoutHandler() == this ) {
-							removePersistentChannel( location, protocol, channel );
-							channel.close();
-							channel.setTimeoutHandler( null );
+		synchronized( multiplexedChannels ) {
+			final MultiplexedChannel entry = findMultiplexedChannel( location, protocol, channel );
+			if( entry != null && --entry.inFlightRequests == 0 ) {
+				final TimeoutHandler handler = new TimeoutHandler( interpreter.persistentConnectionTimeout() ) {
+					@Override
+					public void onTimeout() {
+						try {
+							synchronized( multiplexedChannels ) {
+								if( channel.timeoutHandler() == this && entry.inFlightRequests == 0 ) {
+									removeMultiplexedChannel( location, protocol, entry );
+									channel.close();
+									channel.setTimeoutHandler( null );
+								}
+							}
+						} catch( IOException e ) {
+							interpreter.logSevere( e );
 						}
 					}
-				} catch( IOException e ) {
-					interpreter.logSevere( e );
+				};
+				channel.setTimeoutHandler( handler );
+				interpreter.addTimeoutHandler( handler );
+			}
+		}
+	}
+
+	private MultiplexedChannel findMultiplexedChannel( URI location, String protocol, CommChannel channel ) {
+		final Map< String, List< MultiplexedChannel > > protocolChannels = multiplexedChannels.get( location );
+		if( protocolChannels != null && protocolChannels.containsKey( protocol ) ) {
+			for( MultiplexedChannel entry : protocolChannels.get( protocol ) ) {
+				if( entry.channel == channel ) {
+					return entry;
 				}
 			}
-		};
-		channel.setTimeoutHandler( handler );
-		interpreter.addTimeoutHandler( handler );
+		}
+		return null;
+	}
+
+	private void removeMultiplexedChannel( URI location, String protocol, MultiplexedChannel entry ) {
+		final Map< String, List< MultiplexedChannel > > protocolChannels = multiplexedChannels.get( location );
+		if( protocolChannels != null && protocolChannels.containsKey( protocol ) ) {
+			protocolChannels.get( protocol ).remove( entry );
+			removeMultiplexedChannelsIfEmpty( location, protocol, protocolChannels );
+		}
+	}
+
+	/**
+	 * Gives a persistent channel back to the connection pool of its location, which keeps it for reuse
+	 * or closes it.
+	 */
+	public void putPersistentChannel( URI location, String protocol, final CommChannel channel,
+		Interpreter interpreter )
+		throws IOException {
+		ConnectionPool pool;
+		synchronized( connectionPools ) {
+			pool = connectionPools.getOrDefault( location, Collections.emptyMap() ).get( protocol );
+		}
+		if( pool == null ) {
+			// The channel was opened outside of the cache, see OutputPort#getNewCommChannel
+			pool = connectionPool( location, protocol, ConnectionPool.Settings.create( interpreter ) );
+		}
+		pool.release( channel, interpreter );
 	}
 }
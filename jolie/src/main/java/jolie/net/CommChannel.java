@@ -22,7 +22,11 @@
 
 package jolie.net;
 
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -55,13 +59,22 @@ public abstract class CommChannel {
 	private InputPort inputPort = null;
 	private OutputPort outputPort = null;
 	private boolean isOpen = true;
+	private volatile boolean isMultiplexed = false;
+	private volatile ConnectionPool connectionPool = null;
 
 	private long redirectionMessageId = 0L;
 
 	private TimeoutHandler timeoutHandler = null;
 
+	/**
+	 * Sets the handler closing this channel when it is idle for too long, cancelling the previous one.
+	 */
 	protected void setTimeoutHandler( TimeoutHandler timeoutHandler ) {
+		final TimeoutHandler previous = this.timeoutHandler;
 		this.timeoutHandler = timeoutHandler;
+		if( previous != null && previous != timeoutHandler ) {
+			previous.cancel();
+		}
 	}
 
 	protected TimeoutHandler timeoutHandler() {
@@ -166,6 +179,39 @@ public abstract class CommChannel {
 		return false;
 	}
 
+	/**
+	 * Returns the maximum number of requests that may be in flight at the same time on this channel.
+	 *
+	 * @return the maximum number of requests that may be in flight at the same time on this channel
+	 * @see #setMultiplexed()
+	 */
+	protected int maxInFlightRequests() {
+		return 1;
+	}
+
+	/**
+	 * Marks this channel as shared by concurrent requests, whose responses are matched by message id. A
+	 * multiplexed channel is read by a single response receiver, which does not exclude senders.
+	 */
+	protected void setMultiplexed() {
+		isMultiplexed = true;
+	}
+
+	/**
+	 * Returns <code>true</code> if this channel is shared by concurrent requests, <code>false</code>
+	 * otherwise.
+	 *
+	 * @return <code>true</code> if this channel is shared by concurrent requests, <code>false</code>
+	 *         otherwise
+	 */
+	public final boolean isMultiplexed() {
+		return isMultiplexed;
+	}
+
+	void setConnectionPool( ConnectionPool connectionPool ) {
+		this.connectionPool = connectionPool;
+	}
+
 	/**
 	 * Receives a message from the channel. This is a blocking operation.
 	 * 
@@ -174,6 +220,9 @@ public abstract class CommChannel {
 	 */
 	public CommMessage recv()
 		throws IOException {
+		if( isMultiplexed ) {
+			return recvImpl();
+		}
 		return Helpers.lockAndThen( lock, this::recvImpl );
 	}
 
@@ -195,14 +244,68 @@ public abstract class CommChannel {
 	 */
 	public void send( final CommMessage message )
 		throws IOException {
+		final CommMessage toSend = ownMessage( message );
 		try {
-			Helpers.lockAndThen( lock, () -> sendImpl( message ) );
+			Helpers.lockAndThen( lock, () -> sendImpl( toSend ) );
 		} catch( IOException e ) {
 			setToBeClosed( true );
 			throw e;
 		}
 	}
 
+	/**
+	 * Returns <code>true</code> if this channel may modify the values of the messages it sends, or use
+	 * them after {@link #send(CommMessage) send} has returned, as channels that pass them to other
+	 * services in the same virtual machine do. The default implementation returns <code>true</code>.
+	 * 
+	 * @return <code>true</code> if the messages sent through this channel must own their values
+	 */
+	protected boolean requiresValueCopy() {
+		return true;
+	}
+
+	/**
+	 * Returns the message to pass to {@link #sendImpl(CommMessage) sendImpl} for the passed one: a copy
+	 * of it if it shares its value with its sender and this channel requires a copy.
+	 * 
+	 * @param message the message to send
+	 * @return the message to pass to sendImpl
+	 * @see CommMessage#createSharedRequest(String, String, jolie.runtime.Value)
+	 */
+	protected final CommMessage ownMessage( CommMessage message ) {
+		return message.sharesValue() && requiresValueCopy() ? message.withCopiedValue() : message;
+	}
+
+	private static final int TRANSFER_BUFFER_SIZE = 0x2000; // 8K
+
+	/**
+	 * Writes a region of a file to the peer of this channel, after the data that its protocol has
+	 * written to stream while sending a message. The default implementation copies the region through
+	 * stream, channels that can write files to their peers without copying them in memory override it.
+	 * 
+	 * @param stream the stream that the protocol of this channel is writing the message to
+	 * @param file the file to write
+	 * @param position the position of the region in the file
+	 * @param count the size of the region in bytes
+	 * @throws java.io.IOException in case of some communication error, or if the file ends before the
+	 *         region
+	 */
+	public void transferFile( OutputStream stream, FileChannel file, long position, long count )
+		throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocate( TRANSFER_BUFFER_SIZE );
+		final long end = position + count;
+		while( position < end ) {
+			buffer.clear();
+			buffer.limit( (int) Math.min( buffer.capacity(), end - position ) );
+			final int r = file.read( buffer, position );
+			if( r < 0 ) {
+				throw new EOFException();
+			}
+			stream.write( buffer.array(), 0, r );
+			position += r;
+		}
+	}
+
 	protected abstract CommMessage recvImpl()
 		throws IOException;
 
@@ -269,7 +372,14 @@ public abstract class CommChannel {
 	protected final void close()
 		throws IOException {
 		isOpen = false;
-		closeImpl();
+		try {
+			closeImpl();
+		} finally {
+			final ConnectionPool pool = connectionPool;
+			if( pool != null ) {
+				pool.onClose( this );
+			}
+		}
 	}
 
 	/**
@@ -26,6 +26,7 @@ import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.InterpreterThread;
 import jolie.JolieThread;
+import jolie.VirtualThreads;
 
 /**
  * <code>CommChannelHandler</code> is a <code>JolieThread</code> used by <code>CommCore</code> to
@@ -49,7 +50,7 @@ public class CommChannelHandler extends Thread implements InterpreterThread {
 	 * @return the current <code>CommChannelHandler</code> thread
 	 */
 	public static CommChannelHandler currentThread() {
-		return ((CommChannelHandler) Thread.currentThread());
+		return ((CommChannelHandler) VirtualThreads.currentThread());
 	}
 
 	/**
@@ -22,9 +22,11 @@
 
 package jolie.net;
 
+import jolie.AdmissionController;
 import jolie.Interpreter;
 import jolie.JolieThreadPoolExecutor;
 import jolie.NativeJolieThread;
+import jolie.VirtualThreads;
 import jolie.lang.Constants;
 import jolie.net.ext.CommChannelFactory;
 import jolie.net.ext.CommListenerFactory;
@@ -67,13 +69,18 @@ import java.util.regex.Pattern;
 public class CommCore {
 	private final Map< String, CommListener > listenersMap = new HashMap<>();
 	private final static int CHANNEL_HANDLER_TIMEOUT = 5;
+	private final static long TIMER_TICK = 100; // msecs
+	private final static int TIMER_TICKS = 512;
 	private final ThreadGroup threadGroup;
 
 	private static final Logger LOGGER = Logger.getLogger( "JOLIE" );
 
 	private final int connectionsLimit;
+	private final int connectionsCacheSize;
 	private final Interpreter interpreter;
 	private final ReadWriteLock channelHandlersLock = new ReentrantReadWriteLock( true );
+	private final TimerWheel timerWheel;
+	private final AdmissionController receiveAdmission;
 	private SelectorThread[] selectorThreads;
 
 	/**
@@ -91,20 +98,27 @@ public class CommCore {
 	 * @param interpreter the Interpreter to refer to for this CommCore operations
 	 * @param connectionsLimit if more than zero, specifies an upper bound to the connections handled in
 	 *        parallel.
+	 * @param connectionsCacheSize the default maximum number of idle persistent output connections kept
+	 *        open for each location of an output port.
 	 * @throws java.io.IOException
 	 */
-	public CommCore( Interpreter interpreter, int connectionsLimit /* , int connectionsCacheSize */ )
+	public CommCore( Interpreter interpreter, int connectionsLimit, int connectionsCacheSize )
 		throws IOException {
 		this.interpreter = interpreter;
 		this.connectionsLimit = connectionsLimit;
-		// this.connectionCacheSize = connectionsCacheSize;
+		this.connectionsCacheSize = connectionsCacheSize;
 		this.threadGroup = new ThreadGroup( "CommCore-" + interpreter.hashCode() );
+		this.timerWheel = new TimerWheel( "CommCore-timer-" + interpreter.hashCode(), TIMER_TICK, TIMER_TICKS );
 		/*
 		 * if ( connectionsLimit > 0 ) { executorService = Executors.newFixedThreadPool( connectionsLimit,
 		 * new CommThreadFactory() ); } else { executorService = Executors.newCachedThreadPool( new
 		 * CommThreadFactory() ); }
 		 */
-		executorService = new JolieThreadPoolExecutor( new CommThreadFactory() );
+		executorService = interpreter.usesVirtualThreads()
+			? VirtualThreads.newExecutor( new CommThreadFactory() )
+			: new JolieThreadPoolExecutor( new CommThreadFactory() );
+		receiveAdmission = new AdmissionController( connectionsLimit, interpreter.configuration().admission(),
+			timerWheel, executorService );
 
 		// TODO make socket an extension, too?
 		CommListenerFactory listenerFactory = new SocketListenerFactory( this );
@@ -117,6 +131,24 @@ public class CommCore {
 		return executorService;
 	}
 
+	/**
+	 * Returns the timer wheel used for communication timeouts, e.g., response timeouts.
+	 *
+	 * @return the timer wheel used for communication timeouts
+	 */
+	public TimerWheel timerWheel() {
+		return timerWheel;
+	}
+
+	/**
+	 * Returns the admission controller bounding the number of incoming messages handled in parallel.
+	 *
+	 * @return the admission controller for incoming messages
+	 */
+	public AdmissionController receiveAdmission() {
+		return receiveAdmission;
+	}
+
 	private SelectorThread[] selectorThreads()
 		throws IOException {
 		if( selectorThreads == null ) {
@@ -149,6 +181,16 @@ public class CommCore {
 		return connectionsLimit;
 	}
 
+	/**
+	 * Returns the default maximum number of idle persistent output connections kept open for each
+	 * location of an output port.
+	 * 
+	 * @return the connectionsCacheSize of this CommCore
+	 */
+	public int connectionsCacheSize() {
+		return connectionsCacheSize;
+	}
+
 	public ThreadGroup threadGroup() {
 		return threadGroup;
 	}
@@ -401,6 +443,9 @@ public class CommCore {
 						channel.send( CommMessage.createEmptyResponse( message ) );
 						// channel.release();
 					}
+				} catch( FaultException e ) {
+					// The session could not be started because the service is overloaded
+					channel.send( CommMessage.createFaultResponse( message, e ) );
 				} catch( TypeCheckingException e ) {
 					interpreter.logWarning(
 						"Received message TypeMismatch (input operation " + operation.id() + "): " + e.getMessage() );
@@ -517,7 +562,56 @@ public class CommCore {
 	 * @param port the <code>Port</code> responsible for the message receiving
 	 */
 	public void scheduleReceive( CommChannel channel, InputPort port ) {
-		executorService.execute( new CommChannelHandlerRunnable( channel, port ) );
+		final Runnable handler = new CommChannelHandlerRunnable( channel, port );
+		if( channel.redirectionChannel() != null || !receiveAdmission.isBounded() ) {
+			// Responses to redirected messages are already accounted for by their requests
+			executorService.execute( handler );
+		} else if( !receiveAdmission.admit(
+			() -> executorService.execute( () -> {
+				try {
+					handler.run();
+				} finally {
+					receiveAdmission.release();
+				}
+			} ),
+			() -> rejectReceive( channel ) ) ) {
+			executorService.execute( () -> rejectReceive( channel ) );
+		}
+	}
+
+	/**
+	 * Receives a message that can not be handled because too many messages are already being handled,
+	 * and replies to it with the overload fault.
+	 */
+	private void rejectReceive( CommChannel channel ) {
+		final CommChannelHandler thread = CommChannelHandler.currentThread();
+		thread.setExecutionThread( interpreter.initThread().getNewSessionThread() );
+		channel.lock.lock();
+		try {
+			final CommMessage message = channel.recv();
+			if( message != null ) {
+				interpreter.logWarning( "Rejected a message for operation " + message.operationName()
+					+ ": too many messages are being handled (" + receiveAdmission.running() + " running, "
+					+ receiveAdmission.queueDepth() + " queued)" );
+				channel.send( CommMessage.createFaultResponse( message, new FaultException(
+					interpreter.configuration().admission().overloadFault(), "The service is overloaded" ) ) );
+			}
+			channel.disposeForInput();
+		} catch( ChannelClosingException e ) {
+			interpreter.logFine( e );
+		} catch( IOException e ) {
+			interpreter.logSevere( e );
+			try {
+				channel.closeImpl();
+			} catch( IOException e2 ) {
+				interpreter.logSevere( e2 );
+			}
+		} finally {
+			if( channel.lock.isHeldByCurrentThread() ) {
+				channel.lock.unlock();
+			}
+			thread.setExecutionThread( null );
+		}
 	}
 
 	protected void startCommChannelHandler( Runnable r ) {
@@ -745,7 +839,7 @@ public class CommCore {
 
 		public void register( SelectableStreamingCommChannel channel, int index ) {
 			try {
-				if( channel.inputStream().available() > 0 ) {
+				if( channel.inputStream().available() > 0 || channel.protocol().hasBufferedInput() ) {
 					scheduleReceive( channel, channel.parentInputPort() );
 					return;
 				}
@@ -842,6 +936,7 @@ public class CommCore {
 			} catch( InterruptedException e ) {
 			}
 			threadGroup.interrupt();
+			timerWheel.stop();
 		}
 	}
 
@@ -63,6 +63,8 @@ public class CommMessage implements Serializable {
 	private final String resourcePath;
 	private final Value value;
 	private final FaultException fault;
+	// Whether value is referred to by the sender, see createSharedRequest
+	private final transient boolean sharesValue;
 
 	/**
 	 * Returns the resource path of this message.
@@ -114,6 +116,21 @@ public class CommMessage implements Serializable {
 		return new CommMessage( getNewMessageId(), operationName, resourcePath, Value.createDeepCopy( value ), null );
 	}
 
+	/**
+	 * Creates a request message that refers to the passed value instead of a copy of it, sparing the
+	 * copy when the message is sent by channels that only encode it. The value must not be modified
+	 * until the message has been sent: channels that may keep it or modify it send a copy of the
+	 * message instead (see {@link CommChannel#send(CommMessage)}).
+	 * 
+	 * @param operationName the name of the operation this request is meant for
+	 * @param resourcePath the resource path of this message
+	 * @param value the message data
+	 * @return a request message as per specified by the parameters
+	 */
+	public static CommMessage createSharedRequest( String operationName, String resourcePath, Value value ) {
+		return new CommMessage( getNewMessageId(), operationName, resourcePath, value, null, true );
+	}
+
 	/**
 	 * Creates an empty (i.e. without data) response for the passed request.
 	 * 
@@ -158,11 +175,36 @@ public class CommMessage implements Serializable {
 	 * @param fault the fault to equip the message with
 	 */
 	public CommMessage( long id, String operationName, String resourcePath, Value value, FaultException fault ) {
+		this( id, operationName, resourcePath, value, fault, false );
+	}
+
+	private CommMessage( long id, String operationName, String resourcePath, Value value, FaultException fault,
+		boolean sharesValue ) {
 		this.id = id;
 		this.operationName = operationName;
 		this.resourcePath = resourcePath;
 		this.value = value;
 		this.fault = fault;
+		this.sharesValue = sharesValue;
+	}
+
+	/**
+	 * Returns <code>true</code> if the value of this message is referred to by its sender, as for the
+	 * messages created by {@link #createSharedRequest(String, String, Value) createSharedRequest}.
+	 * 
+	 * @return <code>true</code> if the value of this message is referred to by its sender
+	 */
+	public boolean sharesValue() {
+		return sharesValue;
+	}
+
+	/**
+	 * Returns a copy of this message with its own copy of the value of this message.
+	 * 
+	 * @return a copy of this message that does not share its value
+	 */
+	public CommMessage withCopiedValue() {
+		return new CommMessage( id, operationName, resourcePath, Value.createDeepCopy( value ), fault );
 	}
 
 	/**
@@ -0,0 +1,300 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.net;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jolie.Interpreter;
+import jolie.runtime.TimeoutHandler;
+import jolie.runtime.Value;
+import jolie.util.ExceptionalCallable;
+
+/**
+ * A bounded pool of persistent channels towards a location, all using the same protocol.
+ *
+ * Idle channels are checked before being handed out again, and closed after staying idle for longer
+ * than the idle timeout of the pool (unless that would leave fewer idle channels than the minimum).
+ * When the pool has a maximum size and all its channels are in use, callers wait in arrival order
+ * for a channel to be released, up to a maximum waiting time.
+ */
+public class ConnectionPool {
+	/**
+	 * The configuration of a pool, read from the <code>connectionPool</code> protocol parameter of an
+	 * output port:
+	 * <ul>
+	 * <li><code>maxSize</code>: the maximum number of channels, in use or idle (0 for no bound);</li>
+	 * <li><code>maxIdle</code>: the maximum number of idle channels kept open (defaults to the value of
+	 * the <code>--conncache</code> command line option);</li>
+	 * <li><code>minIdle</code>: the number of idle channels that are never closed for being idle.
+	 * Channels are only opened on demand, so the pool does not open channels to reach it;</li>
+	 * <li><code>idleTimeout</code>: milliseconds after which an idle channel is closed;</li>
+	 * <li><code>maxWait</code>: milliseconds to wait for a channel when the pool is full (defaults to
+	 * the response timeout).</li>
+	 * </ul>
+	 */
+	public static class Settings {
+		public static final String PARAMETER = "connectionPool";
+
+		private final int maxSize;
+		private final int maxIdle;
+		private final int minIdle;
+		private final long idleTimeout;
+		private final long maxWait;
+
+		private Settings( int maxSize, int maxIdle, int minIdle, long idleTimeout, long maxWait ) {
+			this.maxSize = maxSize;
+			this.maxIdle = maxIdle;
+			this.minIdle = minIdle;
+			this.idleTimeout = idleTimeout;
+			this.maxWait = maxWait;
+		}
+
+		/**
+		 * Returns the default settings for the given interpreter.
+		 */
+		public static Settings create( Interpreter interpreter ) {
+			return new Settings(
+				0,
+				interpreter.commCore().connectionsCacheSize(),
+				0,
+				interpreter.persistentConnectionTimeout(),
+				interpreter.responseTimeout() );
+		}
+
+		/**
+		 * Returns the settings in the given <code>connectionPool</code> parameter, using the defaults of
+		 * the given interpreter for missing values.
+		 */
+		public static Settings create( Value parameter, Interpreter interpreter ) {
+			final Settings defaults = create( interpreter );
+			return new Settings(
+				parameter.hasChildren( "maxSize" ) ? parameter.getFirstChild( "maxSize" ).intValue()
+					: defaults.maxSize,
+				parameter.hasChildren( "maxIdle" ) ? parameter.getFirstChild( "maxIdle" ).intValue()
+					: defaults.maxIdle,
+				parameter.hasChildren( "minIdle" ) ? parameter.getFirstChild( "minIdle" ).intValue()
+					: defaults.minIdle,
+				parameter.hasChildren( "idleTimeout" ) ? parameter.getFirstChild( "idleTimeout" ).longValue()
+					: defaults.idleTimeout,
+				parameter.hasChildren( "maxWait" ) ? parameter.getFirstChild( "maxWait" ).longValue()
+					: defaults.maxWait );
+		}
+	}
+
+	private final URI location;
+	private final ReentrantLock lock = new ReentrantLock( true );
+	private final Condition channelReleased = lock.newCondition();
+	private final Deque< CommChannel > idleChannels = new ArrayDeque<>();
+	private final Set< CommChannel > busyChannels = new HashSet<>();
+	private int openingChannels = 0;
+	private volatile Settings settings;
+
+	public ConnectionPool( URI location, Settings settings ) {
+		this.location = location;
+		this.settings = settings;
+	}
+
+	private int size() {
+		return idleChannels.size() + busyChannels.size() + openingChannels;
+	}
+
+	/**
+	 * Returns a channel from this pool, opening a new one with the given opener if no idle channel is
+	 * available and the pool is not full. The channel must be given back with
+	 * {@link #release(CommChannel, Interpreter)} or closed.
+	 *
+	 * @param settings the current settings of the pool
+	 * @param opener opens a new channel
+	 * @return a channel from this pool
+	 * @throws IOException if a new channel could not be opened, or no channel became available in time
+	 */
+	public CommChannel acquire( Settings settings, ExceptionalCallable< CommChannel, IOException > opener )
+		throws IOException {
+		this.settings = settings;
+		final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos( settings.maxWait );
+		while( true ) {
+			CommChannel channel = null;
+			lock.lock();
+			try {
+				while( channel == null ) {
+					channel = idleChannels.pollFirst();
+					if( channel != null ) {
+						busyChannels.add( channel );
+						// Make sure the channel will not time out while in use
+						channel.setTimeoutHandler( null );
+					} else if( settings.maxSize <= 0 || size() < settings.maxSize ) {
+						openingChannels++;
+						break;
+					} else {
+						final long remaining = deadline - System.nanoTime();
+						if( remaining <= 0 ) {
+							throw new IOException( "Timed out waiting for a connection to " + location
+								+ " (all " + settings.maxSize + " connections are in use)" );
+						}
+						channelReleased.awaitNanos( remaining );
+					}
+				}
+			} catch( InterruptedException e ) {
+				throw new IOException( e );
+			} finally {
+				lock.unlock();
+			}
+
+			if( channel == null ) {
+				return open( opener );
+			} else if( checkHealth( channel ) ) {
+				return channel;
+			}
+		}
+	}
+
+	private CommChannel open( ExceptionalCallable< CommChannel, IOException > opener )
+		throws IOException {
+		CommChannel channel = null;
+		try {
+			channel = opener.call();
+			return channel;
+		} finally {
+			lock.lock();
+			try {
+				openingChannels--;
+				if( channel == null || channel.isMultiplexed() ) {
+					// Multiplexed channels are tracked by the ChannelCache
+					channelReleased.signal();
+				} else {
+					busyChannels.add( channel );
+					channel.setConnectionPool( this );
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Checks that an idle channel can be used again, discarding it otherwise. Idle channels are not in
+	 * use, but the thread that released a channel may still be holding its lock for a little while.
+	 */
+	private boolean checkHealth( CommChannel channel ) {
+		channel.lock.lock();
+		try {
+			if( channel.isOpen() ) {
+				return true;
+			}
+			discard( channel );
+			channel.close();
+		} catch( IOException e ) {
+			// The channel was broken anyway
+		} finally {
+			channel.lock.unlock();
+		}
+		return false;
+	}
+
+	private void discard( CommChannel channel ) {
+		lock.lock();
+		try {
+			if( busyChannels.remove( channel ) || idleChannels.remove( channel ) ) {
+				channelReleased.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gives a channel back to this pool. The channel is kept open for reuse if the pool has room for
+	 * another idle channel, and closed otherwise.
+	 *
+	 * @param channel the channel to give back
+	 * @param interpreter the interpreter handling the idle timeout of the channel
+	 * @throws IOException if the channel had to be closed, and closing it failed
+	 */
+	public void release( CommChannel channel, Interpreter interpreter )
+		throws IOException {
+		final Settings settings = this.settings;
+		boolean keep = false;
+		lock.lock();
+		try {
+			final boolean wasBusy = busyChannels.remove( channel );
+			if( !idleChannels.contains( channel ) ) {
+				keep = idleChannels.size() < settings.maxIdle
+					&& (wasBusy || settings.maxSize <= 0 || size() < settings.maxSize);
+				if( keep ) {
+					idleChannels.addFirst( channel );
+					channel.setConnectionPool( this );
+					setTimeoutHandler( channel, settings, interpreter );
+				}
+			} else {
+				keep = true;
+			}
+			channelReleased.signal();
+		} finally {
+			lock.unlock();
+		}
+
+		if( !keep ) {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Called when a channel of this pool is closed.
+	 */
+	void onClose( CommChannel channel ) {
+		discard( channel );
+	}
+
+	private void setTimeoutHandler( final CommChannel channel, final Settings settings,
+		final Interpreter interpreter ) {
+		final TimeoutHandler handler = new TimeoutHandler( settings.idleTimeout ) {
+			@Override
+			public void onTimeout() {
+				boolean evict = false;
+				lock.lock();
+				try {
+					if( channel.timeoutHandler() == this ) {
+						channel.setTimeoutHandler( null );
+						evict = idleChannels.size() > settings.minIdle && idleChannels.remove( channel );
+					}
+				} finally {
+					lock.unlock();
+				}
+				if( evict ) {
+					try {
+						channel.close();
+					} catch( IOException e ) {
+						interpreter.logSevere( e );
+					}
+				}
+			}
+		};
+		channel.setTimeoutHandler( handler );
+		interpreter.addTimeoutHandler( handler );
+	}
+}
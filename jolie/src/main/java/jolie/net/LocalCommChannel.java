@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 import jolie.Interpreter;
 
@@ -31,7 +32,7 @@ import jolie.Interpreter;
  * An in-memory channel that can be used to communicate directly with a specific
  * <code>Interpreter</code> instance.
  */
-public class LocalCommChannel extends CommChannel implements PollableCommChannel {
+public class LocalCommChannel extends CommChannel {
 	private static class CoLocalCommChannel extends CommChannel {
 		private CommMessage request;
 		private final long requestId;
@@ -81,6 +82,8 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 	private final Interpreter interpreter;
 	private final CommListener listener;
 	private final Map< Long, CompletableFuture< CommMessage > > responseWaiters = new ConcurrentHashMap<>();
+	// The CommCore waiting for input on this channel, if any (see disposeForInputImpl)
+	private final AtomicReference< CommCore > inputWaiter = new AtomicReference<>();
 
 	public LocalCommChannel( Interpreter interpreter, CommListener listener ) {
 		this.interpreter = interpreter;
@@ -104,8 +107,9 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 
 	@Override
 	protected void sendImpl( CommMessage message ) {
-		CompletableFuture f = new CompletableFuture<>();
+		CompletableFuture< CommMessage > f = new CompletableFuture<>();
 		responseWaiters.put( message.id(), f );
+		f.whenComplete( ( response, exception ) -> scheduleReceive() );
 		interpreter.commCore().scheduleReceive( new CoLocalCommChannel( message, f ), listener.inputPort() );
 	}
 
@@ -115,15 +119,36 @@ public class LocalCommChannel extends CommChannel implements PollableCommChannel
 		return responseWaiters.remove( request.id() );
 	}
 
-	@Override
+	/**
+	 * Returns <code>true</code> if some responses to the requests sent on this channel have not been
+	 * received yet.
+	 */
 	public boolean isReady() {
 		return responseWaiters.isEmpty() == false;
 	}
 
+	/**
+	 * Schedules the receiving of a response on this channel as soon as one of the pending requests is
+	 * completed, instead of polling for it.
+	 */
 	@Override
 	protected void disposeForInputImpl()
 		throws IOException {
-		Interpreter.getInstance().commCore().registerForPolling( this );
+		inputWaiter.set( Interpreter.getInstance().commCore() );
+		// A request completed before the waiter was set did not schedule the receiving
+		for( CompletableFuture< CommMessage > f : responseWaiters.values() ) {
+			if( f.isDone() ) {
+				scheduleReceive();
+				break;
+			}
+		}
+	}
+
+	private void scheduleReceive() {
+		final CommCore commCore = inputWaiter.getAndSet( null );
+		if( commCore != null ) {
+			commCore.scheduleReceive( this, parentInputPort() );
+		}
 	}
 
 	@Override
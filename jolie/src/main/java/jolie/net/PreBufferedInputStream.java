@@ -23,21 +23,107 @@
 
 package jolie.net;
 
-import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 
-public class PreBufferedInputStream extends BufferedInputStream {
+/**
+ * A buffered input stream whose buffer can be filled in advance, e.g., with the data read by a
+ * selector.
+ *
+ * Unlike {@link java.io.BufferedInputStream}, this stream does not synchronize its operations: a
+ * channel is read by one thread at a time, and blocking on a monitor while reading would pin
+ * virtual threads to their carrier threads.
+ */
+public class PreBufferedInputStream extends InputStream {
+	private final static int DEFAULT_BUFFER_SIZE = 8192;
 	private final static int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
 
+	private final InputStream in;
+	private byte[] buf = new byte[ DEFAULT_BUFFER_SIZE ];
+	private int pos = 0;
+	private int count = 0;
+
 	public PreBufferedInputStream( InputStream istream ) {
-		super( istream );
+		this.in = istream;
 	}
 
 	public boolean hasCachedData() {
 		return pos < count;
 	}
 
+	private boolean fill()
+		throws IOException {
+		pos = 0;
+		count = 0;
+		final int n = in.read( buf, 0, buf.length );
+		if( n > 0 ) {
+			count = n;
+		}
+		return n > 0;
+	}
+
+	@Override
+	public int read()
+		throws IOException {
+		if( pos >= count && !fill() ) {
+			return -1;
+		}
+		return buf[ pos++ ] & 0xff;
+	}
+
+	@Override
+	public int read( byte[] b, int off, int len )
+		throws IOException {
+		if( len == 0 ) {
+			return 0;
+		}
+		int available = count - pos;
+		if( available <= 0 ) {
+			if( len >= buf.length ) {
+				// Large reads bypass the buffer
+				return in.read( b, off, len );
+			}
+			if( !fill() ) {
+				return -1;
+			}
+			available = count;
+		}
+		final int n = Math.min( available, len );
+		System.arraycopy( buf, pos, b, off, n );
+		pos += n;
+		return n;
+	}
+
+	@Override
+	public long skip( long n )
+		throws IOException {
+		if( n <= 0 ) {
+			return 0;
+		}
+		final int available = count - pos;
+		if( available <= 0 ) {
+			return in.skip( n );
+		}
+		final int skipped = (int) Math.min( available, n );
+		pos += skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available()
+		throws IOException {
+		final int available = count - pos;
+		final int inAvailable = in.available();
+		return available > Integer.MAX_VALUE - inAvailable ? Integer.MAX_VALUE : available + inAvailable;
+	}
+
+	@Override
+	public void close()
+		throws IOException {
+		in.close();
+	}
+
 	public void append( ByteBuffer b ) {
 		final int bufferSize = b.remaining();
 		enlargeIfNecessary( bufferSize );
@@ -72,7 +72,8 @@ public abstract class SelectableStreamingCommChannel extends StreamingCommChanne
 	@Override
 	public final void send( CommMessage message )
 		throws IOException {
-		Helpers.lockAndThen( lock, () -> _send( message ) );
+		final CommMessage toSend = ownMessage( message );
+		Helpers.lockAndThen( lock, () -> _send( toSend ) );
 	}
 
 	private void _send( CommMessage message )
@@ -23,12 +23,14 @@
 package jolie.net;
 
 import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.channels.IllegalBlockingModeException;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SocketChannel;
@@ -46,7 +48,7 @@ import jolie.util.Helpers;
 public class SocketCommChannel extends SelectableStreamingCommChannel {
 	private final SocketChannel socketChannel;
 	private final PreBufferedInputStream istream;
-	private final OutputStream ostream;
+	private volatile OutputStream ostream;
 
 	private static final int SO_LINGER = 10000;
 
@@ -72,6 +74,44 @@ public class SocketCommChannel extends SelectableStreamingCommChannel {
 		setToBeClosed( false ); // Socket connections are kept open by default
 	}
 
+	/**
+	 * An OutputStream writing directly to a blocking SocketChannel. Unlike the streams returned by
+	 * {@link Channels#newOutputStream(java.nio.channels.WritableByteChannel)}, it does not synchronise
+	 * on the blocking lock of the channel, which is held by readers for the whole duration of a read.
+	 */
+	private static class SocketChannelOutputStream extends OutputStream {
+		private final SocketChannel socketChannel;
+
+		private SocketChannelOutputStream( SocketChannel socketChannel ) {
+			this.socketChannel = socketChannel;
+		}
+
+		@Override
+		public void write( int b )
+			throws IOException {
+			write( new byte[] { (byte) b }, 0, 1 );
+		}
+
+		@Override
+		public void write( byte[] b, int off, int len )
+			throws IOException {
+			if( !socketChannel.isBlocking() ) {
+				throw new IllegalBlockingModeException();
+			}
+			final ByteBuffer buffer = ByteBuffer.wrap( b, off, len );
+			while( buffer.hasRemaining() ) {
+				socketChannel.write( buffer );
+			}
+		}
+	}
+
+	@Override
+	protected void setMultiplexed() {
+		super.setMultiplexed();
+		// The response receiver keeps reading, so writes must not wait for it.
+		ostream = new BufferedOutputStream( new SocketChannelOutputStream( socketChannel ) );
+	}
+
 	/**
 	 * Returns the SocketChannel underlying this SocketCommChannel
 	 * 
@@ -122,6 +162,34 @@ public class SocketCommChannel extends SelectableStreamingCommChannel {
 		}
 	}
 
+	/**
+	 * Writes the region of the file with
+	 * {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel) transferTo},
+	 * which lets the operating system send it (e.g., with sendfile) without copying it in memory.
+	 */
+	@Override
+	public void transferFile( OutputStream stream, FileChannel file, long position, long count )
+		throws IOException {
+		if( stream != ostream || isMultiplexed() ) {
+			// Multiplexed channels are read concurrently, and transferTo would wait for reads to finish
+			super.transferFile( stream, file, position, count );
+			return;
+		}
+		ostream.flush();
+		final long end = position + count;
+		try {
+			while( position < end ) {
+				final long n = file.transferTo( position, end - position, socketChannel );
+				if( n == 0 && position >= file.size() ) {
+					throw new EOFException();
+				}
+				position += n;
+			}
+		} catch( IllegalBlockingModeException e ) {
+			throw new IOException( e );
+		}
+	}
+
 	@Override
 	protected void closeImpl()
 		throws IOException {
@@ -172,6 +240,10 @@ public class SocketCommChannel extends SelectableStreamingCommChannel {
 		if( socketChannel.isConnected() == false || socketChannel.isOpen() == false ) {
 			return false;
 		}
+		if( isMultiplexed() ) {
+			// The response receiver is always reading, and closes the channel when the connection drops.
+			return true;
+		}
 
 		final boolean ret;
 		try {
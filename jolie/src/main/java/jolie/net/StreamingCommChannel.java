@@ -53,13 +53,27 @@ public abstract class StreamingCommChannel extends AbstractCommChannel {
 		return protocol.isThreadSafe();
 	}
 
+	@Override
+	protected boolean requiresValueCopy() {
+		return protocol.requiresValueCopy();
+	}
+
+	@Override
+	protected int maxInFlightRequests() {
+		return protocol.isThreadSafe() ? protocol.maxInFlightRequests() : 1;
+	}
+
 	@Override
 	protected void releaseImpl()
 		throws IOException {
 		Helpers.lockAndThen( lock,
 			() -> {
 				if( parentPort() instanceof OutputPort ) {
-					((OutputPort) parentPort()).putPersistentChannel( location, protocol.name(), this );
+					if( isMultiplexed() ) {
+						((OutputPort) parentPort()).releaseMultiplexedChannel( location, protocol.name(), this );
+					} else {
+						((OutputPort) parentPort()).putPersistentChannel( location, protocol.name(), this );
+					}
 				}
 			} );
 	}
@@ -33,6 +33,7 @@ import jolie.lang.Constants;
 import jolie.net.ChannelCache;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
+import jolie.net.ConnectionPool;
 import jolie.net.protocols.CommProtocol;
 import jolie.process.AssignmentProcess;
 import jolie.process.DeepCopyProcess;
@@ -61,6 +62,7 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 	private final boolean isConstant;
 	private final Interface iface;
 	private final ChannelCache channelCache = new ChannelCache();
+	private ConnectionPool.Settings defaultConnectionPoolSettings = null;
 
 	/*
 	 * To be called at runtime, after main is run. Requires the caller to set the variables by itself.
@@ -227,10 +229,8 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 			} else {
 				// Try reusing an existing channel first
 				String protocol = protocolVariablePath.getValue().strValue();
-				ret = channelCache.getPersistentChannel( uri, protocol );
-				if( ret == null ) {
-					ret = interpreter.commCore().createCommChannel( uri, this );
-				}
+				ret = channelCache.getChannel( uri, protocol, connectionPoolSettings(),
+					() -> interpreter.commCore().createCommChannel( uri, this ) );
 			}
 		}
 
@@ -238,10 +238,27 @@ public class OutputPort extends AbstractIdentifiableObject implements Port {
 		return ret;
 	}
 
-	public void putPersistentChannel( URI location, String protocol, CommChannel channel ) {
+	private ConnectionPool.Settings connectionPoolSettings() {
+		final Value protocolConfiguration = protocolVariablePath.getValue();
+		if( protocolConfiguration.hasChildren( ConnectionPool.Settings.PARAMETER ) ) {
+			return ConnectionPool.Settings.create(
+				protocolConfiguration.getFirstChild( ConnectionPool.Settings.PARAMETER ), interpreter );
+		}
+		if( defaultConnectionPoolSettings == null ) {
+			defaultConnectionPoolSettings = ConnectionPool.Settings.create( interpreter );
+		}
+		return defaultConnectionPoolSettings;
+	}
+
+	public void putPersistentChannel( URI location, String protocol, CommChannel channel )
+		throws IOException {
 		channelCache.putPersistentChannel( location, protocol, channel, interpreter );
 	}
 
+	public void releaseMultiplexedChannel( URI location, String protocol, CommChannel channel ) {
+		channelCache.releaseMultiplexedChannel( location, protocol, channel, interpreter );
+	}
+
 	private static class LazyLocalUriHolder {
 		private LazyLocalUriHolder() {}
 
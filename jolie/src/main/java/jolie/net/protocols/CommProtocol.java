@@ -227,4 +227,52 @@ public abstract class CommProtocol {
 		throws IOException;
 
 	abstract public boolean isThreadSafe();
+
+	/**
+	 * Returns <code>true</code> if this protocol may modify the values of the messages it sends, or
+	 * keep references to them after {@link #send(OutputStream, CommMessage, InputStream) send} has
+	 * returned. Protocols that only encode messages can return <code>false</code>, so that messages are
+	 * sent without copying their values first. The default implementation returns <code>true</code>.
+	 *
+	 * @return <code>true</code> if the messages sent with this protocol must own their values
+	 */
+	public boolean requiresValueCopy() {
+		return true;
+	}
+
+	/**
+	 * Returns how many requests may be in flight at the same time on a channel using this protocol.
+	 * Values greater than 1 allow concurrent requests to share the same channel, and require the
+	 * protocol to match responses to requests by message id. Only thread-safe protocols are
+	 * multiplexed.
+	 *
+	 * @return the maximum number of requests in flight on a channel using this protocol
+	 */
+	public int maxInFlightRequests() {
+		return 1;
+	}
+
+	/**
+	 * Returns <code>true</code> if this protocol has already read input that has not been returned by
+	 * {@link #recv(InputStream, OutputStream) recv} yet, e.g., messages received on a multiplexed
+	 * connection while waiting for something else. Channels with buffered input are scheduled for
+	 * receiving without waiting for the underlying connection to be readable. The default
+	 * implementation returns <code>false</code>.
+	 *
+	 * @return <code>true</code> if there is input buffered by this protocol
+	 */
+	public boolean hasBufferedInput() {
+		return false;
+	}
+
+	/**
+	 * Returns the identifier of the application protocol implemented by this protocol, as negotiated by
+	 * TLS with ALPN (e.g., "h2"), or <code>null</code> if the protocol does not need to be negotiated.
+	 * The default implementation returns <code>null</code>.
+	 *
+	 * @return the ALPN identifier of this protocol, or <code>null</code>
+	 */
+	public String applicationProtocol() {
+		return null;
+	}
 }
@@ -47,6 +47,10 @@ public class LinkInProcess implements Process {
 					if( message == null && !Interpreter.getInstance().exiting() ) {
 						ExecutionThread ethread = ExecutionThread.currentThread();
 						ethread.setCanBeInterrupted( true );
+						if( ethread.isKilled() ) {
+							// The fault was signalled before interruptions were enabled
+							throw new InterruptedException();
+						}
 						this.wait();
 						ethread.setCanBeInterrupted( false );
 					}
@@ -90,8 +90,9 @@ public class NotificationProcess implements Process {
 		try {
 			CommMessage message =
 				(outputExpression == null)
-					? CommMessage.createRequest( operationId, outputPort.getResourcePath(), Value.UNDEFINED_VALUE )
-					: CommMessage.createRequest( operationId, outputPort.getResourcePath(),
+					? CommMessage.createSharedRequest( operationId, outputPort.getResourcePath(),
+						Value.UNDEFINED_VALUE )
+					: CommMessage.createSharedRequest( operationId, outputPort.getResourcePath(),
 						outputExpression.evaluate() );
 			if( oneWayDescription != null ) {
 				try {
@@ -103,7 +103,7 @@ public class SolicitResponseProcess implements Process {
 		try {
 
 			CommMessage message =
-				CommMessage.createRequest(
+				CommMessage.createSharedRequest(
 					operationId,
 					outputPort.getResourcePath(),
 					(outputExpression == null) ? Value.UNDEFINED_VALUE : outputExpression.evaluate() );
@@ -149,7 +149,9 @@ public class SolicitResponseProcess implements Process {
 				} catch( InterruptedException e ) {
 					throw new IOException( e );
 				} catch( ExecutionException e ) {
-					if( e.getCause() instanceof IOException ) {
+					if( e.getCause() instanceof TimeoutException ) {
+						throw (TimeoutException) e.getCause();
+					} else if( e.getCause() instanceof IOException ) {
 						throw (IOException) e.getCause();
 					} else {
 						throw new IOException( e.getCause() );
@@ -27,6 +27,9 @@ import jolie.runtime.FaultException;
 import jolie.runtime.expression.Expression;
 
 public class WhileProcess implements Process {
+	// Virtual threads are not preempted: loops running on them give way to other threads periodically.
+	private static final int YIELD_MASK = 0xFF;
+
 	private final Expression condition;
 	private final Process process;
 
@@ -43,14 +46,20 @@ public class WhileProcess implements Process {
 
 	public void run()
 		throws FaultException, ExitingException {
-		if( ExecutionThread.currentThread().isKilled() ) {
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		if( ethread.isKilled() ) {
 			return;
 		}
+		final boolean yield = ethread.interpreter().usesVirtualThreads();
+		int iterations = 0;
 		while( condition.evaluate().boolValue() ) {
 			process.run();
-			if( ExecutionThread.currentThread().isKilled() ) {
+			if( ethread.isKilled() ) {
 				return;
 			}
+			if( yield && (++iterations & YIELD_MASK) == 0 ) {
+				Thread.yield();
+			}
 		}
 	}
 
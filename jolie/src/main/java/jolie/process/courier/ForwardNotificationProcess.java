@@ -102,7 +102,7 @@ public class ForwardNotificationProcess implements Process {
 			}
 			aggregatedTypeDescription.requestType().check( messageValue );
 			CommMessage message =
-				CommMessage.createRequest( operationName, outputPort.getResourcePath(), messageValue );
+				CommMessage.createSharedRequest( operationName, outputPort.getResourcePath(), messageValue );
 
 			channel = outputPort.getCommChannel();
 
@@ -106,7 +106,7 @@ public class ForwardSolicitResponseProcess implements Process {
 			}
 			aggregatedTypeDescription.requestType().check( messageValue );
 			CommMessage message =
-				CommMessage.createRequest( operationName, outputPort.getResourcePath(), messageValue );
+				CommMessage.createSharedRequest( operationName, outputPort.getResourcePath(), messageValue );
 
 			channel = outputPort.getCommChannel();
 
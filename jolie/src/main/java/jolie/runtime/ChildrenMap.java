@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.runtime;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The children of a {@link Value}, indexed by name.
+ *
+ * Most values have only a few children, so they are kept in a small array of alternating names and
+ * vectors, which is replaced (copy-on-write) at every update. Reads never block and never allocate.
+ * When the number of children grows past {@link #MAX_INLINE}, the map switches to a
+ * {@link ConcurrentHashMap}. Iterators are weakly consistent, as those of
+ * {@link ConcurrentHashMap}.
+ *
+ * The iteration order depends on the representation: children are iterated in the order they were
+ * added while they are in the array, and in the order of the {@link ConcurrentHashMap} afterwards.
+ * Values used to keep all their children in a {@link ConcurrentHashMap}, so the children of small
+ * values are now visited (e.g., by the deep copies and the encoders of the protocols) in a
+ * different order than before. The order has never been specified, and should not be relied upon.
+ */
+final class ChildrenMap extends AbstractMap< String, ValueVector > implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private static final int MAX_INLINE = 8;
+	private static final Object[] EMPTY = new Object[ 0 ];
+
+	private static final AtomicReferenceFieldUpdater< ChildrenMap, Object > STATE =
+		AtomicReferenceFieldUpdater.newUpdater( ChildrenMap.class, Object.class, "state" );
+
+	// Either an Object[] of alternating names and vectors, or a ConcurrentHashMap
+	private volatile Object state = EMPTY;
+
+	@SuppressWarnings( "unchecked" )
+	private static Map< String, ValueVector > asMap( Object state ) {
+		return (Map< String, ValueVector >) state;
+	}
+
+	private static int indexOf( Object[] table, Object key ) {
+		for( int i = 0; i < table.length; i += 2 ) {
+			if( table[ i ] == key || table[ i ].equals( key ) ) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public ValueVector get( Object key ) {
+		final Object s = state;
+		if( s instanceof Object[] ) {
+			final Object[] table = (Object[]) s;
+			final int i = indexOf( table, key );
+			return i < 0 ? null : (ValueVector) table[ i + 1 ];
+		}
+		return asMap( s ).get( key );
+	}
+
+	@Override
+	public boolean containsKey( Object key ) {
+		return get( key ) != null;
+	}
+
+	@Override
+	public int size() {
+		final Object s = state;
+		return s instanceof Object[] ? ((Object[]) s).length / 2 : asMap( s ).size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		final Object s = state;
+		return s instanceof Object[] ? ((Object[]) s).length == 0 : asMap( s ).isEmpty();
+	}
+
+	@Override
+	public ValueVector put( String key, ValueVector value ) {
+		return put( key, value, false );
+	}
+
+	@Override
+	public ValueVector putIfAbsent( String key, ValueVector value ) {
+		return put( key, value, true );
+	}
+
+	private ValueVector put( String key, ValueVector value, boolean onlyIfAbsent ) {
+		Objects.requireNonNull( key );
+		Objects.requireNonNull( value );
+		while( true ) {
+			final Object s = state;
+			if( !(s instanceof Object[]) ) {
+				return onlyIfAbsent ? asMap( s ).putIfAbsent( key, value ) : asMap( s ).put( key, value );
+			}
+			final Object[] table = (Object[]) s;
+			final int i = indexOf( table, key );
+			final Object next;
+			if( i >= 0 ) {
+				if( onlyIfAbsent || table[ i + 1 ] == value ) {
+					return (ValueVector) table[ i + 1 ];
+				}
+				final Object[] copy = table.clone();
+				copy[ i + 1 ] = value;
+				next = copy;
+			} else if( table.length < MAX_INLINE * 2 ) {
+				final Object[] copy = new Object[ table.length + 2 ];
+				System.arraycopy( table, 0, copy, 0, table.length );
+				copy[ table.length ] = key;
+				copy[ table.length + 1 ] = value;
+				next = copy;
+			} else {
+				final Map< String, ValueVector > map = new ConcurrentHashMap<>( MAX_INLINE * 4 );
+				for( int k = 0; k < table.length; k += 2 ) {
+					map.put( (String) table[ k ], (ValueVector) table[ k + 1 ] );
+				}
+				map.put( key, value );
+				next = map;
+			}
+			if( STATE.compareAndSet( this, s, next ) ) {
+				return i >= 0 ? (ValueVector) table[ i + 1 ] : null;
+			}
+		}
+	}
+
+	@Override
+	public ValueVector computeIfAbsent( String key,
+		Function< ? super String, ? extends ValueVector > mappingFunction ) {
+		final Object s = state;
+		if( !(s instanceof Object[]) ) {
+			return asMap( s ).computeIfAbsent( key, mappingFunction );
+		}
+		final ValueVector current = get( key );
+		if( current != null ) {
+			return current;
+		}
+		final ValueVector value = mappingFunction.apply( key );
+		if( value == null ) {
+			return null;
+		}
+		final ValueVector previous = put( key, value, true );
+		return previous == null ? value : previous;
+	}
+
+	@Override
+	public ValueVector remove( Object key ) {
+		while( true ) {
+			final Object s = state;
+			if( !(s instanceof Object[]) ) {
+				return asMap( s ).remove( key );
+			}
+			final Object[] table = (Object[]) s;
+			final int i = indexOf( table, key );
+			if( i < 0 ) {
+				return null;
+			}
+			final Object[] copy = new Object[ table.length - 2 ];
+			System.arraycopy( table, 0, copy, 0, i );
+			System.arraycopy( table, i + 2, copy, i, table.length - i - 2 );
+			if( STATE.compareAndSet( this, s, copy ) ) {
+				return (ValueVector) table[ i + 1 ];
+			}
+		}
+	}
+
+	@Override
+	public void clear() {
+		state = EMPTY;
+	}
+
+	@Override
+	public void forEach( BiConsumer< ? super String, ? super ValueVector > action ) {
+		final Object s = state;
+		if( s instanceof Object[] ) {
+			final Object[] table = (Object[]) s;
+			for( int i = 0; i < table.length; i += 2 ) {
+				action.accept( (String) table[ i ], (ValueVector) table[ i + 1 ] );
+			}
+		} else {
+			asMap( s ).forEach( action );
+		}
+	}
+
+	@Override
+	public Set< Entry< String, ValueVector > > entrySet() {
+		return new AbstractSet< Entry< String, ValueVector > >() {
+			@Override
+			public Iterator< Entry< String, ValueVector > > iterator() {
+				final Object s = state;
+				return s instanceof Object[] ? new TableIterator( (Object[]) s ) : asMap( s ).entrySet().iterator();
+			}
+
+			@Override
+			public int size() {
+				return ChildrenMap.this.size();
+			}
+		};
+	}
+
+	private static class WriteThroughEntry extends SimpleEntry< String, ValueVector > {
+		private static final long serialVersionUID = 1L;
+		private final ChildrenMap map;
+
+		private WriteThroughEntry( ChildrenMap map, String key, ValueVector value ) {
+			super( key, value );
+			this.map = map;
+		}
+
+		@Override
+		public ValueVector setValue( ValueVector value ) {
+			map.put( getKey(), value );
+			return super.setValue( value );
+		}
+	}
+
+	private class TableIterator implements Iterator< Entry< String, ValueVector > > {
+		private final Object[] table;
+		private int index = 0;
+		private String lastKey = null;
+
+		private TableIterator( Object[] table ) {
+			this.table = table;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < table.length;
+		}
+
+		@Override
+		public Entry< String, ValueVector > next() {
+			if( index >= table.length ) {
+				throw new NoSuchElementException();
+			}
+			lastKey = (String) table[ index ];
+			final Entry< String, ValueVector > entry =
+				new WriteThroughEntry( ChildrenMap.this, lastKey, (ValueVector) table[ index + 1 ] );
+			index += 2;
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			if( lastKey == null ) {
+				throw new IllegalStateException();
+			}
+			ChildrenMap.this.remove( lastKey );
+			lastKey = null;
+		}
+	}
+}
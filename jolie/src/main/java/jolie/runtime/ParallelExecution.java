@@ -22,13 +22,29 @@
 package jolie.runtime;
 
 
-import java.util.Collection;
-import java.util.HashSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import jolie.ExecutionThread;
+import jolie.JolieExecutorThread;
 import jolie.TransparentExecutionThread;
 import jolie.process.Process;
 
+/**
+ * Executes the branches of a parallel composition.
+ *
+ * The current thread claims the branches in order and runs them itself, and then waits for the
+ * branches claimed by others. Since a branch may block, whoever is about to run a branch first
+ * makes sure that a helper is pending on the executor of the interpreter while unclaimed branches
+ * remain. A helper claims the next branch in the same way, so branches that complete quickly cost a
+ * single fork, and branches that block get a thread each. Each branch is claimed exactly once.
+ *
+ * The first fault thrown by a branch kills the other branches, and is rethrown when all branches
+ * have terminated. Killing the current thread kills all the branches. Unchecked exceptions and
+ * errors thrown by a branch are rethrown as well, wherever the branch has been run.
+ */
 public class ParallelExecution {
 	private class ParallelThread extends TransparentExecutionThread {
 		public ParallelThread( Process process ) {
@@ -37,103 +53,124 @@ public class ParallelExecution {
 
 		@Override
 		public void runProcess() {
+			execute();
+		}
+
+		private void execute() {
 			try {
 				try {
 					process().run();
-					terminationNotify( this );
 				} catch( FaultException.RuntimeFaultException rf ) {
 					throw rf.faultException();
 				}
 			} catch( FaultException f ) {
-				signalFault( this, f );
+				signalFault( f );
 			} catch( ExitingException f ) {
-				terminationNotify( this );
+			} catch( RuntimeException | Error e ) {
+				// Rethrown by run, since nobody would see it on the thread of this branch
+				failure.compareAndSet( null, e );
+			} finally {
+				terminationNotify();
 			}
 		}
 	}
 
-	final private Collection< ParallelThread > threads = new HashSet<>();
-	private FaultException fault = null;
-	private boolean isKilled = false;
+	private final ParallelThread[] threads;
+	private final AtomicInteger runningThreads;
+	private final AtomicInteger nextBranch = new AtomicInteger( 0 );
+	private final AtomicBoolean helperPending = new AtomicBoolean( false );
+	private final CompletableFuture< Void > termination = new CompletableFuture<>();
+	private final CompletableFuture< Void > killed = new CompletableFuture<>();
+	private final AtomicReference< FaultException > fault = new AtomicReference<>();
+	private final AtomicReference< Throwable > failure = new AtomicReference<>();
+	private volatile boolean isKilled = false;
 
 	public ParallelExecution( Process[] procs ) {
-		for( Process proc : procs ) {
-			threads.add( new ParallelThread( proc ) );
+		threads = new ParallelThread[ procs.length ];
+		for( int i = 0; i < procs.length; i++ ) {
+			threads[ i ] = new ParallelThread( procs[ i ] );
 		}
+		runningThreads = new AtomicInteger( procs.length );
 	}
 
 	public void run()
 		throws FaultException {
-		synchronized( this ) {
-			for( ParallelThread t : threads ) {
-				t.start();
-			}
+		if( threads.length == 0 ) {
+			return;
+		}
 
-			ExecutionThread ethread;
-			while( fault == null && !threads.isEmpty() ) {
-				ethread = ExecutionThread.currentThread();
-				try {
-					ethread.setCanBeInterrupted( true );
-					wait();
-					ethread.setCanBeInterrupted( false );
-				} catch( InterruptedException e ) {
-					synchronized( this ) {
-						if( ethread.isKilled() && !threads.isEmpty() ) {
-							isKilled = true;
-							for( ParallelThread t : threads ) {
-								t.kill( ethread.killerFault() );
-							}
-							try {
-								wait();
-							} catch( InterruptedException ie ) {
-							}
-						}
-					}
-				}
+		final ExecutionThread ethread = ExecutionThread.currentThread();
+		killed.whenComplete( ( v, cancellation ) -> {
+			if( cancellation != null ) {
+				isKilled = true;
+				// Kill the branches from another thread, since ethread is locked while it cancels killed
+				ethread.interpreter().execute( () -> killAll( ethread.killerFault() ) );
 			}
-
-			if( fault != null ) {
-				for( ParallelThread t : threads ) {
-					t.kill( fault );
-				}
-				while( !threads.isEmpty() ) {
-					try {
-						wait();
-					} catch( InterruptedException e ) {
-					}
-				}
-				throw fault;
+		} );
+		ethread.cancelIfKilled( killed );
+
+		// Branches can be run inline only by threads that can refer to their execution thread
+		if( JolieExecutorThread.currentThread() != null ) {
+			ParallelThread t;
+			while( (t = claimNext()) != null ) {
+				forkHelper();
+				t.runInline( t::execute );
 			}
+		} else {
+			forkHelper();
+		}
+
+		termination.join();
+		killed.complete( null );
+
+		final Throwable t = failure.get();
+		if( t instanceof RuntimeException ) {
+			throw (RuntimeException) t;
+		} else if( t instanceof Error ) {
+			throw (Error) t;
+		}
+		if( fault.get() != null ) {
+			throw fault.get();
 		}
 	}
 
-	private void terminationNotify( ParallelThread thread ) {
-		synchronized( this ) {
-			threads.remove( thread );
+	private ParallelThread claimNext() {
+		final int i = nextBranch.getAndIncrement();
+		return i < threads.length ? threads[ i ] : null;
+	}
 
-			if( threads.isEmpty() ) {
-				notify();
-			}
+	private void forkHelper() {
+		if( nextBranch.get() < threads.length && helperPending.compareAndSet( false, true ) ) {
+			threads[ 0 ].interpreter().runJolieThread( this::help );
 		}
 	}
 
+	private void help() {
+		final ParallelThread t = claimNext();
+		// Cleared only after claiming, so that nobody forks another helper for the branch taken here
+		helperPending.set( false );
+		if( t != null ) {
+			Thread.currentThread().setContextClassLoader( t.interpreter().getClassLoader() );
+			forkHelper();
+			t.runInline( t::execute );
+		}
+	}
 
-	private void signalFault( ParallelThread thread, FaultException f ) {
-		synchronized( this ) {
-			threads.remove( thread );
-			if( isKilled ) {
-				if( threads.isEmpty() ) {
-					notify();
-				}
-			} else {
-				if( fault == null ) {
-					fault = f;
-					notify();
-				} else if( threads.isEmpty() ) {
-					notify();
-				}
-			}
+	private void killAll( FaultException f ) {
+		for( ParallelThread t : threads ) {
+			t.kill( f );
+		}
+	}
+
+	private void terminationNotify() {
+		if( runningThreads.decrementAndGet() == 0 ) {
+			termination.complete( null );
 		}
 	}
 
+	private void signalFault( FaultException f ) {
+		if( !isKilled && fault.compareAndSet( null, f ) ) {
+			killAll( f );
+		}
+	}
 }
@@ -21,14 +21,16 @@
 
 package jolie.runtime;
 
-import java.lang.ref.WeakReference;
-
 /**
+ * An action to be run by the interpreter after a timeout, unless cancelled before.
+ *
  * @author Fabrizio Montesi
+ * @see jolie.Interpreter#addTimeoutHandler(TimeoutHandler)
  */
 public abstract class TimeoutHandler implements Runnable {
 	private final long time;
 	private volatile boolean cancelled = false;
+	private volatile TimerWheel.Timeout timeout = null;
 
 	public TimeoutHandler( long timeout ) {
 		this.time = System.currentTimeMillis() + timeout;
@@ -38,8 +40,25 @@ public abstract class TimeoutHandler implements Runnable {
 		return time;
 	}
 
+	/**
+	 * Cancels this handler, removing it from the timer wheel it has been scheduled in.
+	 */
 	public void cancel() {
 		cancelled = true;
+		final TimerWheel.Timeout t = timeout;
+		if( t != null ) {
+			t.cancel();
+		}
+	}
+
+	/**
+	 * Sets the timeout that will run this handler, so that cancelling this handler cancels it.
+	 */
+	public void setTimeout( TimerWheel.Timeout timeout ) {
+		this.timeout = timeout;
+		if( cancelled ) {
+			timeout.cancel();
+		}
 	}
 
 	public void run() {
@@ -49,30 +68,4 @@ public abstract class TimeoutHandler implements Runnable {
 	}
 
 	protected abstract void onTimeout();
-
-	/**
-	 * Note: this comparator imposes orderings that are inconsistent with equals.
-	 */
-	public static class Comparator implements java.util.Comparator< WeakReference< TimeoutHandler > > {
-		@Override
-		public int compare( WeakReference< TimeoutHandler > wt1, WeakReference< TimeoutHandler > wt2 ) {
-			TimeoutHandler t1 = (wt1 != null) ? wt1.get() : null;
-			TimeoutHandler t2 = (wt2 != null) ? wt2.get() : null;
-			if( t1 == null ) {
-				return -1;
-			} else if( t2 == null ) {
-				return 1;
-			}
-
-			// Both are not null after this
-
-			if( t1.time < t2.time ) {
-				return -1;
-			} else if( t1.time == t2.time ) {
-				return 0;
-			} else {
-				return 1;
-			}
-		}
-	}
 }
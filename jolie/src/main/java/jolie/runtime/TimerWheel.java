@@ -0,0 +1,411 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.runtime;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A hierarchical timer wheel, for scheduling large numbers of timeouts that are usually cancelled
+ * before they expire (e.g., response timeouts and idle connection timeouts).
+ *
+ * Scheduling and cancelling a timeout take constant time and never block: new and cancelled
+ * timeouts are queued, and a daemon thread moves them in and out of the wheel at every tick.
+ * Cancelled timeouts are removed from the wheel, so they do not accumulate. The wheel has
+ * {@link #LEVELS} levels: the first one has a slot per tick, and each slot of the other levels
+ * spans a whole round of the level below it, to which its timeouts are moved when their time gets
+ * close. Timeouts expire with a precision of one tick.
+ *
+ * To avoid contention, the wheel is split in shards, each with its own thread. A timeout is
+ * scheduled in the shard of the thread calling {@link #schedule(Runnable, long)}: threads are
+ * assigned to shards in the order in which they first schedule a timeout. Timeouts are run by the
+ * thread of their shard, so their actions must be short and must not block. Shard threads are
+ * started lazily, and sleep while they have no timeouts.
+ */
+public class TimerWheel {
+	/**
+	 * The number of levels of a wheel.
+	 */
+	public static final int LEVELS = 4;
+
+	/**
+	 * A timeout scheduled in a {@link TimerWheel}.
+	 */
+	public static final class Timeout {
+		private final Shard shard;
+		private final Runnable action;
+		private final long deadline;
+		private volatile boolean cancelled = false;
+		private long deadlineTick;
+		private Bucket bucket = null;
+		private Timeout previous = null;
+		private Timeout next = null;
+
+		private Timeout( Shard shard, Runnable action, long deadline ) {
+			this.shard = shard;
+			this.action = action;
+			this.deadline = deadline;
+		}
+
+		/**
+		 * Cancels this timeout, removing it from its wheel. Does nothing if the timeout has already
+		 * expired.
+		 */
+		public void cancel() {
+			if( !cancelled ) {
+				cancelled = true;
+				shard.cancelledTimeouts.add( this );
+			}
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+	}
+
+	private static class Bucket {
+		private Timeout head = null;
+		private Timeout tail = null;
+
+		private void add( Timeout timeout ) {
+			timeout.bucket = this;
+			if( head == null ) {
+				head = tail = timeout;
+			} else {
+				tail.next = timeout;
+				timeout.previous = tail;
+				tail = timeout;
+			}
+		}
+
+		private void remove( Timeout timeout ) {
+			if( timeout.previous == null ) {
+				head = timeout.next;
+			} else {
+				timeout.previous.next = timeout.next;
+			}
+			if( timeout.next == null ) {
+				tail = timeout.previous;
+			} else {
+				timeout.next.previous = timeout.previous;
+			}
+			timeout.bucket = null;
+			timeout.previous = null;
+			timeout.next = null;
+		}
+
+		private Timeout poll() {
+			final Timeout timeout = head;
+			if( timeout != null ) {
+				remove( timeout );
+			}
+			return timeout;
+		}
+	}
+
+	private static final Logger LOGGER = Logger.getLogger( "JOLIE" );
+
+	// Thread ids are not spread evenly (e.g., the threads of a pool can all have even ids), so each
+	// thread gets its own stripe instead
+	private static final AtomicInteger NEXT_STRIPE = new AtomicInteger();
+	private static final ThreadLocal< Integer > STRIPE =
+		ThreadLocal.withInitial( () -> NEXT_STRIPE.getAndIncrement() & Integer.MAX_VALUE );
+
+	private final String name;
+	private final long tickMillis;
+	private final int bits;
+	private final Shard[] shards;
+	private final long startTime = System.currentTimeMillis();
+	private volatile boolean active = true;
+
+	/**
+	 * Constructor. The wheel has a shard for each available processor.
+	 *
+	 * @param name the name of the threads running the wheel
+	 * @param tickMillis the duration of a tick, in milliseconds
+	 * @param ticksPerWheel the number of slots in each level of the wheel, rounded up to a power of two
+	 */
+	public TimerWheel( String name, long tickMillis, int ticksPerWheel ) {
+		this( name, tickMillis, ticksPerWheel, Runtime.getRuntime().availableProcessors() );
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name the name of the threads running the wheel
+	 * @param tickMillis the duration of a tick, in milliseconds
+	 * @param ticksPerWheel the number of slots in each level of the wheel, rounded up to a power of two
+	 * @param shards the number of shards of the wheel
+	 */
+	public TimerWheel( String name, long tickMillis, int ticksPerWheel, int shards ) {
+		this.name = name;
+		this.tickMillis = tickMillis;
+		this.bits = 32 - Integer.numberOfLeadingZeros( Math.max( ticksPerWheel - 1, 1 ) );
+		this.shards = new Shard[ Math.max( shards, 1 ) ];
+		for( int i = 0; i < this.shards.length; i++ ) {
+			this.shards[ i ] = new Shard( i );
+		}
+	}
+
+	/**
+	 * Schedules an action to be run after the given delay.
+	 *
+	 * @param action the action to run when the timeout expires
+	 * @param delay the delay, in milliseconds
+	 * @return the scheduled timeout, which can be used to cancel it
+	 */
+	public Timeout schedule( Runnable action, long delay ) {
+		final Shard shard = shards[ STRIPE.get() % shards.length ];
+		final Timeout timeout = new Timeout( shard, action, System.currentTimeMillis() + delay );
+		shard.newTimeouts.add( timeout );
+		shard.wakeUp();
+		return timeout;
+	}
+
+	/**
+	 * Stops the wheel. Pending timeouts are discarded without being run.
+	 */
+	public void stop() {
+		stop( false );
+	}
+
+	/**
+	 * Stops the wheel, waiting for its threads to terminate.
+	 *
+	 * @param expirePending if true, the pending timeouts are run by the calling thread before this
+	 *        method returns; otherwise, they are discarded
+	 */
+	public void stop( boolean expirePending ) {
+		active = false;
+		for( Shard shard : shards ) {
+			shard.stop( expirePending );
+		}
+	}
+
+	private class Shard {
+		private final int index;
+		private final Bucket[][] levels = new Bucket[ LEVELS ][];
+		private final Queue< Timeout > newTimeouts = new ConcurrentLinkedQueue<>();
+		private final Queue< Timeout > cancelledTimeouts = new ConcurrentLinkedQueue<>();
+		private long currentTick = 0;
+		private int size = 0;
+		private Thread worker = null;
+		private volatile boolean idle = false;
+
+		private Shard( int index ) {
+			this.index = index;
+			for( int i = 0; i < LEVELS; i++ ) {
+				levels[ i ] = new Bucket[ 1 << bits ];
+				for( int k = 0; k < levels[ i ].length; k++ ) {
+					levels[ i ][ k ] = new Bucket();
+				}
+			}
+		}
+
+		private void wakeUp() {
+			final Thread w;
+			synchronized( this ) {
+				if( worker == null ) {
+					if( active ) {
+						worker = new Thread( this::run, name + "-" + index );
+						worker.setDaemon( true );
+						worker.start();
+					}
+					return;
+				}
+				w = worker;
+			}
+			if( idle ) {
+				LockSupport.unpark( w );
+			}
+		}
+
+		private void stop( boolean expirePending ) {
+			final Thread w;
+			synchronized( this ) {
+				w = worker;
+			}
+			if( w != null && w != Thread.currentThread() ) {
+				w.interrupt();
+				try {
+					w.join();
+				} catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			if( expirePending ) {
+				expireAll();
+			}
+			newTimeouts.clear();
+			cancelledTimeouts.clear();
+		}
+
+		private long tickOf( long time ) {
+			return (time - startTime) / tickMillis;
+		}
+
+		private void run() {
+			while( active ) {
+				if( size == 0 && newTimeouts.isEmpty() ) {
+					idle = true;
+					if( newTimeouts.isEmpty() && active ) {
+						LockSupport.park( this );
+					}
+					idle = false;
+					cancelledTimeouts.clear();
+					// The wheel is empty, so we can skip the ticks spent sleeping
+					currentTick = Math.max( currentTick, tickOf( System.currentTimeMillis() ) );
+					continue;
+				}
+				final long sleep = startTime + (currentTick + 1) * tickMillis - System.currentTimeMillis();
+				if( sleep > 0 ) {
+					try {
+						Thread.sleep( sleep );
+					} catch( InterruptedException e ) {
+						continue;
+					}
+				}
+				removeCancelledTimeouts();
+				addNewTimeouts();
+				cascade();
+				expire( levels[ 0 ][ slot( currentTick, 0 ) ] );
+				currentTick++;
+			}
+		}
+
+		private int slot( long tick, int level ) {
+			return (int) ((tick >>> (bits * level)) & ((1 << bits) - 1));
+		}
+
+		private void add( Timeout timeout ) {
+			final long delta = Math.max( timeout.deadlineTick - currentTick, 0 );
+			int level = 0;
+			while( level < LEVELS - 1 && delta >= 1L << (bits * (level + 1)) ) {
+				level++;
+			}
+			// Timeouts beyond the range of the wheel are placed at its end, and added again from there
+			final long tick = currentTick + Math.min( delta, (1L << (bits * LEVELS)) - 1 );
+			levels[ level ][ slot( tick, level ) ].add( timeout );
+			size++;
+		}
+
+		private void remove( Timeout timeout ) {
+			timeout.bucket.remove( timeout );
+			size--;
+		}
+
+		private void removeCancelledTimeouts() {
+			Timeout timeout;
+			while( (timeout = cancelledTimeouts.poll()) != null ) {
+				if( timeout.bucket != null ) {
+					remove( timeout );
+				}
+			}
+		}
+
+		private void addNewTimeouts() {
+			Timeout timeout;
+			while( (timeout = newTimeouts.poll()) != null ) {
+				if( !timeout.cancelled ) {
+					timeout.deadlineTick = tickOf( timeout.deadline );
+					add( timeout );
+				}
+			}
+		}
+
+		/**
+		 * Moves the timeouts of the upper levels whose round starts at the current tick to the levels
+		 * below.
+		 */
+		private void cascade() {
+			for( int level = 1; level < LEVELS; level++ ) {
+				if( (currentTick & ((1L << (bits * level)) - 1)) != 0 ) {
+					return;
+				}
+				final Bucket bucket = levels[ level ][ slot( currentTick, level ) ];
+				for( Timeout timeout = detach( bucket ); timeout != null; ) {
+					final Timeout next = timeout.next;
+					timeout.next = null;
+					add( timeout );
+					timeout = next;
+				}
+			}
+		}
+
+		private void expire( Bucket bucket ) {
+			for( Timeout timeout = detach( bucket ); timeout != null; ) {
+				final Timeout next = timeout.next;
+				timeout.next = null;
+				if( timeout.deadlineTick > currentTick ) {
+					add( timeout );
+				} else {
+					run( timeout );
+				}
+				timeout = next;
+			}
+		}
+
+		/**
+		 * Empties a bucket, returning its timeouts as a list linked by {@link Timeout#next}.
+		 */
+		private Timeout detach( Bucket bucket ) {
+			final Timeout head = bucket.head;
+			for( Timeout timeout = head; timeout != null; timeout = timeout.next ) {
+				timeout.bucket = null;
+				timeout.previous = null;
+				size--;
+			}
+			bucket.head = null;
+			bucket.tail = null;
+			return head;
+		}
+
+		private void expireAll() {
+			for( Bucket[] level : levels ) {
+				for( Bucket bucket : level ) {
+					Timeout timeout;
+					while( (timeout = bucket.poll()) != null ) {
+						size--;
+						run( timeout );
+					}
+				}
+			}
+			Timeout timeout;
+			while( (timeout = newTimeouts.poll()) != null ) {
+				run( timeout );
+			}
+		}
+
+		private void run( Timeout timeout ) {
+			if( !timeout.cancelled ) {
+				timeout.cancelled = true;
+				try {
+					timeout.action.run();
+				} catch( RuntimeException e ) {
+					LOGGER.log( Level.WARNING, "Exception in a timeout action", e );
+				}
+			}
+		}
+	}
+}
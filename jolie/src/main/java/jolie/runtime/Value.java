@@ -30,8 +30,7 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import java.util.function.Function;
 
 import jolie.lang.Constants;
@@ -122,8 +121,12 @@ class ValueLink extends Value implements Cloneable {
 class ValueImpl extends Value implements Cloneable, Serializable {
 	private static final long serialVersionUID = 1L;
 
+	@SuppressWarnings( { "rawtypes", "unchecked" } )
+	private static final AtomicReferenceFieldUpdater< ValueImpl, Map< String, ValueVector > > CHILDREN =
+		(AtomicReferenceFieldUpdater) AtomicReferenceFieldUpdater.newUpdater( ValueImpl.class, Map.class, "children" );
+
 	private volatile Object valueObject = null;
-	private final AtomicReference< Map< String, ValueVector > > children = new AtomicReference<>();
+	private volatile Map< String, ValueVector > children = null;
 
 	@Override
 	public void setValueObject( Object object ) {
@@ -145,7 +148,7 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 	@Override
 	protected void _refCopy( Value value ) {
 		setValueObject( value.valueObject() );
-		this.children.set( value.children() );
+		this.children = value.children();
 	}
 
 	@Override
@@ -156,7 +159,7 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 	@Override
 	public void erase() {
 		valueObject = null;
-		children.set( null );
+		children = null;
 	}
 
 	protected ValueImpl() {}
@@ -168,13 +171,13 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 
 	@Override
 	public boolean hasChildren() {
-		Map< String, ValueVector > c = children.get();
+		Map< String, ValueVector > c = children;
 		return (c != null && !c.isEmpty());
 	}
 
 	@Override
 	public boolean hasChildren( String childId ) {
-		Map< String, ValueVector > c = children.get();
+		Map< String, ValueVector > c = children;
 		return (c != null && c.containsKey( childId ));
 	}
 
@@ -215,14 +218,15 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 		return children.computeIfAbsent( childId, k -> ValueVector.create() );
 	}
 
-	private final static int INITIAL_CAPACITY = 8;
-	private final static float LOAD_FACTOR = 0.75f;
-
 	@Override
 	public Map< String, ValueVector > children() {
+		final Map< String, ValueVector > c = children;
+		if( c != null ) {
+			return c;
+		}
 		// Create the map if not present
-		children.getAndUpdate( v -> v == null ? new ConcurrentHashMap<>( INITIAL_CAPACITY, LOAD_FACTOR ) : v );
-		return children.get();
+		CHILDREN.compareAndSet( this, null, new ChildrenMap() );
+		return children;
 	}
 
 	@Override
@@ -242,11 +246,7 @@ class ValueImpl extends Value implements Cloneable, Serializable {
 
 /** TODO: remove code duplication from ValueImpl */
 class RootValueImpl extends Value implements Cloneable {
-	private final static int INITIAL_CAPACITY = 8;
-	private final static float LOAD_FACTOR = 0.75f;
-
-	private final Map< String, ValueVector > children =
-		new ConcurrentHashMap<>( INITIAL_CAPACITY, LOAD_FACTOR );
+	private final Map< String, ValueVector > children = new ChildrenMap();
 
 	@Override
 	public RootValueImpl clone() {
@@ -337,15 +337,52 @@ class RootValueImpl extends Value implements Cloneable {
 class CSetValue extends ValueImpl {
 	private static final long serialVersionUID = Constants.serialVersionUID();
 
-	// @Override
-	// public void setValueObject( Object object ) {
-	// // CommCore commCore = Interpreter.getInstance().commCore();
-	// // synchronized( commCore.correlationLock() )
-	// // removeFromRadixTree();
-	// super.setValueObject( object );
-	// // addToRadixTree();
-	// // }
-	// }
+	private final transient Runnable updateListener;
+
+	CSetValue() {
+		this.updateListener = null;
+	}
+
+	CSetValue( Value content, Runnable updateListener ) {
+		// The listener is not set yet, so copying the content does not invoke it
+		_deepCopy( content, true );
+		this.updateListener = updateListener;
+	}
+
+	private void fireUpdate() {
+		if( updateListener != null ) {
+			updateListener.run();
+		}
+	}
+
+	@Override
+	public void setValueObject( Object object ) {
+		super.setValueObject( object );
+		fireUpdate();
+	}
+
+	@Override
+	protected void _refCopy( Value value ) {
+		super._refCopy( value );
+		fireUpdate();
+	}
+
+	@Override
+	public void erase() {
+		super.erase();
+		fireUpdate();
+	}
+
+	@Override
+	public ValueVector getChildren( String childId ) {
+		if( updateListener != null && !hasChildren( childId ) ) {
+			// A child is being created, the listener may have to track it
+			final ValueVector children = super.getChildren( childId );
+			fireUpdate();
+			return children;
+		}
+		return super.getChildren( childId );
+	}
 
 	@Override
 	public CSetValue clone() {
@@ -392,6 +429,18 @@ public abstract class Value implements Expression, Cloneable {
 		return new CSetValue();
 	}
 
+	/**
+	 * Creates a correlation value with a copy of the given content, which invokes the given listener
+	 * every time its content is changed or replaced, or one of its children is created.
+	 * 
+	 * @param content the value to copy, links included
+	 * @param updateListener the listener to invoke on updates
+	 * @return the created value
+	 */
+	public static Value createCSetValue( Value content, Runnable updateListener ) {
+		return new CSetValue( content, updateListener );
+	}
+
 	public static Value create( Boolean bool ) {
 		return new ValueImpl( bool );
 	}
@@ -424,6 +473,23 @@ public abstract class Value implements Expression, Cloneable {
 		return value.clone();
 	}
 
+	/**
+	 * Returns a copy of the given value whose nodes are copied only when they are first accessed.
+	 * Reading and writing the copy behaves as with {@link #createClone(Value)}, but the given value
+	 * must not be modified afterwards.
+	 *
+	 * @param value the value to copy
+	 * @return the copy
+	 */
+	public static Value createLazyClone( Value value ) {
+		if( value instanceof RootValueImpl ) {
+			final Value ret = new RootValueImpl();
+			LazyCloneValue.copyChildren( value.children(), ret.children() );
+			return ret;
+		}
+		return LazyCloneValue.copyOf( value );
+	}
+
 	public static Value createDeepCopy( Value value ) {
 		Value ret = Value.create();
 		ret.deepCopy( value );
@@ -456,6 +522,13 @@ public abstract class Value implements Expression, Cloneable {
 
 	protected abstract void _deepCopy( Value value, boolean copyLinks );
 
+	/**
+	 * Returns the children of this value, indexed by name. The order in which they are iterated is not
+	 * specified. Currently, the children of a value with up to eight of them are iterated in the order
+	 * they were added, and those of larger values in hash order.
+	 *
+	 * @return the children of this value
+	 */
 	public abstract Map< String, ValueVector > children();
 
 	public abstract Object valueObject();
@@ -915,4 +988,122 @@ public abstract class Value implements Expression, Cloneable {
 	public Expression cloneExpression( TransformationReason reason ) {
 		return Value.createClone( this );
 	}
+
+	/**
+	 * A copy of a value that copies its sub-tree lazily, one node at a time. The children of a node are
+	 * copied the first time they are accessed, as vectors of new lazy copies of the original children.
+	 * This makes copying a large tree cheap when only a small part of the copy is ever used, as for the
+	 * state of a session started from the state left by init.
+	 *
+	 * The original tree must not be modified after the copy has been made.
+	 */
+	static class LazyCloneValue extends ValueImpl {
+		private static final long serialVersionUID = 1L;
+
+		// The value that this one is a copy of, or null once its children have been copied
+		private transient volatile Value source;
+
+		private LazyCloneValue( Value source ) {
+			super( source.valueObject() );
+			this.source = source;
+		}
+
+		static Value copyOf( Value value ) {
+			if( value.isLink() ) {
+				return ((ValueLink) value).clone();
+			} else if( value.isUsedInCorrelation() ) {
+				return value.clone();
+			} else if( value.hasChildren() ) {
+				return new LazyCloneValue( value );
+			} else {
+				return new ValueImpl( value );
+			}
+		}
+
+		static void copyChildren( Map< String, ValueVector > from, Map< String, ValueVector > to ) {
+			for( Entry< String, ValueVector > entry : from.entrySet() ) {
+				if( entry.getValue().isLink() ) {
+					to.put( entry.getKey(), ValueVector.createClone( entry.getValue() ) );
+				} else if( entry.getValue().size() > 1 ) {
+					to.put( entry.getKey(), new ValueVector.LazyCloneValueVector( entry.getValue() ) );
+				} else {
+					final ValueVector vec = ValueVector.create();
+					for( Value v : entry.getValue() ) {
+						vec.add( copyOf( v ) );
+					}
+					to.put( entry.getKey(), vec );
+				}
+			}
+		}
+
+		private void materialize() {
+			if( source != null ) {
+				synchronized( this ) {
+					final Value s = source;
+					if( s != null ) {
+						copyChildren( s.children(), super.children() );
+						source = null;
+					}
+				}
+			}
+		}
+
+		/**
+		 * Forgets the original value without copying its children, for operations that replace them.
+		 */
+		private void detach() {
+			if( source != null ) {
+				synchronized( this ) {
+					source = null;
+				}
+			}
+		}
+
+		@Override
+		public Map< String, ValueVector > children() {
+			materialize();
+			return super.children();
+		}
+
+		@Override
+		public ValueVector getChildren( String childId ) {
+			materialize();
+			return super.getChildren( childId );
+		}
+
+		@Override
+		public boolean hasChildren() {
+			final Value s = source;
+			return s != null ? s.hasChildren() : super.hasChildren();
+		}
+
+		@Override
+		public boolean hasChildren( String childId ) {
+			final Value s = source;
+			return s != null ? s.hasChildren( childId ) : super.hasChildren( childId );
+		}
+
+		@Override
+		protected void _refCopy( Value value ) {
+			detach();
+			super._refCopy( value );
+		}
+
+		@Override
+		public void erase() {
+			detach();
+			super.erase();
+		}
+
+		@Override
+		protected void _deepCopy( Value value, boolean copyLinks ) {
+			materialize();
+			super._deepCopy( value, copyLinks );
+		}
+
+		private Object writeReplace() {
+			materialize();
+			return this;
+		}
+	}
 }
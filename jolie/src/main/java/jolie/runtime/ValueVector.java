@@ -23,8 +23,11 @@ package jolie.runtime;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -61,11 +64,6 @@ class ValueVectorLink extends ValueVector implements Cloneable {
 		return linkPath.getValueVector( this );
 	}
 
-	@Override
-	protected List< Value > values() {
-		return getLinkedValueVector().values();
-	}
-
 	@Override
 	public List< Value > valuesCopy() {
 		return getLinkedValueVector().valuesCopy();
@@ -76,64 +74,228 @@ class ValueVectorLink extends ValueVector implements Cloneable {
 		ValueVector vector = linkPath.getValueVectorOrNull();
 		return (vector == null) ? 0 : vector.size();
 	}
+
+	@Override
+	public boolean isEmpty() {
+		return getLinkedValueVector().isEmpty();
+	}
+
+	@Override
+	public Value remove( int i ) {
+		return getLinkedValueVector().remove( i );
+	}
+
+	@Override
+	public void add( Value value ) {
+		getLinkedValueVector().add( value );
+	}
+
+	@Override
+	public Iterator< Value > iterator() {
+		return getLinkedValueVector().iterator();
+	}
 }
 
 
+/**
+ * A vector of values that does not lock on reads.
+ *
+ * Vectors with a single element (by far the most common) store it directly. Larger vectors store
+ * their elements in an array that is only replaced when it has to grow or shrink. Writers are
+ * serialised on the vector; readers see the elements published by the last volatile write of the
+ * data of the vector or of the size of its array.
+ */
 class ValueVectorImpl extends ValueVector implements Serializable {
 	private static final long serialVersionUID = Constants.serialVersionUID();
-	private final ArrayList< Value > values;
+	private static final int MIN_CAPACITY = 4;
+
+	private static final class Elements implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final Value[] items;
+		private volatile int size;
+
+		private Elements( Value[] items, int size ) {
+			this.items = items;
+			this.size = size;
+		}
+	}
+
+	// Either null (empty vector), a Value (one element), or Elements
+	private volatile Object data = null;
 
 	@Override
-	protected List< Value > values() {
-		return values;
+	public int size() {
+		final Object d = data;
+		if( d == null ) {
+			return 0;
+		} else if( d instanceof Value ) {
+			return 1;
+		}
+		return ((Elements) d).size;
 	}
 
 	@Override
-	public synchronized int size() {
-		return values().size();
+	public boolean isEmpty() {
+		return data == null;
 	}
 
 	@Override
 	public Value get( int i ) {
-		if( i >= values.size() ) {
-			synchronized( this ) {
-				if( i >= values.size() ) {
-					values.ensureCapacity( i + 1 );
-					for( int k = values.size(); k <= i; k++ ) {
-						values.add( Value.create() );
-					}
-				}
+		final Object d = data;
+		if( d instanceof Value ) {
+			if( i == 0 ) {
+				return (Value) d;
+			}
+		} else if( d instanceof Elements ) {
+			final Elements elements = (Elements) d;
+			if( i < elements.size ) {
+				return elements.items[ i ];
+			}
+		}
+		return getOrCreate( i );
+	}
+
+	private synchronized Value getOrCreate( int i ) {
+		final int size = size();
+		if( i >= size ) {
+			for( int k = size; k <= i; k++ ) {
+				append( Value.create() );
 			}
 		}
-		return values.get( i );
+		return elementAt( i );
+	}
+
+	private Value elementAt( int i ) {
+		final Object d = data;
+		return d instanceof Value ? (Value) d : ((Elements) d).items[ i ];
 	}
 
 	@Override
 	public synchronized void set( int i, Value value ) {
-		if( i >= values.size() ) {
-			values.ensureCapacity( i + 1 );
-			for( int k = values.size(); k < i; k++ ) {
-				values.add( Value.create() );
+		final Object d = data;
+		if( i == 0 && (d == null || d instanceof Value) ) {
+			data = value;
+		} else if( d instanceof Elements && i < ((Elements) d).size ) {
+			final Elements elements = (Elements) d;
+			elements.items[ i ] = value;
+			// Publish the new element to readers, which read data first
+			data = elements;
+		} else {
+			for( int k = size(); k < i; k++ ) {
+				append( Value.create() );
 			}
-			values.add( value );
+			append( value );
+		}
+	}
+
+	@Override
+	public synchronized void add( Value value ) {
+		append( value );
+	}
+
+	// Must be called while holding the lock of this vector
+	private void append( Value value ) {
+		final Object d = data;
+		if( d == null ) {
+			data = value;
+		} else if( d instanceof Value ) {
+			final Value[] items = new Value[ MIN_CAPACITY ];
+			items[ 0 ] = (Value) d;
+			items[ 1 ] = value;
+			data = new Elements( items, 2 );
 		} else {
-			values.set( i, value );
+			final Elements elements = (Elements) d;
+			final int size = elements.size;
+			if( size < elements.items.length ) {
+				elements.items[ size ] = value;
+				elements.size = size + 1;
+			} else {
+				final Value[] items = new Value[ size + (size >> 1) ];
+				System.arraycopy( elements.items, 0, items, 0, size );
+				items[ size ] = value;
+				data = new Elements( items, size + 1 );
+			}
 		}
 	}
 
+	@Override
+	public synchronized Value remove( int i ) {
+		final Object d = data;
+		if( d instanceof Value && i == 0 ) {
+			data = null;
+			return (Value) d;
+		} else if( d instanceof Elements && i >= 0 && i < ((Elements) d).size ) {
+			final Elements elements = (Elements) d;
+			final int size = elements.size;
+			final Value removed = elements.items[ i ];
+			if( size == 2 ) {
+				data = elements.items[ 1 - i ];
+			} else {
+				// Readers may be iterating on the current array, so we replace it
+				final Value[] items = new Value[ Math.max( MIN_CAPACITY, size - 1 + ((size - 1) >> 1) ) ];
+				System.arraycopy( elements.items, 0, items, 0, i );
+				System.arraycopy( elements.items, i + 1, items, i, size - i - 1 );
+				data = new Elements( items, size - 1 );
+			}
+			return removed;
+		}
+		throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + size() );
+	}
+
+	@Override
+	public Iterator< Value > iterator() {
+		final Object d = data;
+		if( d == null ) {
+			return Collections.emptyIterator();
+		} else if( d instanceof Value ) {
+			return Collections.singleton( (Value) d ).iterator();
+		}
+		final Elements elements = (Elements) d;
+		final int size = elements.size;
+		return new Iterator< Value >() {
+			private int index = 0;
+
+			@Override
+			public boolean hasNext() {
+				return index < size;
+			}
+
+			@Override
+			public Value next() {
+				if( index >= size ) {
+					throw new NoSuchElementException();
+				}
+				return elements.items[ index++ ];
+			}
+		};
+	}
+
 	@Override
 	public boolean isLink() {
 		return false;
 	}
 
 	@Override
-	public synchronized List< Value > valuesCopy() {
-		return new ArrayList<>( values );
+	public List< Value > valuesCopy() {
+		final Object d = data;
+		if( d == null ) {
+			return new ArrayList<>( 0 );
+		} else if( d instanceof Value ) {
+			final List< Value > list = new ArrayList<>( 1 );
+			list.add( (Value) d );
+			return list;
+		}
+		final Elements elements = (Elements) d;
+		final int size = elements.size;
+		final List< Value > list = new ArrayList<>( size );
+		for( int i = 0; i < size; i++ ) {
+			list.add( elements.items[ i ] );
+		}
+		return list;
 	}
 
-	public ValueVectorImpl() {
-		values = new ArrayList<>( 1 );
-	}
+	public ValueVectorImpl() {}
 }
 
 
@@ -142,9 +304,7 @@ public abstract class ValueVector implements Iterable< Value > {
 		return new ValueVectorImpl();
 	}
 
-	public synchronized Value remove( int i ) {
-		return values().remove( i );
-	}
+	public abstract Value remove( int i );
 
 	public static ValueVector createLink( VariablePath path ) {
 		return new ValueVectorLink( path );
@@ -165,18 +325,16 @@ public abstract class ValueVector implements Iterable< Value > {
 		return retVec;
 	}
 
-	public synchronized Value first() {
+	public Value first() {
 		return get( 0 );
 	}
 
-	public synchronized boolean isEmpty() {
-		return values().isEmpty();
+	public boolean isEmpty() {
+		return size() == 0;
 	}
 
 	@Override
-	public synchronized Iterator< Value > iterator() {
-		return values().iterator();
-	}
+	public abstract Iterator< Value > iterator();
 
 	public abstract Value get( int i );
 
@@ -187,29 +345,166 @@ public abstract class ValueVector implements Iterable< Value > {
 	public abstract List< Value > valuesCopy();
 
 
-	public synchronized void add( Value value ) {
-		values().add( value );
-	}
+	public abstract void add( Value value );
 
 	// TODO: improve performance
-	public synchronized void deepCopy( ValueVector vec ) {
+	public void deepCopy( ValueVector vec ) {
 		for( int i = 0; i < vec.size(); i++ ) {
 			get( i ).deepCopy( vec.get( i ) );
 		}
 	}
 
-	public synchronized void deepCopyWithLinks( ValueVector vec ) {
+	public void deepCopyWithLinks( ValueVector vec ) {
 		for( int i = 0; i < vec.size(); i++ ) {
 			get( i ).deepCopyWithLinks( vec.get( i ) );
 		}
 	}
 
 
-	protected abstract List< Value > values();
-
 	public abstract boolean isLink();
 
 	public final Stream< Value > stream() {
 		return StreamSupport.stream( spliterator(), false );
 	}
+
+	/**
+	 * A copy of a vector that copies its elements lazily, each the first time it is accessed, with
+	 * {@link Value.LazyCloneValue#copyOf(Value)}. The copy turns into a regular vector the first time
+	 * it is modified.
+	 *
+	 * The original vector must not be modified after the copy has been made.
+	 */
+	static class LazyCloneValueVector extends ValueVector implements Serializable {
+		private static final long serialVersionUID = 1L;
+
+		private final transient ValueVector source;
+		private final transient int sourceSize;
+		// The elements copied so far, created on the first access
+		private transient volatile AtomicReferenceArray< Value > copies = null;
+		// The regular vector that replaces this copy once it is modified
+		private transient volatile ValueVector vector = null;
+
+		LazyCloneValueVector( ValueVector source ) {
+			this.source = source;
+			this.sourceSize = source.size();
+		}
+
+		private synchronized Value copy( int i ) {
+			if( vector != null ) {
+				return vector.get( i );
+			}
+			if( copies == null ) {
+				copies = new AtomicReferenceArray<>( sourceSize );
+			}
+			Value copy = copies.get( i );
+			if( copy == null ) {
+				copy = Value.LazyCloneValue.copyOf( source.get( i ) );
+				copies.set( i, copy );
+			}
+			return copy;
+		}
+
+		private synchronized ValueVector materialize() {
+			if( vector == null ) {
+				final ValueVector v = ValueVector.create();
+				for( int i = 0; i < sourceSize; i++ ) {
+					v.add( copy( i ) );
+				}
+				vector = v;
+				copies = null;
+			}
+			return vector;
+		}
+
+		@Override
+		public int size() {
+			final ValueVector v = vector;
+			return v != null ? v.size() : sourceSize;
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return size() == 0;
+		}
+
+		@Override
+		public Value get( int i ) {
+			final ValueVector v = vector;
+			if( v != null ) {
+				return v.get( i );
+			} else if( i < 0 || i >= sourceSize ) {
+				// Accessing a missing element creates it
+				return materialize().get( i );
+			}
+			final AtomicReferenceArray< Value > c = copies;
+			if( c != null ) {
+				final Value copy = c.get( i );
+				if( copy != null ) {
+					return copy;
+				}
+			}
+			return copy( i );
+		}
+
+		@Override
+		public void set( int i, Value value ) {
+			materialize().set( i, value );
+		}
+
+		@Override
+		public void add( Value value ) {
+			materialize().add( value );
+		}
+
+		@Override
+		public Value remove( int i ) {
+			return materialize().remove( i );
+		}
+
+		@Override
+		public Iterator< Value > iterator() {
+			final ValueVector v = vector;
+			if( v != null ) {
+				return v.iterator();
+			}
+			return new Iterator< Value >() {
+				private int index = 0;
+
+				@Override
+				public boolean hasNext() {
+					return index < sourceSize;
+				}
+
+				@Override
+				public Value next() {
+					if( index >= sourceSize ) {
+						throw new NoSuchElementException();
+					}
+					return get( index++ );
+				}
+			};
+		}
+
+		@Override
+		public List< Value > valuesCopy() {
+			final ValueVector v = vector;
+			if( v != null ) {
+				return v.valuesCopy();
+			}
+			final List< Value > list = new ArrayList<>( sourceSize );
+			for( int i = 0; i < sourceSize; i++ ) {
+				list.add( get( i ) );
+			}
+			return list;
+		}
+
+		@Override
+		public boolean isLink() {
+			return false;
+		}
+
+		private Object writeReplace() {
+			return materialize();
+		}
+	}
 }
@@ -41,7 +41,12 @@ public class VariablePath implements Expression {
 		public static final Pair< Expression, Expression >[] EMPTY_PATH = new Pair[ 0 ];
 	}
 
+	private static final int DYNAMIC_INDEX = Integer.MIN_VALUE;
+
 	private final Pair< Expression, Expression >[] path; // Right Expression may be null
+	// Compiled form of path: the keys and indices of constant segments, for fast access
+	private final String[] keys; // null for dynamic keys
+	private final int[] indices; // DYNAMIC_INDEX for dynamic indices
 
 	public final Pair< Expression, Expression >[] path() {
 		return path;
@@ -81,24 +86,14 @@ public class VariablePath implements Expression {
 		if( otherVarPath.path.length < path.length )
 			return null;
 
-		int i, myIndex, otherIndex;
-		Pair< Expression, Expression > pair, otherPair;
-		Expression expr, otherExpr;
+		int i;
 		for( i = 0; i < path.length; i++ ) {
-			pair = path[ i ];
-			otherPair = otherVarPath.path[ i ];
-
 			// *.element_name is not a subpath of *.other_name
-			if( !pair.key().evaluate().strValue().equals( otherPair.key().evaluate().strValue() ) )
+			if( !key( i ).equals( otherVarPath.key( i ) ) )
 				return null;
 
 			// If element name is equal, check for the same index
-			expr = pair.value();
-			otherExpr = otherPair.value();
-
-			myIndex = (expr == null) ? 0 : expr.evaluate().intValue();
-			otherIndex = (otherExpr == null) ? 0 : otherExpr.evaluate().intValue();
-			if( myIndex != otherIndex )
+			if( index( i ) != otherVarPath.index( i ) )
 				return null;
 		}
 
@@ -119,6 +114,47 @@ public class VariablePath implements Expression {
 
 	public VariablePath( Pair< Expression, Expression >[] path ) {
 		this.path = path;
+		this.keys = new String[ path.length ];
+		this.indices = new int[ path.length ];
+		for( int i = 0; i < path.length; i++ ) {
+			final Expression key = path[ i ].key();
+			keys[ i ] = isConstant( key ) ? ((Value) key).strValue().intern() : null;
+			final Expression index = path[ i ].value();
+			indices[ i ] = index == null ? 0 : isConstant( index ) ? ((Value) index).intValue() : DYNAMIC_INDEX;
+		}
+	}
+
+	private static boolean isConstant( Expression expression ) {
+		return expression instanceof Value && !((Value) expression).isLink();
+	}
+
+	/**
+	 * Returns the key of the i-th segment of this path, evaluating it only if it is not a constant.
+	 */
+	private String key( int i ) {
+		final String key = keys[ i ];
+		return key != null ? key : path[ i ].key().evaluate().strValue();
+	}
+
+	/**
+	 * Returns the index of the i-th segment of this path, evaluating it only if it is not a constant.
+	 * Segments without an index have index 0.
+	 */
+	private int index( int i ) {
+		final int index = indices[ i ];
+		return index != DYNAMIC_INDEX ? index : path[ i ].value().evaluate().intValue();
+	}
+
+	/**
+	 * Returns a copy of this path, in which the index of the last segment is replaced by the given one.
+	 *
+	 * @param index the index of the last segment of the new path
+	 * @return a copy of this path with the given index for its last segment
+	 */
+	public final VariablePath withLastIndex( int index ) {
+		final Pair< Expression, Expression >[] newPath = path.clone();
+		newPath[ path.length - 1 ] = new Pair<>( path[ path.length - 1 ].key(), Value.create( index ) );
+		return _createVariablePath( newPath );
 	}
 
 	protected Value getRootValue() {
@@ -134,7 +170,7 @@ public class VariablePath implements Expression {
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[ i ];
-			keyStr = pair.key().evaluate().strValue();
+			keyStr = key( i );
 			currVector = currValue.children().get( keyStr );
 			if( currVector == null ) {
 				return;
@@ -149,7 +185,7 @@ public class VariablePath implements Expression {
 					currValue.children().remove( keyStr );
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = index( i );
 				if( (i + 1) < path.length ) {
 					if( currVector.size() <= index ) {
 						return;
@@ -183,12 +219,8 @@ public class VariablePath implements Expression {
 	}
 
 	public final Value getValue( Value currValue ) {
-		for( Pair< Expression, Expression > pair : path ) {
-			final String keyStr = pair.key().evaluate().strValue();
-			currValue =
-				pair.value() == null
-					? currValue.getFirstChild( keyStr )
-					: currValue.getChildren( keyStr ).get( pair.value().evaluate().intValue() );
+		for( int i = 0; i < path.length; i++ ) {
+			currValue = currValue.getChildren( key( i ) ).get( index( i ) );
 		}
 
 		return currValue;
@@ -206,7 +238,7 @@ public class VariablePath implements Expression {
 		} else {
 			for( int i = 0; i < path.length; i++ ) {
 				pair = path[ i ];
-				keyStr = pair.key().evaluate().strValue();
+				keyStr = key( i );
 				currVector = currValue.getChildren( keyStr );
 				if( pair.value() == null ) {
 					if( (i + 1) < path.length ) {
@@ -219,7 +251,7 @@ public class VariablePath implements Expression {
 						}
 					}
 				} else {
-					index = pair.value().evaluate().intValue();
+					index = index( i );
 					if( (i + 1) < path.length ) {
 						currValue = currVector.get( index );
 					} else {
@@ -241,7 +273,7 @@ public class VariablePath implements Expression {
 	public final Value getValueOrNull( Value currValue ) {
 		for( int i = 0; i < path.length; i++ ) {
 			final Pair< Expression, Expression > pair = path[ i ];
-			final ValueVector currVector = currValue.children().get( pair.key().evaluate().strValue() );
+			final ValueVector currVector = currValue.children().get( key( i ) );
 			if( currVector == null ) {
 				return null;
 			}
@@ -259,7 +291,7 @@ public class VariablePath implements Expression {
 					}
 				}
 			} else {
-				final int index = pair.value().evaluate().intValue();
+				final int index = index( i );
 				if( currVector.size() <= index ) {
 					return null;
 				}
@@ -308,12 +340,12 @@ public class VariablePath implements Expression {
 		ValueVector currVector = null;
 		for( int i = 0; i < path.length; i++ ) {
 			final Pair< Expression, Expression > pair = path[ i ];
-			currVector = currValue.getChildren( pair.key().evaluate().strValue() );
+			currVector = currValue.getChildren( key( i ) );
 			if( (i + 1) < path.length ) {
 				if( pair.value() == null ) {
 					currValue = currVector.get( 0 );
 				} else {
-					currValue = currVector.get( pair.value().evaluate().intValue() );
+					currValue = currVector.get( index( i ) );
 				}
 			}
 		}
@@ -324,7 +356,7 @@ public class VariablePath implements Expression {
 		ValueVector currVector = null;
 		for( int i = 0; i < path.length; i++ ) {
 			final Pair< Expression, Expression > pair = path[ i ];
-			currVector = currValue.children().get( pair.key().evaluate().strValue() );
+			currVector = currValue.children().get( key( i ) );
 			if( currVector == null ) {
 				return null;
 			}
@@ -335,7 +367,7 @@ public class VariablePath implements Expression {
 					}
 					currValue = currVector.get( 0 );
 				} else {
-					final int index = pair.value().evaluate().intValue();
+					final int index = index( i );
 					if( currVector.size() <= index ) {
 						return null;
 					}
@@ -366,7 +398,7 @@ public class VariablePath implements Expression {
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[ i ];
-			keyStr = pair.key().evaluate().strValue();
+			keyStr = key( i );
 			currVector = currValue.getChildren( keyStr );
 			if( pair.value() == null ) {
 				if( (i + 1) < path.length ) {
@@ -375,7 +407,7 @@ public class VariablePath implements Expression {
 					currValue.children().put( keyStr, ValueVector.createLink( rightPath ) );
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = index( i );
 				if( (i + 1) < path.length ) {
 					currValue = currVector.get( index );
 				} else {
@@ -393,7 +425,7 @@ public class VariablePath implements Expression {
 
 		for( int i = 0; i < path.length; i++ ) {
 			pair = path[ i ];
-			currVector = currValue.getChildren( pair.key().evaluate().strValue() );
+			currVector = currValue.getChildren( key( i ) );
 			if( pair.value() == null ) {
 				if( (i + 1) < path.length ) {
 					currValue = currVector.get( 0 );
@@ -401,7 +433,7 @@ public class VariablePath implements Expression {
 					return currVector;
 				}
 			} else {
-				index = pair.value().evaluate().intValue();
+				index = index( i );
 				if( (i + 1) < path.length ) {
 					currValue = currVector.get( index );
 				} else {
@@ -21,13 +21,23 @@
 
 package jolie.runtime.correlation;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 import jolie.Interpreter;
 import jolie.SessionListener;
 import jolie.SessionThread;
+import jolie.lang.Constants.ExecutionMode;
 import jolie.net.CommChannel;
 import jolie.net.CommMessage;
+import jolie.runtime.FaultException;
 import jolie.runtime.Value;
 import jolie.runtime.correlation.CorrelationSet.CorrelationPair;
+import jolie.runtime.correlation.impl.HashCorrelationEngine;
 import jolie.runtime.correlation.impl.SimpleCorrelationEngine;
 
 /**
@@ -46,8 +56,7 @@ public abstract class CorrelationEngine implements SessionListener {
 		HASH {
 			@Override
 			public CorrelationEngine createInstance( Interpreter interpreter ) {
-				// return new HashCorrelationEngine( interpreter );
-				return null;
+				return new HashCorrelationEngine( interpreter );
 			}
 		};
 
@@ -72,10 +81,28 @@ public abstract class CorrelationEngine implements SessionListener {
 
 	protected abstract boolean routeMessage( CommMessage message, CommChannel channel );
 
+	// Number of routing stripes, must be a power of two.
+	private static final int STRIPES =
+		Integer.highestOneBit( Math.max( 16, Runtime.getRuntime().availableProcessors() * 4 ) );
+
+	// Kinds of correlation values, see kindOf(Value).
+	private static final int STRING = 1;
+	private static final int INT = 2;
+	private static final int LONG = 4;
+	private static final int DOUBLE = 8;
+	private static final int OTHER = 16;
+
 	private final Interpreter interpreter;
+	// Kinds of the correlation values that sessions have held so far.
+	private final AtomicInteger sessionKinds = new AtomicInteger();
+	private final ReadWriteLock routingLock = new ReentrantReadWriteLock();
+	private final Lock[] stripeLocks = new Lock[ STRIPES ];
 
 	public CorrelationEngine( Interpreter interpreter ) {
 		this.interpreter = interpreter;
+		for( int i = 0; i < stripeLocks.length; i++ ) {
+			stripeLocks[ i ] = new ReentrantLock();
+		}
 	}
 
 	protected Interpreter interpreter() {
@@ -96,19 +123,246 @@ public abstract class CorrelationEngine implements SessionListener {
 				messageValue = Value.create();
 			}
 			pair.sessionPath().getValue( session.state().root() ).assignValue( messageValue );
+			noteSessionValue( messageValue );
+		}
+	}
+
+	/**
+	 * Records the kind of a value held by a correlation variable of a session, so that messages whose
+	 * correlation keys may not identify that session are not routed by key (see
+	 * {@link #hasExactKeys(CommMessage)}).
+	 *
+	 * @param value the value of the correlation variable
+	 */
+	protected void noteSessionValue( Value value ) {
+		if( value.isDefined() ) {
+			final int kind = kindOf( value );
+			if( (sessionKinds.get() & kind) == 0 ) {
+				sessionKinds.accumulateAndGet( kind, ( a, b ) -> a | b );
+			}
 		}
 	}
 
-	public synchronized void onMessageReceive( final CommMessage message, final CommChannel channel )
-		throws CorrelationError {
-		if( !(
-		// We try to find a correlating process.
-		routeMessage( message, channel )
+	/**
+	 * Checks whether a message correlates with a session, by comparing the values of the correlation
+	 * variables of the session with the corresponding ones in the message.
+	 * 
+	 * @param session the session to check
+	 * @param message the message to check
+	 * @return {@code true} if the message correlates with the session, {@code false} otherwise
+	 */
+	protected boolean correlate( SessionThread session, CommMessage message ) {
+		if( (interpreter.correlationSets().isEmpty()
+			&& interpreter.executionMode() == ExecutionMode.SINGLE)
 			||
-			// If there is none, we must be able to start a new process with this message.
-			interpreter.startServiceSession( message, channel )) ) {
-			// Otherwise, exception.
-			throw new CorrelationError();
+			session.isInitialisingThread() ) {
+			return true;
+		}
+
+		final CorrelationSet cset = interpreter.getCorrelationSetForOperation( message.operationName() );
+		if( cset == null ) {
+			return interpreter.executionMode() == ExecutionMode.SINGLE; // It must be a session starter.
+		}
+		final List< CorrelationPair > pairs = cset.getOperationCorrelationPairs( message.operationName() );
+		for( CorrelationPair cpair : pairs ) {
+			final Value sessionValue = cpair.sessionPath().getValueOrNull( session.state().root() );
+			if( sessionValue == null ) {
+				return false;
+			} else {
+				Value messageValue = cpair.messagePath().getValueOrNull( message.value() );
+				if( messageValue == null ) {
+					return false;
+				} else {
+					// TODO: Value.equals is type insensitive, fix this with an additional check.
+					if( !sessionValue.isDefined() || !messageValue.isDefined()
+						|| !sessionValue.equals( messageValue ) ) {
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the key under which a defined correlation value is indexed and striped. Numbers map to
+	 * their numeric value, whatever their type, and other values to their string form, so that, e.g.,
+	 * the int 5, the long 5, the double 5.0 and the string "5" get the same key. Correlation compares
+	 * values with {@link Value#equals(Value)}, which converts the message value to the type of the
+	 * session value, so values with the same key may not correlate, and values that correlate may have
+	 * different keys when their types differ (see {@link #hasExactKeys(CommMessage)}).
+	 *
+	 * @param value the correlation value, which must be defined
+	 * @return the key of the value
+	 */
+	protected static String correlationKey( Value value ) {
+		if( value.isInt() || value.isLong() ) {
+			return Long.toString( value.longValue() );
+		} else if( value.isDouble() && isIntegral( value.doubleValue(), Long.MAX_VALUE ) ) {
+			return Long.toString( (long) value.doubleValue() );
+		}
+		return value.strValue();
+	}
+
+	// Whether d is a whole number whose absolute value is less than max.
+	private static boolean isIntegral( double d, long max ) {
+		return d == Math.rint( d ) && Math.abs( d ) < max;
+	}
+
+	private static int kindOf( Value value ) {
+		if( value.isString() ) {
+			return STRING;
+		} else if( value.isInt() ) {
+			return INT;
+		} else if( value.isLong() ) {
+			return LONG;
+		} else if( value.isDouble() ) {
+			return DOUBLE;
+		}
+		return OTHER;
+	}
+
+	/**
+	 * Returns whether every session value of the given kinds that correlates with a message value has
+	 * the same correlation key as the message value.
+	 */
+	private static boolean hasExactKey( Value value, int kinds ) {
+		if( (kinds & OTHER) != 0 ) {
+			// Booleans and byte arrays are compared after converting the message value to them.
+			return false;
+		}
+		if( (kinds & STRING) != 0 && value.isDouble() && isIntegral( value.doubleValue(), Long.MAX_VALUE ) ) {
+			// The key of 5.0 is "5", but the string "5.0" correlates with it.
+			return false;
+		}
+		if( (kinds & (INT | LONG | DOUBLE)) == 0 || value.isInt() ) {
+			return true;
+		} else if( value.isLong() ) {
+			// Converting to int or double may lose digits, e.g., the long 2^32 + 5 matches the int 5.
+			final long l = value.longValue();
+			return ((kinds & INT) == 0 || (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE))
+				&& ((kinds & DOUBLE) == 0 || (l >= -(1L << 53) && l <= 1L << 53));
+		} else if( value.isDouble() ) {
+			// Converting to int or long truncates, e.g., 5.5 matches the int 5.
+			final double d = value.doubleValue();
+			return ((kinds & INT) == 0 || isIntegral( d, Integer.MAX_VALUE ))
+				&& ((kinds & LONG) == 0 || isIntegral( d, Long.MAX_VALUE ));
+		}
+		// Strings are parsed when compared with numbers, e.g., "05" matches 5 and "abc" matches 0.
+		return false;
+	}
+
+	/**
+	 * Returns whether the correlation keys of a message (see {@link #correlationKey(Value)}) are those
+	 * of every session the message correlates with. This depends on the kinds of the values held by
+	 * sessions: e.g., the message value "05" correlates with the session value 5, whose key is "5".
+	 * Messages for which this does not hold must be checked against all sessions.
+	 *
+	 * @param message the message to check
+	 * @return {@code true} if the keys of the message identify the sessions it correlates with
+	 */
+	protected boolean hasExactKeys( CommMessage message ) {
+		final CorrelationSet cset = interpreter.getCorrelationSetForOperation( message.operationName() );
+		if( cset == null ) {
+			return true;
+		}
+		final int kinds = sessionKinds.get();
+		for( CorrelationPair pair : cset.getOperationCorrelationPairs( message.operationName() ) ) {
+			final Value messageValue = pair.messagePath().getValueOrNull( message.value() );
+			if( messageValue != null && messageValue.isDefined() && !hasExactKey( messageValue, kinds ) ) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the routing stripe for a message, or {@code null} if the message must be routed while no
+	 * other message is. A message that correlates with a session always gets the same stripe as the
+	 * message that started it, so that it can not overtake the start of the session. Messages whose
+	 * correlation keys identify the sessions they correlate with (see
+	 * {@link #hasExactKeys(CommMessage)}) are striped by those keys. The other messages, and session
+	 * starters that would give sessions a new kind of correlation value, are routed exclusively.
+	 * Messages for operations without a correlation set are striped by operation name.
+	 */
+	private Lock stripeFor( CommMessage message ) {
+		int hash = 0;
+		final CorrelationSet cset = interpreter.getCorrelationSetForOperation( message.operationName() );
+		if( cset == null ) {
+			hash = message.operationName().hashCode();
+		} else {
+			if( !hasExactKeys( message ) ) {
+				return null;
+			}
+			final boolean starter = interpreter.getSessionStarter( message.operationName() ) != null;
+			final int kinds = sessionKinds.get();
+			for( CorrelationPair pair : cset.getOperationCorrelationPairs( message.operationName() ) ) {
+				final Value messageValue = pair.messagePath().getValueOrNull( message.value() );
+				if( messageValue != null && messageValue.isDefined() ) {
+					if( starter && (kinds & kindOf( messageValue )) == 0 ) {
+						return null;
+					}
+					// Sum is order independent, operations may list their aliases in any order.
+					hash += correlationKey( messageValue ).hashCode();
+				}
+			}
+		}
+		hash ^= (hash >>> 16);
+		return stripeLocks[ hash & (STRIPES - 1) ];
+	}
+
+	/**
+	 * Runs a task while no message is being routed by this engine.
+	 * 
+	 * @param task the task to run
+	 */
+	public void runExclusively( Runnable task ) {
+		routingLock.writeLock().lock();
+		try {
+			task.run();
+		} finally {
+			routingLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Routes a received message to the session it correlates with, or starts a new session with it.
+	 *
+	 * @param message the received message
+	 * @param channel the channel the message was received from
+	 * @throws CorrelationError if the message does not correlate with any session and can not start one
+	 * @throws FaultException if the message would start a new session, but the service is overloaded
+	 */
+	public void onMessageReceive( final CommMessage message, final CommChannel channel )
+		throws CorrelationError, FaultException {
+		// Session starters add kinds of session values only while holding the write lock, so the stripe
+		// is chosen while holding the read lock.
+		Lock lock = routingLock.readLock();
+		lock.lock();
+		final Lock stripeLock = stripeFor( message );
+		if( stripeLock == null ) {
+			lock.unlock();
+			lock = routingLock.writeLock();
+			lock.lock();
+		} else {
+			stripeLock.lock();
+		}
+		try {
+			if( !(
+			// We try to find a correlating process.
+			routeMessage( message, channel )
+				||
+				// If there is none, we must be able to start a new process with this message.
+				interpreter.startServiceSession( message, channel )) ) {
+				// Otherwise, exception.
+				throw new CorrelationError();
+			}
+		} finally {
+			if( stripeLock != null ) {
+				stripeLock.unlock();
+			}
+			lock.unlock();
 		}
 	}
 }
@@ -21,15 +21,327 @@
 
 package jolie.runtime.correlation.impl;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
 import jolie.Interpreter;
+import jolie.SessionThread;
+import jolie.lang.Constants.ExecutionMode;
+import jolie.net.CommChannel;
+import jolie.net.CommMessage;
+import jolie.net.SessionMessage;
+import jolie.runtime.FaultException;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import jolie.runtime.VariablePath;
+import jolie.runtime.correlation.CorrelationEngine;
+import jolie.runtime.correlation.CorrelationSet;
+import jolie.runtime.correlation.CorrelationSet.CorrelationPair;
+import jolie.runtime.expression.Expression;
+import jolie.util.Pair;
 
 /**
- * A hash table based correlation algorithm (stub).
- * 
+ * A hash table based correlation algorithm. Sessions are indexed by the values of their correlation
+ * variables, so that routing a message requires a single lookup instead of a scan of all running
+ * sessions.
+ *
+ * The index is kept up to date by installing tracking correlation values (see
+ * {@link Value#createCSetValue(Value, Runnable)}) on the correlation variables of each session, and
+ * on the variables that contain them, when it starts. Values are hashed by their correlation key
+ * (see {@link #correlationKey(Value)}), and every candidate found in the index is checked with
+ * {@link #correlate(SessionThread, CommMessage)} before receiving the message. Messages that may
+ * correlate with sessions indexed under other keys (see {@link #hasExactKeys(CommMessage)}) are
+ * checked against all sessions.
+ *
+ * A session may replace the tree containing its correlation variables instead of assigning them,
+ * e.g., by receiving the response of a solicit-response in csets. The tracking value of the
+ * replaced tree is notified of that, and new tracking values are installed on the variables of the
+ * new tree.
+ *
  * @author Fabrizio Montesi
  */
-public class HashCorrelationEngine extends SimpleCorrelationEngine {
+public class HashCorrelationEngine extends CorrelationEngine {
+	private final Set< SessionThread > sessions = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+	private final Set< SessionThread > initialisingSessions =
+		Collections.newSetFromMap( new ConcurrentHashMap<>() );
+
+	// Correlation set -> correlation key -> sessions holding that key.
+	private final Map< CorrelationSet, Map< List< String >, Set< SessionThread > > > index =
+		new ConcurrentHashMap<>();
+
+	// Session -> correlation set -> key under which the session is currently indexed.
+	private final Map< SessionThread, Map< CorrelationSet, List< String > > > sessionKeys =
+		new ConcurrentHashMap<>();
+
+	// Session -> key of a correlation variable or of one of its ancestors -> tracking value installed
+	// on it.
+	private final Map< SessionThread, Map< String, Value > > trackedValues = new ConcurrentHashMap<>();
+
+	// Operation -> correlation pairs of the operation, in the order of the variables of its cset.
+	private final Map< String, Optional< CorrelationPair[] > > orderedPairs = new ConcurrentHashMap<>();
+
 	public HashCorrelationEngine( Interpreter interpreter ) {
 		super( interpreter );
 	}
+
+	@Override
+	public boolean routeMessage( CommMessage message, CommChannel channel ) {
+		final SessionThread session = findSession( message );
+		if( session == null ) {
+			return false;
+		}
+		session.pushMessage( new SessionMessage( message, channel ) );
+		return true;
+	}
+
+	private SessionThread findSession( CommMessage message ) {
+		final Iterator< SessionThread > initIt = initialisingSessions.iterator();
+		if( initIt.hasNext() ) {
+			return initIt.next();
+		}
+
+		final ExecutionMode executionMode = interpreter().executionMode();
+		if( interpreter().correlationSets().isEmpty() && executionMode == ExecutionMode.SINGLE ) {
+			return anySession();
+		}
+
+		final CorrelationSet cset = interpreter().getCorrelationSetForOperation( message.operationName() );
+		if( cset == null ) {
+			return executionMode == ExecutionMode.SINGLE ? anySession() : null;
+		}
+
+		final Optional< CorrelationPair[] > pairs =
+			orderedPairs.computeIfAbsent( message.operationName(), op -> orderPairs( cset, op ) );
+		if( !pairs.isPresent() || !hasExactKeys( message ) ) {
+			// The operation does not provide a value for every variable, or the message may correlate
+			// with sessions indexed under other keys: we can not use the index.
+			for( SessionThread session : sessions ) {
+				if( correlate( session, message ) ) {
+					return session;
+				}
+			}
+			return null;
+		}
+
+		final List< String > key = messageKey( pairs.get(), message );
+		if( key == null ) {
+			return null;
+		}
+
+		final Map< List< String >, Set< SessionThread > > csetIndex = index.get( cset );
+		final Set< SessionThread > candidates = csetIndex == null ? null : csetIndex.get( key );
+		if( candidates != null ) {
+			for( SessionThread session : candidates ) {
+				if( correlate( session, message ) ) {
+					return session;
+				}
+			}
+		}
+		return null;
+	}
+
+	private SessionThread anySession() {
+		final Iterator< SessionThread > it = sessions.iterator();
+		return it.hasNext() ? it.next() : null;
+	}
+
+	@Override
+	public void onSessionStart( SessionThread session, Interpreter.SessionStarter starter, CommMessage message ) {
+		sessions.add( session );
+		trackCorrelationValues( session );
+		initCorrelationValues( session, starter, message );
+	}
+
+	@Override
+	public void onSingleExecutionSessionStart( SessionThread session ) {
+		sessions.add( session );
+		if( session.isInitialisingThread() ) {
+			initialisingSessions.add( session );
+		}
+		trackCorrelationValues( session );
+	}
+
+	@Override
+	public void onSessionExecuted( SessionThread session ) {
+		sessions.remove( session );
+		initialisingSessions.remove( session );
+		trackedValues.remove( session );
+		final Map< CorrelationSet, List< String > > keys = sessionKeys.remove( session );
+		if( keys != null ) {
+			synchronized( keys ) {
+				keys.forEach( ( cset, key ) -> removeFromIndex( cset, key, session ) );
+				keys.clear();
+			}
+		}
+	}
+
+	@Override
+	public void onSessionError( SessionThread session, FaultException fault ) {
+		onSessionExecuted( session );
+	}
+
+	/**
+	 * Replaces the correlation variables of the session with tracking values, which update the index
+	 * every time they are assigned or replaced.
+	 */
+	private void trackCorrelationValues( SessionThread session ) {
+		if( interpreter().correlationSets().isEmpty() ) {
+			return;
+		}
+		sessionKeys.put( session, new HashMap<>() );
+		trackedValues.put( session, new HashMap<>() );
+		updateTracking( session, true );
+	}
+
+	/**
+	 * Installs tracking values on the correlation variables of the session, and on the variables that
+	 * contain them, where they are missing, and updates the index. This is invoked by the tracking
+	 * values themselves, so a replaced tree is tracked again as soon as it is replaced, and a removed
+	 * variable as soon as it is created again.
+	 *
+	 * @param create if true, the correlation variables that do not exist are created, otherwise only
+	 *        the elements of existing vectors are
+	 */
+	private void updateTracking( SessionThread session, boolean create ) {
+		final Map< String, Value > tracked = trackedValues.get( session );
+		if( tracked == null ) {
+			return;
+		}
+		synchronized( tracked ) {
+			final Runnable listener = () -> updateTracking( session, false );
+			for( CorrelationSet cset : interpreter().correlationSets() ) {
+				for( VariablePath path : cset.correlationVariablePaths() ) {
+					// Correlation variable paths are made of constants, and can not go through aliases
+					Value currValue = session.state().root();
+					final StringBuilder key = new StringBuilder();
+					for( Pair< Expression, Expression > pair : path.path() ) {
+						final String name = pair.key().evaluate().strValue();
+						final int i = pair.value() == null ? 0 : pair.value().evaluate().intValue();
+						if( !create && !currValue.hasChildren( name ) ) {
+							// Replaced by a tree without this variable, which must not be changed
+							break;
+						}
+						key.append( '.' ).append( name ).append( '[' ).append( i ).append( ']' );
+						final ValueVector vector = currValue.getChildren( name );
+						currValue = vector.get( i );
+						if( currValue != tracked.get( key.toString() ) ) {
+							currValue = Value.createCSetValue( currValue, listener );
+							vector.set( i, currValue );
+							tracked.put( key.toString(), currValue );
+						}
+					}
+				}
+				updateIndex( session, cset );
+			}
+		}
+	}
+
+	private void updateIndex( SessionThread session, CorrelationSet cset ) {
+		final Map< CorrelationSet, List< String > > keys = sessionKeys.get( session );
+		if( keys == null ) {
+			return;
+		}
+		synchronized( keys ) {
+			if( sessionKeys.get( session ) != keys ) {
+				// The session has terminated in the meantime.
+				return;
+			}
+			final List< String > newKey = sessionKey( session, cset );
+			final List< String > oldKey = keys.get( cset );
+			if( Objects.equals( oldKey, newKey ) ) {
+				return;
+			}
+			if( oldKey != null ) {
+				removeFromIndex( cset, oldKey, session );
+			}
+			if( newKey == null ) {
+				keys.remove( cset );
+			} else {
+				index.computeIfAbsent( cset, k -> new ConcurrentHashMap<>() )
+					.compute( newKey, ( k, set ) -> {
+						if( set == null ) {
+							set = Collections.newSetFromMap( new ConcurrentHashMap<>() );
+						}
+						set.add( session );
+						return set;
+					} );
+				keys.put( cset, newKey );
+			}
+		}
+	}
+
+	private void removeFromIndex( CorrelationSet cset, List< String > key, SessionThread session ) {
+		final Map< List< String >, Set< SessionThread > > csetIndex = index.get( cset );
+		if( csetIndex != null ) {
+			csetIndex.computeIfPresent( key, ( k, set ) -> {
+				set.remove( session );
+				return set.isEmpty() ? null : set;
+			} );
+		}
+	}
+
+	private List< String > sessionKey( SessionThread session, CorrelationSet cset ) {
+		final List< VariablePath > paths = cset.correlationVariablePaths();
+		final String[] key = new String[ paths.size() ];
+		for( int i = 0; i < key.length; i++ ) {
+			final Value value = paths.get( i ).getValueOrNull( session.state().root() );
+			if( value == null || !value.isDefined() ) {
+				return null;
+			}
+			noteSessionValue( value );
+			key[ i ] = correlationKey( value );
+		}
+		return Arrays.asList( key );
+	}
+
+	private static List< String > messageKey( CorrelationPair[] pairs, CommMessage message ) {
+		final String[] key = new String[ pairs.length ];
+		for( int i = 0; i < key.length; i++ ) {
+			final Value value = pairs[ i ].messagePath().getValueOrNull( message.value() );
+			if( value == null || !value.isDefined() ) {
+				return null;
+			}
+			key[ i ] = correlationKey( value );
+		}
+		return Arrays.asList( key );
+	}
+
+	private static Optional< CorrelationPair[] > orderPairs( CorrelationSet cset, String operationName ) {
+		final List< CorrelationPair > pairs = cset.getOperationCorrelationPairs( operationName );
+		final List< VariablePath > paths = cset.correlationVariablePaths();
+		final CorrelationPair[] ret = new CorrelationPair[ paths.size() ];
+		if( pairs == null ) {
+			return Optional.empty();
+		}
+		for( int i = 0; i < ret.length; i++ ) {
+			final String pathKey = pathKey( paths.get( i ) );
+			for( CorrelationPair pair : pairs ) {
+				if( pathKey.equals( pathKey( pair.sessionPath() ) ) ) {
+					ret[ i ] = pair;
+				}
+			}
+			if( ret[ i ] == null ) {
+				return Optional.empty();
+			}
+		}
+		return Optional.of( ret );
+	}
+
+	// Correlation variable paths are made of constants, so we can safely evaluate them here.
+	private static String pathKey( VariablePath path ) {
+		final StringBuilder builder = new StringBuilder();
+		for( Pair< Expression, Expression > pair : path.path() ) {
+			builder.append( '.' ).append( pair.key().evaluate().strValue() )
+				.append( '[' ).append( pair.value() == null ? 0 : pair.value().evaluate().intValue() ).append( ']' );
+		}
+		return builder.toString();
+	}
 }
@@ -26,39 +26,52 @@ import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
 
 import jolie.ExecutionThread;
 import jolie.Interpreter;
 import jolie.net.CommChannel;
 import jolie.net.CommChannelHandler;
+import jolie.net.CommCore;
 import jolie.net.CommMessage;
-import jolie.net.PollableCommChannel;
 import jolie.runtime.InvalidIdException;
 import jolie.runtime.JavaService;
 
-
-// TODO: this should not be polled
-
 /**
  * @author Fabrizio Montesi
  */
-public class JavaCommChannel extends CommChannel implements PollableCommChannel {
+public class JavaCommChannel extends CommChannel {
 	private final JavaService javaService;
-	private final Map< Long, Future< CommMessage > > messages = new ConcurrentHashMap<>();
+	private final Map< Long, CompletableFuture< CommMessage > > messages = new ConcurrentHashMap<>();
+	// The CommCore waiting for input on this channel, if any (see disposeForInputImpl)
+	private final AtomicReference< CommCore > inputWaiter = new AtomicReference<>();
 
 	public JavaCommChannel( JavaService javaService ) {
 		this.javaService = javaService;
 	}
 
-	@Override
-	public boolean isReady() {
-		return messages.isEmpty() == false;
-	}
-
+	/**
+	 * Schedules the receiving of a response on this channel as soon as one of the pending requests is
+	 * completed, instead of polling for it.
+	 */
 	@Override
 	protected void disposeForInputImpl()
 		throws IOException {
-		Interpreter.getInstance().commCore().registerForPolling( this );
+		inputWaiter.set( Interpreter.getInstance().commCore() );
+		// A request completed before the waiter was set did not schedule the receiving
+		for( CompletableFuture< CommMessage > f : messages.values() ) {
+			if( f.isDone() ) {
+				scheduleReceive();
+				break;
+			}
+		}
+	}
+
+	private void scheduleReceive() {
+		final CommCore commCore = inputWaiter.getAndSet( null );
+		if( commCore != null ) {
+			commCore.scheduleReceive( this, parentInputPort() );
+		}
 	}
 
 	@Override
@@ -69,7 +82,7 @@ public class JavaCommChannel extends CommChannel implements PollableCommChannel
 	@Override
 	public void send( CommMessage message )
 		throws IOException {
-		sendImpl( message );
+		sendImpl( ownMessage( message ) );
 	}
 
 	@Override
@@ -77,6 +90,7 @@ public class JavaCommChannel extends CommChannel implements PollableCommChannel
 		throws IOException {
 		final CompletableFuture< CommMessage > f = new CompletableFuture<>();
 		messages.put( message.id(), f );
+		f.whenComplete( ( response, exception ) -> scheduleReceive() );
 
 		final ExecutionThread ethread = ExecutionThread.currentThread();
 		Interpreter.getInstance().commCore().executor().submit( () -> {
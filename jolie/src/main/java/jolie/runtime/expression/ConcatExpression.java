@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.runtime.expression;
+
+import jolie.process.TransformationReason;
+import jolie.runtime.Value;
+
+/**
+ * A sum expression that is known to be a string concatenation, because its first operand is a
+ * string constant and all its operators are additions (e.g., "Hello, " + name + "!"). Since the
+ * partial result is always a string, each operand is just appended as a string.
+ */
+public final class ConcatExpression implements Expression {
+	private final String prefix;
+	private final Expression[] operands;
+
+	public ConcatExpression( String prefix, Expression[] operands ) {
+		this.prefix = prefix;
+		this.operands = operands;
+	}
+
+	@Override
+	public Expression cloneExpression( TransformationReason reason ) {
+		final Expression[] cc = new Expression[ operands.length ];
+		for( int i = 0; i < operands.length; i++ ) {
+			cc[ i ] = operands[ i ].cloneExpression( reason );
+		}
+		return new ConcatExpression( prefix, cc );
+	}
+
+	@Override
+	public Value evaluate() {
+		final StringBuilder builder = new StringBuilder( prefix );
+		for( Expression operand : operands ) {
+			builder.append( operand.evaluate().strValue() );
+		}
+		return Value.create( builder.toString() );
+	}
+}
@@ -21,6 +21,7 @@
 
 package jolie.runtime.expression;
 
+import jolie.lang.Constants;
 import jolie.process.TransformationReason;
 import jolie.runtime.FaultException;
 import jolie.runtime.Value;
@@ -44,28 +45,67 @@ public class ProductExpression implements Expression {
 
 	@Override
 	public Value evaluate() {
-		Value val = Value.create( children[ 0 ].expression().evaluate() );
-		for( int i = 1; i < children.length; i++ ) {
-			switch( children[ i ].type() ) {
-			case MULTIPLY:
-				val.multiply( children[ i ].expression().evaluate() );
-				break;
-			case DIVIDE:
-				try {
-					val.divide( children[ i ].expression().evaluate() );
-				} catch( ArithmeticException ae ) {
-					throw new FaultException( "ArithmeticException", ae.getLocalizedMessage() )
-						.toRuntimeFaultException();
+		final Value first = children[ 0 ].expression().evaluate();
+		if( first.isInt() ) {
+			// Fast path for integer arithmetic, which does not need intermediate values
+			int result = first.intValue();
+			for( int i = 1; i < children.length; i++ ) {
+				final Value operand = children[ i ].expression().evaluate();
+				if( !operand.isInt() ) {
+					final Value val = Value.create( result );
+					apply( val, children[ i ].type(), operand );
+					return evaluate( val, i + 1 );
 				}
-				break;
-			case MODULUS:
-				val.modulo( children[ i ].expression().evaluate() );
-				break;
-			default:
-				throw new IllegalStateException( "Invalid operator in product expression" );
+				result = apply( result, children[ i ].type(), operand.intValue() );
 			}
+			return Value.create( result );
 		}
+		return evaluate( Value.create( first ), 1 );
+	}
 
+	private Value evaluate( Value val, int from ) {
+		for( int i = from; i < children.length; i++ ) {
+			apply( val, children[ i ].type(), children[ i ].expression().evaluate() );
+		}
 		return val;
 	}
+
+	private static int apply( int left, Constants.OperandType type, int right ) {
+		switch( type ) {
+		case MULTIPLY:
+			return left * right;
+		case DIVIDE:
+			try {
+				return left / right;
+			} catch( ArithmeticException ae ) {
+				throw new FaultException( "ArithmeticException", ae.getLocalizedMessage() )
+					.toRuntimeFaultException();
+			}
+		case MODULUS:
+			return left % right;
+		default:
+			throw new IllegalStateException( "Invalid operator in product expression" );
+		}
+	}
+
+	private static void apply( Value val, Constants.OperandType type, Value operand ) {
+		switch( type ) {
+		case MULTIPLY:
+			val.multiply( operand );
+			break;
+		case DIVIDE:
+			try {
+				val.divide( operand );
+			} catch( ArithmeticException ae ) {
+				throw new FaultException( "ArithmeticException", ae.getLocalizedMessage() )
+					.toRuntimeFaultException();
+			}
+			break;
+		case MODULUS:
+			val.modulo( operand );
+			break;
+		default:
+			throw new IllegalStateException( "Invalid operator in product expression" );
+		}
+	}
 }
@@ -47,15 +47,38 @@ public final class SumExpression implements Expression {
 
 	@Override
 	public Value evaluate() {
-		final Value val = Value.create( children[ 0 ].expression().evaluate() );
-		for( int i = 1; i < children.length; i++ ) {
-			if( children[ i ].type() == Constants.OperandType.ADD ) {
-				val.add( children[ i ].expression().evaluate() );
-			} else {
-				val.subtract( children[ i ].expression().evaluate() );
+		final Value first = children[ 0 ].expression().evaluate();
+		if( first.isInt() ) {
+			// Fast path for integer arithmetic, which does not need intermediate values
+			int result = first.intValue();
+			for( int i = 1; i < children.length; i++ ) {
+				final Value operand = children[ i ].expression().evaluate();
+				if( !operand.isInt() ) {
+					final Value val = Value.create( result );
+					apply( val, children[ i ].type(), operand );
+					return evaluate( val, i + 1 );
+				}
+				result = children[ i ].type() == Constants.OperandType.ADD
+					? result + operand.intValue()
+					: result - operand.intValue();
 			}
+			return Value.create( result );
 		}
+		return evaluate( Value.create( first ), 1 );
+	}
 
+	private Value evaluate( Value val, int from ) {
+		for( int i = from; i < children.length; i++ ) {
+			apply( val, children[ i ].type(), children[ i ].expression().evaluate() );
+		}
 		return val;
 	}
+
+	private static void apply( Value val, Constants.OperandType type, Value operand ) {
+		if( type == Constants.OperandType.ADD ) {
+			val.add( operand );
+		} else {
+			val.subtract( operand );
+		}
+	}
 }
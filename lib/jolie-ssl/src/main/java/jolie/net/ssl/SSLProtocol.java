@@ -26,7 +26,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
-import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
@@ -44,11 +43,11 @@ import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLEngineResult;
 import javax.net.ssl.SSLEngineResult.HandshakeStatus;
 import javax.net.ssl.SSLEngineResult.Status;
+import javax.net.ssl.SSLParameters;
 import javax.net.ssl.TrustManagerFactory;
 
 import jolie.net.CommMessage;
 import jolie.net.protocols.CommProtocol;
-import jolie.net.protocols.SequentialCommProtocol;
 import jolie.runtime.Value;
 import jolie.runtime.VariablePath;
 
@@ -57,23 +56,23 @@ import jolie.runtime.VariablePath;
  * 
  * @author Fabrizio Montesi 2010: complete rewrite 2015: major fixups
  */
-public class SSLProtocol extends SequentialCommProtocol {
+public class SSLProtocol extends CommProtocol {
 	private static final int INITIAL_BUFFER_SIZE = 8192;
 
 	private final boolean isClient;
 	private final URI location;
-	private boolean firstTime;
+	private volatile boolean firstTime;
 	private final CommProtocol wrappedProtocol;
-	private SSLEngine sslEngine;
+	private volatile SSLEngine sslEngine;
 
-	private OutputStream outputStream;
-	private InputStream inputStream;
+	private volatile OutputStream outputStream;
+	private volatile InputStream inputStream;
 
 	private final SSLInputStream sslInputStream = new SSLInputStream();
 	private final SSLOutputStream sslOutputStream = new SSLOutputStream();
 
 	private class SSLInputStream extends InputStream {
-		private ByteBuffer clearInputBuffer = ByteBuffer.allocate( 0 );
+		private volatile ByteBuffer clearInputBuffer = ByteBuffer.allocate( 0 );
 
 		@Override
 		public int read()
@@ -149,7 +148,7 @@ public class SSLProtocol extends SequentialCommProtocol {
 
 		private void writeCache()
 			throws IOException {
-			if( internalBuffer.hasRemaining() ) {
+			if( internalBuffer.position() > 0 ) {
 				handshake();
 				internalBuffer.flip();
 				wrap( internalBuffer );
@@ -158,38 +157,30 @@ public class SSLProtocol extends SequentialCommProtocol {
 		}
 
 		@Override
-		public void write( int b )
+		public synchronized void write( int b )
 			throws IOException {
-			try {
-				internalBuffer.put( (byte) b );
-			} catch( BufferOverflowException e ) {
-				// let us retry after freeing the buffer
+			if( !internalBuffer.hasRemaining() ) {
 				writeCache();
-				internalBuffer.put( (byte) b );
 			}
+			internalBuffer.put( (byte) b );
 		}
 
 		@Override
-		public void write( byte[] b, int off, int len )
+		public synchronized void write( byte[] b, int off, int len )
 			throws IOException {
-			try {
-
-				if( INITIAL_BUFFER_SIZE < (len - off) ) {
-					internalBuffer.put( b, off, (INITIAL_BUFFER_SIZE - 1) ); // otherwise it won't work in writeCache
-																				// wrt .remaining
-					writeCache();
-					write( b, (off + (INITIAL_BUFFER_SIZE - 1)), len );
-				} else {
-					internalBuffer.put( b, off, (len - off) );
+			while( len > 0 ) {
+				if( !internalBuffer.hasRemaining() ) {
 					writeCache();
 				}
-			} catch( BufferOverflowException e ) {
-				throw new IOException( e.fillInStackTrace() );
+				final int n = Math.min( len, internalBuffer.remaining() );
+				internalBuffer.put( b, off, n );
+				off += n;
+				len -= n;
 			}
 		}
 
 		@Override
-		public void flush()
+		public synchronized void flush()
 			throws IOException {
 			writeCache();
 		}
@@ -223,6 +214,35 @@ public class SSLProtocol extends SequentialCommProtocol {
 		return wrappedProtocol.name() + "s";
 	}
 
+	/**
+	 * The wrapped protocol decides whether channels may be shared by concurrent requests: reading and
+	 * writing are independent, as long as the wrapped protocol serialises its writes.
+	 */
+	@Override
+	public boolean isThreadSafe() {
+		return wrappedProtocol.isThreadSafe();
+	}
+
+	@Override
+	public int maxInFlightRequests() {
+		return wrappedProtocol.maxInFlightRequests();
+	}
+
+	@Override
+	public boolean requiresValueCopy() {
+		return wrappedProtocol.requiresValueCopy();
+	}
+
+	@Override
+	public boolean hasBufferedInput() {
+		return sslInputStream.clearInputBuffer.hasRemaining() || wrappedProtocol.hasBufferedInput();
+	}
+
+	@Override
+	public String applicationProtocol() {
+		return wrappedProtocol.applicationProtocol();
+	}
+
 	private String getSSLStringParameter( String parameterName, String defaultValue ) {
 		if( hasParameter( "ssl" ) ) {
 			Value sslParams = getParameterFirstValue( "ssl" );
@@ -305,13 +325,35 @@ public class SSLProtocol extends SequentialCommProtocol {
 			if( isClient == false ) {
 				sslEngine.setWantClientAuth( getSSLIntegerParameter( "wantClientAuth", 1 ) > 0 );
 			}
+			final String applicationProtocol = wrappedProtocol.applicationProtocol();
+			if( applicationProtocol != null ) {
+				// Servers also accept clients that do not support the protocol, which fall back to HTTP/1.1
+				final SSLParameters parameters = sslEngine.getSSLParameters();
+				setApplicationProtocols( parameters, isClient ? new String[] { applicationProtocol }
+					: new String[] { applicationProtocol, "http/1.1" } );
+				sslEngine.setSSLParameters( parameters );
+			}
 		} catch( NoSuchAlgorithmException | CertificateException | UnrecoverableKeyException | KeyStoreException
 			| KeyManagementException e ) {
 			throw new IOException( e );
 		}
 	}
 
-	private void handshake()
+	/**
+	 * Sets the application protocols negotiated with ALPN. The method is looked up reflectively, since
+	 * it is not available in all the supported versions of Java: without it, the application protocol
+	 * is used without negotiating it.
+	 */
+	private static void setApplicationProtocols( SSLParameters parameters, String[] protocols ) {
+		try {
+			SSLParameters.class.getMethod( "setApplicationProtocols", String[].class )
+				.invoke( parameters, (Object) protocols );
+		} catch( ReflectiveOperationException | RuntimeException e ) {
+			// ALPN is not supported by this Java runtime
+		}
+	}
+
+	private synchronized void handshake()
 		throws IOException {
 		if( firstTime ) {
 			init();
@@ -405,7 +447,7 @@ public class SSLProtocol extends SequentialCommProtocol {
 		return returnResult;
 	}
 
-	private void wrap( ByteBuffer source )
+	private synchronized void wrap( ByteBuffer source )
 		throws IOException {
 		final SSLResult result = new SSLResult( source.capacity() );
 		result.log = sslEngine.wrap( source, result.buffer );
@@ -41,6 +41,7 @@ import jolie.lang.parse.context.URIParsingContext;
 public abstract class AbstractParser {
 	private Scanner scanner; // Input scanner.
 	protected Scanner.Token token; /// < The current token.
+	private URIParsingContext context = null; // The last context returned by getContext()
 	private final List< Scanner.Token > tokens = new ArrayList<>();
 	private final StringBuilder stringBuilder = new StringBuilder( 256 );
 	private boolean backup = false;
@@ -164,12 +165,18 @@ public abstract class AbstractParser {
 	}
 
 	/**
-	 * Returns the current {@link ParsingContext} from the underlying {@link Scanner}
+	 * Returns the current {@link ParsingContext} from the underlying {@link Scanner}. Contexts are
+	 * immutable, so nodes on the same line share the same context.
 	 * 
 	 * @return the current {@link ParsingContext} from the underlying {@link Scanner}
 	 */
 	public final ParsingContext getContext() {
-		return new URIParsingContext( scanner.source(), scanner.line() );
+		URIParsingContext c = context;
+		if( c == null || c.line() != scanner.line() || c.source() != scanner.source() ) {
+			c = new URIParsingContext( scanner.source(), scanner.line() );
+			context = c;
+		}
+		return c;
 	}
 
 	/**
@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.lang.parse;
+
+import jolie.lang.Constants;
+import jolie.lang.parse.ast.OLSyntaxNode;
+import jolie.lang.parse.ast.expression.ConstantBoolExpression;
+import jolie.lang.parse.ast.expression.ConstantDoubleExpression;
+import jolie.lang.parse.ast.expression.ConstantIntegerExpression;
+import jolie.lang.parse.ast.expression.ConstantLongExpression;
+import jolie.lang.parse.ast.expression.ConstantStringExpression;
+import jolie.lang.parse.context.ParsingContext;
+
+/**
+ * Evaluation of operators on constants at compile time, following the semantics of the runtime (see
+ * jolie.runtime.Value).
+ *
+ * Constants are represented as boxed Java values (Integer, Long, Double, Boolean or String). Every
+ * operation returns null when its result can not be safely computed at compile time (e.g., a
+ * division by zero, which must raise a fault at runtime), in which case the expression is left as
+ * it is.
+ */
+final class ConstantFolding {
+	private ConstantFolding() {}
+
+	/**
+	 * Returns the value of a constant expression node, or null if the node is not a constant.
+	 */
+	static Object valueOf( OLSyntaxNode n ) {
+		if( n instanceof ConstantIntegerExpression ) {
+			return ((ConstantIntegerExpression) n).value();
+		} else if( n instanceof ConstantLongExpression ) {
+			return ((ConstantLongExpression) n).value();
+		} else if( n instanceof ConstantDoubleExpression ) {
+			return ((ConstantDoubleExpression) n).value();
+		} else if( n instanceof ConstantBoolExpression ) {
+			return ((ConstantBoolExpression) n).value();
+		} else if( n instanceof ConstantStringExpression ) {
+			return ((ConstantStringExpression) n).value();
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a constant expression node for the given value.
+	 */
+	static OLSyntaxNode toNode( ParsingContext context, Object value ) {
+		if( value instanceof Integer ) {
+			return new ConstantIntegerExpression( context, (Integer) value );
+		} else if( value instanceof Long ) {
+			return new ConstantLongExpression( context, (Long) value );
+		} else if( value instanceof Double ) {
+			return new ConstantDoubleExpression( context, (Double) value );
+		} else if( value instanceof Boolean ) {
+			return new ConstantBoolExpression( context, (Boolean) value );
+		}
+		return new ConstantStringExpression( context, ((String) value).intern() );
+	}
+
+	private static boolean isNumber( Object value ) {
+		return value instanceof Integer || value instanceof Long || value instanceof Double;
+	}
+
+	/**
+	 * Applies an arithmetic operator to two constants, or returns null if the result must be computed
+	 * at runtime.
+	 */
+	static Object apply( Constants.OperandType operator, Object left, Object right ) {
+		if( operator == Constants.OperandType.ADD && (left instanceof String || right instanceof String) ) {
+			return left.toString() + right.toString();
+		}
+		if( left instanceof Boolean && right instanceof Boolean ) {
+			switch( operator ) {
+			case ADD:
+				return (Boolean) left || (Boolean) right;
+			case MULTIPLY:
+				return (Boolean) left && (Boolean) right;
+			default:
+				return null;
+			}
+		}
+		if( !isNumber( left ) || !isNumber( right ) ) {
+			return null;
+		}
+
+		final Number l = (Number) left;
+		final Number r = (Number) right;
+		if( left instanceof Double || right instanceof Double ) {
+			switch( operator ) {
+			case ADD:
+				return l.doubleValue() + r.doubleValue();
+			case SUBTRACT:
+				return l.doubleValue() - r.doubleValue();
+			case MULTIPLY:
+				return l.doubleValue() * r.doubleValue();
+			case DIVIDE:
+				return l.doubleValue() / r.doubleValue();
+			case MODULUS:
+				return l.doubleValue() % r.doubleValue();
+			default:
+				return null;
+			}
+		} else if( left instanceof Long || right instanceof Long ) {
+			switch( operator ) {
+			case ADD:
+				return l.longValue() + r.longValue();
+			case SUBTRACT:
+				return l.longValue() - r.longValue();
+			case MULTIPLY:
+				return l.longValue() * r.longValue();
+			case DIVIDE:
+				return r.longValue() == 0 ? null : l.longValue() / r.longValue();
+			case MODULUS:
+				return r.longValue() == 0 ? null : l.longValue() % r.longValue();
+			default:
+				return null;
+			}
+		} else {
+			switch( operator ) {
+			case ADD:
+				return l.intValue() + r.intValue();
+			case SUBTRACT:
+				return l.intValue() - r.intValue();
+			case MULTIPLY:
+				return l.intValue() * r.intValue();
+			case DIVIDE:
+				return r.intValue() == 0 ? null : l.intValue() / r.intValue();
+			case MODULUS:
+				return r.intValue() == 0 ? null : l.intValue() % r.intValue();
+			default:
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Compares two constants, or returns null if the result must be computed at runtime. Only constants
+	 * of the same type are compared.
+	 */
+	static Boolean compare( Scanner.TokenType operator, Object left, Object right ) {
+		if( left.getClass() != right.getClass() ) {
+			return null;
+		}
+		if( operator == Scanner.TokenType.EQUAL || operator == Scanner.TokenType.NOT_EQUAL ) {
+			final boolean equal = left instanceof Double
+				? ((Double) left).doubleValue() == ((Double) right).doubleValue()
+				: left.equals( right );
+			return operator == Scanner.TokenType.EQUAL ? equal : !equal;
+		} else if( !isNumber( left ) ) {
+			return null;
+		}
+
+		final int c;
+		if( left instanceof Double ) {
+			final double l = (Double) left;
+			final double r = (Double) right;
+			if( Double.isNaN( l ) || Double.isNaN( r ) ) {
+				return null;
+			}
+			c = l < r ? -1 : l > r ? 1 : 0;
+		} else {
+			c = Long.compare( ((Number) left).longValue(), ((Number) right).longValue() );
+		}
+		switch( operator ) {
+		case LANGLE:
+			return c < 0;
+		case RANGLE:
+			return c > 0;
+		case MINOR_OR_EQUAL:
+			return c <= 0;
+		case MAJOR_OR_EQUAL:
+			return c >= 0;
+		default:
+			return null;
+		}
+	}
+}
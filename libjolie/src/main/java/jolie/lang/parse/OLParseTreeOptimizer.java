@@ -321,19 +321,37 @@ public class OLParseTreeOptimizer {
 		public void visit( IfStatement n ) {
 			IfStatement stm = new IfStatement( n.context() );
 			OLSyntaxNode condition;
+			OLSyntaxNode elseProcess = null;
+			boolean reachable = true;
 			for( Pair< OLSyntaxNode, OLSyntaxNode > pair : n.children() ) {
 				pair.key().accept( this );
 				condition = currNode;
+				if( condition instanceof ConstantBoolExpression ) {
+					if( ((ConstantBoolExpression) condition).value() ) {
+						// The following branches are unreachable
+						pair.value().accept( this );
+						elseProcess = currNode;
+						reachable = false;
+						break;
+					}
+					// This branch is unreachable
+					continue;
+				}
 				pair.value().accept( this );
 				stm.addChild( new Pair<>( condition, currNode ) );
 			}
 
-			if( n.elseProcess() != null ) {
+			if( reachable && n.elseProcess() != null ) {
 				n.elseProcess().accept( this );
-				stm.setElseProcess( currNode );
+				elseProcess = currNode;
 			}
 
-			currNode = stm;
+			if( stm.children().isEmpty() ) {
+				currNode = elseProcess == null ? new NullProcessStatement( n.context() ) : elseProcess;
+			} else {
+				stm.setElseProcess( elseProcess );
+				currNode = stm;
+			}
 		}
 
 		@Override
@@ -348,10 +366,15 @@ public class OLParseTreeOptimizer {
 
 		@Override
 		public void visit( WhileStatement n ) {
-			currNode = new WhileStatement(
-				n.context(),
-				optimizeNode( n.condition() ),
-				optimizeNode( n.body() ) );
+			final OLSyntaxNode condition = optimizeNode( n.condition() );
+			if( condition instanceof ConstantBoolExpression && !((ConstantBoolExpression) condition).value() ) {
+				currNode = new NullProcessStatement( n.context() );
+			} else {
+				currNode = new WhileStatement(
+					n.context(),
+					condition,
+					optimizeNode( n.body() ) );
+			}
 		}
 
 		@Override
@@ -587,9 +610,24 @@ public class OLParseTreeOptimizer {
 				OrConditionNode ret = new OrConditionNode( n.context() );
 				for( OLSyntaxNode child : n.children() ) {
 					child.accept( this );
+					if( currNode instanceof ConstantBoolExpression ) {
+						if( ((ConstantBoolExpression) currNode).value() ) {
+							// The following children are never evaluated
+							ret.addChild( currNode );
+							break;
+						}
+						// false || A === A
+						continue;
+					}
 					ret.addChild( currNode );
 				}
-				currNode = ret;
+				if( ret.children().isEmpty() ) {
+					currNode = new ConstantBoolExpression( n.context(), false );
+				} else if( ret.children().size() == 1 ) {
+					currNode = ret.children().get( 0 );
+				} else {
+					currNode = ret;
+				}
 			} else {
 				n.children().get( 0 ).accept( this );
 			}
@@ -601,9 +639,24 @@ public class OLParseTreeOptimizer {
 				AndConditionNode ret = new AndConditionNode( n.context() );
 				for( OLSyntaxNode child : n.children() ) {
 					child.accept( this );
+					if( currNode instanceof ConstantBoolExpression ) {
+						if( !((ConstantBoolExpression) currNode).value() ) {
+							// The following children are never evaluated
+							ret.addChild( currNode );
+							break;
+						}
+						// true && A === A
+						continue;
+					}
 					ret.addChild( currNode );
 				}
-				currNode = ret;
+				if( ret.children().isEmpty() ) {
+					currNode = new ConstantBoolExpression( n.context(), true );
+				} else if( ret.children().size() == 1 ) {
+					currNode = ret.children().get( 0 );
+				} else {
+					currNode = ret;
+				}
 			} else {
 				n.children().get( 0 ).accept( this );
 			}
@@ -612,7 +665,11 @@ public class OLParseTreeOptimizer {
 		@Override
 		public void visit( NotExpressionNode n ) {
 			n.expression().accept( this );
-			currNode = new NotExpressionNode( n.context(), currNode );
+			if( currNode instanceof ConstantBoolExpression ) {
+				currNode = new ConstantBoolExpression( n.context(), !((ConstantBoolExpression) currNode).value() );
+			} else {
+				currNode = new NotExpressionNode( n.context(), currNode );
+			}
 		}
 
 		@Override
@@ -620,7 +677,15 @@ public class OLParseTreeOptimizer {
 			n.leftExpression().accept( this );
 			OLSyntaxNode leftExpression = currNode;
 			n.rightExpression().accept( this );
-			currNode = new CompareConditionNode( n.context(), leftExpression, currNode, n.opType() );
+			final Object left = ConstantFolding.valueOf( leftExpression );
+			final Object right = ConstantFolding.valueOf( currNode );
+			final Boolean result =
+				left == null || right == null ? null : ConstantFolding.compare( n.opType(), left, right );
+			if( result != null ) {
+				currNode = new ConstantBoolExpression( n.context(), result );
+			} else {
+				currNode = new CompareConditionNode( n.context(), leftExpression, currNode, n.opType() );
+			}
 		}
 
 		@Override
@@ -652,8 +717,11 @@ public class OLParseTreeOptimizer {
 		public void visit( ProductExpressionNode n ) {
 			if( n.operands().size() > 1 ) {
 				ProductExpressionNode ret = new ProductExpressionNode( n.context() );
-				for( Pair< Constants.OperandType, OLSyntaxNode > pair : n.operands() ) {
-					pair.value().accept( this );
+				for( Pair< Constants.OperandType, OLSyntaxNode > pair : foldOperands( n.context(), n.operands() ) ) {
+					if( pair == null ) {
+						return;
+					}
+					currNode = pair.value();
 					if( pair.key() == Constants.OperandType.MULTIPLY ) {
 						ret.multiply( currNode );
 					} else if( pair.key() == Constants.OperandType.DIVIDE ) {
@@ -672,8 +740,11 @@ public class OLParseTreeOptimizer {
 		public void visit( SumExpressionNode n ) {
 			if( n.operands().size() > 1 ) {
 				SumExpressionNode ret = new SumExpressionNode( n.context() );
-				for( Pair< Constants.OperandType, OLSyntaxNode > pair : n.operands() ) {
-					pair.value().accept( this );
+				for( Pair< Constants.OperandType, OLSyntaxNode > pair : foldOperands( n.context(), n.operands() ) ) {
+					if( pair == null ) {
+						return;
+					}
+					currNode = pair.value();
 					if( pair.key() == Constants.OperandType.ADD ) {
 						ret.add( currNode );
 					} else {
@@ -686,6 +757,46 @@ public class OLParseTreeOptimizer {
 			}
 		}
 
+		/**
+		 * Optimizes the operands of a sum or product expression, folding its longest constant prefix.
+		 * Operators are applied from left to right, so constants following a non-constant operand can not
+		 * be folded (e.g., in x + 1 + 2, x may be a string). If the whole expression is constant, the
+		 * result is a list with a single null element, and currNode is set to the resulting constant.
+		 */
+		private List< Pair< Constants.OperandType, OLSyntaxNode > > foldOperands( ParsingContext context,
+			List< Pair< Constants.OperandType, OLSyntaxNode > > operands ) {
+			final List< Pair< Constants.OperandType, OLSyntaxNode > > ret = new ArrayList<>( operands.size() );
+			Object folded = null;
+			for( Pair< Constants.OperandType, OLSyntaxNode > pair : operands ) {
+				pair.value().accept( this );
+				if( ret.isEmpty() ) {
+					final Object value = ConstantFolding.valueOf( currNode );
+					if( folded == null ) {
+						// The operator of the first operand is ignored by the runtime
+						folded = value;
+						if( folded != null ) {
+							continue;
+						}
+					} else if( value != null ) {
+						final Object result = ConstantFolding.apply( pair.key(), folded, value );
+						if( result != null ) {
+							folded = result;
+							continue;
+						}
+					}
+					if( folded != null ) {
+						ret.add( new Pair<>( operands.get( 0 ).key(), ConstantFolding.toNode( context, folded ) ) );
+					}
+				}
+				ret.add( new Pair<>( pair.key(), currNode ) );
+			}
+			if( ret.isEmpty() ) {
+				currNode = ConstantFolding.toNode( context, folded );
+				ret.add( null );
+			}
+			return ret;
+		}
+
 		@Override
 		public void visit( VariableExpressionNode n ) {
 			currNode = new VariableExpressionNode(
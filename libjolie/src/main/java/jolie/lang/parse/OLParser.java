@@ -128,6 +128,14 @@ public class OLParser extends AbstractParser {
 		return definedTypes;
 	}
 
+	/**
+	 * Returns the URIs of the files included by the parsed program, in the order they have been
+	 * included.
+	 */
+	public List< URI > includedFiles() {
+		return includedFiles;
+	}
+
 	public Program parse()
 		throws IOException, ParserException {
 
@@ -1058,6 +1066,7 @@ public class OLParser extends AbstractParser {
 	}
 
 	private final Map< String, URL > resourceCache = new HashMap<>();
+	private final List< URI > includedFiles = new ArrayList<>();
 
 	private IncludeFile tryAccessIncludeFile( String origIncludeStr ) {
 		final String includeStr = UriUtils.normalizeWindowsPath( origIncludeStr );
@@ -1145,6 +1154,7 @@ public class OLParser extends AbstractParser {
 				}
 			}
 
+			includedFiles.add( includeFile.getURI() );
 			origIncludePaths = includePaths;
 			// includes are explicitly parsed in ASCII to be independent of program's encoding
 			setScanner( new Scanner( includeFile.getInputStream(), includeFile.getURI(), "US-ASCII",
@@ -1535,6 +1545,7 @@ public class OLParser extends AbstractParser {
 				break;
 			case "courier":
 				serviceBlockProgramBuilder.addChild( parseCourierDefinition() );
+				break;
 			case "init":
 				if( internalInit == null ) {
 					internalInit = new SequenceStatement( getContext() );
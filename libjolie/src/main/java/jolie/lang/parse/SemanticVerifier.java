@@ -31,7 +31,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import jolie.lang.CodeCheckingError;
 import jolie.lang.CodeCheckingException;
 import jolie.lang.Constants;
@@ -271,27 +273,45 @@ public class SemanticVerifier implements UnitOLVisitor {
 		errors.add( CodeCheckingError.build( node, message ) );
 	}
 
+	/**
+	 * Checks that types and operations defined more than once have the same structure. The checks are
+	 * independent of each other, so they are run in parallel; their errors are reported in the order of
+	 * the checks.
+	 */
 	private void checkToBeEqualTypes() {
+		List< Consumer< List< CodeCheckingError > > > checks = new ArrayList<>();
 		for( Entry< TypeDefinition, List< TypeDefinition > > entry : typesToBeEqual.entrySet() ) {
 			for( TypeDefinition type : entry.getValue() ) {
-				if( !entry.getKey().isEquivalentTo( type ) ) {
-					error( type, "type " + type.id() + " has already been defined with a different structure" );
-				}
+				checks.add( checkErrors -> {
+					if( !entry.getKey().isEquivalentTo( type ) ) {
+						checkErrors.add( CodeCheckingError.build( type,
+							"type " + type.id() + " has already been defined with a different structure" ) );
+					}
+				} );
 			}
 		}
 
 		for( Entry< OneWayOperationDeclaration, List< OneWayOperationDeclaration > > entry : owToBeEqual.entrySet() ) {
 			for( OneWayOperationDeclaration ow : entry.getValue() ) {
-				checkEqualness( entry.getKey(), ow );
+				checks.add( checkErrors -> checkEqualness( entry.getKey(), ow, checkErrors ) );
 			}
 		}
 
 		for( Entry< RequestResponseOperationDeclaration, List< RequestResponseOperationDeclaration > > entry : rrToBeEqual
 			.entrySet() ) {
 			for( RequestResponseOperationDeclaration rr : entry.getValue() ) {
-				checkEqualness( entry.getKey(), rr );
+				checks.add( checkErrors -> checkEqualness( entry.getKey(), rr, checkErrors ) );
 			}
 		}
+
+		checks.parallelStream()
+			.map( check -> {
+				List< CodeCheckingError > checkErrors = new ArrayList<>();
+				check.accept( checkErrors );
+				return checkErrors;
+			} )
+			.collect( Collectors.toList() )
+			.forEach( errors::addAll );
 	}
 
 	private void checkCorrelationSets() {
@@ -686,40 +706,42 @@ public class SemanticVerifier implements UnitOLVisitor {
 		}
 	}
 
-	private void checkEqualness( OneWayOperationDeclaration n, OneWayOperationDeclaration other ) {
+	private static void checkEqualness( OneWayOperationDeclaration n, OneWayOperationDeclaration other,
+		List< CodeCheckingError > errors ) {
 		if( n.requestType().isEquivalentTo( other.requestType() ) == false ) {
-			error( n,
+			errors.add( CodeCheckingError.build( n,
 				"input operations sharing the same name cannot declare different request types (One-Way operation "
-					+ n.id() + ")" );
+					+ n.id() + ")" ) );
 		}
 	}
 
-	private void checkEqualness( RequestResponseOperationDeclaration n, RequestResponseOperationDeclaration other ) {
+	private static void checkEqualness( RequestResponseOperationDeclaration n,
+		RequestResponseOperationDeclaration other, List< CodeCheckingError > errors ) {
 		if( n.requestType().isEquivalentTo( other.requestType() ) == false ) {
-			error( n,
+			errors.add( CodeCheckingError.build( n,
 				"input operations sharing the same name cannot declare different request types (Request-Response operation "
-					+ n.id() + ")" );
+					+ n.id() + ")" ) );
 		}
 
 		if( n.responseType().isEquivalentTo( other.responseType() ) == false ) {
-			error( n,
+			errors.add( CodeCheckingError.build( n,
 				"input operations sharing the same name cannot declare different response types (Request-Response operation "
-					+ n.id() + ")" );
+					+ n.id() + ")" ) );
 		}
 
 		if( n.faults().size() != other.faults().size() ) {
-			error( n,
+			errors.add( CodeCheckingError.build( n,
 				"input operations sharing the same name cannot declared different fault types (Request-Response operation "
-					+ n.id() );
+					+ n.id() ) );
 		}
 
 		for( Entry< String, TypeDefinition > fault : n.faults().entrySet() ) {
 			if( fault.getValue() != null ) {
 				if( !other.faults().containsKey( fault.getKey() )
 					|| !other.faults().get( fault.getKey() ).isEquivalentTo( fault.getValue() ) ) {
-					error( n,
+					errors.add( CodeCheckingError.build( n,
 						"input operations sharing the same name cannot declared different fault types (Request-Response operation "
-							+ n.id() );
+							+ n.id() ) );
 				}
 			}
 		}
@@ -956,6 +978,9 @@ public class SemanticVerifier implements UnitOLVisitor {
 		if( n.rightPath().isCSet() ) {
 			error( n, "Making an alias to a correlation variable is forbidden" );
 		}
+		if( n.leftPath().isCSet() ) {
+			error( n, "Making a correlation variable an alias is forbidden" );
+		}
 	}
 
 	@Override
@@ -1200,6 +1225,9 @@ public class SemanticVerifier implements UnitOLVisitor {
 		n.keyPath().accept( this );
 		n.targetPath().accept( this );
 		n.body().accept( this );
+		if( n.keyPath().isCSet() ) {
+			error( n, "Making a correlation variable an alias is forbidden" );
+		}
 	}
 
 	@Override
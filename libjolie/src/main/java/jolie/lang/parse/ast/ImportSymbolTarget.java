@@ -19,10 +19,14 @@
 
 package jolie.lang.parse.ast;
 
+import java.io.Serializable;
+
 /**
  * A class for holding information of symbol tar
  */
-public class ImportSymbolTarget {
+public class ImportSymbolTarget implements Serializable {
+	private static final long serialVersionUID = 1L;
+
 	private final String originalSymbolName;
 	private final String localSymbolName;
 
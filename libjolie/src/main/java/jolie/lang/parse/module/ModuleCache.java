@@ -0,0 +1,241 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.lang.parse.module;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import jolie.lang.Constants;
+import jolie.lang.parse.Scanner;
+import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.util.ProgramReader;
+import jolie.lang.parse.util.ProgramWriter;
+
+/**
+ * A persistent cache of parsed modules, stored as files in a directory, which spares parsing again
+ * the modules that have not changed since they have been cached.
+ *
+ * Entries are keyed by a SHA-256 hash of the source code of the module, of its URI and of the
+ * parsing configuration (version of Jolie, charset, include paths and constants), so that changing
+ * any of them selects a different entry. Each entry also records the files included by the module,
+ * together with their size, last modification time and SHA-256 hash: the entry is used only if
+ * every included file still has the same size and modification time, or the same content.
+ *
+ * Entries contain the syntax tree of the module as produced by {@link ModuleParser}, before symbols
+ * are resolved, in the format of {@link ProgramWriter}. Symbol tables are generated again from the
+ * loaded tree, which is much cheaper than parsing.
+ *
+ * The cache never makes parsing fail: entries that can not be read or written are ignored, and the
+ * module is parsed from its source. Entries are written atomically, so the same directory can be
+ * shared by concurrent interpreters.
+ */
+final class ModuleCache {
+	private static final byte[] MAGIC = { 'J', 'O', 'L', 'M' };
+	private static final int FORMAT_VERSION = 1;
+	private static final String ENTRY_SUFFIX = ".jolm";
+
+	private final Path directory;
+	private final byte[] configurationKey;
+
+	/**
+	 * @param directory the directory of the cache, which is created if it does not exist
+	 * @param configuration the configuration used to parse modules
+	 * @param includePaths the include paths used to parse modules
+	 */
+	ModuleCache( Path directory, ModuleParsingConfiguration configuration, String[] includePaths ) {
+		this.directory = directory;
+		final ProgramWriter key = new ProgramWriter();
+		key.writeInt( FORMAT_VERSION );
+		key.writeString( Constants.VERSION );
+		key.writeString( configuration.charset() );
+		key.writeBoolean( configuration.includeDocumentation() );
+		key.writeInt( includePaths.length );
+		for( String includePath : includePaths ) {
+			key.writeString( includePath );
+		}
+		final Map< String, Scanner.Token > constants = new TreeMap<>( configuration.constantsMap() );
+		key.writeInt( constants.size() );
+		for( Map.Entry< String, Scanner.Token > constant : constants.entrySet() ) {
+			key.writeString( constant.getKey() );
+			key.writeEnum( constant.getValue().type() );
+			key.writeString( constant.getValue().content() );
+		}
+		this.configurationKey = key.toByteArray();
+	}
+
+	/**
+	 * Returns the cached syntax tree of a module, or null if there is no valid entry for it.
+	 *
+	 * @param uri the URI of the module
+	 * @param source the source code of the module
+	 */
+	Program load( URI uri, byte[] source ) {
+		try {
+			final byte[] entry = Files.readAllBytes( entryPath( uri, source ) );
+			if( entry.length < MAGIC.length ) {
+				return null;
+			}
+			for( int i = 0; i < MAGIC.length; i++ ) {
+				if( entry[ i ] != MAGIC[ i ] ) {
+					return null;
+				}
+			}
+			final ProgramReader reader = new ProgramReader( entry, MAGIC.length, entry.length - MAGIC.length );
+			if( reader.readInt() != FORMAT_VERSION ) {
+				return null;
+			}
+			for( int n = reader.readInt(); n > 0; n-- ) {
+				final URI includedFile = URI.create( reader.readString() );
+				final long size = reader.readLong();
+				final long lastModified = reader.readLong();
+				if( !isUnchanged( includedFile, size, lastModified, reader.readString() ) ) {
+					return null;
+				}
+			}
+			return reader.readNode( Program.class );
+		} catch( NoSuchFileException e ) {
+			return null;
+		} catch( IOException | RuntimeException e ) {
+			// Corrupted or unreadable entries are treated as missing, and replaced by store
+			return null;
+		}
+	}
+
+	/**
+	 * Stores the syntax tree of a module.
+	 *
+	 * @param uri the URI of the module
+	 * @param source the source code of the module
+	 * @param program the syntax tree of the module, as returned by the parser
+	 * @param includedFiles the URIs of the files included by the module
+	 */
+	void store( URI uri, byte[] source, Program program, List< URI > includedFiles ) {
+		Path temporaryFile = null;
+		try {
+			final ProgramWriter writer = new ProgramWriter();
+			writer.writeInt( FORMAT_VERSION );
+			writer.writeInt( includedFiles.size() );
+			for( URI includedFile : includedFiles ) {
+				writer.writeString( includedFile.toString() );
+				if( "file".equals( includedFile.getScheme() ) ) {
+					final Path path = Paths.get( includedFile );
+					final BasicFileAttributes attributes = Files.readAttributes( path, BasicFileAttributes.class );
+					writer.writeLong( attributes.size() );
+					writer.writeLong( attributes.lastModifiedTime().toMillis() );
+				} else {
+					writer.writeLong( -1 );
+					writer.writeLong( -1 );
+				}
+				writer.writeString( hash( includedFile ) );
+			}
+			writer.writeNode( program );
+
+			Files.createDirectories( directory );
+			final Path entryPath = entryPath( uri, source );
+			temporaryFile = Files.createTempFile( directory, entryPath.getFileName().toString(), ".tmp" );
+			try( OutputStream stream = Files.newOutputStream( temporaryFile ) ) {
+				stream.write( MAGIC );
+				writer.writeTo( stream );
+			}
+			Files.move( temporaryFile, entryPath, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE );
+			temporaryFile = null;
+		} catch( IOException | RuntimeException e ) {
+			// The module will just be parsed again next time
+		} finally {
+			if( temporaryFile != null ) {
+				try {
+					Files.deleteIfExists( temporaryFile );
+				} catch( IOException e ) {
+				}
+			}
+		}
+	}
+
+	private Path entryPath( URI uri, byte[] source ) {
+		final MessageDigest digest = sha256();
+		digest.update( configurationKey );
+		digest.update( uri.toString().getBytes( StandardCharsets.UTF_8 ) );
+		digest.update( (byte) 0 );
+		digest.update( source );
+		return directory.resolve( toHex( digest.digest() ) + ENTRY_SUFFIX );
+	}
+
+	private static boolean isUnchanged( URI file, long size, long lastModified, String hash )
+		throws IOException {
+		if( "file".equals( file.getScheme() ) ) {
+			final BasicFileAttributes attributes;
+			try {
+				attributes = Files.readAttributes( Paths.get( file ), BasicFileAttributes.class );
+			} catch( NoSuchFileException e ) {
+				return false;
+			}
+			if( attributes.size() != size ) {
+				return false;
+			} else if( attributes.lastModifiedTime().toMillis() == lastModified ) {
+				return true;
+			}
+		}
+		return hash.equals( hash( file ) );
+	}
+
+	private static String hash( URI file )
+		throws IOException {
+		final MessageDigest digest = sha256();
+		try( InputStream stream = file.toURL().openStream() ) {
+			final byte[] buffer = new byte[ 8192 ];
+			int read;
+			while( (read = stream.read( buffer )) >= 0 ) {
+				digest.update( buffer, 0, read );
+			}
+		}
+		return toHex( digest.digest() );
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance( "SHA-256" );
+		} catch( NoSuchAlgorithmException e ) {
+			// Every Java platform is required to support SHA-256
+			throw new IllegalStateException( e );
+		}
+	}
+
+	private static String toHex( byte[] bytes ) {
+		final StringBuilder builder = new StringBuilder( bytes.length * 2 );
+		for( byte b : bytes ) {
+			builder.append( Character.forDigit( (b >> 4) & 0xF, 16 ) ).append( Character.forDigit( b & 0xF, 16 ) );
+		}
+		return builder.toString();
+	}
+}
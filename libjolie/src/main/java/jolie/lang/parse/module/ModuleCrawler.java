@@ -23,11 +23,11 @@ import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 import jolie.lang.parse.ParserException;
 import jolie.lang.parse.module.exceptions.ModuleNotFoundException;
 
@@ -102,29 +102,81 @@ class ModuleCrawler {
 		return modulesToCrawl;
 	}
 
+	/**
+	 * Returns the modules imported by a module that has already been crawled.
+	 */
+	private static List< ModuleSource > dependencies( ModuleRecord record ) {
+		List< ModuleSource > dependencies = new ArrayList<>();
+		for( ImportedSymbolInfo importedSymbol : record.symbolTable().importedSymbolInfos() ) {
+			dependencies.add( importedSymbol.moduleSource().get() );
+		}
+		return dependencies;
+	}
+
+	/**
+	 * Parses the given modules and looks up their dependencies, in parallel since they do not depend on
+	 * each other. Errors are reported in the order of modules, so that the same error is reported at
+	 * each run.
+	 */
+	private List< ModuleRecord > crawlModules( List< ModuleSource > modules )
+		throws ParserException, IOException, ModuleException {
+		ModuleParser parser = new ModuleParser( parserConfiguration );
+		List< Object > outcomes = modules.parallelStream().map( module -> {
+			try {
+				ModuleRecord record = parser.parse( module );
+				crawlModule( record );
+				return (Object) record;
+			} catch( ParserException | IOException | ModuleException | RuntimeException e ) {
+				return e;
+			}
+		} ).collect( Collectors.toList() );
+
+		List< ModuleRecord > records = new ArrayList<>( outcomes.size() );
+		for( Object outcome : outcomes ) {
+			if( outcome instanceof ParserException ) {
+				throw (ParserException) outcome;
+			} else if( outcome instanceof IOException ) {
+				throw (IOException) outcome;
+			} else if( outcome instanceof ModuleException ) {
+				throw (ModuleException) outcome;
+			} else if( outcome instanceof RuntimeException ) {
+				throw (RuntimeException) outcome;
+			}
+			records.add( (ModuleRecord) outcome );
+		}
+		return records;
+	}
+
 	private CrawlerResult crawl( ModuleRecord mainRecord )
 		throws ParserException, IOException, ModuleException {
 		CrawlerResult result = new CrawlerResult();
 		// start with main module record
-		Queue< ModuleSource > dependencies = new LinkedList<>();
 		result.addModuleRecord( mainRecord );
-		dependencies.addAll( this.crawlModule( mainRecord ) );
-
-		// walk through dependencies
-		while( dependencies.peek() != null ) {
-			ModuleSource module = dependencies.poll();
-
-			if( result.isRecordInResult( module.uri() ) ) {
-				continue;
+		List< ModuleSource > dependencies = this.crawlModule( mainRecord );
+
+		// walk through dependencies, one level of the import graph at a time
+		while( !dependencies.isEmpty() ) {
+			List< ModuleSource > nextDependencies = new ArrayList<>();
+			Map< URI, ModuleSource > modulesToParse = new LinkedHashMap<>();
+			for( ModuleSource module : dependencies ) {
+				if( result.isRecordInResult( module.uri() ) || modulesToParse.containsKey( module.uri() ) ) {
+					continue;
+				}
+
+				if( ModuleCrawler.inCache( module.uri() ) ) {
+					ModuleRecord record = ModuleCrawler.getRecordFromCache( module.uri() );
+					result.addModuleRecord( record );
+					nextDependencies.addAll( dependencies( record ) );
+				} else {
+					modulesToParse.put( module.uri(), module );
+				}
 			}
 
-			if( ModuleCrawler.inCache( module.uri() ) ) {
-				result.addModuleRecord( ModuleCrawler.getRecordFromCache( module.uri() ) );
-			} else {
-				ModuleRecord record = new ModuleParser( parserConfiguration ).parse( module );
+			for( ModuleRecord record : crawlModules( new ArrayList<>( modulesToParse.values() ) ) ) {
 				result.addModuleRecord( record );
-				dependencies.addAll( crawlModule( record ) );
+				nextDependencies.addAll( dependencies( record ) );
 			}
+			dependencies = nextDependencies;
 		}
 
 		return result;
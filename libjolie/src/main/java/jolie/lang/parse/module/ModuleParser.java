@@ -19,7 +19,11 @@
 
 package jolie.lang.parse.module;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.Arrays;
 import java.util.stream.Stream;
 import jolie.lang.parse.OLParseTreeOptimizer;
@@ -51,21 +55,67 @@ public class ModuleParser {
 		} else {
 			additionalPath = new String[ 0 ];
 		}
-		return this.parse( new Scanner( module.openStream().get(), module.uri(),
-			parserConfiguration.charset(), parserConfiguration.includeDocumentation() ), additionalPath );
+		return this.parse( module.uri(), module.openStream().get(), additionalPath );
+	}
+
+	/**
+	 * Parses the module read from stream, using the persistent module cache if one is configured.
+	 *
+	 * @param uri the URI of the module
+	 * @param stream the source code of the module
+	 * @param additionalIncludePaths include paths to use in addition to those of the configuration
+	 */
+	public ModuleRecord parse( URI uri, InputStream stream, String[] additionalIncludePaths )
+		throws ParserException, IOException, ModuleException {
+		if( !parserConfiguration.moduleCacheDirectory().isPresent() ) {
+			return parse( new Scanner( stream, uri, parserConfiguration.charset(),
+				parserConfiguration.includeDocumentation() ), additionalIncludePaths );
+		}
 
+		String[] includePaths = includePaths( additionalIncludePaths );
+		ModuleCache cache =
+			new ModuleCache( parserConfiguration.moduleCacheDirectory().get(), parserConfiguration, includePaths );
+		byte[] source = readAll( stream );
+		Program program = cache.load( uri, source );
+		if( program == null ) {
+			OLParser olParser = newParser( new Scanner( new ByteArrayInputStream( source ), uri,
+				parserConfiguration.charset(), parserConfiguration.includeDocumentation() ), includePaths );
+			program = OLParseTreeOptimizer.optimize( olParser.parse() );
+			cache.store( uri, source, program, olParser.includedFiles() );
+		}
+		SymbolTable st = SymbolTableGenerator.generate( program );
+		return new ModuleRecord( uri, program, st );
 	}
 
 	public ModuleRecord parse( Scanner scanner, String[] additionalIncludePaths )
 		throws ParserException, IOException, ModuleException {
-		String[] includePaths = Stream.concat( Arrays.stream( parserConfiguration.includePaths() ),
-			Arrays.stream( additionalIncludePaths ) )
-			.distinct().toArray( String[]::new );
-		OLParser olParser = new OLParser( scanner, includePaths, parserConfiguration.classLoader() );
-		olParser.putConstants( parserConfiguration.constantsMap() );
+		OLParser olParser = newParser( scanner, includePaths( additionalIncludePaths ) );
 		Program program = olParser.parse();
 		program = OLParseTreeOptimizer.optimize( program );
 		SymbolTable st = SymbolTableGenerator.generate( program );
 		return new ModuleRecord( scanner.source(), program, st );
 	}
+
+	private String[] includePaths( String[] additionalIncludePaths ) {
+		return Stream.concat( Arrays.stream( parserConfiguration.includePaths() ),
+			Arrays.stream( additionalIncludePaths ) )
+			.distinct().toArray( String[]::new );
+	}
+
+	private OLParser newParser( Scanner scanner, String[] includePaths ) {
+		OLParser olParser = new OLParser( scanner, includePaths, parserConfiguration.classLoader() );
+		olParser.putConstants( parserConfiguration.constantsMap() );
+		return olParser;
+	}
+
+	private static byte[] readAll( InputStream stream )
+		throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[ 8192 ];
+		int read;
+		while( (read = stream.read( buffer )) >= 0 ) {
+			out.write( buffer, 0, read );
+		}
+		return out.toByteArray();
+	}
 }
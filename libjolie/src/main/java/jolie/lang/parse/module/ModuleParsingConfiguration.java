@@ -1,6 +1,8 @@
 package jolie.lang.parse.module;
 
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.Optional;
 import jolie.lang.parse.Scanner;
 
 public class ModuleParsingConfiguration {
@@ -18,16 +20,30 @@ public class ModuleParsingConfiguration {
 
 	private final Map< String, Scanner.Token > constantsMap;
 
+	/**
+	 * the directory of the persistent cache of parsed modules, see {@link ModuleCache}
+	 */
+	private final Optional< Path > moduleCacheDirectory;
+
 
 	public ModuleParsingConfiguration( String charset, String[] includePaths, String[] packagePaths,
 		ClassLoader classLoader,
 		Map< String, Scanner.Token > constantsMap, boolean includeDocumentation ) {
+		this( charset, includePaths, packagePaths, classLoader, constantsMap, includeDocumentation,
+			Optional.empty() );
+	}
+
+	public ModuleParsingConfiguration( String charset, String[] includePaths, String[] packagePaths,
+		ClassLoader classLoader,
+		Map< String, Scanner.Token > constantsMap, boolean includeDocumentation,
+		Optional< Path > moduleCacheDirectory ) {
 		this.charset = charset;
 		this.includePaths = includePaths;
 		this.packagePaths = packagePaths;
 		this.classLoader = classLoader;
 		this.constantsMap = constantsMap;
 		this.includeDocumentation = includeDocumentation;
+		this.moduleCacheDirectory = moduleCacheDirectory;
 	}
 
 	public String[] includePaths() {
@@ -53,4 +69,8 @@ public class ModuleParsingConfiguration {
 	public Map< String, Scanner.Token > constantsMap() {
 		return constantsMap;
 	}
+
+	public Optional< Path > moduleCacheDirectory() {
+		return moduleCacheDirectory;
+	}
 }
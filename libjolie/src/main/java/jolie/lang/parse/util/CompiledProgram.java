@@ -0,0 +1,342 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.lang.parse.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import jolie.lang.Constants;
+import jolie.lang.Constants.ExecutionMode;
+import jolie.lang.parse.CorrelationFunctionInfo;
+import jolie.lang.parse.CorrelationFunctionInfo.CorrelationPairInfo;
+import jolie.lang.parse.SemanticVerifier;
+import jolie.lang.parse.ast.CorrelationSetInfo;
+import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.ast.ServiceNode;
+import jolie.lang.parse.ast.VariablePathNode;
+
+/**
+ * A program compiled by joliec, together with the results of its semantic verification, so that the
+ * interpreter can run it without parsing or verifying it again.
+ *
+ * A compiled program file starts with a header made of the {@link #MAGIC} bytes, the
+ * {@link #FORMAT_VERSION} of the file, the version of Jolie that produced it, whether the program
+ * has been type checked, and the URIs of the modules the program has been compiled from. The rest
+ * of the file is the length of its body followed by the body: the program, the verification results
+ * of the program and those of every Jolie service it embeds, written by a single
+ * {@link ProgramWriter} in order to preserve the sharing of nodes between them.
+ *
+ * Files produced by older versions of joliec, which contain only the serialized program, do not
+ * start with {@link #MAGIC}: see {@link #isCompiledProgram(InputStream)}.
+ */
+public final class CompiledProgram {
+	/**
+	 * The first bytes of a compiled program file.
+	 */
+	public static final byte[] MAGIC = { 'J', 'O', 'L', 'C' };
+
+	/**
+	 * The version of the compiled program format. Files with a different version are rejected.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	/**
+	 * The results of the semantic verification of a program, as needed to build it.
+	 */
+	public static final class Verification {
+		private final ExecutionMode executionMode;
+		private final Map< String, Boolean > constantFlags;
+		private final CorrelationFunctionInfo correlationFunctionInfo;
+
+		public Verification( SemanticVerifier verifier ) {
+			this( verifier.executionMode(), new HashMap<>( verifier.constantFlags() ),
+				verifier.correlationFunctionInfo() );
+		}
+
+		private Verification( ExecutionMode executionMode, Map< String, Boolean > constantFlags,
+			CorrelationFunctionInfo correlationFunctionInfo ) {
+			this.executionMode = executionMode;
+			this.constantFlags = constantFlags;
+			this.correlationFunctionInfo = correlationFunctionInfo;
+		}
+
+		public ExecutionMode executionMode() {
+			return executionMode;
+		}
+
+		public Map< String, Boolean > constantFlags() {
+			return constantFlags;
+		}
+
+		public CorrelationFunctionInfo correlationFunctionInfo() {
+			return correlationFunctionInfo;
+		}
+	}
+
+	private final Program program;
+	private final Verification verification;
+	private final IdentityHashMap< ServiceNode, Verification > services;
+	private final boolean typeChecked;
+	private final List< URI > modules;
+
+	/**
+	 * @param program the program
+	 * @param verification the verification results of the program
+	 * @param services the verification results of the Jolie services embedded by the program, keyed by
+	 *        the (identity of the) nodes that define them
+	 * @param typeChecked true if the program and its services have been type checked
+	 * @param modules the URIs of the modules the program has been compiled from
+	 */
+	public CompiledProgram(
+		Program program,
+		Verification verification,
+		Map< ServiceNode, Verification > services,
+		boolean typeChecked,
+		Collection< URI > modules ) {
+		this.program = program;
+		this.verification = verification;
+		this.services = new IdentityHashMap<>( services );
+		this.typeChecked = typeChecked;
+		this.modules = Collections.unmodifiableList( new ArrayList<>( modules ) );
+	}
+
+	public Program program() {
+		return program;
+	}
+
+	/**
+	 * Returns the verification results of the program.
+	 */
+	public Verification verification() {
+		return verification;
+	}
+
+	/**
+	 * Returns the verification results of an embedded Jolie service, or null if the service has not
+	 * been verified by the compiler.
+	 */
+	public Verification verification( ServiceNode service ) {
+		return services.get( service );
+	}
+
+	/**
+	 * Returns true if the program has been type checked when it was compiled.
+	 */
+	public boolean typeChecked() {
+		return typeChecked;
+	}
+
+	/**
+	 * Returns the URIs of the modules this program has been compiled from.
+	 */
+	public List< URI > modules() {
+		return modules;
+	}
+
+	/**
+	 * Returns true if the given stream contains a compiled program in this format. The stream must
+	 * support {@link InputStream#mark(int)}, and is left at its current position.
+	 */
+	public static boolean isCompiledProgram( InputStream stream )
+		throws IOException {
+		stream.mark( MAGIC.length );
+		try {
+			for( byte b : MAGIC ) {
+				if( stream.read() != b ) {
+					return false;
+				}
+			}
+			return true;
+		} finally {
+			stream.reset();
+		}
+	}
+
+	/**
+	 * Writes this compiled program to a stream.
+	 */
+	public void write( OutputStream stream )
+		throws IOException {
+		final ProgramWriter writer = new ProgramWriter();
+		writer.writeNode( program );
+		writeVerification( writer, verification );
+		writer.writeInt( services.size() );
+		for( Map.Entry< ServiceNode, Verification > entry : services.entrySet() ) {
+			writer.writeNode( entry.getKey() );
+			writeVerification( writer, entry.getValue() );
+		}
+
+		final DataOutputStream out = new DataOutputStream( new BufferedOutputStream( stream ) );
+		out.write( MAGIC );
+		out.writeInt( FORMAT_VERSION );
+		out.writeUTF( Constants.VERSION );
+		out.writeBoolean( typeChecked );
+		out.writeInt( modules.size() );
+		for( URI module : modules ) {
+			out.writeUTF( module.toString() );
+		}
+		out.writeInt( writer.size() );
+		writer.writeTo( out );
+		out.flush();
+	}
+
+	private static void writeVerification( ProgramWriter writer, Verification verification ) {
+		writer.writeEnum( verification.executionMode );
+		writer.writeInt( verification.constantFlags.size() );
+		for( Map.Entry< String, Boolean > flag : verification.constantFlags.entrySet() ) {
+			writer.writeString( flag.getKey() );
+			writer.writeBoolean( flag.getValue() );
+		}
+
+		final CorrelationFunctionInfo info = verification.correlationFunctionInfo;
+		writer.writeInt( info.correlationSets().size() );
+		for( CorrelationSetInfo cset : info.correlationSets() ) {
+			writer.writeNode( cset );
+		}
+		writer.writeInt( info.operationCorrelationSetMap().size() );
+		for( Map.Entry< String, CorrelationSetInfo > entry : info.operationCorrelationSetMap().entrySet() ) {
+			writer.writeString( entry.getKey() );
+			writer.writeNode( entry.getValue() );
+		}
+		// Every correlating operation has its pairs
+		for( String operationName : info.operationCorrelationSetMap().keySet() ) {
+			final Collection< CorrelationPairInfo > pairs = info.getOperationCorrelationPairs( operationName );
+			writer.writeInt( pairs.size() );
+			for( CorrelationPairInfo pair : pairs ) {
+				writer.writeNode( pair.sessionPath() );
+				writer.writeNode( pair.messagePath() );
+			}
+		}
+		writer.writeInt( info.correlationSetOperations().keySet().size() );
+		for( CorrelationSetInfo cset : info.correlationSetOperations().keySet() ) {
+			writer.writeNode( cset );
+			final Collection< String > operations = info.correlationSetOperations().get( cset );
+			writer.writeInt( operations.size() );
+			for( String operationName : operations ) {
+				writer.writeString( operationName );
+			}
+		}
+	}
+
+	/**
+	 * Reads a compiled program from a stream.
+	 *
+	 * @throws IOException if the stream does not contain a compiled program, or if the program has been
+	 *         compiled with a different format or version of Jolie
+	 */
+	public static CompiledProgram read( InputStream stream )
+		throws IOException {
+		final DataInputStream in = new DataInputStream( new BufferedInputStream( stream, 1 << 16 ) );
+		final byte[] magic = new byte[ MAGIC.length ];
+		in.readFully( magic );
+		for( int i = 0; i < MAGIC.length; i++ ) {
+			if( magic[ i ] != MAGIC[ i ] ) {
+				throw new IOException( "Input is not a compiled Jolie program" );
+			}
+		}
+		final int formatVersion = in.readInt();
+		if( formatVersion != FORMAT_VERSION ) {
+			throw new IOException( "Unsupported compiled program format " + formatVersion
+				+ " (expected " + FORMAT_VERSION + "), the program must be compiled again" );
+		}
+		final String version = in.readUTF();
+		if( !version.equals( Constants.VERSION ) ) {
+			throw new IOException( "The program has been compiled with Jolie " + version
+				+ ", it must be compiled again for Jolie " + Constants.VERSION );
+		}
+		final boolean typeChecked = in.readBoolean();
+		final int nModules = in.readInt();
+		final List< URI > modules = new ArrayList<>( nModules );
+		for( int i = 0; i < nModules; i++ ) {
+			modules.add( URI.create( in.readUTF() ) );
+		}
+
+		final int length = in.readInt();
+		if( length < 0 ) {
+			throw new IOException( "Malformed program: negative length" );
+		}
+		final byte[] body = new byte[ length ];
+		in.readFully( body );
+		final ProgramReader reader = new ProgramReader( body );
+		final Program program = reader.readNode( Program.class );
+		final Verification verification = readVerification( reader );
+		final int nServices = reader.readInt();
+		final Map< ServiceNode, Verification > services = new IdentityHashMap<>();
+		for( int i = 0; i < nServices; i++ ) {
+			final ServiceNode service = reader.readNode( ServiceNode.class );
+			services.put( service, readVerification( reader ) );
+		}
+		if( program == null || reader.hasRemaining() ) {
+			throw new IOException( "Malformed program: unexpected content" );
+		}
+		return new CompiledProgram( program, verification, services, typeChecked, modules );
+	}
+
+	private static Verification readVerification( ProgramReader reader )
+		throws IOException {
+		final ExecutionMode executionMode = reader.readEnum( ExecutionMode.class );
+		final int nFlags = reader.readInt();
+		final Map< String, Boolean > constantFlags = new HashMap<>();
+		for( int i = 0; i < nFlags; i++ ) {
+			constantFlags.put( reader.readString(), reader.readBoolean() );
+		}
+
+		final CorrelationFunctionInfo info = new CorrelationFunctionInfo();
+		final int nSets = reader.readInt();
+		for( int i = 0; i < nSets; i++ ) {
+			info.correlationSets().add( reader.readNode( CorrelationSetInfo.class ) );
+		}
+		final int nOperations = reader.readInt();
+		final List< String > operationNames = new ArrayList<>( nOperations );
+		for( int i = 0; i < nOperations; i++ ) {
+			final String operationName = reader.readString();
+			operationNames.add( operationName );
+			info.operationCorrelationSetMap().put( operationName, reader.readNode( CorrelationSetInfo.class ) );
+		}
+		for( String operationName : operationNames ) {
+			final int nPairs = reader.readInt();
+			for( int i = 0; i < nPairs; i++ ) {
+				info.putCorrelationPair( operationName, new CorrelationPairInfo(
+					reader.readNode( VariablePathNode.class ), reader.readNode( VariablePathNode.class ) ) );
+			}
+		}
+		final int nSetOperations = reader.readInt();
+		for( int i = 0; i < nSetOperations; i++ ) {
+			final CorrelationSetInfo cset = reader.readNode( CorrelationSetInfo.class );
+			final int n = reader.readInt();
+			for( int j = 0; j < n; j++ ) {
+				info.correlationSetOperations().put( cset, reader.readString() );
+			}
+		}
+		return new Verification( executionMode, constantFlags, info );
+	}
+}
@@ -0,0 +1,982 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.lang.parse.util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import jolie.lang.Constants;
+import jolie.lang.NativeType;
+import jolie.lang.parse.Scanner;
+import jolie.lang.parse.ast.AddAssignStatement;
+import jolie.lang.parse.ast.AssignStatement;
+import jolie.lang.parse.ast.CompareConditionNode;
+import jolie.lang.parse.ast.CompensateStatement;
+import jolie.lang.parse.ast.CorrelationSetInfo;
+import jolie.lang.parse.ast.CurrentHandlerStatement;
+import jolie.lang.parse.ast.DeepCopyStatement;
+import jolie.lang.parse.ast.DefinitionCallStatement;
+import jolie.lang.parse.ast.DefinitionNode;
+import jolie.lang.parse.ast.DivideAssignStatement;
+import jolie.lang.parse.ast.DocumentationComment;
+import jolie.lang.parse.ast.EmbedServiceNode;
+import jolie.lang.parse.ast.EmbeddedServiceNode;
+import jolie.lang.parse.ast.ExecutionInfo;
+import jolie.lang.parse.ast.ExitStatement;
+import jolie.lang.parse.ast.ForEachArrayItemStatement;
+import jolie.lang.parse.ast.ForEachSubNodeStatement;
+import jolie.lang.parse.ast.ForStatement;
+import jolie.lang.parse.ast.IfStatement;
+import jolie.lang.parse.ast.ImportStatement;
+import jolie.lang.parse.ast.ImportableSymbol;
+import jolie.lang.parse.ast.InputPortInfo;
+import jolie.lang.parse.ast.InstallFixedVariableExpressionNode;
+import jolie.lang.parse.ast.InstallFunctionNode;
+import jolie.lang.parse.ast.InstallStatement;
+import jolie.lang.parse.ast.InterfaceDefinition;
+import jolie.lang.parse.ast.InterfaceExtenderDefinition;
+import jolie.lang.parse.ast.LinkInStatement;
+import jolie.lang.parse.ast.LinkOutStatement;
+import jolie.lang.parse.ast.MultiplyAssignStatement;
+import jolie.lang.parse.ast.NDChoiceStatement;
+import jolie.lang.parse.ast.NotificationOperationStatement;
+import jolie.lang.parse.ast.NullProcessStatement;
+import jolie.lang.parse.ast.OLSyntaxNode;
+import jolie.lang.parse.ast.OneWayOperationDeclaration;
+import jolie.lang.parse.ast.OneWayOperationStatement;
+import jolie.lang.parse.ast.OperationCollector;
+import jolie.lang.parse.ast.OperationDeclaration;
+import jolie.lang.parse.ast.OutputPortInfo;
+import jolie.lang.parse.ast.ParallelStatement;
+import jolie.lang.parse.ast.PointerStatement;
+import jolie.lang.parse.ast.PortInfo;
+import jolie.lang.parse.ast.PostDecrementStatement;
+import jolie.lang.parse.ast.PostIncrementStatement;
+import jolie.lang.parse.ast.PreDecrementStatement;
+import jolie.lang.parse.ast.PreIncrementStatement;
+import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.ast.ProvideUntilStatement;
+import jolie.lang.parse.ast.RequestResponseOperationDeclaration;
+import jolie.lang.parse.ast.RequestResponseOperationStatement;
+import jolie.lang.parse.ast.RunStatement;
+import jolie.lang.parse.ast.Scope;
+import jolie.lang.parse.ast.SequenceStatement;
+import jolie.lang.parse.ast.ServiceNode;
+import jolie.lang.parse.ast.SolicitResponseOperationStatement;
+import jolie.lang.parse.ast.SpawnStatement;
+import jolie.lang.parse.ast.SubtractAssignStatement;
+import jolie.lang.parse.ast.SynchronizedStatement;
+import jolie.lang.parse.ast.ThrowStatement;
+import jolie.lang.parse.ast.TypeCastExpressionNode;
+import jolie.lang.parse.ast.UndefStatement;
+import jolie.lang.parse.ast.ValueVectorSizeExpressionNode;
+import jolie.lang.parse.ast.VariablePathNode;
+import jolie.lang.parse.ast.WhileStatement;
+import jolie.lang.parse.ast.courier.CourierChoiceStatement;
+import jolie.lang.parse.ast.courier.CourierDefinitionNode;
+import jolie.lang.parse.ast.courier.NotificationForwardStatement;
+import jolie.lang.parse.ast.courier.SolicitResponseForwardStatement;
+import jolie.lang.parse.ast.expression.AndConditionNode;
+import jolie.lang.parse.ast.expression.ConstantBoolExpression;
+import jolie.lang.parse.ast.expression.ConstantDoubleExpression;
+import jolie.lang.parse.ast.expression.ConstantIntegerExpression;
+import jolie.lang.parse.ast.expression.ConstantLongExpression;
+import jolie.lang.parse.ast.expression.ConstantStringExpression;
+import jolie.lang.parse.ast.expression.FreshValueExpressionNode;
+import jolie.lang.parse.ast.expression.InlineTreeExpressionNode;
+import jolie.lang.parse.ast.expression.InstanceOfExpressionNode;
+import jolie.lang.parse.ast.expression.IsTypeExpressionNode;
+import jolie.lang.parse.ast.expression.NotExpressionNode;
+import jolie.lang.parse.ast.expression.OrConditionNode;
+import jolie.lang.parse.ast.expression.ProductExpressionNode;
+import jolie.lang.parse.ast.expression.SumExpressionNode;
+import jolie.lang.parse.ast.expression.VariableExpressionNode;
+import jolie.lang.parse.ast.expression.VoidExpressionNode;
+import jolie.lang.parse.ast.types.BasicTypeDefinition;
+import jolie.lang.parse.ast.types.TypeChoiceDefinition;
+import jolie.lang.parse.ast.types.TypeDefinition;
+import jolie.lang.parse.ast.types.TypeDefinitionLink;
+import jolie.lang.parse.ast.types.TypeDefinitionUndefined;
+import jolie.lang.parse.ast.types.TypeInlineDefinition;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinement;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementDoubleRanges;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementIntegerRanges;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementLongRanges;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementStringLength;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementStringList;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementStringRegex;
+import jolie.lang.parse.context.ParsingContext;
+import jolie.lang.parse.context.URIParsingContext;
+import jolie.util.Pair;
+import jolie.util.Range;
+
+/**
+ * Reads syntax trees written by a {@link ProgramWriter}.
+ *
+ * Values must be read in the same order (and with the same methods) they have been written.
+ * Malformed input is reported with an {@link IOException}.
+ */
+public final class ProgramReader {
+	private final byte[] bytes;
+	private final int limit;
+	private int position;
+	private final List< OLSyntaxNode > nodes = new ArrayList<>();
+	private final List< String > strings = new ArrayList<>();
+	private final List< ParsingContext > contexts = new ArrayList<>();
+	// Setters waiting for nodes that were still being read when they have been referred to
+	private final Map< Integer, List< Consumer< OLSyntaxNode > > > pendingReferences = new HashMap<>();
+
+	public ProgramReader( byte[] bytes ) {
+		this( bytes, 0, bytes.length );
+	}
+
+	public ProgramReader( byte[] bytes, int offset, int length ) {
+		this.bytes = bytes;
+		this.position = offset;
+		this.limit = offset + length;
+	}
+
+	/**
+	 * Returns true if there are bytes left to read.
+	 */
+	public boolean hasRemaining() {
+		return position < limit;
+	}
+
+	/**
+	 * Reads a node written by {@link ProgramWriter#writeNode(OLSyntaxNode)}.
+	 *
+	 * @return the node, or null if a null node has been written
+	 */
+	public OLSyntaxNode readNode()
+		throws IOException {
+		return readNode( (Consumer< OLSyntaxNode >) null );
+	}
+
+	/**
+	 * Reads a node of the given class, or null.
+	 */
+	public < T extends OLSyntaxNode > T readNode( Class< T > nodeClass )
+		throws IOException {
+		return cast( readNode(), nodeClass );
+	}
+
+	public String readString()
+		throws IOException {
+		final int id = readInt();
+		if( id == 0 ) {
+			return null;
+		} else if( id == 1 ) {
+			final int length = readInt();
+			ensureAvailable( length );
+			final String s = new String( bytes, position, length, StandardCharsets.UTF_8 );
+			position += length;
+			strings.add( s );
+			return s;
+		} else if( id - 2 < strings.size() ) {
+			return strings.get( id - 2 );
+		}
+		throw new IOException( "Malformed program: unknown string " + id );
+	}
+
+	public int readInt()
+		throws IOException {
+		int result = 0;
+		for( int shift = 0; shift < 35; shift += 7 ) {
+			ensureAvailable( 1 );
+			final byte b = bytes[ position++ ];
+			result |= (b & 0x7F) << shift;
+			if( (b & 0x80) == 0 ) {
+				return result;
+			}
+		}
+		throw new IOException( "Malformed program: integer too long" );
+	}
+
+	public long readLong()
+		throws IOException {
+		long result = 0;
+		for( int shift = 0; shift < 70; shift += 7 ) {
+			ensureAvailable( 1 );
+			final byte b = bytes[ position++ ];
+			result |= (long) (b & 0x7F) << shift;
+			if( (b & 0x80) == 0 ) {
+				return (result >>> 1) ^ -(result & 1);
+			}
+		}
+		throw new IOException( "Malformed program: long too long" );
+	}
+
+	public boolean readBoolean()
+		throws IOException {
+		ensureAvailable( 1 );
+		return bytes[ position++ ] != 0;
+	}
+
+	/**
+	 * Reads an enum constant written by {@link ProgramWriter#writeEnum(Enum)}, or null.
+	 */
+	public < E extends Enum< E > > E readEnum( Class< E > enumClass )
+		throws IOException {
+		final String name = readString();
+		if( name == null ) {
+			return null;
+		}
+		try {
+			return Enum.valueOf( enumClass, name );
+		} catch( IllegalArgumentException e ) {
+			throw new IOException( "Malformed program: unknown " + enumClass.getSimpleName() + " " + name, e );
+		}
+	}
+
+	private void ensureAvailable( int n )
+		throws IOException {
+		if( n < 0 || limit - position < n ) {
+			throw new IOException( "Malformed program: unexpected end of input" );
+		}
+	}
+
+	private static < T > T cast( Object o, Class< T > c )
+		throws IOException {
+		if( o != null && !c.isInstance( o ) ) {
+			throw new IOException(
+				"Malformed program: expected " + c.getSimpleName() + ", found " + o.getClass().getSimpleName() );
+		}
+		return c.cast( o );
+	}
+
+	private ProgramWriter.Tag readTag()
+		throws IOException {
+		final ProgramWriter.Tag tag = ProgramWriter.Tag.of( readInt() );
+		if( tag == null ) {
+			throw new IOException( "Malformed program: unknown tag" );
+		}
+		return tag;
+	}
+
+	private ParsingContext readContext()
+		throws IOException {
+		final int id = readInt();
+		if( id == 0 ) {
+			return null;
+		} else if( id == 1 ) {
+			final String source = readString();
+			final int line = readInt();
+			if( source == null ) {
+				throw new IOException( "Malformed program: parsing context without a source" );
+			}
+			final URI uri;
+			try {
+				uri = new URI( source );
+			} catch( URISyntaxException e ) {
+				throw new IOException( "Malformed program: invalid source " + source, e );
+			}
+			final ParsingContext context = new URIParsingContext( uri, line );
+			contexts.add( context );
+			return context;
+		} else if( id - 2 < contexts.size() ) {
+			return contexts.get( id - 2 );
+		}
+		throw new IOException( "Malformed program: unknown parsing context " + id );
+	}
+
+	/**
+	 * Reads a node. References to nodes that are still being read (which happen only with recursive
+	 * types and services) are accepted only if the caller can set them later, by passing a setter.
+	 */
+	private OLSyntaxNode readNode( Consumer< OLSyntaxNode > setter )
+		throws IOException {
+		final ProgramWriter.Tag tag = readTag();
+		switch( tag ) {
+		case NULL:
+			return null;
+		case UNDEFINED_TYPE:
+			return TypeDefinitionUndefined.getInstance();
+		case REFERENCE:
+			final int id = readInt();
+			if( id >= nodes.size() ) {
+				throw new IOException( "Malformed program: unknown node " + id );
+			}
+			final OLSyntaxNode node = nodes.get( id );
+			if( node == null ) {
+				if( setter == null ) {
+					throw new IOException( "Malformed program: unexpected reference to node " + id );
+				}
+				pendingReferences.computeIfAbsent( id, k -> new ArrayList<>() ).add( setter );
+			}
+			return node;
+		default:
+			final int newId = nodes.size();
+			nodes.add( null );
+			try {
+				return define( newId, readNode( tag, newId ) );
+			} catch( ClassCastException | IllegalArgumentException | IndexOutOfBoundsException e ) {
+				throw new IOException( "Malformed program", e );
+			}
+		}
+	}
+
+	private < T extends OLSyntaxNode > T define( int id, T node ) {
+		if( nodes.get( id ) == null ) {
+			nodes.set( id, node );
+			final List< Consumer< OLSyntaxNode > > setters = pendingReferences.remove( id );
+			if( setters != null ) {
+				setters.forEach( setter -> setter.accept( node ) );
+			}
+		}
+		return node;
+	}
+
+	private VariablePathNode readVariablePath()
+		throws IOException {
+		return readNode( VariablePathNode.class );
+	}
+
+	private TypeDefinition readType()
+		throws IOException {
+		return readNode( TypeDefinition.class );
+	}
+
+	private List< OLSyntaxNode > readNodes()
+		throws IOException {
+		final int size = readInt();
+		final List< OLSyntaxNode > list = new ArrayList<>( size );
+		for( int i = 0; i < size; i++ ) {
+			list.add( readNode() );
+		}
+		return list;
+	}
+
+	private List< Pair< OLSyntaxNode, OLSyntaxNode > > readNodePairs()
+		throws IOException {
+		final int size = readInt();
+		final List< Pair< OLSyntaxNode, OLSyntaxNode > > list = new ArrayList<>( size );
+		for( int i = 0; i < size; i++ ) {
+			final OLSyntaxNode key = readNode();
+			list.add( new Pair<>( key, readNode() ) );
+		}
+		return list;
+	}
+
+	private Map< String, String > readStringMap()
+		throws IOException {
+		final int size = readInt();
+		if( size == 0 ) {
+			return null;
+		}
+		final Map< String, String > map = new HashMap<>();
+		for( int i = 1; i < size; i++ ) {
+			final String key = readString();
+			map.put( key, readString() );
+		}
+		return map;
+	}
+
+	private Range readRange()
+		throws IOException {
+		final int min = readInt();
+		final int max = readInt();
+		return min == 1 && max == 1 ? Constants.RANGE_ONE_TO_ONE : new Range( min, max );
+	}
+
+	@SuppressWarnings( "unchecked" )
+	private InstallFunctionNode readInstallFunction()
+		throws IOException {
+		final int size = readInt();
+		if( size == 0 ) {
+			return null;
+		}
+		final Pair< String, OLSyntaxNode >[] pairs = (Pair< String, OLSyntaxNode >[]) new Pair< ?, ? >[ size - 1 ];
+		for( int i = 0; i < pairs.length; i++ ) {
+			final String key = readString();
+			pairs[ i ] = new Pair<>( key, readNode() );
+		}
+		return new InstallFunctionNode( pairs );
+	}
+
+	private void readOperations( OperationCollector collector )
+		throws IOException {
+		final int size = readInt();
+		for( int i = 0; i < size; i++ ) {
+			collector.addOperation( readNode( OperationDeclaration.class ) );
+		}
+	}
+
+	private void readPort( PortInfo port )
+		throws IOException {
+		port.setDocumentation( readString() );
+		readOperations( port );
+		final int size = readInt();
+		for( int i = 0; i < size; i++ ) {
+			port.addInterface( readNode( InterfaceDefinition.class ) );
+		}
+	}
+
+	private void readInterface( InterfaceDefinition iface )
+		throws IOException {
+		iface.setDocumentation( readString() );
+		readOperations( iface );
+	}
+
+	private BasicTypeDefinition readBasicType()
+		throws IOException {
+		final NativeType nativeType = readEnum( NativeType.class );
+		final int size = readInt();
+		if( size == 0 ) {
+			return BasicTypeDefinition.of( nativeType );
+		}
+		final List< BasicTypeRefinement< ? > > refinements = new ArrayList<>( size );
+		for( int i = 0; i < size; i++ ) {
+			final ProgramWriter.Tag tag = readTag();
+			switch( tag ) {
+			case INTEGER_RANGES: {
+				final BasicTypeRefinementIntegerRanges r = new BasicTypeRefinementIntegerRanges();
+				for( int n = readInt(); n > 0; n-- ) {
+					final int min = (int) readLong();
+					r.addInterval( r.new Interval( min, (int) readLong() ) );
+				}
+				refinements.add( r );
+				break;
+			}
+			case LONG_RANGES: {
+				final BasicTypeRefinementLongRanges r = new BasicTypeRefinementLongRanges();
+				for( int n = readInt(); n > 0; n-- ) {
+					final long min = readLong();
+					r.addInterval( r.new Interval( min, readLong() ) );
+				}
+				refinements.add( r );
+				break;
+			}
+			case DOUBLE_RANGES: {
+				final BasicTypeRefinementDoubleRanges r = new BasicTypeRefinementDoubleRanges();
+				for( int n = readInt(); n > 0; n-- ) {
+					final double min = Double.longBitsToDouble( readLong() );
+					r.addInterval( r.new Interval( min, Double.longBitsToDouble( readLong() ) ) );
+				}
+				refinements.add( r );
+				break;
+			}
+			case STRING_LENGTH: {
+				final int min = (int) readLong();
+				refinements.add( new BasicTypeRefinementStringLength( min, (int) readLong() ) );
+				break;
+			}
+			case STRING_LIST: {
+				final int n = readInt();
+				final ArrayList< String > list = new ArrayList<>( n );
+				for( int k = 0; k < n; k++ ) {
+					list.add( readString() );
+				}
+				refinements.add( new BasicTypeRefinementStringList( list ) );
+				break;
+			}
+			case STRING_REGEX:
+				refinements.add( new BasicTypeRefinementStringRegex( readString() ) );
+				break;
+			default:
+				throw new IOException( "Malformed program: unexpected basic type refinement " + tag );
+			}
+		}
+		return BasicTypeDefinition.of( nativeType, refinements );
+	}
+
+	private OLSyntaxNode readNode( ProgramWriter.Tag tag, int id )
+		throws IOException {
+		switch( tag ) {
+		case TYPE_INLINE_DEFINITION: {
+			final ParsingContext context = readContext();
+			final String typeId = readString();
+			final Range cardinality = readRange();
+			final ImportableSymbol.AccessModifier access = readEnum( ImportableSymbol.AccessModifier.class );
+			final TypeInlineDefinition n =
+				define( id, new TypeInlineDefinition( context, typeId, readBasicType(), cardinality, access ) );
+			n.setDocumentation( readString() );
+			n.setUntypedSubTypes( readBoolean() );
+			for( int size = readInt() - 1; size > 0; size-- ) {
+				n.putSubType( readType() );
+			}
+			return n;
+		}
+		case TYPE_DEFINITION_LINK: {
+			final ParsingContext context = readContext();
+			final String typeId = readString();
+			final Range cardinality = readRange();
+			final ImportableSymbol.AccessModifier access = readEnum( ImportableSymbol.AccessModifier.class );
+			final TypeDefinitionLink n =
+				define( id, new TypeDefinitionLink( context, typeId, cardinality, access, readString() ) );
+			n.setDocumentation( readString() );
+			n.setLinkedType( cast( readNode( linked -> n.setLinkedType( (TypeDefinition) linked ) ),
+				TypeDefinition.class ) );
+			return n;
+		}
+		case TYPE_CHOICE_DEFINITION: {
+			final ParsingContext context = readContext();
+			final String typeId = readString();
+			final Range cardinality = readRange();
+			final ImportableSymbol.AccessModifier access = readEnum( ImportableSymbol.AccessModifier.class );
+			final TypeDefinition left = readType();
+			final TypeChoiceDefinition n =
+				new TypeChoiceDefinition( context, typeId, cardinality, access, left, readType() );
+			n.setDocumentation( readString() );
+			return n;
+		}
+		default:
+			return readNode( tag, id, readContext() );
+		}
+	}
+
+	private OLSyntaxNode readNode( ProgramWriter.Tag tag, int id, ParsingContext context )
+		throws IOException {
+		switch( tag ) {
+		case PROGRAM:
+			return new Program( context, readNodes() );
+		case ONE_WAY_OPERATION_DECLARATION: {
+			final OneWayOperationDeclaration n = new OneWayOperationDeclaration( context, readString() );
+			n.setDocumentation( readString() );
+			n.setRequestType( readType() );
+			return n;
+		}
+		case REQUEST_RESPONSE_OPERATION_DECLARATION: {
+			final String operation = readString();
+			final TypeDefinition requestType = readType();
+			final TypeDefinition responseType = readType();
+			final Map< String, TypeDefinition > faults = new HashMap<>();
+			for( int size = readInt(); size > 0; size-- ) {
+				final String fault = readString();
+				faults.put( fault, readType() );
+			}
+			final RequestResponseOperationDeclaration n =
+				new RequestResponseOperationDeclaration( context, operation, requestType, responseType, faults );
+			n.setDocumentation( readString() );
+			return n;
+		}
+		case DEFINITION: {
+			final String name = readString();
+			return new DefinitionNode( context, name, readNode() );
+		}
+		case PARALLEL: {
+			final ParallelStatement n = new ParallelStatement( context );
+			readNodes().forEach( n::addChild );
+			return n;
+		}
+		case SEQUENCE: {
+			final SequenceStatement n = new SequenceStatement( context );
+			readNodes().forEach( n::addChild );
+			return n;
+		}
+		case ND_CHOICE: {
+			final NDChoiceStatement n = new NDChoiceStatement( context );
+			readNodePairs().forEach( n::addChild );
+			return n;
+		}
+		case ONE_WAY_OPERATION: {
+			final String operation = readString();
+			return new OneWayOperationStatement( context, operation, readVariablePath() );
+		}
+		case REQUEST_RESPONSE_OPERATION: {
+			final String operation = readString();
+			final VariablePathNode inputPath = readVariablePath();
+			final OLSyntaxNode outputExpression = readNode();
+			return new RequestResponseOperationStatement( context, operation, inputPath, outputExpression,
+				readNode() );
+		}
+		case NOTIFICATION_OPERATION: {
+			final String operation = readString();
+			final String outputPort = readString();
+			return new NotificationOperationStatement( context, operation, outputPort, readNode() );
+		}
+		case SOLICIT_RESPONSE_OPERATION: {
+			final String operation = readString();
+			final String outputPort = readString();
+			final OLSyntaxNode outputExpression = readNode();
+			final VariablePathNode inputPath = readVariablePath();
+			return new SolicitResponseOperationStatement( context, operation, outputPort, outputExpression,
+				inputPath, readInstallFunction() );
+		}
+		case LINK_IN:
+			return new LinkInStatement( context, readString() );
+		case LINK_OUT:
+			return new LinkOutStatement( context, readString() );
+		case ASSIGN: {
+			final VariablePathNode path = readVariablePath();
+			return new AssignStatement( context, path, readNode() );
+		}
+		case ADD_ASSIGN: {
+			final VariablePathNode path = readVariablePath();
+			return new AddAssignStatement( context, path, readNode() );
+		}
+		case SUBTRACT_ASSIGN: {
+			final VariablePathNode path = readVariablePath();
+			return new SubtractAssignStatement( context, path, readNode() );
+		}
+		case MULTIPLY_ASSIGN: {
+			final VariablePathNode path = readVariablePath();
+			return new MultiplyAssignStatement( context, path, readNode() );
+		}
+		case DIVIDE_ASSIGN: {
+			final VariablePathNode path = readVariablePath();
+			return new DivideAssignStatement( context, path, readNode() );
+		}
+		case IF: {
+			final IfStatement n = new IfStatement( context );
+			readNodePairs().forEach( n::addChild );
+			n.setElseProcess( readNode() );
+			return n;
+		}
+		case DEFINITION_CALL:
+			return new DefinitionCallStatement( context, readString() );
+		case WHILE: {
+			final OLSyntaxNode condition = readNode();
+			return new WhileStatement( context, condition, readNode() );
+		}
+		case OR_CONDITION: {
+			final OrConditionNode n = new OrConditionNode( context );
+			readNodes().forEach( n::addChild );
+			return n;
+		}
+		case AND_CONDITION: {
+			final AndConditionNode n = new AndConditionNode( context );
+			readNodes().forEach( n::addChild );
+			return n;
+		}
+		case NOT_EXPRESSION:
+			return new NotExpressionNode( context, readNode() );
+		case COMPARE_CONDITION: {
+			final OLSyntaxNode left = readNode();
+			final OLSyntaxNode right = readNode();
+			return new CompareConditionNode( context, left, right, readEnum( Scanner.TokenType.class ) );
+		}
+		case CONSTANT_INTEGER:
+			return new ConstantIntegerExpression( context, (int) readLong() );
+		case CONSTANT_DOUBLE:
+			return new ConstantDoubleExpression( context, Double.longBitsToDouble( readLong() ) );
+		case CONSTANT_BOOL:
+			return new ConstantBoolExpression( context, readBoolean() );
+		case CONSTANT_LONG:
+			return new ConstantLongExpression( context, readLong() );
+		case CONSTANT_STRING:
+			return new ConstantStringExpression( context, readString() );
+		case PRODUCT_EXPRESSION: {
+			final ProductExpressionNode n = new ProductExpressionNode( context );
+			for( int size = readInt(); size > 0; size-- ) {
+				final Constants.OperandType operand = readEnum( Constants.OperandType.class );
+				n.operands().add( new Pair<>( operand, readNode() ) );
+			}
+			return n;
+		}
+		case SUM_EXPRESSION: {
+			final SumExpressionNode n = new SumExpressionNode( context );
+			for( int size = readInt(); size > 0; size-- ) {
+				final Constants.OperandType operand = readEnum( Constants.OperandType.class );
+				n.operands().add( new Pair<>( operand, readNode() ) );
+			}
+			return n;
+		}
+		case VARIABLE_EXPRESSION:
+			return new VariableExpressionNode( context, readVariablePath() );
+		case NULL_PROCESS:
+			return new NullProcessStatement( context );
+		case SCOPE: {
+			final String scopeId = readString();
+			return new Scope( context, scopeId, readNode() );
+		}
+		case INSTALL:
+			return new InstallStatement( context, readInstallFunction() );
+		case COMPENSATE:
+			return new CompensateStatement( context, readString() );
+		case THROW: {
+			final String fault = readString();
+			return new ThrowStatement( context, fault, readNode() );
+		}
+		case EXIT:
+			return new ExitStatement( context );
+		case EXECUTION_INFO:
+			return new ExecutionInfo( context, readEnum( Constants.ExecutionMode.class ) );
+		case CORRELATION_SET: {
+			final int size = readInt();
+			final List< CorrelationSetInfo.CorrelationVariableInfo > variables = new ArrayList<>( size );
+			for( int i = 0; i < size; i++ ) {
+				final VariablePathNode path = readVariablePath();
+				final int nAliases = readInt();
+				final List< CorrelationSetInfo.CorrelationAliasInfo > aliases = new ArrayList<>( nAliases );
+				for( int k = 0; k < nAliases; k++ ) {
+					final TypeDefinition guard = readType();
+					aliases.add( new CorrelationSetInfo.CorrelationAliasInfo( guard, readVariablePath() ) );
+				}
+				variables.add( new CorrelationSetInfo.CorrelationVariableInfo( path, aliases ) );
+			}
+			return new CorrelationSetInfo( context, variables );
+		}
+		case INPUT_PORT: {
+			final String portId = readString();
+			final OLSyntaxNode location = readNode();
+			final OLSyntaxNode protocol = readNode();
+			final InputPortInfo.AggregationItemInfo[] aggregationList =
+				new InputPortInfo.AggregationItemInfo[ readInt() ];
+			for( int i = 0; i < aggregationList.length; i++ ) {
+				final String[] outputPorts = new String[ readInt() ];
+				for( int k = 0; k < outputPorts.length; k++ ) {
+					outputPorts[ k ] = readString();
+				}
+				aggregationList[ i ] = new InputPortInfo.AggregationItemInfo( outputPorts,
+					readNode( InterfaceExtenderDefinition.class ) );
+			}
+			final InputPortInfo n = define( id,
+				new InputPortInfo( context, portId, location, protocol, aggregationList, readStringMap() ) );
+			readPort( n );
+			return n;
+		}
+		case OUTPUT_PORT: {
+			final OutputPortInfo n = define( id, new OutputPortInfo( context, readString() ) );
+			n.setLocation( readNode() );
+			n.setProtocol( readNode() );
+			readPort( n );
+			return n;
+		}
+		case POINTER: {
+			final VariablePathNode left = readVariablePath();
+			return new PointerStatement( context, left, readVariablePath() );
+		}
+		case DEEP_COPY: {
+			final VariablePathNode left = readVariablePath();
+			final OLSyntaxNode right = readNode();
+			return new DeepCopyStatement( context, left, right, readBoolean() );
+		}
+		case RUN:
+			return new RunStatement( context, readNode() );
+		case UNDEF:
+			return new UndefStatement( context, readVariablePath() );
+		case VALUE_VECTOR_SIZE:
+			return new ValueVectorSizeExpressionNode( context, readVariablePath() );
+		case PRE_INCREMENT:
+			return new PreIncrementStatement( context, readVariablePath() );
+		case POST_INCREMENT:
+			return new PostIncrementStatement( context, readVariablePath() );
+		case PRE_DECREMENT:
+			return new PreDecrementStatement( context, readVariablePath() );
+		case POST_DECREMENT:
+			return new PostDecrementStatement( context, readVariablePath() );
+		case FOR: {
+			final OLSyntaxNode init = readNode();
+			final OLSyntaxNode condition = readNode();
+			final OLSyntaxNode post = readNode();
+			return new ForStatement( context, init, condition, post, readNode() );
+		}
+		case FOR_EACH_SUB_NODE: {
+			final VariablePathNode keyPath = readVariablePath();
+			final VariablePathNode targetPath = readVariablePath();
+			return new ForEachSubNodeStatement( context, keyPath, targetPath, readNode() );
+		}
+		case FOR_EACH_ARRAY_ITEM: {
+			final VariablePathNode keyPath = readVariablePath();
+			final VariablePathNode targetPath = readVariablePath();
+			return new ForEachArrayItemStatement( context, keyPath, targetPath, readNode() );
+		}
+		case SPAWN: {
+			final VariablePathNode indexPath = readVariablePath();
+			final OLSyntaxNode upperBound = readNode();
+			final VariablePathNode inPath = readVariablePath();
+			return new SpawnStatement( context, indexPath, upperBound, inPath, readNode() );
+		}
+		case IS_TYPE: {
+			final IsTypeExpressionNode.CheckType type = readEnum( IsTypeExpressionNode.CheckType.class );
+			return new IsTypeExpressionNode( context, type, readVariablePath() );
+		}
+		case INSTANCE_OF: {
+			final OLSyntaxNode expression = readNode();
+			return new InstanceOfExpressionNode( context, expression, readType() );
+		}
+		case TYPE_CAST: {
+			final NativeType type = readEnum( NativeType.class );
+			return new TypeCastExpressionNode( context, type, readNode() );
+		}
+		case SYNCHRONIZED: {
+			final String lockId = readString();
+			return new SynchronizedStatement( context, lockId, readNode() );
+		}
+		case CURRENT_HANDLER:
+			return new CurrentHandlerStatement( context );
+		case EMBEDDED_SERVICE: {
+			final Constants.EmbeddedServiceType type = readEnum( Constants.EmbeddedServiceType.class );
+			final String servicePath = readString();
+			final EmbeddedServiceNode n =
+				define( id, new EmbeddedServiceNode( context, type, servicePath, readString() ) );
+			n.setProgram( readNode( Program.class ) );
+			return n;
+		}
+		case INSTALL_FIXED_VARIABLE:
+			return new InstallFixedVariableExpressionNode( context, readVariablePath() );
+		case VARIABLE_PATH: {
+			final VariablePathNode.Type type = readEnum( VariablePathNode.Type.class );
+			final List< Pair< OLSyntaxNode, OLSyntaxNode > > path = readNodePairs();
+			final VariablePathNode n = new VariablePathNode( context, type, path.size() );
+			path.forEach( n::append );
+			return n;
+		}
+		case INTERFACE_DEFINITION: {
+			final String name = readString();
+			final InterfaceDefinition n = define( id,
+				new InterfaceDefinition( context, name, readEnum( ImportableSymbol.AccessModifier.class ) ) );
+			readInterface( n );
+			return n;
+		}
+		case INTERFACE_EXTENDER_DEFINITION: {
+			final String name = readString();
+			final InterfaceExtenderDefinition n = define( id,
+				new InterfaceExtenderDefinition( context, name, readEnum( ImportableSymbol.AccessModifier.class ) ) );
+			readInterface( n );
+			n.setDefaultOneWayOperation( readNode( OneWayOperationDeclaration.class ) );
+			n.setDefaultRequestResponseOperation( readNode( RequestResponseOperationDeclaration.class ) );
+			return n;
+		}
+		case DOCUMENTATION_COMMENT:
+			return new DocumentationComment( context, readString() );
+		case FRESH_VALUE:
+			return new FreshValueExpressionNode( context );
+		case COURIER_DEFINITION: {
+			final String inputPort = readString();
+			return new CourierDefinitionNode( context, inputPort, readNode() );
+		}
+		case COURIER_CHOICE:
+			return readCourierChoice( context );
+		case NOTIFICATION_FORWARD: {
+			final String outputPort = readString();
+			return new NotificationForwardStatement( context, outputPort, readVariablePath() );
+		}
+		case SOLICIT_RESPONSE_FORWARD: {
+			final String outputPort = readString();
+			final VariablePathNode outputPath = readVariablePath();
+			return new SolicitResponseForwardStatement( context, outputPort, outputPath, readVariablePath() );
+		}
+		case INLINE_TREE: {
+			final OLSyntaxNode root = readNode();
+			final InlineTreeExpressionNode.Operation[] operations =
+				new InlineTreeExpressionNode.Operation[ readInt() ];
+			for( int i = 0; i < operations.length; i++ ) {
+				final ProgramWriter.Tag operationTag = readTag();
+				final VariablePathNode path = readVariablePath();
+				switch( operationTag ) {
+				case ASSIGNMENT_OPERATION:
+					operations[ i ] = new InlineTreeExpressionNode.AssignmentOperation( path, readNode() );
+					break;
+				case DEEP_COPY_OPERATION:
+					operations[ i ] = new InlineTreeExpressionNode.DeepCopyOperation( path, readNode() );
+					break;
+				case POINTS_TO_OPERATION:
+					operations[ i ] = new InlineTreeExpressionNode.PointsToOperation( path, readVariablePath() );
+					break;
+				default:
+					throw new IOException( "Malformed program: unexpected inline tree operation " + operationTag );
+				}
+			}
+			return new InlineTreeExpressionNode( context, root, operations );
+		}
+		case VOID_EXPRESSION:
+			return new VoidExpressionNode( context );
+		case PROVIDE_UNTIL: {
+			final OLSyntaxNode provide = readNode();
+			return new ProvideUntilStatement( context, provide, readNode() );
+		}
+		case IMPORT: {
+			final int size = readInt();
+			final List< String > target = new ArrayList<>( size );
+			for( int i = 0; i < size; i++ ) {
+				target.add( readString() );
+			}
+			if( readBoolean() ) {
+				return new ImportStatement( context, Collections.unmodifiableList( target ) );
+			}
+			final int nSymbols = readInt();
+			final List< Pair< String, String > > symbols = new ArrayList<>( nSymbols );
+			for( int i = 0; i < nSymbols; i++ ) {
+				final String originalName = readString();
+				symbols.add( new Pair<>( originalName, readString() ) );
+			}
+			return new ImportStatement( context, Collections.unmodifiableList( target ), symbols );
+		}
+		case SERVICE: {
+			final String name = readString();
+			final ImportableSymbol.AccessModifier access = readEnum( ImportableSymbol.AccessModifier.class );
+			final Program program = readNode( Program.class );
+			Pair< String, TypeDefinition > parameter = null;
+			if( readBoolean() ) {
+				final String parameterPath = readString();
+				parameter = new Pair<>( parameterPath, readType() );
+			}
+			final Constants.EmbeddedServiceType type = readEnum( Constants.EmbeddedServiceType.class );
+			final Map< String, String > config = readStringMap();
+			return type == Constants.EmbeddedServiceType.SERVICENODE
+				? ServiceNode.create( context, name, access, program, parameter )
+				: ServiceNode.create( context, name, access, program, parameter, type, config );
+		}
+		case EMBED_SERVICE: {
+			final String serviceName = readString();
+			final OutputPortInfo bindingPort = readNode( OutputPortInfo.class );
+			final boolean isNewPort = readBoolean();
+			final EmbedServiceNode n =
+				define( id, new EmbedServiceNode( context, serviceName, bindingPort, isNewPort, readNode() ) );
+			n.setService( cast( readNode( service -> n.setService( (ServiceNode) service ) ), ServiceNode.class ) );
+			return n;
+		}
+		default:
+			throw new IOException( "Malformed program: unexpected tag " + tag );
+		}
+	}
+
+	private CourierChoiceStatement readCourierChoice( ParsingContext context )
+		throws IOException {
+		final CourierChoiceStatement n = new CourierChoiceStatement( context );
+		for( int size = readInt(); size > 0; size-- ) {
+			final InterfaceDefinition iface = readNode( InterfaceDefinition.class );
+			final VariablePathNode inputPath = readVariablePath();
+			n.interfaceOneWayBranches()
+				.add( new CourierChoiceStatement.InterfaceOneWayBranch( iface, inputPath, readNode() ) );
+		}
+		for( int size = readInt(); size > 0; size-- ) {
+			final InterfaceDefinition iface = readNode( InterfaceDefinition.class );
+			final VariablePathNode inputPath = readVariablePath();
+			final VariablePathNode outputPath = readVariablePath();
+			n.interfaceRequestResponseBranches().add(
+				new CourierChoiceStatement.InterfaceRequestResponseBranch( iface, inputPath, outputPath, readNode() ) );
+		}
+		for( int size = readInt(); size > 0; size-- ) {
+			final String operation = readString();
+			final VariablePathNode inputPath = readVariablePath();
+			n.operationOneWayBranches()
+				.add( new CourierChoiceStatement.OperationOneWayBranch( operation, inputPath, readNode() ) );
+		}
+		for( int size = readInt(); size > 0; size-- ) {
+			final String operation = readString();
+			final VariablePathNode inputPath = readVariablePath();
+			final VariablePathNode outputPath = readVariablePath();
+			n.operationRequestResponseBranches().add(
+				new CourierChoiceStatement.OperationRequestResponseBranch( operation, inputPath, outputPath,
+					readNode() ) );
+		}
+		return n;
+	}
+}
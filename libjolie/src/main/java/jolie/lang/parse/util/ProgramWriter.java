@@ -0,0 +1,1211 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package jolie.lang.parse.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import jolie.lang.parse.UnitOLVisitor;
+import jolie.lang.parse.ast.AddAssignStatement;
+import jolie.lang.parse.ast.AssignStatement;
+import jolie.lang.parse.ast.CompareConditionNode;
+import jolie.lang.parse.ast.CompensateStatement;
+import jolie.lang.parse.ast.CorrelationSetInfo;
+import jolie.lang.parse.ast.CurrentHandlerStatement;
+import jolie.lang.parse.ast.DeepCopyStatement;
+import jolie.lang.parse.ast.DefinitionCallStatement;
+import jolie.lang.parse.ast.DefinitionNode;
+import jolie.lang.parse.ast.DivideAssignStatement;
+import jolie.lang.parse.ast.DocumentationComment;
+import jolie.lang.parse.ast.EmbedServiceNode;
+import jolie.lang.parse.ast.EmbeddedServiceNode;
+import jolie.lang.parse.ast.ExecutionInfo;
+import jolie.lang.parse.ast.ExitStatement;
+import jolie.lang.parse.ast.ForEachArrayItemStatement;
+import jolie.lang.parse.ast.ForEachSubNodeStatement;
+import jolie.lang.parse.ast.ForStatement;
+import jolie.lang.parse.ast.IfStatement;
+import jolie.lang.parse.ast.ImportStatement;
+import jolie.lang.parse.ast.ImportSymbolTarget;
+import jolie.lang.parse.ast.InputPortInfo;
+import jolie.lang.parse.ast.InstallFixedVariableExpressionNode;
+import jolie.lang.parse.ast.InstallFunctionNode;
+import jolie.lang.parse.ast.InstallStatement;
+import jolie.lang.parse.ast.InterfaceDefinition;
+import jolie.lang.parse.ast.InterfaceExtenderDefinition;
+import jolie.lang.parse.ast.LinkInStatement;
+import jolie.lang.parse.ast.LinkOutStatement;
+import jolie.lang.parse.ast.MultiplyAssignStatement;
+import jolie.lang.parse.ast.NDChoiceStatement;
+import jolie.lang.parse.ast.NotificationOperationStatement;
+import jolie.lang.parse.ast.NullProcessStatement;
+import jolie.lang.parse.ast.OLSyntaxNode;
+import jolie.lang.parse.ast.OneWayOperationDeclaration;
+import jolie.lang.parse.ast.OneWayOperationStatement;
+import jolie.lang.parse.ast.OperationDeclaration;
+import jolie.lang.parse.ast.OutputPortInfo;
+import jolie.lang.parse.ast.ParallelStatement;
+import jolie.lang.parse.ast.PointerStatement;
+import jolie.lang.parse.ast.PortInfo;
+import jolie.lang.parse.ast.PostDecrementStatement;
+import jolie.lang.parse.ast.PostIncrementStatement;
+import jolie.lang.parse.ast.PreDecrementStatement;
+import jolie.lang.parse.ast.PreIncrementStatement;
+import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.ast.ProvideUntilStatement;
+import jolie.lang.parse.ast.RequestResponseOperationDeclaration;
+import jolie.lang.parse.ast.RequestResponseOperationStatement;
+import jolie.lang.parse.ast.RunStatement;
+import jolie.lang.parse.ast.Scope;
+import jolie.lang.parse.ast.SequenceStatement;
+import jolie.lang.parse.ast.ServiceNode;
+import jolie.lang.parse.ast.SolicitResponseOperationStatement;
+import jolie.lang.parse.ast.SpawnStatement;
+import jolie.lang.parse.ast.SubtractAssignStatement;
+import jolie.lang.parse.ast.SynchronizedStatement;
+import jolie.lang.parse.ast.ThrowStatement;
+import jolie.lang.parse.ast.TypeCastExpressionNode;
+import jolie.lang.parse.ast.UndefStatement;
+import jolie.lang.parse.ast.ValueVectorSizeExpressionNode;
+import jolie.lang.parse.ast.VariablePathNode;
+import jolie.lang.parse.ast.WhileStatement;
+import jolie.lang.parse.ast.courier.CourierChoiceStatement;
+import jolie.lang.parse.ast.courier.CourierDefinitionNode;
+import jolie.lang.parse.ast.courier.NotificationForwardStatement;
+import jolie.lang.parse.ast.courier.SolicitResponseForwardStatement;
+import jolie.lang.parse.ast.expression.AndConditionNode;
+import jolie.lang.parse.ast.expression.ConstantBoolExpression;
+import jolie.lang.parse.ast.expression.ConstantDoubleExpression;
+import jolie.lang.parse.ast.expression.ConstantIntegerExpression;
+import jolie.lang.parse.ast.expression.ConstantLongExpression;
+import jolie.lang.parse.ast.expression.ConstantStringExpression;
+import jolie.lang.parse.ast.expression.FreshValueExpressionNode;
+import jolie.lang.parse.ast.expression.InlineTreeExpressionNode;
+import jolie.lang.parse.ast.expression.InstanceOfExpressionNode;
+import jolie.lang.parse.ast.expression.IsTypeExpressionNode;
+import jolie.lang.parse.ast.expression.NotExpressionNode;
+import jolie.lang.parse.ast.expression.OrConditionNode;
+import jolie.lang.parse.ast.expression.ProductExpressionNode;
+import jolie.lang.parse.ast.expression.SumExpressionNode;
+import jolie.lang.parse.ast.expression.VariableExpressionNode;
+import jolie.lang.parse.ast.expression.VoidExpressionNode;
+import jolie.lang.parse.ast.types.BasicTypeDefinition;
+import jolie.lang.parse.ast.types.TypeChoiceDefinition;
+import jolie.lang.parse.ast.types.TypeDefinition;
+import jolie.lang.parse.ast.types.TypeDefinitionLink;
+import jolie.lang.parse.ast.types.TypeDefinitionUndefined;
+import jolie.lang.parse.ast.types.TypeInlineDefinition;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinement;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementDoubleRanges;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementIntegerRanges;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementLongRanges;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementStringLength;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementStringList;
+import jolie.lang.parse.ast.types.refinements.BasicTypeRefinementStringRegex;
+import jolie.lang.parse.context.ParsingContext;
+import jolie.lang.parse.context.URIParsingContext;
+import jolie.util.Pair;
+import jolie.util.Range;
+
+/**
+ * Writes syntax trees in a compact binary format, which can be read back with {@link ProgramReader}
+ * much faster than the source code they have been parsed from can be parsed again.
+ *
+ * Every node is written once: nodes that are reachable more than once (e.g., the type definitions
+ * linked by other types, or the operation declarations shared by interfaces and ports) are written
+ * again as references to their first occurrence, so that the read tree has the same sharing (and
+ * cycles) as the written one. Strings and parsing contexts are shared in the same way.
+ *
+ * All the nodes written by the same writer share these tables, so nodes written in different calls
+ * of {@link #writeNode(OLSyntaxNode)} may refer to each other. The format is not meant to be read
+ * by different versions of Jolie.
+ */
+public final class ProgramWriter {
+	/**
+	 * The kinds of nodes (and other structures) in the format, with the codes that identify them in
+	 * written programs. Codes are part of the format: new kinds get new codes, and the codes of
+	 * existing kinds never change.
+	 */
+	// @formatter:off
+	enum Tag {
+		NULL( 0 ),
+		REFERENCE( 1 ),
+		UNDEFINED_TYPE( 2 ),
+		PROGRAM( 3 ),
+		ONE_WAY_OPERATION_DECLARATION( 4 ),
+		REQUEST_RESPONSE_OPERATION_DECLARATION( 5 ),
+		DEFINITION( 6 ),
+		PARALLEL( 7 ),
+		SEQUENCE( 8 ),
+		ND_CHOICE( 9 ),
+		ONE_WAY_OPERATION( 10 ),
+		REQUEST_RESPONSE_OPERATION( 11 ),
+		NOTIFICATION_OPERATION( 12 ),
+		SOLICIT_RESPONSE_OPERATION( 13 ),
+		LINK_IN( 14 ),
+		LINK_OUT( 15 ),
+		ASSIGN( 16 ),
+		ADD_ASSIGN( 17 ),
+		SUBTRACT_ASSIGN( 18 ),
+		MULTIPLY_ASSIGN( 19 ),
+		DIVIDE_ASSIGN( 20 ),
+		IF( 21 ),
+		DEFINITION_CALL( 22 ),
+		WHILE( 23 ),
+		OR_CONDITION( 24 ),
+		AND_CONDITION( 25 ),
+		NOT_EXPRESSION( 26 ),
+		COMPARE_CONDITION( 27 ),
+		CONSTANT_INTEGER( 28 ),
+		CONSTANT_DOUBLE( 29 ),
+		CONSTANT_BOOL( 30 ),
+		CONSTANT_LONG( 31 ),
+		CONSTANT_STRING( 32 ),
+		PRODUCT_EXPRESSION( 33 ),
+		SUM_EXPRESSION( 34 ),
+		VARIABLE_EXPRESSION( 35 ),
+		NULL_PROCESS( 36 ),
+		SCOPE( 37 ),
+		INSTALL( 38 ),
+		COMPENSATE( 39 ),
+		THROW( 40 ),
+		EXIT( 41 ),
+		EXECUTION_INFO( 42 ),
+		CORRELATION_SET( 43 ),
+		INPUT_PORT( 44 ),
+		OUTPUT_PORT( 45 ),
+		POINTER( 46 ),
+		DEEP_COPY( 47 ),
+		RUN( 48 ),
+		UNDEF( 49 ),
+		VALUE_VECTOR_SIZE( 50 ),
+		PRE_INCREMENT( 51 ),
+		POST_INCREMENT( 52 ),
+		PRE_DECREMENT( 53 ),
+		POST_DECREMENT( 54 ),
+		FOR( 55 ),
+		FOR_EACH_SUB_NODE( 56 ),
+		FOR_EACH_ARRAY_ITEM( 57 ),
+		SPAWN( 58 ),
+		IS_TYPE( 59 ),
+		INSTANCE_OF( 60 ),
+		TYPE_CAST( 61 ),
+		SYNCHRONIZED( 62 ),
+		CURRENT_HANDLER( 63 ),
+		EMBEDDED_SERVICE( 64 ),
+		INSTALL_FIXED_VARIABLE( 65 ),
+		VARIABLE_PATH( 66 ),
+		TYPE_INLINE_DEFINITION( 67 ),
+		TYPE_DEFINITION_LINK( 68 ),
+		INTERFACE_DEFINITION( 69 ),
+		DOCUMENTATION_COMMENT( 70 ),
+		FRESH_VALUE( 71 ),
+		COURIER_DEFINITION( 72 ),
+		COURIER_CHOICE( 73 ),
+		NOTIFICATION_FORWARD( 74 ),
+		SOLICIT_RESPONSE_FORWARD( 75 ),
+		INTERFACE_EXTENDER_DEFINITION( 76 ),
+		INLINE_TREE( 77 ),
+		VOID_EXPRESSION( 78 ),
+		PROVIDE_UNTIL( 79 ),
+		TYPE_CHOICE_DEFINITION( 80 ),
+		IMPORT( 81 ),
+		SERVICE( 82 ),
+		EMBED_SERVICE( 83 ),
+		// Refinements of basic types
+		INTEGER_RANGES( 84 ),
+		LONG_RANGES( 85 ),
+		DOUBLE_RANGES( 86 ),
+		STRING_LENGTH( 87 ),
+		STRING_LIST( 88 ),
+		STRING_REGEX( 89 ),
+		// Operations of inline trees
+		ASSIGNMENT_OPERATION( 90 ),
+		DEEP_COPY_OPERATION( 91 ),
+		POINTS_TO_OPERATION( 92 );
+		// @formatter:on
+
+		private static final Tag[] BY_CODE;
+
+		static {
+			int max = 0;
+			for( Tag tag : values() ) {
+				max = Math.max( max, tag.code );
+			}
+			BY_CODE = new Tag[ max + 1 ];
+			for( Tag tag : values() ) {
+				BY_CODE[ tag.code ] = tag;
+			}
+		}
+
+		private final int code;
+
+		Tag( int code ) {
+			this.code = code;
+		}
+
+		int code() {
+			return code;
+		}
+
+		static Tag of( int code ) {
+			return code >= 0 && code < BY_CODE.length ? BY_CODE[ code ] : null;
+		}
+	}
+
+	private final Map< Object, Integer > nodes = new IdentityHashMap<>();
+	private final Map< String, Integer > strings = new HashMap<>();
+	private final Map< ParsingContext, Integer > contexts = new IdentityHashMap<>();
+	private final NodeWriter nodeWriter = new NodeWriter();
+	private byte[] buffer = new byte[ 8192 ];
+	private int size = 0;
+
+	/**
+	 * Writes a node, together with all the nodes reachable from it.
+	 *
+	 * @param node the node to write, which may be null
+	 */
+	public void writeNode( OLSyntaxNode node ) {
+		if( node == null ) {
+			writeTag( Tag.NULL );
+		} else if( node == TypeDefinitionUndefined.getInstance() ) {
+			writeTag( Tag.UNDEFINED_TYPE );
+		} else {
+			final Integer id = nodes.get( node );
+			if( id != null ) {
+				writeTag( Tag.REFERENCE );
+				writeInt( id );
+			} else {
+				nodes.put( node, nodes.size() );
+				node.accept( nodeWriter );
+			}
+		}
+	}
+
+	/**
+	 * Writes a string, which may be null.
+	 */
+	public void writeString( String s ) {
+		if( s == null ) {
+			writeInt( 0 );
+			return;
+		}
+		final Integer id = strings.get( s );
+		if( id != null ) {
+			writeInt( id + 2 );
+		} else {
+			strings.put( s, strings.size() );
+			writeInt( 1 );
+			final byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+			writeInt( bytes.length );
+			ensureCapacity( bytes.length );
+			System.arraycopy( bytes, 0, buffer, size, bytes.length );
+			size += bytes.length;
+		}
+	}
+
+	/**
+	 * Writes a non-negative integer, in a variable number of bytes.
+	 */
+	public void writeInt( int i ) {
+		ensureCapacity( 5 );
+		while( (i & ~0x7F) != 0 ) {
+			buffer[ size++ ] = (byte) ((i & 0x7F) | 0x80);
+			i >>>= 7;
+		}
+		buffer[ size++ ] = (byte) i;
+	}
+
+	/**
+	 * Writes a long in a variable number of bytes, which are fewer for numbers close to zero.
+	 */
+	public void writeLong( long l ) {
+		long v = (l << 1) ^ (l >> 63); // Zig-zag encoding, for negative numbers
+		ensureCapacity( 10 );
+		while( (v & ~0x7FL) != 0 ) {
+			buffer[ size++ ] = (byte) ((v & 0x7F) | 0x80);
+			v >>>= 7;
+		}
+		buffer[ size++ ] = (byte) v;
+	}
+
+	public void writeBoolean( boolean b ) {
+		ensureCapacity( 1 );
+		buffer[ size++ ] = (byte) (b ? 1 : 0);
+	}
+
+	/**
+	 * Writes the name of an enum constant, which may be null.
+	 */
+	public void writeEnum( Enum< ? > e ) {
+		writeString( e == null ? null : e.name() );
+	}
+
+	/**
+	 * Returns the number of bytes written so far.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns a copy of the bytes written so far.
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf( buffer, size );
+	}
+
+	/**
+	 * Writes the bytes written so far to a stream.
+	 */
+	public void writeTo( OutputStream stream )
+		throws IOException {
+		stream.write( buffer, 0, size );
+	}
+
+	private void ensureCapacity( int n ) {
+		if( size + n > buffer.length ) {
+			buffer = Arrays.copyOf( buffer, Math.max( buffer.length * 2, size + n ) );
+		}
+	}
+
+	private void writeTag( Tag tag ) {
+		writeInt( tag.code() );
+	}
+
+	private void writeContext( ParsingContext context ) {
+		if( context == null ) {
+			writeInt( 0 );
+			return;
+		}
+		final Integer id = contexts.get( context );
+		if( id != null ) {
+			writeInt( id + 2 );
+		} else {
+			if( !(context instanceof URIParsingContext) ) {
+				throw new IllegalArgumentException( "Unsupported parsing context: " + context.getClass().getName() );
+			}
+			contexts.put( context, contexts.size() );
+			writeInt( 1 );
+			writeString( context.source().toString() );
+			writeInt( context.line() );
+		}
+	}
+
+	private void writeNodes( List< ? extends OLSyntaxNode > list ) {
+		writeInt( list.size() );
+		for( OLSyntaxNode node : list ) {
+			writeNode( node );
+		}
+	}
+
+	private void writeNodePairs( List< Pair< OLSyntaxNode, OLSyntaxNode > > list ) {
+		writeInt( list.size() );
+		for( Pair< OLSyntaxNode, OLSyntaxNode > pair : list ) {
+			writeNode( pair.key() );
+			writeNode( pair.value() );
+		}
+	}
+
+	private void writeStringMap( Map< String, String > map ) {
+		if( map == null ) {
+			writeInt( 0 );
+			return;
+		}
+		writeInt( map.size() + 1 );
+		for( Map.Entry< String, String > entry : map.entrySet() ) {
+			writeString( entry.getKey() );
+			writeString( entry.getValue() );
+		}
+	}
+
+	private void writeRange( Range range ) {
+		writeInt( range.min() );
+		writeInt( range.max() );
+	}
+
+	private void writeInstallFunction( InstallFunctionNode function ) {
+		if( function == null ) {
+			writeInt( 0 );
+			return;
+		}
+		writeInt( function.pairs().length + 1 );
+		for( Pair< String, OLSyntaxNode > pair : function.pairs() ) {
+			writeString( pair.key() );
+			writeNode( pair.value() );
+		}
+	}
+
+	private void writeOperations( Map< String, OperationDeclaration > operations ) {
+		writeInt( operations.size() );
+		for( OperationDeclaration operation : operations.values() ) {
+			writeNode( operation );
+		}
+	}
+
+	private void writePort( PortInfo n ) {
+		writeString( n.getDocumentation() );
+		writeOperations( n.operationsMap() );
+		writeNodes( n.getInterfaceList() );
+	}
+
+	private void writeInterface( InterfaceDefinition n ) {
+		writeString( n.getDocumentation() );
+		writeOperations( n.operationsMap() );
+	}
+
+	private void writeTypeHeader( TypeDefinition n ) {
+		writeContext( n.context() );
+		writeString( n.id() );
+		writeRange( n.cardinality() );
+		writeEnum( n.accessModifier() );
+	}
+
+	private void writeBasicType( BasicTypeDefinition basicType ) {
+		writeEnum( basicType.nativeType() );
+		writeInt( basicType.refinements().size() );
+		for( BasicTypeRefinement< ? > refinement : basicType.refinements() ) {
+			if( refinement instanceof BasicTypeRefinementIntegerRanges ) {
+				writeTag( Tag.INTEGER_RANGES );
+				final List< BasicTypeRefinementIntegerRanges.Interval > ranges =
+					((BasicTypeRefinementIntegerRanges) refinement).getRanges();
+				writeInt( ranges.size() );
+				for( BasicTypeRefinementIntegerRanges.Interval interval : ranges ) {
+					writeLong( interval.getMin() );
+					writeLong( interval.getMax() );
+				}
+			} else if( refinement instanceof BasicTypeRefinementLongRanges ) {
+				writeTag( Tag.LONG_RANGES );
+				final List< BasicTypeRefinementLongRanges.Interval > ranges =
+					((BasicTypeRefinementLongRanges) refinement).getRanges();
+				writeInt( ranges.size() );
+				for( BasicTypeRefinementLongRanges.Interval interval : ranges ) {
+					writeLong( interval.getMin() );
+					writeLong( interval.getMax() );
+				}
+			} else if( refinement instanceof BasicTypeRefinementDoubleRanges ) {
+				writeTag( Tag.DOUBLE_RANGES );
+				final List< BasicTypeRefinementDoubleRanges.Interval > ranges =
+					((BasicTypeRefinementDoubleRanges) refinement).getRanges();
+				writeInt( ranges.size() );
+				for( BasicTypeRefinementDoubleRanges.Interval interval : ranges ) {
+					writeLong( Double.doubleToRawLongBits( interval.getMin() ) );
+					writeLong( Double.doubleToRawLongBits( interval.getMax() ) );
+				}
+			} else if( refinement instanceof BasicTypeRefinementStringLength ) {
+				writeTag( Tag.STRING_LENGTH );
+				writeLong( ((BasicTypeRefinementStringLength) refinement).getMin() );
+				writeLong( ((BasicTypeRefinementStringLength) refinement).getMax() );
+			} else if( refinement instanceof BasicTypeRefinementStringList ) {
+				writeTag( Tag.STRING_LIST );
+				final List< String > list = ((BasicTypeRefinementStringList) refinement).getList();
+				writeInt( list.size() );
+				for( String s : list ) {
+					writeString( s );
+				}
+			} else if( refinement instanceof BasicTypeRefinementStringRegex ) {
+				writeTag( Tag.STRING_REGEX );
+				writeString( ((BasicTypeRefinementStringRegex) refinement).getRegex() );
+			} else {
+				throw new IllegalArgumentException(
+					"Unsupported basic type refinement: " + refinement.getClass().getName() );
+			}
+		}
+	}
+
+	private void writeVariablePathNode( VariablePathNode n ) {
+		writeNode( n );
+	}
+
+	private class NodeWriter implements UnitOLVisitor {
+		private void header( Tag tag, OLSyntaxNode n ) {
+			writeTag( tag );
+			writeContext( n.context() );
+		}
+
+		@Override
+		public void visit( Program n ) {
+			header( Tag.PROGRAM, n );
+			writeNodes( n.children() );
+		}
+
+		@Override
+		public void visit( OneWayOperationDeclaration decl ) {
+			header( Tag.ONE_WAY_OPERATION_DECLARATION, decl );
+			writeString( decl.id() );
+			writeString( decl.getDocumentation() );
+			writeNode( decl.requestType() );
+		}
+
+		@Override
+		public void visit( RequestResponseOperationDeclaration decl ) {
+			header( Tag.REQUEST_RESPONSE_OPERATION_DECLARATION, decl );
+			writeString( decl.id() );
+			writeNode( decl.requestType() );
+			writeNode( decl.responseType() );
+			writeInt( decl.faults().size() );
+			for( Map.Entry< String, TypeDefinition > fault : decl.faults().entrySet() ) {
+				writeString( fault.getKey() );
+				writeNode( fault.getValue() );
+			}
+			writeString( decl.getDocumentation() );
+		}
+
+		@Override
+		public void visit( DefinitionNode n ) {
+			header( Tag.DEFINITION, n );
+			writeString( n.id() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( ParallelStatement n ) {
+			header( Tag.PARALLEL, n );
+			writeNodes( n.children() );
+		}
+
+		@Override
+		public void visit( SequenceStatement n ) {
+			header( Tag.SEQUENCE, n );
+			writeNodes( n.children() );
+		}
+
+		@Override
+		public void visit( NDChoiceStatement n ) {
+			header( Tag.ND_CHOICE, n );
+			writeNodePairs( n.children() );
+		}
+
+		@Override
+		public void visit( OneWayOperationStatement n ) {
+			header( Tag.ONE_WAY_OPERATION, n );
+			writeString( n.id() );
+			writeVariablePathNode( n.inputVarPath() );
+		}
+
+		@Override
+		public void visit( RequestResponseOperationStatement n ) {
+			header( Tag.REQUEST_RESPONSE_OPERATION, n );
+			writeString( n.id() );
+			writeVariablePathNode( n.inputVarPath() );
+			writeNode( n.outputExpression() );
+			writeNode( n.process() );
+		}
+
+		@Override
+		public void visit( NotificationOperationStatement n ) {
+			header( Tag.NOTIFICATION_OPERATION, n );
+			writeString( n.id() );
+			writeString( n.outputPortId() );
+			writeNode( n.outputExpression() );
+		}
+
+		@Override
+		public void visit( SolicitResponseOperationStatement n ) {
+			header( Tag.SOLICIT_RESPONSE_OPERATION, n );
+			writeString( n.id() );
+			writeString( n.outputPortId() );
+			writeNode( n.outputExpression() );
+			writeVariablePathNode( n.inputVarPath() );
+			writeInstallFunction( n.handlersFunction() );
+		}
+
+		@Override
+		public void visit( LinkInStatement n ) {
+			header( Tag.LINK_IN, n );
+			writeString( n.id() );
+		}
+
+		@Override
+		public void visit( LinkOutStatement n ) {
+			header( Tag.LINK_OUT, n );
+			writeString( n.id() );
+		}
+
+		@Override
+		public void visit( AssignStatement n ) {
+			header( Tag.ASSIGN, n );
+			writeVariablePathNode( n.variablePath() );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( AddAssignStatement n ) {
+			header( Tag.ADD_ASSIGN, n );
+			writeVariablePathNode( n.variablePath() );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( SubtractAssignStatement n ) {
+			header( Tag.SUBTRACT_ASSIGN, n );
+			writeVariablePathNode( n.variablePath() );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( MultiplyAssignStatement n ) {
+			header( Tag.MULTIPLY_ASSIGN, n );
+			writeVariablePathNode( n.variablePath() );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( DivideAssignStatement n ) {
+			header( Tag.DIVIDE_ASSIGN, n );
+			writeVariablePathNode( n.variablePath() );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( IfStatement n ) {
+			header( Tag.IF, n );
+			writeNodePairs( n.children() );
+			writeNode( n.elseProcess() );
+		}
+
+		@Override
+		public void visit( DefinitionCallStatement n ) {
+			header( Tag.DEFINITION_CALL, n );
+			writeString( n.id() );
+		}
+
+		@Override
+		public void visit( WhileStatement n ) {
+			header( Tag.WHILE, n );
+			writeNode( n.condition() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( OrConditionNode n ) {
+			header( Tag.OR_CONDITION, n );
+			writeNodes( n.children() );
+		}
+
+		@Override
+		public void visit( AndConditionNode n ) {
+			header( Tag.AND_CONDITION, n );
+			writeNodes( n.children() );
+		}
+
+		@Override
+		public void visit( NotExpressionNode n ) {
+			header( Tag.NOT_EXPRESSION, n );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( CompareConditionNode n ) {
+			header( Tag.COMPARE_CONDITION, n );
+			writeNode( n.leftExpression() );
+			writeNode( n.rightExpression() );
+			writeEnum( n.opType() );
+		}
+
+		@Override
+		public void visit( ConstantIntegerExpression n ) {
+			header( Tag.CONSTANT_INTEGER, n );
+			writeLong( n.value() );
+		}
+
+		@Override
+		public void visit( ConstantDoubleExpression n ) {
+			header( Tag.CONSTANT_DOUBLE, n );
+			writeLong( Double.doubleToRawLongBits( n.value() ) );
+		}
+
+		@Override
+		public void visit( ConstantBoolExpression n ) {
+			header( Tag.CONSTANT_BOOL, n );
+			writeBoolean( n.value() );
+		}
+
+		@Override
+		public void visit( ConstantLongExpression n ) {
+			header( Tag.CONSTANT_LONG, n );
+			writeLong( n.value() );
+		}
+
+		@Override
+		public void visit( ConstantStringExpression n ) {
+			header( Tag.CONSTANT_STRING, n );
+			writeString( n.value() );
+		}
+
+		@Override
+		public void visit( ProductExpressionNode n ) {
+			header( Tag.PRODUCT_EXPRESSION, n );
+			writeInt( n.operands().size() );
+			for( Pair< jolie.lang.Constants.OperandType, OLSyntaxNode > operand : n.operands() ) {
+				writeEnum( operand.key() );
+				writeNode( operand.value() );
+			}
+		}
+
+		@Override
+		public void visit( SumExpressionNode n ) {
+			header( Tag.SUM_EXPRESSION, n );
+			writeInt( n.operands().size() );
+			for( Pair< jolie.lang.Constants.OperandType, OLSyntaxNode > operand : n.operands() ) {
+				writeEnum( operand.key() );
+				writeNode( operand.value() );
+			}
+		}
+
+		@Override
+		public void visit( VariableExpressionNode n ) {
+			header( Tag.VARIABLE_EXPRESSION, n );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( NullProcessStatement n ) {
+			header( Tag.NULL_PROCESS, n );
+		}
+
+		@Override
+		public void visit( Scope n ) {
+			header( Tag.SCOPE, n );
+			writeString( n.id() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( InstallStatement n ) {
+			header( Tag.INSTALL, n );
+			writeInstallFunction( n.handlersFunction() );
+		}
+
+		@Override
+		public void visit( CompensateStatement n ) {
+			header( Tag.COMPENSATE, n );
+			writeString( n.id() );
+		}
+
+		@Override
+		public void visit( ThrowStatement n ) {
+			header( Tag.THROW, n );
+			writeString( n.id() );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( ExitStatement n ) {
+			header( Tag.EXIT, n );
+		}
+
+		@Override
+		public void visit( ExecutionInfo n ) {
+			header( Tag.EXECUTION_INFO, n );
+			writeEnum( n.mode() );
+		}
+
+		@Override
+		public void visit( CorrelationSetInfo n ) {
+			header( Tag.CORRELATION_SET, n );
+			writeInt( n.variables().size() );
+			for( CorrelationSetInfo.CorrelationVariableInfo variable : n.variables() ) {
+				writeVariablePathNode( variable.correlationVariablePath() );
+				writeInt( variable.aliases().size() );
+				for( CorrelationSetInfo.CorrelationAliasInfo alias : variable.aliases() ) {
+					writeNode( alias.guardName() );
+					writeVariablePathNode( alias.variablePath() );
+				}
+			}
+		}
+
+		@Override
+		public void visit( InputPortInfo n ) {
+			header( Tag.INPUT_PORT, n );
+			writeString( n.id() );
+			writeNode( n.location() );
+			writeNode( n.protocol() );
+			writeInt( n.aggregationList().length );
+			for( InputPortInfo.AggregationItemInfo item : n.aggregationList() ) {
+				writeInt( item.outputPortList().length );
+				for( String outputPort : item.outputPortList() ) {
+					writeString( outputPort );
+				}
+				writeNode( item.interfaceExtender() );
+			}
+			writeStringMap( n.redirectionMap() );
+			writePort( n );
+		}
+
+		@Override
+		public void visit( OutputPortInfo n ) {
+			header( Tag.OUTPUT_PORT, n );
+			writeString( n.id() );
+			writeNode( n.location() );
+			writeNode( n.protocol() );
+			writePort( n );
+		}
+
+		@Override
+		public void visit( PointerStatement n ) {
+			header( Tag.POINTER, n );
+			writeVariablePathNode( n.leftPath() );
+			writeVariablePathNode( n.rightPath() );
+		}
+
+		@Override
+		public void visit( DeepCopyStatement n ) {
+			header( Tag.DEEP_COPY, n );
+			writeVariablePathNode( n.leftPath() );
+			writeNode( n.rightExpression() );
+			writeBoolean( n.copyLinks() );
+		}
+
+		@Override
+		public void visit( RunStatement n ) {
+			header( Tag.RUN, n );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( UndefStatement n ) {
+			header( Tag.UNDEF, n );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( ValueVectorSizeExpressionNode n ) {
+			header( Tag.VALUE_VECTOR_SIZE, n );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( PreIncrementStatement n ) {
+			header( Tag.PRE_INCREMENT, n );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( PostIncrementStatement n ) {
+			header( Tag.POST_INCREMENT, n );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( PreDecrementStatement n ) {
+			header( Tag.PRE_DECREMENT, n );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( PostDecrementStatement n ) {
+			header( Tag.POST_DECREMENT, n );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( ForStatement n ) {
+			header( Tag.FOR, n );
+			writeNode( n.init() );
+			writeNode( n.condition() );
+			writeNode( n.post() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( ForEachSubNodeStatement n ) {
+			header( Tag.FOR_EACH_SUB_NODE, n );
+			writeVariablePathNode( n.keyPath() );
+			writeVariablePathNode( n.targetPath() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( ForEachArrayItemStatement n ) {
+			header( Tag.FOR_EACH_ARRAY_ITEM, n );
+			writeVariablePathNode( n.keyPath() );
+			writeVariablePathNode( n.targetPath() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( SpawnStatement n ) {
+			header( Tag.SPAWN, n );
+			writeVariablePathNode( n.indexVariablePath() );
+			writeNode( n.upperBoundExpression() );
+			writeVariablePathNode( n.inVariablePath() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( IsTypeExpressionNode n ) {
+			header( Tag.IS_TYPE, n );
+			writeEnum( n.type() );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( InstanceOfExpressionNode n ) {
+			header( Tag.INSTANCE_OF, n );
+			writeNode( n.expression() );
+			writeNode( n.type() );
+		}
+
+		@Override
+		public void visit( TypeCastExpressionNode n ) {
+			header( Tag.TYPE_CAST, n );
+			writeEnum( n.type() );
+			writeNode( n.expression() );
+		}
+
+		@Override
+		public void visit( SynchronizedStatement n ) {
+			header( Tag.SYNCHRONIZED, n );
+			writeString( n.id() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( CurrentHandlerStatement n ) {
+			header( Tag.CURRENT_HANDLER, n );
+		}
+
+		@Override
+		public void visit( EmbeddedServiceNode n ) {
+			header( Tag.EMBEDDED_SERVICE, n );
+			writeEnum( n.type() );
+			writeString( n.servicePath() );
+			writeString( n.portId() );
+			writeNode( n.program() );
+		}
+
+		@Override
+		public void visit( InstallFixedVariableExpressionNode n ) {
+			header( Tag.INSTALL_FIXED_VARIABLE, n );
+			writeVariablePathNode( n.variablePath() );
+		}
+
+		@Override
+		public void visit( VariablePathNode n ) {
+			header( Tag.VARIABLE_PATH, n );
+			writeEnum( n.type() );
+			writeNodePairs( n.path() );
+		}
+
+		@Override
+		public void visit( TypeInlineDefinition n ) {
+			writeTag( Tag.TYPE_INLINE_DEFINITION );
+			writeTypeHeader( n );
+			writeBasicType( n.basicType() );
+			writeString( n.getDocumentation() );
+			writeBoolean( n.untypedSubTypes() );
+			if( n.subTypes() == null ) {
+				writeInt( 0 );
+			} else {
+				writeInt( n.subTypes().size() + 1 );
+				for( Map.Entry< String, TypeDefinition > subType : n.subTypes() ) {
+					writeNode( subType.getValue() );
+				}
+			}
+		}
+
+		@Override
+		public void visit( TypeDefinitionLink n ) {
+			writeTag( Tag.TYPE_DEFINITION_LINK );
+			writeTypeHeader( n );
+			writeString( n.linkedTypeName() );
+			writeString( n.getDocumentation() );
+			writeNode( n.linkedType() );
+		}
+
+		@Override
+		public void visit( TypeChoiceDefinition n ) {
+			writeTag( Tag.TYPE_CHOICE_DEFINITION );
+			writeTypeHeader( n );
+			writeNode( n.left() );
+			writeNode( n.right() );
+			writeString( n.getDocumentation() );
+		}
+
+		@Override
+		public void visit( InterfaceDefinition n ) {
+			header( Tag.INTERFACE_DEFINITION, n );
+			writeString( n.name() );
+			writeEnum( n.accessModifier() );
+			writeInterface( n );
+		}
+
+		@Override
+		public void visit( InterfaceExtenderDefinition n ) {
+			header( Tag.INTERFACE_EXTENDER_DEFINITION, n );
+			writeString( n.name() );
+			writeEnum( n.accessModifier() );
+			writeInterface( n );
+			writeNode( n.defaultOneWayOperation() );
+			writeNode( n.defaultRequestResponseOperation() );
+		}
+
+		@Override
+		public void visit( DocumentationComment n ) {
+			header( Tag.DOCUMENTATION_COMMENT, n );
+			writeString( n.comment() );
+		}
+
+		@Override
+		public void visit( FreshValueExpressionNode n ) {
+			header( Tag.FRESH_VALUE, n );
+		}
+
+		@Override
+		public void visit( CourierDefinitionNode n ) {
+			header( Tag.COURIER_DEFINITION, n );
+			writeString( n.inputPortName() );
+			writeNode( n.body() );
+		}
+
+		@Override
+		public void visit( CourierChoiceStatement n ) {
+			header( Tag.COURIER_CHOICE, n );
+			writeInt( n.interfaceOneWayBranches().size() );
+			for( CourierChoiceStatement.InterfaceOneWayBranch branch : n.interfaceOneWayBranches() ) {
+				writeNode( branch.interfaceDefinition );
+				writeVariablePathNode( branch.inputVariablePath );
+				writeNode( branch.body );
+			}
+			writeInt( n.interfaceRequestResponseBranches().size() );
+			for( CourierChoiceStatement.InterfaceRequestResponseBranch branch : n
+				.interfaceRequestResponseBranches() ) {
+				writeNode( branch.interfaceDefinition );
+				writeVariablePathNode( branch.inputVariablePath );
+				writeVariablePathNode( branch.outputVariablePath );
+				writeNode( branch.body );
+			}
+			writeInt( n.operationOneWayBranches().size() );
+			for( CourierChoiceStatement.OperationOneWayBranch branch : n.operationOneWayBranches() ) {
+				writeString( branch.operation );
+				writeVariablePathNode( branch.inputVariablePath );
+				writeNode( branch.body );
+			}
+			writeInt( n.operationRequestResponseBranches().size() );
+			for( CourierChoiceStatement.OperationRequestResponseBranch branch : n
+				.operationRequestResponseBranches() ) {
+				writeString( branch.operation );
+				writeVariablePathNode( branch.inputVariablePath );
+				writeVariablePathNode( branch.outputVariablePath );
+				writeNode( branch.body );
+			}
+		}
+
+		@Override
+		public void visit( NotificationForwardStatement n ) {
+			header( Tag.NOTIFICATION_FORWARD, n );
+			writeString( n.outputPortName() );
+			writeVariablePathNode( n.outputVariablePath() );
+		}
+
+		@Override
+		public void visit( SolicitResponseForwardStatement n ) {
+			header( Tag.SOLICIT_RESPONSE_FORWARD, n );
+			writeString( n.outputPortName() );
+			writeVariablePathNode( n.outputVariablePath() );
+			writeVariablePathNode( n.inputVariablePath() );
+		}
+
+		@Override
+		public void visit( InlineTreeExpressionNode n ) {
+			header( Tag.INLINE_TREE, n );
+			writeNode( n.rootExpression() );
+			writeInt( n.operations().length );
+			for( InlineTreeExpressionNode.Operation operation : n.operations() ) {
+				if( operation instanceof InlineTreeExpressionNode.AssignmentOperation ) {
+					writeTag( Tag.ASSIGNMENT_OPERATION );
+					writeVariablePathNode( ((InlineTreeExpressionNode.AssignmentOperation) operation).path() );
+					writeNode( ((InlineTreeExpressionNode.AssignmentOperation) operation).expression() );
+				} else if( operation instanceof InlineTreeExpressionNode.DeepCopyOperation ) {
+					writeTag( Tag.DEEP_COPY_OPERATION );
+					writeVariablePathNode( ((InlineTreeExpressionNode.DeepCopyOperation) operation).path() );
+					writeNode( ((InlineTreeExpressionNode.DeepCopyOperation) operation).expression() );
+				} else if( operation instanceof InlineTreeExpressionNode.PointsToOperation ) {
+					writeTag( Tag.POINTS_TO_OPERATION );
+					writeVariablePathNode( ((InlineTreeExpressionNode.PointsToOperation) operation).path() );
+					writeVariablePathNode( ((InlineTreeExpressionNode.PointsToOperation) operation).target() );
+				} else {
+					throw new IllegalArgumentException(
+						"Unsupported inline tree operation: " + operation.getClass().getName() );
+				}
+			}
+		}
+
+		@Override
+		public void visit( VoidExpressionNode n ) {
+			header( Tag.VOID_EXPRESSION, n );
+		}
+
+		@Override
+		public void visit( ProvideUntilStatement n ) {
+			header( Tag.PROVIDE_UNTIL, n );
+			writeNode( n.provide() );
+			writeNode( n.until() );
+		}
+
+		@Override
+		public void visit( ImportStatement n ) {
+			header( Tag.IMPORT, n );
+			writeInt( n.importTarget().size() );
+			for( String s : n.importTarget() ) {
+				writeString( s );
+			}
+			writeBoolean( n.isNamespaceImport() );
+			if( !n.isNamespaceImport() ) {
+				writeInt( n.importSymbolTargets().length );
+				for( ImportSymbolTarget target : n.importSymbolTargets() ) {
+					writeString( target.originalSymbolName() );
+					writeString( target.localSymbolName() );
+				}
+			}
+		}
+
+		@Override
+		public void visit( ServiceNode n ) {
+			header( Tag.SERVICE, n );
+			writeString( n.name() );
+			writeEnum( n.accessModifier() );
+			writeNode( n.program() );
+			writeBoolean( n.parameterConfiguration().isPresent() );
+			n.parameterConfiguration().ifPresent( parameter -> {
+				writeString( parameter.variablePath() );
+				writeNode( parameter.type() );
+			} );
+			writeEnum( n.type() );
+			writeStringMap( n.implementationConfiguration() );
+		}
+
+		@Override
+		public void visit( EmbedServiceNode n ) {
+			header( Tag.EMBED_SERVICE, n );
+			writeString( n.serviceName() );
+			writeNode( n.bindingPort() );
+			writeBoolean( n.isNewPort() );
+			writeNode( n.passingParameter() );
+			writeNode( n.service() );
+		}
+	}
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package http.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import jolie.net.http.HttpParser;
+import jolie.runtime.FaultException;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.embedding.RequestResponse;
+
+/**
+ * Measures HttpParser alone, on messages read from memory, so that benchmarks can tell the cost of
+ * parsing apart from the rest of the work done by the interpreter for each message.
+ */
+public class HttpParserBenchmark extends JavaService {
+	/**
+	 * Parses the message in request (a whole HTTP message, encoded in ISO-8859-1) request.messages
+	 * times, after as many parses to warm up the JVM. The messages are read one after the other from
+	 * the same stream, as pipelined messages are.
+	 *
+	 * @return the average time (response.nanos) and the average number of bytes allocated
+	 *         (response.allocated, -1 if the JVM does not tell) to parse one message
+	 */
+	@RequestResponse
+	public Value parse( Value request )
+		throws FaultException {
+		final byte[] message = request.strValue().getBytes( StandardCharsets.ISO_8859_1 );
+		final int messages = request.getFirstChild( "messages" ).intValue();
+		try {
+			run( message, messages );
+			final long allocatedBefore = allocatedBytes();
+			final long start = System.nanoTime();
+			run( message, messages );
+			final long nanos = System.nanoTime() - start;
+			final long allocatedAfter = allocatedBytes();
+
+			final Value response = Value.create();
+			response.getFirstChild( "nanos" ).setValue( nanos / messages );
+			response.getFirstChild( "allocated" ).setValue(
+				allocatedBefore < 0 ? -1L : (allocatedAfter - allocatedBefore) / messages );
+			return response;
+		} catch( IOException e ) {
+			throw new FaultException( "IOException", e );
+		}
+	}
+
+	private static void run( byte[] message, int messages )
+		throws IOException {
+		final HttpParser parser = new HttpParser( new RepeatingInputStream( message, messages ) );
+		for( int i = 0; i < messages; i++ ) {
+			parser.parse();
+		}
+	}
+
+	private static long allocatedBytes() {
+		final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if( threadBean instanceof com.sun.management.ThreadMXBean ) {
+			final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadBean;
+			if( sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled() ) {
+				return sunBean.getThreadAllocatedBytes( Thread.currentThread().getId() );
+			}
+		}
+		return -1L;
+	}
+
+	/**
+	 * Reads the same bytes a given number of times, without allocating.
+	 */
+	private static class RepeatingInputStream extends InputStream {
+		private final byte[] bytes;
+		private int remaining;
+		private int position = 0;
+
+		private RepeatingInputStream( byte[] bytes, int times ) {
+			this.bytes = bytes;
+			this.remaining = times;
+		}
+
+		@Override
+		public int read() {
+			if( remaining == 0 ) {
+				return -1;
+			}
+			final int b = bytes[ position++ ] & 0xFF;
+			if( position == bytes.length ) {
+				position = 0;
+				remaining--;
+			}
+			return b;
+		}
+
+		@Override
+		public int read( byte[] b, int off, int len ) {
+			if( len == 0 ) {
+				return 0;
+			}
+			if( remaining == 0 ) {
+				return -1;
+			}
+			final int n = Math.min( len, bytes.length - position );
+			System.arraycopy( bytes, position, b, off, n );
+			position += n;
+			if( position == bytes.length ) {
+				position = 0;
+				remaining--;
+			}
+			return n;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package http.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import jolie.runtime.FaultException;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.embedding.RequestResponse;
+
+/**
+ * Sends bytes to a TCP server exactly as given, so that tests can send messages that Jolie
+ * protocols would never produce.
+ */
+public class RawSocket extends JavaService {
+	private static final int DEFAULT_TIMEOUT = 5000;
+
+	/**
+	 * Connects to request.host (default: localhost) at request.port, sends every request.part, each
+	 * repeated part.times times (default: 1) and encoded in ISO-8859-1, and returns what the server
+	 * sends back until it closes the connection or stays silent for request.timeout milliseconds.
+	 */
+	@RequestResponse
+	public String exchange( Value request )
+		throws FaultException {
+		final String host = request.hasChildren( "host" ) ? request.getFirstChild( "host" ).strValue() : "localhost";
+		final int timeout =
+			request.hasChildren( "timeout" ) ? request.getFirstChild( "timeout" ).intValue() : DEFAULT_TIMEOUT;
+		try( Socket socket = new Socket() ) {
+			socket.connect( new InetSocketAddress( host, request.getFirstChild( "port" ).intValue() ), timeout );
+			socket.setSoTimeout( timeout );
+			final OutputStream out = socket.getOutputStream();
+			try {
+				for( Value part : request.getChildren( "part" ) ) {
+					final byte[] bytes = part.strValue().getBytes( StandardCharsets.ISO_8859_1 );
+					final int times = part.hasChildren( "times" ) ? part.getFirstChild( "times" ).intValue() : 1;
+					for( int i = 0; i < times; i++ ) {
+						out.write( bytes );
+					}
+				}
+				out.flush();
+			} catch( IOException e ) {
+				// The server may close the connection before reading everything, which some tests expect
+			}
+
+			final ByteArrayOutputStream response = new ByteArrayOutputStream();
+			final InputStream in = socket.getInputStream();
+			final byte[] buffer = new byte[ 8192 ];
+			try {
+				int read;
+				while( (read = in.read( buffer )) > 0 ) {
+					response.write( buffer, 0, read );
+				}
+			} catch( SocketTimeoutException e ) {
+				// The server kept the connection open
+			} catch( IOException e ) {
+				// Connection reset, after rejecting the message
+			}
+			return new String( response.toByteArray(), StandardCharsets.ISO_8859_1 );
+		} catch( IOException e ) {
+			throw new FaultException( "IOException", e );
+		}
+	}
+}
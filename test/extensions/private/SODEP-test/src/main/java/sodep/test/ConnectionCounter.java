@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package sodep.test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.Map;
+import jolie.runtime.FaultException;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.embedding.RequestResponse;
+
+/**
+ * TCP proxies that count the connections going through them, so that tests can see how many
+ * connections a client opens towards a server, and when it closes them.
+ */
+public class ConnectionCounter extends JavaService {
+	private final Map< Integer, Proxy > proxies = new HashMap<>();
+
+	/**
+	 * Starts a proxy that accepts connections on request.port and forwards each of them to a new
+	 * connection to request.target, both on the local host.
+	 */
+	@RequestResponse
+	public void start( Value request )
+		throws FaultException {
+		final int port = request.getFirstChild( "port" ).intValue();
+		final Proxy proxy;
+		synchronized( proxies ) {
+			if( proxies.containsKey( port ) ) {
+				throw new FaultException( "IOException", "A proxy is already listening on port " + port );
+			}
+			try {
+				proxy = new Proxy( new ServerSocket( port, 50, InetAddress.getLoopbackAddress() ),
+					request.getFirstChild( "target" ).intValue() );
+			} catch( IOException e ) {
+				throw new FaultException( "IOException", e );
+			}
+			proxies.put( port, proxy );
+		}
+		startDaemon( proxy::accept );
+	}
+
+	/**
+	 * Returns the number of connections currently open (response.open), the highest number of
+	 * connections open at the same time (response.peak) and the number of connections accepted
+	 * (response.accepted) by the proxy listening on request.port.
+	 */
+	@RequestResponse
+	public Value connections( Value request )
+		throws FaultException {
+		final int port = request.getFirstChild( "port" ).intValue();
+		final Proxy proxy;
+		synchronized( proxies ) {
+			proxy = proxies.get( port );
+		}
+		if( proxy == null ) {
+			throw new FaultException( "IOException", "No proxy is listening on port " + port );
+		}
+		final Value response = Value.create();
+		synchronized( proxy ) {
+			response.getFirstChild( "open" ).setValue( proxy.open );
+			response.getFirstChild( "peak" ).setValue( proxy.peak );
+			response.getFirstChild( "accepted" ).setValue( proxy.accepted );
+		}
+		return response;
+	}
+
+	/**
+	 * Stops all the proxies from accepting connections. The connections already open are left open.
+	 */
+	@RequestResponse
+	public void stop( Value request ) {
+		synchronized( proxies ) {
+			proxies.values().forEach( proxy -> close( proxy.serverSocket ) );
+			proxies.clear();
+		}
+	}
+
+	private static class Proxy {
+		private final ServerSocket serverSocket;
+		private final int target;
+		private int open = 0;
+		private int peak = 0;
+		private int accepted = 0;
+
+		private Proxy( ServerSocket serverSocket, int target ) {
+			this.serverSocket = serverSocket;
+			this.target = target;
+		}
+
+		private void accept() {
+			try {
+				while( true ) {
+					final Socket client = serverSocket.accept();
+					final Socket server;
+					try {
+						server = new Socket( InetAddress.getLoopbackAddress(), target );
+					} catch( IOException e ) {
+						close( client );
+						continue;
+					}
+					synchronized( this ) {
+						accepted++;
+						open++;
+						peak = Math.max( peak, open );
+					}
+					final Connection connection = new Connection( client, server );
+					startDaemon( () -> connection.pump( client, server ) );
+					startDaemon( () -> connection.pump( server, client ) );
+				}
+			} catch( IOException e ) {
+				// The proxy was stopped
+			}
+		}
+
+		private class Connection {
+			private final Socket client;
+			private final Socket server;
+			private boolean closed = false;
+
+			private Connection( Socket client, Socket server ) {
+				this.client = client;
+				this.server = server;
+			}
+
+			private void pump( Socket from, Socket to ) {
+				final byte[] buffer = new byte[ 8192 ];
+				try {
+					final InputStream in = from.getInputStream();
+					final OutputStream out = to.getOutputStream();
+					int read;
+					while( (read = in.read( buffer )) >= 0 ) {
+						out.write( buffer, 0, read );
+						out.flush();
+					}
+				} catch( IOException e ) {
+					// Broken connection, or closed by the other direction
+				} finally {
+					close();
+				}
+			}
+
+			// Either side closing the connection closes both
+			private void close() {
+				synchronized( Proxy.this ) {
+					if( closed ) {
+						return;
+					}
+					closed = true;
+					open--;
+				}
+				ConnectionCounter.close( client );
+				ConnectionCounter.close( server );
+			}
+		}
+	}
+
+	private static void startDaemon( Runnable task ) {
+		final Thread thread = new Thread( task, "ConnectionCounter" );
+		thread.setDaemon( true );
+		thread.start();
+	}
+
+	private static void close( AutoCloseable closeable ) {
+		try {
+			closeable.close();
+		} catch( Exception e ) {
+			// Already closed
+		}
+	}
+}
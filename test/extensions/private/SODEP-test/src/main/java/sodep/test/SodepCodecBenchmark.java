@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package sodep.test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import jolie.net.CommMessage;
+import jolie.net.SodepProtocol;
+import jolie.runtime.ByteArray;
+import jolie.runtime.FaultException;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.VariablePathBuilder;
+import jolie.runtime.embedding.RequestResponse;
+
+/**
+ * Measures the encoding of messages by the sodep protocol alone, writing them to a stream that
+ * discards them, so that benchmarks can tell the cost of encoding apart from the rest of the work
+ * done by the interpreter for each message.
+ */
+public class SodepCodecBenchmark extends JavaService {
+	/**
+	 * Encodes request.messages times, after as many encodings to warm up the JVM, a message holding a
+	 * byte array of request.size bytes and request.children children with short string values.
+	 *
+	 * @return the average time (response.nanos) and the average number of bytes allocated
+	 *         (response.allocated, -1 if the JVM does not tell) to encode one message
+	 */
+	@RequestResponse
+	public Value encode( Value request )
+		throws FaultException {
+		final Value value = Value.create( new ByteArray( new byte[ request.getFirstChild( "size" ).intValue() ] ) );
+		final int children = request.getFirstChild( "children" ).intValue();
+		for( int i = 0; i < children; i++ ) {
+			value.getNewChild( "child" ).setValue( "value" + i );
+		}
+		final CommMessage message = CommMessage.createRequest( "encode", "/", value );
+		final int messages = request.getFirstChild( "messages" ).intValue();
+		final SodepProtocol protocol =
+			new SodepProtocol( new VariablePathBuilder( false ).add( "configuration", 0 )
+				.toClosedVariablePath( Value.create() ) );
+		final NullOutputStream ostream = new NullOutputStream();
+		try {
+			run( protocol, ostream, message, messages );
+			final long allocatedBefore = allocatedBytes();
+			final long start = System.nanoTime();
+			run( protocol, ostream, message, messages );
+			final long nanos = System.nanoTime() - start;
+			final long allocatedAfter = allocatedBytes();
+
+			final Value response = Value.create();
+			response.getFirstChild( "nanos" ).setValue( nanos / messages );
+			response.getFirstChild( "allocated" ).setValue(
+				allocatedBefore < 0 ? -1L : (allocatedAfter - allocatedBefore) / messages );
+			response.getFirstChild( "bytes" ).setValue( ostream.count / (2L * messages) );
+			return response;
+		} catch( IOException e ) {
+			throw new FaultException( "IOException", e );
+		}
+	}
+
+	private static void run( SodepProtocol protocol, OutputStream ostream, CommMessage message,
+		int messages )
+		throws IOException {
+		for( int i = 0; i < messages; i++ ) {
+			protocol.send( ostream, message, null );
+		}
+	}
+
+	private static long allocatedBytes() {
+		final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+		if( threadBean instanceof com.sun.management.ThreadMXBean ) {
+			final com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) threadBean;
+			if( sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled() ) {
+				return sunBean.getThreadAllocatedBytes( Thread.currentThread().getId() );
+			}
+		}
+		return -1L;
+	}
+
+	/**
+	 * Counts the bytes written to it, and discards them.
+	 */
+	private static class NullOutputStream extends OutputStream {
+		private long count = 0;
+
+		@Override
+		public void write( int b ) {
+			count++;
+		}
+
+		@Override
+		public void write( byte[] b, int off, int len ) {
+			count += len;
+		}
+	}
+}
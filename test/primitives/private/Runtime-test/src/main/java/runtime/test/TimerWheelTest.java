@@ -0,0 +1,194 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package runtime.test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import jolie.runtime.FaultException;
+import jolie.runtime.JavaService;
+import jolie.runtime.TimerWheel;
+import jolie.runtime.embedding.RequestResponse;
+
+/**
+ * Checks the scheduling, cancellation and expiration of timeouts in a {@link TimerWheel}, with a
+ * wheel small enough that the delays of the checks span all of its levels. Each operation throws a
+ * TestFailed fault describing the first failed check.
+ */
+public class TimerWheelTest extends JavaService {
+	private static final long TICK = 5;
+	private static final int TICKS_PER_WHEEL = 4;
+	// Each level spans TICKS_PER_WHEEL times the ticks of the level below it
+	private static final long[] LEVEL_SPANS = { 4 * TICK, 16 * TICK, 64 * TICK, 256 * TICK };
+	// Timeouts expire with a precision of one tick, plus the time the wheel thread takes to wake up
+	private static final long LATENESS = 500;
+
+	/**
+	 * Schedules timeouts in every level of the wheel, and beyond its range, and checks that each one
+	 * expires after its delay, in the order of the delays.
+	 */
+	@RequestResponse
+	public void expiration()
+		throws FaultException {
+		final TimerWheel wheel = new TimerWheel( "TimerWheelTest", TICK, TICKS_PER_WHEEL, 1 );
+		try {
+			final long[] delays = { 0, LEVEL_SPANS[ 0 ] / 2, LEVEL_SPANS[ 1 ] / 2, LEVEL_SPANS[ 2 ] / 2,
+				LEVEL_SPANS[ 3 ] / 2, LEVEL_SPANS[ 3 ] + 100 };
+			final long[] expirations = new long[ delays.length ];
+			final ConcurrentLinkedQueue< Integer > order = new ConcurrentLinkedQueue<>();
+			final CountDownLatch latch = new CountDownLatch( delays.length );
+			final long start = System.nanoTime();
+			for( int i = delays.length - 1; i >= 0; i-- ) {
+				final int index = i;
+				wheel.schedule( () -> {
+					expirations[ index ] = TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - start );
+					order.add( index );
+					latch.countDown();
+				}, delays[ i ] );
+			}
+			await( latch, delays[ delays.length - 1 ] + LATENESS, "timeouts did not expire" );
+			for( int i = 0; i < delays.length; i++ ) {
+				check( expirations[ i ] >= delays[ i ] - TICK && expirations[ i ] <= delays[ i ] + LATENESS,
+					"the timeout with delay " + delays[ i ] + " ms expired after " + expirations[ i ] + " ms" );
+			}
+			final List< Integer > expected = new ArrayList<>();
+			for( int i = 0; i < delays.length; i++ ) {
+				expected.add( i );
+			}
+			check( expected.equals( new ArrayList<>( order ) ),
+				"timeouts expired in the order " + order + " instead of the order of their delays" );
+		} finally {
+			wheel.stop();
+		}
+	}
+
+	/**
+	 * Cancels timeouts before the wheel has taken them, and after it has placed them in each of its
+	 * levels, and checks that only the timeouts that were not cancelled are run. The ticks of this
+	 * wheel are longer, so that timeouts can be cancelled while they are in the first level.
+	 */
+	@RequestResponse
+	public void cancellation()
+		throws FaultException {
+		final long tick = 200;
+		final TimerWheel wheel = new TimerWheel( "TimerWheelTest", tick, TICKS_PER_WHEEL, 1 );
+		try {
+			// In the first level, in each of the other levels, and beyond the range of the wheel
+			final long[] delays = { 3 * tick, 10 * tick, 40 * tick, 160 * tick, 1000 * tick };
+			final AtomicInteger cancelledRuns = new AtomicInteger();
+			final List< TimerWheel.Timeout > early = new ArrayList<>();
+			final List< TimerWheel.Timeout > late = new ArrayList<>();
+			final CountDownLatch firstLevel = new CountDownLatch( 1 );
+			final CountDownLatch kept = new CountDownLatch( delays.length );
+			for( long delay : delays ) {
+				for( int i = 0; i < 100; i++ ) {
+					early.add( wheel.schedule( cancelledRuns::incrementAndGet, delay ) );
+					late.add( wheel.schedule( cancelledRuns::incrementAndGet, delay ) );
+				}
+				wheel.schedule( kept::countDown, delay );
+			}
+			wheel.schedule( firstLevel::countDown, delays[ 0 ] );
+
+			for( TimerWheel.Timeout timeout : early ) {
+				timeout.cancel();
+			}
+			// Let the wheel place the other timeouts in its levels
+			sleep( tick + tick / 2 );
+			for( TimerWheel.Timeout timeout : late ) {
+				timeout.cancel();
+				check( timeout.isCancelled(), "a cancelled timeout is not marked as cancelled" );
+			}
+
+			await( firstLevel, delays[ 0 ] + LATENESS, "a timeout that was not cancelled did not expire" );
+			// Runs the timeouts that are still pending
+			wheel.stop( true );
+			check( kept.getCount() == 0, kept.getCount() + " timeouts that were not cancelled were not run" );
+			check( cancelledRuns.get() == 0, cancelledRuns.get() + " cancelled timeouts were run" );
+		} finally {
+			wheel.stop();
+		}
+	}
+
+	/**
+	 * Schedules timeouts from many threads, in a wheel with several shards, and checks that they all
+	 * expire, and that the pending ones are run when the wheel is stopped.
+	 */
+	@RequestResponse
+	public void concurrency()
+		throws FaultException {
+		final TimerWheel wheel = new TimerWheel( "TimerWheelTest", TICK, TICKS_PER_WHEEL, 4 );
+		final int threads = 16;
+		final int timeoutsPerThread = 1000;
+		final CountDownLatch expired = new CountDownLatch( threads * timeoutsPerThread );
+		final CountDownLatch pending = new CountDownLatch( threads );
+		final List< Thread > schedulers = new ArrayList<>();
+		for( int t = 0; t < threads; t++ ) {
+			final Thread thread = new Thread( () -> {
+				for( int i = 0; i < timeoutsPerThread; i++ ) {
+					wheel.schedule( expired::countDown, i % LEVEL_SPANS[ 1 ] );
+				}
+				wheel.schedule( pending::countDown, 60000 );
+			} );
+			schedulers.add( thread );
+			thread.start();
+		}
+		try {
+			for( Thread thread : schedulers ) {
+				thread.join();
+			}
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new FaultException( "TestFailed", "interrupted" );
+		}
+		await( expired, LEVEL_SPANS[ 1 ] + LATENESS, expired.getCount() + " timeouts did not expire" );
+		wheel.stop( true );
+		check( pending.getCount() == 0, pending.getCount() + " pending timeouts were not run when stopping the wheel" );
+	}
+
+	private static void check( boolean condition, String message )
+		throws FaultException {
+		if( !condition ) {
+			throw new FaultException( "TestFailed", "TimerWheel: " + message );
+		}
+	}
+
+	private static void await( CountDownLatch latch, long millis, String message )
+		throws FaultException {
+		try {
+			check( latch.await( millis, TimeUnit.MILLISECONDS ), message );
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new FaultException( "TestFailed", "interrupted" );
+		}
+	}
+
+	private static void sleep( long millis )
+		throws FaultException {
+		try {
+			Thread.sleep( millis );
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new FaultException( "TestFailed", "interrupted" );
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package runtime.test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.ValueVector;
+import jolie.runtime.embedding.RequestResponse;
+
+/**
+ * Measures the memory held by value trees, and the time to build, copy and traverse them, apart
+ * from the rest of the work done by the interpreter. The trees are payloads of records like those
+ * of typical messages: six fields and a nested address of three fields.
+ */
+public class ValueTreeBenchmark extends JavaService {
+	private static final int ROUNDS = 20;
+
+	/**
+	 * Builds a payload of request.records records, and copies and traverses it. The times are the best
+	 * of a few rounds, after as many rounds to warm up the JVM.
+	 *
+	 * @return the heap retained per record (response.bytesPerRecord) and by the whole payload
+	 *         (response.payloadBytes), the nodes in the payload (response.nodes), and the time to build
+	 *         (response.buildNanos), deep copy (response.copyNanos) and traverse
+	 *         (response.traverseNanos) the payload
+	 */
+	@RequestResponse
+	public Value payload( Value request ) {
+		final int records = request.getFirstChild( "records" ).intValue();
+		final Value response = Value.create();
+
+		final long before = usedHeap();
+		Value payload = buildPayload( records );
+		final long retained = usedHeap() - before;
+		response.getFirstChild( "payloadBytes" ).setValue( retained );
+		response.getFirstChild( "bytesPerRecord" ).setValue( retained / records );
+		response.getFirstChild( "nodes" ).setValue( countNodes( payload ) );
+
+		long build = Long.MAX_VALUE;
+		long copy = Long.MAX_VALUE;
+		long traverse = Long.MAX_VALUE;
+		for( int round = 0; round < 2 * ROUNDS; round++ ) {
+			long start = System.nanoTime();
+			payload = buildPayload( records );
+			final long buildTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			final Value copied = Value.createDeepCopy( payload );
+			final long copyTime = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			final long nodes = countNodes( copied );
+			final long traverseTime = System.nanoTime() - start;
+
+			if( round >= ROUNDS && nodes > 0 ) {
+				build = Math.min( build, buildTime );
+				copy = Math.min( copy, copyTime );
+				traverse = Math.min( traverse, traverseTime );
+			}
+		}
+		response.getFirstChild( "buildNanos" ).setValue( build );
+		response.getFirstChild( "copyNanos" ).setValue( copy );
+		response.getFirstChild( "traverseNanos" ).setValue( traverse );
+		return response;
+	}
+
+	private static Value buildPayload( int records ) {
+		final Value payload = Value.create();
+		final ValueVector vector = payload.getChildren( "record" );
+		for( int i = 0; i < records; i++ ) {
+			final Value record = Value.create();
+			record.getFirstChild( "id" ).setValue( i );
+			record.getFirstChild( "name" ).setValue( "name" + i );
+			record.getFirstChild( "email" ).setValue( "user" + i + "@example.com" );
+			record.getFirstChild( "age" ).setValue( 20 + i % 50 );
+			record.getFirstChild( "score" ).setValue( i * 0.5 );
+			record.getFirstChild( "active" ).setValue( i % 2 == 0 );
+			final Value address = record.getFirstChild( "address" );
+			address.getFirstChild( "street" ).setValue( "Street " + i );
+			address.getFirstChild( "city" ).setValue( "Odense" );
+			address.getFirstChild( "zip" ).setValue( "5230" );
+			vector.add( record );
+		}
+		return payload;
+	}
+
+	private static long countNodes( Value value ) {
+		long nodes = 1;
+		for( Map.Entry< String, ValueVector > entry : value.children().entrySet() ) {
+			for( Value child : entry.getValue() ) {
+				nodes += countNodes( child );
+			}
+		}
+		return nodes;
+	}
+
+	private static long usedHeap() {
+		final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+		for( int i = 0; i < 3; i++ ) {
+			memory.gc();
+		}
+		return memory.getHeapMemoryUsage().getUsed();
+	}
+}
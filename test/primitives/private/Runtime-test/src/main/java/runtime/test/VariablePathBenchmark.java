@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package runtime.test;
+
+import jolie.process.TransformationReason;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.VariablePath;
+import jolie.runtime.embedding.RequestResponse;
+import jolie.runtime.expression.Expression;
+
+/**
+ * Measures the resolution of variable paths alone, against a tree held by this service, so that
+ * benchmarks can tell the cost of resolving paths apart from the rest of the work done by the
+ * interpreter to run a statement.
+ */
+public class VariablePathBenchmark extends JavaService {
+	private static final int INDICES = 10;
+
+	// The values of the dynamic segments of the paths, which the paths evaluate on each lookup
+	private final Value key = Value.create( "b" );
+	private final Value index = Value.create( 0 );
+
+	/**
+	 * Resolves a.b.c[i], with constant segments, with a dynamic index (a.b.c[i]) and with a dynamic key
+	 * (a.(k).c[i]), request.lookups times each, after as many lookups to warm up the JVM.
+	 *
+	 * @return the average time to resolve each path once, in response.constant, response.dynamicIndex
+	 *         and response.dynamicKey
+	 */
+	@RequestResponse
+	public Value resolve( Value request ) {
+		final int lookups = request.getFirstChild( "lookups" ).intValue();
+		final Value root = Value.create();
+		for( int i = 0; i < INDICES; i++ ) {
+			root.getFirstChild( "a" ).getFirstChild( "b" ).getChildren( "c" ).get( i ).setValue( i );
+		}
+		final VariablePath[] constant = new VariablePath[ INDICES ];
+		for( int i = 0; i < INDICES; i++ ) {
+			constant[ i ] = VariablePaths.create( Value.create( "a" ), null, Value.create( "b" ), null,
+				Value.create( "c" ), Value.create( i ) );
+		}
+		final VariablePath[] dynamicIndex =
+			{ VariablePaths.create( Value.create( "a" ), null, Value.create( "b" ), null,
+				Value.create( "c" ), new ValueExpression( index ) ) };
+		final VariablePath[] dynamicKey =
+			{ VariablePaths.create( Value.create( "a" ), null, new ValueExpression( key ), null,
+				Value.create( "c" ), new ValueExpression( index ) ) };
+
+		final Value response = Value.create();
+		response.getFirstChild( "constant" ).setValue( measure( constant, root, lookups ) );
+		response.getFirstChild( "dynamicIndex" ).setValue( measure( dynamicIndex, root, lookups ) );
+		response.getFirstChild( "dynamicKey" ).setValue( measure( dynamicKey, root, lookups ) );
+		return response;
+	}
+
+	private long measure( VariablePath[] paths, Value root, int lookups ) {
+		run( paths, root, lookups );
+		final long start = System.nanoTime();
+		final long sum = run( paths, root, lookups );
+		final long nanos = System.nanoTime() - start;
+		// Using the sum keeps the JIT from removing the lookups
+		return sum < 0 ? -1L : nanos / lookups;
+	}
+
+	private long run( VariablePath[] paths, Value root, int lookups ) {
+		long sum = 0;
+		for( int i = 0; i < lookups; i++ ) {
+			index.setValue( i % INDICES );
+			sum += paths[ i % paths.length ].getValue( root ).intValue();
+		}
+		return sum;
+	}
+
+	/**
+	 * An expression returning a given value. Unlike the value itself, the paths evaluate it on each
+	 * lookup, as they do with variables and other expressions.
+	 */
+	private static class ValueExpression implements Expression {
+		private final Value value;
+
+		private ValueExpression( Value value ) {
+			this.value = value;
+		}
+
+		@Override
+		public Value evaluate() {
+			return value;
+		}
+
+		@Override
+		public Expression cloneExpression( TransformationReason reason ) {
+			return this;
+		}
+	}
+}
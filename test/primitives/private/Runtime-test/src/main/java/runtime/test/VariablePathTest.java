@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package runtime.test;
+
+import jolie.process.TransformationReason;
+import jolie.runtime.FaultException;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.VariablePath;
+import jolie.runtime.embedding.RequestResponse;
+import jolie.runtime.expression.Expression;
+
+/**
+ * Checks how a {@link VariablePath} resolves its segments: constant keys and indices are resolved
+ * once, when the path is created, while the expressions of dynamic segments (as in a.(k) and a[i])
+ * are evaluated on every access. Each operation throws a TestFailed fault describing the first
+ * failed check.
+ */
+public class VariablePathTest extends JavaService {
+	private static final int ACCESSES = 10;
+
+	/**
+	 * Resolves a.b[1] many times, after changing the values that the path was created with, and checks
+	 * that the path still refers to a.b[1].
+	 */
+	@RequestResponse
+	public void constantSegments()
+		throws FaultException {
+		final Value a = Value.create( "a" );
+		final Value b = Value.create( "b" );
+		final Value one = Value.create( 1 );
+		final VariablePath path = VariablePaths.create( a, null, b, one );
+		final Value root = Value.create();
+		root.getFirstChild( "a" ).getChildren( "b" ).get( 1 ).setValue( "found" );
+
+		a.setValue( "x" );
+		b.setValue( "y" );
+		one.setValue( 0 );
+		for( int i = 0; i < ACCESSES; i++ ) {
+			check( "found".equals( path.getValue( root ).strValue() ),
+				"a constant path was resolved to a different node after its segments changed" );
+		}
+	}
+
+	/**
+	 * Resolves a.(k)[i] many times, changing k and i between accesses, and checks that the key and the
+	 * index are evaluated on every access, and the path resolved to the node they name.
+	 */
+	@RequestResponse
+	public void dynamicSegments()
+		throws FaultException {
+		final CountingExpression key = new CountingExpression();
+		final CountingExpression index = new CountingExpression();
+		final VariablePath path = VariablePaths.create( Value.create( "a" ), null, key, index );
+		final Value root = Value.create();
+
+		for( int i = 0; i < ACCESSES; i++ ) {
+			key.value = Value.create( "k" + i % 2 );
+			index.value = Value.create( i );
+			path.getValue( root ).setValue( i );
+		}
+		check( key.evaluations == ACCESSES,
+			"a dynamic key was evaluated " + key.evaluations + " times in " + ACCESSES + " accesses" );
+		check( index.evaluations == ACCESSES,
+			"a dynamic index was evaluated " + index.evaluations + " times in " + ACCESSES + " accesses" );
+		final Value a = root.getFirstChild( "a" );
+		for( int i = 0; i < ACCESSES; i++ ) {
+			check( a.getChildren( "k" + i % 2 ).get( i ).intValue() == i,
+				"the access with k = k" + i % 2 + " and i = " + i + " was not resolved to a.(k)[i]" );
+		}
+	}
+
+	private static void check( boolean condition, String message )
+		throws FaultException {
+		if( !condition ) {
+			throw new FaultException( "TestFailed", "VariablePath: " + message );
+		}
+	}
+
+	/**
+	 * An expression returning a given value, which counts how many times it is evaluated.
+	 */
+	private static class CountingExpression implements Expression {
+		private Value value;
+		private int evaluations = 0;
+
+		@Override
+		public Value evaluate() {
+			evaluations++;
+			return value;
+		}
+
+		@Override
+		public Expression cloneExpression( TransformationReason reason ) {
+			return this;
+		}
+	}
+}
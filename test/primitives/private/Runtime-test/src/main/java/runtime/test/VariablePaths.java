@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package runtime.test;
+
+import jolie.runtime.VariablePath;
+import jolie.runtime.expression.Expression;
+import jolie.util.Pair;
+
+/**
+ * Creates the variable paths used by the tests and benchmarks of this package.
+ */
+final class VariablePaths {
+	private VariablePaths() {}
+
+	/**
+	 * Returns the path made of the given segments, given as the key and the index (null for none) of
+	 * each segment in turn.
+	 */
+	@SuppressWarnings( "unchecked" )
+	static VariablePath create( Expression... segments ) {
+		final Pair< Expression, Expression >[] path =
+			(Pair< Expression, Expression >[]) new Pair< ?, ? >[ segments.length / 2 ];
+		for( int i = 0; i < path.length; i++ ) {
+			path[ i ] = new Pair<>( segments[ 2 * i ], segments[ 2 * i + 1 ] );
+		}
+		return new VariablePath( path );
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2026 agent <agent@local>
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston,
+ * MA 02110-1301  USA
+ */
+
+package runtime.test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import jolie.VirtualThreads;
+import jolie.runtime.FaultException;
+import jolie.runtime.JavaService;
+import jolie.runtime.Value;
+import jolie.runtime.embedding.RequestResponse;
+
+/**
+ * Checks the virtual-thread execution mode of the interpreter that loads this service, and
+ * {@link VirtualThreads} on the running JVM, which may or may not support virtual threads. Each
+ * operation throws a TestFailed fault describing the first failed check.
+ */
+public class VirtualThreadsTest extends JavaService {
+	/**
+	 * Returns whether the JVM supports virtual threads (response.supported) and whether the interpreter
+	 * uses them (response.used).
+	 */
+	@RequestResponse
+	public Value mode() {
+		final Value response = Value.create();
+		response.getFirstChild( "supported" ).setValue( VirtualThreads.isSupported() );
+		response.getFirstChild( "used" ).setValue( interpreter().usesVirtualThreads() );
+		return response;
+	}
+
+	/**
+	 * Checks that the executors of {@link VirtualThreads} run tasks with their stand-in threads as the
+	 * current thread of the interpreter, or that they can not be created if the JVM does not support
+	 * virtual threads.
+	 */
+	@RequestResponse
+	public void executor()
+		throws FaultException {
+		final ExecutorService executor;
+		try {
+			executor = VirtualThreads.newExecutor( task -> new Thread( task, "stand-in" ) );
+		} catch( UnsupportedOperationException e ) {
+			check( !VirtualThreads.isSupported(), "no executor was created although virtual threads are supported" );
+			return;
+		}
+		check( VirtualThreads.isSupported(), "an executor was created although virtual threads are not supported" );
+		final String name;
+		try {
+			final Future< String > future = executor.submit( () -> VirtualThreads.currentThread().getName() );
+			name = future.get( 10, TimeUnit.SECONDS );
+		} catch( Exception e ) {
+			throw new FaultException( "TestFailed", "VirtualThreads: a task failed: " + e );
+		} finally {
+			executor.shutdown();
+		}
+		check( "stand-in".equals( name ), "a task saw " + name + " instead of its stand-in thread" );
+		check( VirtualThreads.currentThread() == Thread.currentThread(),
+			"a thread not started by the executor did not see itself as the current thread" );
+	}
+
+	private static void check( boolean condition, String message )
+		throws FaultException {
+		if( !condition ) {
+			throw new FaultException( "TestFailed", "VirtualThreads: " + message );
+		}
+	}
+}
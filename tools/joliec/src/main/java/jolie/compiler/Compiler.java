@@ -23,16 +23,32 @@ package jolie.compiler;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.net.URI;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import jolie.Interpreter;
 import jolie.cli.CommandLineException;
 import jolie.cli.CommandLineParser;
 import jolie.JolieURLStreamHandlerFactory;
 import jolie.lang.CodeCheckingException;
+import jolie.lang.Constants;
+import jolie.lang.parse.OLParseTreeOptimizer;
 import jolie.lang.parse.ParserException;
+import jolie.lang.parse.SemanticVerifier;
+import jolie.lang.parse.TypeChecker;
+import jolie.lang.parse.ast.EmbedServiceNode;
+import jolie.lang.parse.ast.OLSyntaxNode;
 import jolie.lang.parse.ast.Program;
+import jolie.lang.parse.ast.ServiceNode;
 import jolie.lang.parse.module.ModuleException;
-import jolie.lang.parse.util.ParsingUtils;
+import jolie.lang.parse.module.ModuleParsingConfiguration;
+import jolie.lang.parse.module.Modules;
+import jolie.lang.parse.module.SymbolTable;
+import jolie.lang.parse.util.CompiledProgram;
+import jolie.lang.parse.util.ProgramBuilder;
 
 /**
  *
@@ -52,21 +68,74 @@ public class Compiler {
 
 	public void compile( OutputStream ostream )
 		throws IOException, ParserException, CodeCheckingException, CommandLineException, ModuleException {
-		Program program = ParsingUtils.parseProgram(
-			cmdParser.getInterpreterConfiguration().inputStream(),
-			cmdParser.getInterpreterConfiguration().programFilepath().toURI(),
-			cmdParser.getInterpreterConfiguration().charset(),
-			cmdParser.getInterpreterConfiguration().includePaths(),
-			cmdParser.getInterpreterConfiguration().packagePaths(),
-			cmdParser.getInterpreterConfiguration().jolieClassLoader(),
-			cmdParser.getInterpreterConfiguration().constants(),
-			cmdParser.getInterpreterConfiguration().executionTarget(),
-			false );
-		// GZIPOutputStream gzipstream = new GZIPOutputStream( ostream );
-		ObjectOutputStream oos = new ObjectOutputStream( ostream );
-		oos.writeObject( program );
+		final Interpreter.Configuration config = cmdParser.getInterpreterConfiguration();
+		final ModuleParsingConfiguration parsingConfiguration = new ModuleParsingConfiguration(
+			config.charset(),
+			config.includePaths(),
+			config.packagePaths(),
+			config.jolieClassLoader(),
+			config.constants(),
+			false,
+			config.moduleCacheDirectory() );
+		final Modules.ModuleParsedResult parsedResult =
+			Modules.parseModule( parsingConfiguration, config.inputStream(), config.programFilepath().toURI() );
+		final Program program = parsedResult.mainProgram();
+
+		final SemanticVerifier verifier = verify( program, parsedResult.symbolTables(), config.executionTarget(),
+			config.typeCheck() );
+
+		// Embedded Jolie services are verified by the interpreter that runs them, which has no symbol
+		// tables when the program is compiled: we verify them here instead
+		final Set< ServiceNode > embedded = Collections.newSetFromMap( new IdentityHashMap<>() );
+		final Set< ServiceNode > visited = Collections.newSetFromMap( new IdentityHashMap<>() );
+		for( OLSyntaxNode node : program.children() ) {
+			if( node instanceof ServiceNode ) {
+				collectEmbeddedServices( (ServiceNode) node, embedded, visited );
+			}
+		}
+		final Map< ServiceNode, CompiledProgram.Verification > services = new IdentityHashMap<>();
+		for( ServiceNode service : embedded ) {
+			// Same as the program built by JolieServiceNodeLoader
+			final ProgramBuilder builder = new ProgramBuilder( service.context() );
+			builder.addChild( service );
+			services.put( service, new CompiledProgram.Verification(
+				verify( OLParseTreeOptimizer.optimize( builder.toProgram() ), parsedResult.symbolTables(),
+					service.name(), config.typeCheck() ) ) );
+		}
+
+		new CompiledProgram( program, new CompiledProgram.Verification( verifier ), services, config.typeCheck(),
+			parsedResult.symbolTables().keySet() )
+				.write( ostream );
 		ostream.flush();
-		// gzipstream.close();
+	}
+
+	private static SemanticVerifier verify( Program program, Map< URI, SymbolTable > symbolTables,
+		String executionTarget, boolean typeCheck )
+		throws CodeCheckingException {
+		final SemanticVerifier verifier = new SemanticVerifier( program, symbolTables,
+			new SemanticVerifier.Configuration( executionTarget ) );
+		verifier.validate();
+		if( typeCheck
+			&& !new TypeChecker( program, verifier.executionMode(), verifier.correlationFunctionInfo() ).check() ) {
+			throw new CodeCheckingException( Collections.emptyList() );
+		}
+		return verifier;
+	}
+
+	private static void collectEmbeddedServices( ServiceNode service, Set< ServiceNode > embedded,
+		Set< ServiceNode > visited ) {
+		if( service.type() != Constants.EmbeddedServiceType.SERVICENODE || !visited.add( service ) ) {
+			return;
+		}
+		for( OLSyntaxNode node : service.program().children() ) {
+			if( node instanceof EmbedServiceNode && ((EmbedServiceNode) node).service() != null ) {
+				final ServiceNode child = ((EmbedServiceNode) node).service();
+				if( child.type() == Constants.EmbeddedServiceType.SERVICENODE ) {
+					embedded.add( child );
+				}
+				collectEmbeddedServices( child, embedded, visited );
+			}
+		}
 	}
 
 	public void compile()